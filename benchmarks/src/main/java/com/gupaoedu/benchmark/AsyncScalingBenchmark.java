@@ -0,0 +1,92 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.demo.SlowService;
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 慢服务下的并发扩展性：固定大小的"容器线程池"一次提交REQUESTS个请求，
+ * 每个请求的下游调用耗时SlowService.LATENCY_MILLIS，测量全部完成的耗时。
+ * <ul>
+ *     <li>sync：处理方法在容器线程上阻塞，约 REQUESTS * LATENCY / containerThreads</li>
+ *     <li>future：处理方法返回CompletableFuture，容器线程立即释放</li>
+ *     <li>executor：处理方法在handlerExecutor上阻塞（JDK 21+为虚拟线程）</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncScalingBenchmark {
+
+    private static final int REQUESTS = 256;
+
+    @Param({"sync", "future", "executor"})
+    public String mode;
+
+    @Param({"8"})
+    public int containerThreads;
+
+    private HttpServlet servlet;
+
+    private String uri;
+
+    private ExecutorService container;
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("executor".equals(mode)
+                ? "benchmark-slow-executor.properties" : "benchmark-slow.properties"));
+        uri = "future".equals(mode) ? "/slow/future" : "/slow/sync";
+        container = Executors.newFixedThreadPool(containerThreads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        container.shutdownNow();
+        servlet.destroy();
+        if(failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " requests failed");
+        }
+    }
+
+    @Benchmark
+    public void batch() throws Exception {
+        CountDownLatch done = new CountDownLatch(REQUESTS);
+        for(int i = 0; i < REQUESTS; i++) {
+            container.execute(() -> {
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", uri)
+                        .addParameter("name", "tom")
+                        .setAsyncSupported(true, done::countDown);
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                try {
+                    servlet.service(request, response);
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+                //同步完成的请求在这里计数，异步的在AsyncContext.complete()时计数
+                if(!request.isAsyncStarted()) {
+                    done.countDown();
+                }
+            });
+        }
+        if(!done.await(REQUESTS * SlowService.LATENCY_MILLIS * 4, TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Batch did not complete");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量接口：同样REQUESTS个下游耗时SlowService.LATENCY_MILLIS的请求，
+ * sequential逐个发出，batch合并为一次/_batch请求并行执行，约为一次下游调用的耗时
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    private static final int REQUESTS = 4;
+
+    private HttpServlet servlet;
+
+    private MockHttpServletRequest[] singles;
+
+    private MockHttpServletRequest batch;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-batch.properties"));
+        singles = new MockHttpServletRequest[REQUESTS];
+        StringBuilder body = new StringBuilder("[");
+        for(int i = 0; i < REQUESTS; i++) {
+            singles[i] = new MockHttpServletRequest("GET", "/slow/sync").addParameter("name", "tom" + i);
+            body.append(i == 0 ? "" : ",").append("{\"path\":\"/slow/sync\",\"params\":{\"name\":\"tom").append(i).append("\"}}");
+        }
+        batch = new MockHttpServletRequest("POST", "/_batch")
+                .setContent(body.append(']').toString().getBytes(StandardCharsets.UTF_8), "application/json");
+    }
+
+    @TearDown
+    public void tearDown() {
+        servlet.destroy();
+    }
+
+    @Benchmark
+    public int sequential() throws Exception {
+        int length = 0;
+        for(MockHttpServletRequest single : singles) {
+            response.reset();
+            servlet.service(single, response);
+            length += response.getContentLength();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public int batch() throws Exception {
+        response.reset();
+        servlet.service(batch, response);
+        return response.getContentLength();
+    }
+}
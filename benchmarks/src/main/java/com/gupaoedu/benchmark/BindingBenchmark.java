@@ -0,0 +1,114 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.demo.mvc.action.DemoAction;
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+import com.gupaoedu.mvcframework.v2.binding.BindingPlan;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+import com.gupaoedu.mvcframework.v2.router.Router;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 参数绑定：原有的parameterMapping/covertType与预先生成的绑定计划对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BindingBenchmark {
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/demo/add")
+            .addParameter("a", "1").addParameter("b", "2");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private Method method;
+
+    private BindingPlan plan;
+
+    private RouteMatch match;
+
+    @Setup
+    public void setup() throws Exception {
+        method = DemoAction.class.getMethod("add", HttpServletRequest.class, HttpServletResponse.class, Integer.class, Integer.class);
+        HandlerMethod handler = new HandlerMethod("/demo/add", new DemoAction(), method, false);
+        Router router = new Router();
+        router.register("/demo/add", new RequestMethod[0], handler);
+        match = router.match("/demo/add", 0, "GET");
+        plan = handler.getBindingPlan();
+    }
+
+    @Benchmark
+    public Object[] legacy() {
+        Parameter[] parameters = method.getParameters();
+        Object[] paramValues = new Object[parameters.length];
+        LegacyBinding.parameterMapping(request, response, parameters, paramValues);
+        return paramValues;
+    }
+
+    @Benchmark
+    public Object[] plan() {
+        return plan.bind(request, response, match);
+    }
+
+    /**
+     * 绑定计划引入之前WCDispatcherServlet中的实现，作为对比基线
+     */
+    static final class LegacyBinding {
+
+        @SuppressWarnings("unchecked")
+        static void parameterMapping(HttpServletRequest req, HttpServletResponse resp, Parameter[] parameters, Object[] paramValues) {
+            Map<String, String[]> parameterMap = req.getParameterMap();
+            for(int i = 0; i < parameters.length; i++) {
+                Class parameterType = parameters[i].getType();
+                if(parameterType == HttpServletRequest.class) {
+                    paramValues[i] = req;
+                    continue;
+                }
+                if(parameterType == HttpServletResponse.class) {
+                    paramValues[i] = resp;
+                    continue;
+                }
+                String parameterName = getRealParamKey(parameters[i]);
+                String value = Arrays.toString(parameterMap.get(parameterName))
+                        .replaceAll("\\[|\\]","")
+                        .replaceAll("\\s",",");
+                paramValues[i] = covertType(parameterType, value);
+            }
+        }
+
+        static Object covertType(Class parameterType, String value) {
+            if(String.class == parameterType) {
+                return value;
+            }
+            if(Integer.class == parameterType) {
+                return Integer.valueOf(value);
+            }
+            return null;
+        }
+
+        static String getRealParamKey(Parameter parameter) {
+            String parameterName = parameter.getName();
+            if(parameter.isAnnotationPresent(WCRequestParam.class)) {
+                WCRequestParam requestParam = parameter.getAnnotation(WCRequestParam.class);
+                if(!"".equals(requestParam.value().trim())) {
+                    parameterName = requestParam.value().trim();
+                }
+            }
+            return parameterName;
+        }
+    }
+}
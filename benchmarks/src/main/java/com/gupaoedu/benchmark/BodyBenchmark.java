@@ -0,0 +1,74 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WCRequestBody：绑定单个对象，以及同样1000个元素的数组分别整体绑定为List和逐个读取的Iterator；
+ * 返回响应体长度
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BodyBenchmark {
+
+    private static final String ORDER = "{\"id\":1024,\"customer\":\"tom\",\"quantity\":3,\"amount\":99.5,"
+            + "\"paid\":true,\"items\":[\"book\",\"pen\",\"bag\"]}";
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private HttpServlet servlet;
+
+    private MockHttpServletRequest order;
+
+    private MockHttpServletRequest bulk;
+
+    private MockHttpServletRequest stream;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-body.properties"));
+        StringBuilder array = new StringBuilder("[");
+        for(int i = 0; i < 1000; i++) {
+            array.append(i == 0 ? "" : ",").append(ORDER);
+        }
+        byte[] orders = array.append(']').toString().getBytes(StandardCharsets.UTF_8);
+        order = new MockHttpServletRequest("POST", "/body/order").setContent(ORDER.getBytes(StandardCharsets.UTF_8), CONTENT_TYPE);
+        bulk = new MockHttpServletRequest("POST", "/body/bulk").setContent(orders, CONTENT_TYPE);
+        stream = new MockHttpServletRequest("POST", "/body/stream").setContent(orders, CONTENT_TYPE);
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int order() throws Exception {
+        return dispatch(order);
+    }
+
+    @Benchmark
+    public int bulkList() throws Exception {
+        return dispatch(bulk);
+    }
+
+    @Benchmark
+    public int bulkIterator() throws Exception {
+        return dispatch(stream);
+    }
+}
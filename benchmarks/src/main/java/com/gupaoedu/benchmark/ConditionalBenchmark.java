@@ -0,0 +1,74 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件GET：不带ETag的完整响应、按响应体计算ETag（200与304）、由版本方法给出ETag（304，不调用处理方法）；
+ * 返回响应体长度，304时为0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConditionalBenchmark {
+
+    private HttpServlet servlet;
+
+    private final MockHttpServletRequest plain = new MockHttpServletRequest("GET", "/conditional/plain");
+
+    private final MockHttpServletRequest hashed = new MockHttpServletRequest("GET", "/conditional/hashed");
+
+    private MockHttpServletRequest hashedNotModified;
+
+    private final MockHttpServletRequest versionedNotModified = new MockHttpServletRequest("GET", "/conditional/versioned")
+            .addHeader("If-None-Match", "\"7\"");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-conditional.properties"));
+        dispatch(hashed);
+        hashedNotModified = new MockHttpServletRequest("GET", "/conditional/hashed")
+                .addHeader("If-None-Match", response.getHeader("ETag"));
+        if(dispatch(hashedNotModified) != 0 || dispatch(versionedNotModified) != 0) {
+            throw new IllegalStateException("Expected 304 Not Modified");
+        }
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getStatus() == 304 ? 0 : response.getContentLength();
+    }
+
+    @Benchmark
+    public int plain() throws Exception {
+        return dispatch(plain);
+    }
+
+    @Benchmark
+    public int hashed() throws Exception {
+        return dispatch(hashed);
+    }
+
+    @Benchmark
+    public int hashedNotModified() throws Exception {
+        return dispatch(hashedNotModified);
+    }
+
+    @Benchmark
+    public int versionedNotModified() throws Exception {
+        return dispatch(versionedNotModified);
+    }
+}
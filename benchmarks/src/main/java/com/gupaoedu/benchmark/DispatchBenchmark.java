@@ -0,0 +1,106 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v1.servlet.GPDispatcherServlet;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端分发：从HttpServlet.service()进入，经过路由、参数绑定、方法调用和响应输出；
+ * 除v2QueryCached外都关闭响应缓存，/demo/query每次都会调用处理方法；
+ * 只有v2QueryMetrics和v2QueryCached记录路由指标
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DispatchBenchmark {
+
+    private HttpServlet v1;
+
+    private HttpServlet v2;
+
+    private HttpServlet v2Reflective;
+
+    private HttpServlet v2Cached;
+
+    private HttpServlet v2Metrics;
+
+    private final MockHttpServletRequest query = new MockHttpServletRequest("GET", "/demo/query").addParameter("name", "tom");
+
+    private final MockHttpServletRequest add = new MockHttpServletRequest("GET", "/demo/add").addParameter("a", "1").addParameter("b", "2");
+
+    private final MockHttpServletRequest remove = new MockHttpServletRequest("GET", "/demo/remove").addParameter("id", "7");
+
+    private final MockHttpServletRequest notFound = new MockHttpServletRequest("GET", "/demo/missing");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        v1 = new GPDispatcherServlet();
+        v1.init(new MockServletConfig("application.properties"));
+        v2 = new WCDispatcherServlet();
+        v2.init(new MockServletConfig("benchmark-nocache.properties"));
+        v2Reflective = new WCDispatcherServlet();
+        v2Reflective.init(new MockServletConfig("benchmark-reflect.properties"));
+        v2Cached = new WCDispatcherServlet();
+        v2Cached.init(new MockServletConfig("application.properties"));
+        v2Metrics = new WCDispatcherServlet();
+        v2Metrics.init(new MockServletConfig("benchmark-metrics.properties"));
+    }
+
+    private int dispatch(HttpServlet servlet, MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getContentLength();
+    }
+
+    //v1只支持name参数，只比较query
+    @Benchmark
+    public int v1Query() throws Exception {
+        return dispatch(v1, query);
+    }
+
+    @Benchmark
+    public int v2Query() throws Exception {
+        return dispatch(v2, query);
+    }
+
+    @Benchmark
+    public int v2QueryReflective() throws Exception {
+        return dispatch(v2Reflective, query);
+    }
+
+    @Benchmark
+    public int v2QueryCached() throws Exception {
+        return dispatch(v2Cached, query);
+    }
+
+    @Benchmark
+    public int v2QueryMetrics() throws Exception {
+        return dispatch(v2Metrics, query);
+    }
+
+    @Benchmark
+    public int v2Add() throws Exception {
+        return dispatch(v2, add);
+    }
+
+    @Benchmark
+    public int v2Remove() throws Exception {
+        return dispatch(v2, remove);
+    }
+
+    @Benchmark
+    public int v2NotFound() throws Exception {
+        return dispatch(v2, notFound);
+    }
+}
@@ -0,0 +1,86 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 错误路径：正常请求、参数格式错误(400)、controller处理的异常(404)、advice处理的异常(409)、
+ * 未处理的异常(500，日志每秒只输出一条)和没有路由(404)；返回状态码
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ErrorBenchmark {
+
+    private HttpServlet servlet;
+
+    private final MockHttpServletRequest ok = new MockHttpServletRequest("GET", "/error/ok")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletRequest badParam = new MockHttpServletRequest("GET", "/error/ok")
+            .addParameter("id", "abc");
+
+    private final MockHttpServletRequest handled = new MockHttpServletRequest("GET", "/error/handled")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletRequest advised = new MockHttpServletRequest("GET", "/error/advised")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletRequest unhandled = new MockHttpServletRequest("GET", "/error/unhandled")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletRequest notFound = new MockHttpServletRequest("GET", "/error/missing");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-error.properties"));
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int ok() throws Exception {
+        return dispatch(ok);
+    }
+
+    @Benchmark
+    public int badParam() throws Exception {
+        return dispatch(badParam);
+    }
+
+    @Benchmark
+    public int handled() throws Exception {
+        return dispatch(handled);
+    }
+
+    @Benchmark
+    public int advised() throws Exception {
+        return dispatch(advised);
+    }
+
+    @Benchmark
+    public int unhandled() throws Exception {
+        return dispatch(unhandled);
+    }
+
+    @Benchmark
+    public int notFound() throws Exception {
+        return dispatch(notFound);
+    }
+}
@@ -0,0 +1,63 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拦截器：同一个处理方法分别经过0个、1个和5个拦截器，拦截器数组在映射阶段算好，请求时不匹配路径模式；
+ * 返回响应体长度
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterceptorBenchmark {
+
+    private HttpServlet servlet;
+
+    private final MockHttpServletRequest none = new MockHttpServletRequest("GET", "/intercept/none")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletRequest one = new MockHttpServletRequest("GET", "/intercept/one")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletRequest five = new MockHttpServletRequest("GET", "/intercept/five")
+            .addParameter("id", "1024");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-interceptor.properties"));
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int none() throws Exception {
+        return dispatch(none);
+    }
+
+    @Benchmark
+    public int one() throws Exception {
+        return dispatch(one);
+    }
+
+    @Benchmark
+    public int five() throws Exception {
+        return dispatch(five);
+    }
+}
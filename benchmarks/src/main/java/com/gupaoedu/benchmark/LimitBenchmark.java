@@ -0,0 +1,68 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流与并发隔离：不限流的完整请求、限流与隔离都放行时的额外开销、被拒绝时的开销（不绑定参数、不调用处理方法）；
+ * 返回状态码
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LimitBenchmark {
+
+    private HttpServlet servlet;
+
+    private final MockHttpServletRequest open = new MockHttpServletRequest("GET", "/limit/open")
+            .addParameter("id", "1024").addParameter("name", "tom");
+
+    private final MockHttpServletRequest guarded = new MockHttpServletRequest("GET", "/limit/guarded")
+            .addParameter("id", "1024").addParameter("name", "tom");
+
+    private final MockHttpServletRequest shed = new MockHttpServletRequest("GET", "/limit/shed")
+            .addParameter("id", "1024").addParameter("name", "tom");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-limit.properties"));
+        //用掉唯一的许可
+        dispatch(shed);
+        if(dispatch(guarded) != 200 || dispatch(shed) != 429) {
+            throw new IllegalStateException("Expected 200 and 429");
+        }
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int open() throws Exception {
+        return dispatch(open);
+    }
+
+    @Benchmark
+    public int guarded() throws Exception {
+        return dispatch(guarded);
+    }
+
+    @Benchmark
+    public int shed() throws Exception {
+        return dispatch(shed);
+    }
+}
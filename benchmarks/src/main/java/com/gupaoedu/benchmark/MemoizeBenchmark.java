@@ -0,0 +1,65 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WCMemoize：同一个代价较高的service查询，经过接口代理和方法缓存(cached)与直接计算(uncached)；
+ * 请求在SKUS个sku之间轮换，全部落在缓存容量之内；返回响应体长度
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoizeBenchmark {
+
+    private static final int SKUS = 64;
+
+    private HttpServlet servlet;
+
+    private MockHttpServletRequest[] cached;
+
+    private MockHttpServletRequest[] uncached;
+
+    private int next;
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-memo.properties"));
+        cached = new MockHttpServletRequest[SKUS];
+        uncached = new MockHttpServletRequest[SKUS];
+        for(int i = 0; i < SKUS; i++) {
+            cached[i] = new MockHttpServletRequest("GET", "/quote/cached").addParameter("sku", "SKU-" + i);
+            uncached[i] = new MockHttpServletRequest("GET", "/quote/uncached").addParameter("sku", "SKU-" + i);
+        }
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int cached() throws Exception {
+        next = (next + 1) & (SKUS - 1);
+        return dispatch(cached[next]);
+    }
+
+    @Benchmark
+    public int uncached() throws Exception {
+        next = (next + 1) & (SKUS - 1);
+        return dispatch(uncached[next]);
+    }
+}
@@ -0,0 +1,86 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重新加载：三个线程持续分发请求，一个线程不停重新加载，请求线程只读取一次快照引用，替换期间不应有任何失败；
+ * reload的得分即一次重新加载的耗时，dispatch与steady对比替换对请求延迟的影响。结束时有失败的请求则抛出异常
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ReloadBenchmark {
+
+    private WCDispatcherServlet servlet;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-reload.properties"));
+    }
+
+    @TearDown
+    public void check() {
+        if(failures.sum() > 0) {
+            throw new IllegalStateException(failures.sum() + " of " + requests.sum() + " requests failed during reload");
+        }
+        System.out.println(requests.sum() + " requests, 0 failed, snapshot " + servlet.getSnapshot());
+    }
+
+    /**
+     * 每个请求线程各自的请求与响应
+     */
+    @State(Scope.Thread)
+    public static class Exchange {
+
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/response/returnJson");
+
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+    }
+
+    private int send(Exchange exchange) throws Exception {
+        exchange.response.reset();
+        servlet.service(exchange.request, exchange.response);
+        int status = exchange.response.getStatus();
+        requests.increment();
+        if(status != 200 || exchange.response.getContentLength() <= 0) {
+            failures.increment();
+        }
+        return status;
+    }
+
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(3)
+    public int dispatch(Exchange exchange) throws Exception {
+        return send(exchange);
+    }
+
+    @Benchmark
+    @Group("swap")
+    @GroupThreads(1)
+    public Object reload() {
+        return servlet.reload();
+    }
+
+    @Benchmark
+    @Group("steady")
+    @GroupThreads(3)
+    public int steady(Exchange exchange) throws Exception {
+        return send(exchange);
+    }
+}
@@ -0,0 +1,67 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应输出：处理方法经getWriter()写出与返回值经池化缓冲区写出对比，
+ * 文本和JSON各一组，两种方式输出的字节相同；关注gc.alloc.rate.norm
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseBenchmark {
+
+    private HttpServlet servlet;
+
+    private final MockHttpServletRequest writerText = new MockHttpServletRequest("GET", "/response/writerText").addParameter("name", "tom");
+
+    private final MockHttpServletRequest returnText = new MockHttpServletRequest("GET", "/response/returnText").addParameter("name", "tom");
+
+    private final MockHttpServletRequest writerJson = new MockHttpServletRequest("GET", "/response/writerJson");
+
+    private final MockHttpServletRequest returnJson = new MockHttpServletRequest("GET", "/response/returnJson");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig("benchmark-response.properties"));
+    }
+
+    private int dispatch(MockHttpServletRequest request) throws Exception {
+        response.reset();
+        servlet.service(request, response);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int writerText() throws Exception {
+        return dispatch(writerText);
+    }
+
+    @Benchmark
+    public int returnText() throws Exception {
+        return dispatch(returnText);
+    }
+
+    @Benchmark
+    public int writerJson() throws Exception {
+        return dispatch(writerJson);
+    }
+
+    @Benchmark
+    public int returnJson() throws Exception {
+        return dispatch(returnJson);
+    }
+}
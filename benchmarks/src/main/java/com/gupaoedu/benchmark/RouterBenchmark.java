@@ -0,0 +1,73 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.demo.mvc.action.DemoAction;
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+import com.gupaoedu.mvcframework.v2.router.Router;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由查找：原有的 replaceAll + HashMap 与路由树对比
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+    private static final RequestMethod[] ANY = new RequestMethod[0];
+
+    private static final String CONTEXT_PATH = "/app";
+
+    //命中字面量路由、多余的'/'、未命中
+    @Param({"/app/demo/query", "/app//demo//add", "/app/demo/missing"})
+    public String uri;
+
+    private Map<String, HandlerMethod> hashMapping;
+
+    private Router router;
+
+    @Setup
+    public void setup() throws Exception {
+        hashMapping = new HashMap<>();
+        router = new Router();
+        DemoAction action = new DemoAction();
+        Method method = DemoAction.class.getMethod("query",
+                javax.servlet.http.HttpServletRequest.class, javax.servlet.http.HttpServletResponse.class, String.class);
+        //模拟一个中等规模的路由表
+        for(int c = 0; c < 20; c++) {
+            for(String path : new String[]{"query", "add", "remove", "list", "detail"}) {
+                register("/module" + c + "/" + path, action, method);
+            }
+        }
+        register("/demo/query", action, method);
+        register("/demo/add", action, method);
+        register("/demo/remove", action, method);
+    }
+
+    private void register(String url, Object action, Method method) throws Exception {
+        HandlerMethod handler = new HandlerMethod(url, action, method, false);
+        hashMapping.put(url, handler);
+        router.register(url, ANY, handler);
+    }
+
+    @Benchmark
+    public HandlerMethod hashMap() {
+        String url = uri.replaceAll(CONTEXT_PATH, "").replaceAll("/+", "/");
+        return hashMapping.get(url);
+    }
+
+    @Benchmark
+    public RouteMatch trie() {
+        int start = uri.startsWith(CONTEXT_PATH) ? CONTEXT_PATH.length() : 0;
+        return router.match(uri, start, "GET");
+    }
+}
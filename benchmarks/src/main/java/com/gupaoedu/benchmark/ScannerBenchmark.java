@@ -0,0 +1,66 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCService;
+import com.gupaoedu.mvcframework.v2.scan.ClassPathScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * 扫描：以基准测试jar中的org.openjdk.jmh包（数百个不带框架注解的类）模拟大扫描包，
+ * 对比按字节码过滤与逐个加载类（原doInstance的做法）。每次使用新的类加载器，类都是首次加载
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(3)
+@State(Scope.Thread)
+public class ScannerBenchmark {
+
+    private static final String SCAN_PACKAGE = "org.openjdk.jmh";
+
+    private URL jar;
+
+    @Setup
+    public void setup() {
+        jar = ScannerBenchmark.class.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    @Benchmark
+    public List<String> scanByBytecode() throws Exception {
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar}, null)) {
+            return new ClassPathScanner(loader, WCController.class, WCService.class).scan(SCAN_PACKAGE);
+        }
+    }
+
+    @Benchmark
+    public List<Class<?>> scanByLoading() throws Exception {
+        List<Class<?>> classes = new ArrayList<>();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar}, null);
+             JarFile jarFile = new JarFile(jar.getFile())) {
+            String prefix = SCAN_PACKAGE.replace('.', '/') + "/";
+            for(Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements(); ) {
+                String name = e.nextElement().getName();
+                if(!name.startsWith(prefix) || !name.endsWith(".class")) {continue;}
+                try {
+                    Class<?> clazz = Class.forName(name.substring(0, name.length() - 6).replace('/', '.'), false, loader);
+                    if(clazz.isAnnotationPresent(WCController.class) || clazz.isAnnotationPresent(WCService.class)) {
+                        classes.add(clazz);
+                    }
+                } catch (Throwable ignore) {
+                    //缺少可选依赖的类
+                }
+            }
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,66 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v1.servlet.GPDispatcherServlet;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+import org.openjdk.jmh.annotations.*;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动：init()中的配置加载、扫描、实例化、依赖注入和路由初始化；
+ * v2Init使用编译期生成的索引，v2InitScan强制扫描；
+ * slowBeans*的四个服务各需SlowInitService.INIT_MILLIS初始化，比较并行与依次创建
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(3)
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+    private final MockServletConfig config = new MockServletConfig("application.properties");
+
+    private final MockServletConfig scanConfig = new MockServletConfig("benchmark-scan.properties");
+
+    private final MockServletConfig slowBeansConfig = new MockServletConfig("benchmark-startup.properties");
+
+    private final MockServletConfig slowBeansSequentialConfig = new MockServletConfig("benchmark-startup-sequential.properties");
+
+    @Benchmark
+    public HttpServlet v1Init() throws Exception {
+        HttpServlet servlet = new GPDispatcherServlet();
+        servlet.init(config);
+        return servlet;
+    }
+
+    @Benchmark
+    public HttpServlet v2Init() throws Exception {
+        HttpServlet servlet = new WCDispatcherServlet();
+        servlet.init(config);
+        return servlet;
+    }
+
+    @Benchmark
+    public HttpServlet v2InitScan() throws Exception {
+        HttpServlet servlet = new WCDispatcherServlet();
+        servlet.init(scanConfig);
+        return servlet;
+    }
+
+    @Benchmark
+    public HttpServlet slowBeansParallel() throws Exception {
+        HttpServlet servlet = new WCDispatcherServlet();
+        servlet.init(slowBeansConfig);
+        return servlet;
+    }
+
+    @Benchmark
+    public HttpServlet slowBeansSequential() throws Exception {
+        HttpServlet servlet = new WCDispatcherServlet();
+        servlet.init(slowBeansSequentialConfig);
+        return servlet;
+    }
+}
@@ -0,0 +1,115 @@
+package com.gupaoedu.benchmark;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.mvcframework.v2.resource.StaticResourceHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源：4KB文件从内容缓存发送（原始、gzip、304、Range），与每次读磁盘对比；1MB文件用transferTo发送。
+ * 文件在临时目录中生成，直接调用StaticResourceHandler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StaticResourceBenchmark {
+
+    private Path root;
+
+    private StaticResourceHandler handler;
+
+    private final MockHttpServletRequest small = new MockHttpServletRequest("GET", "/static/app.css");
+
+    private final MockHttpServletRequest smallGzip = new MockHttpServletRequest("GET", "/static/app.css")
+            .addHeader("Accept-Encoding", "gzip, deflate");
+
+    private MockHttpServletRequest smallNotModified;
+
+    private final MockHttpServletRequest smallRange = new MockHttpServletRequest("GET", "/static/app.css")
+            .addHeader("Range", "bytes=0-1023");
+
+    private final MockHttpServletRequest large = new MockHttpServletRequest("GET", "/static/video.bin");
+
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Setup
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("static-benchmark");
+        byte[] css = new byte[4096];
+        for(int i = 0; i < css.length; i++) {
+            css[i] = (byte) ("body{margin:0}\n".charAt(i % 15));
+        }
+        Files.write(root.resolve("app.css"), css);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(css);
+        }
+        Files.write(root.resolve("app.css.gz"), compressed.toByteArray());
+        byte[] video = new byte[1 << 20];
+        Arrays.fill(video, (byte) 7);
+        Files.write(root.resolve("video.bin"), video);
+        handler = new StaticResourceHandler("/static/", root.toString(), null, 16 << 20, 256 << 10, 3600);
+        handle(small);
+        smallNotModified = new MockHttpServletRequest("GET", "/static/app.css")
+                .addHeader("If-None-Match", response.getHeader("ETag"));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        for(String name : new String[]{"app.css", "app.css.gz", "video.bin"}) {
+            Files.deleteIfExists(root.resolve(name));
+        }
+        Files.deleteIfExists(root);
+    }
+
+    private int handle(MockHttpServletRequest request) throws IOException {
+        response.reset();
+        handler.handle(request, response, request.getRequestURI(), 0);
+        return response.getContentLength();
+    }
+
+    @Benchmark
+    public int small() throws IOException {
+        return handle(small);
+    }
+
+    @Benchmark
+    public int smallGzip() throws IOException {
+        return handle(smallGzip);
+    }
+
+    @Benchmark
+    public int smallNotModified() throws IOException {
+        return handle(smallNotModified);
+    }
+
+    @Benchmark
+    public int smallRange() throws IOException {
+        return handle(smallRange);
+    }
+
+    //不使用缓存，每次读取文件，代表没有内容缓存时的写法
+    @Benchmark
+    public int smallReadFile() throws IOException {
+        response.reset();
+        byte[] content = Files.readAllBytes(root.resolve("app.css"));
+        response.getOutputStream().write(content);
+        return content.length;
+    }
+
+    @Benchmark
+    public int large() throws IOException {
+        return handle(large);
+    }
+}
@@ -0,0 +1,228 @@
+package com.gupaoedu.benchmark.adaptive;
+
+import com.gupaoedu.benchmark.load.LatencyHistogram;
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.limit.AdaptiveLimiter;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 下游变慢时的长尾延迟：同样的开环负载分别在不启用和启用全局自适应并发限制时各跑一遍，
+ * 下游依次正常、变慢、恢复三个阶段，按阶段输出成功请求的延迟分位数和503的数量：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.gupaoedu.benchmark.adaptive.AdaptiveLimitTest -rate 1000 -d 10
+ * </pre>
+ * <ul>
+ *     <li>-rate：每秒请求数，按计划时间均匀发出，延迟从计划时间算起，默认1000</li>
+ *     <li>-d：每个阶段的秒数，默认10</li>
+ *     <li>-c：压测线程数，即"容器线程"数，默认200</li>
+ *     <li>-capacity：下游同时处理的调用数，默认8</li>
+ *     <li>-healthy、-degraded：下游正常和变慢时一个调用的微秒数，默认2000和20000</li>
+ * </ul>
+ * 默认参数下下游正常时能处理4000次每秒，变慢后只有400次每秒，负载超出的部分不启用限制时在线程和连接池上排队，
+ * 延迟随时间增长；启用后超出的请求很快得到503，成功请求的延迟有上限。
+ * <p>启用限制的一遍结束后检查变慢阶段：成功请求的p99不超过2 ×（容忍倍数 × 变慢后的耗时 + 排队超时），
+ * 并且出现过带Retry-After的503，否则抛出AssertionError，进程以非0退出。</p>
+ */
+public class AdaptiveLimitTest {
+
+    private static final String[] PHASES = {"healthy", "degraded", "recovered"};
+
+    private double rate = 1000;
+
+    private int phaseSeconds = 10;
+
+    private int threads = 200;
+
+    private int capacity = 8;
+
+    private long healthyMicros = 2000;
+
+    private long degradedMicros = 20000;
+
+    public static void main(String[] args) throws Exception {
+        AdaptiveLimitTest test = new AdaptiveLimitTest();
+        for(int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if("-h".equals(name) || "-help".equals(name)) {
+                System.out.println("Usage: AdaptiveLimitTest [-rate requestsPerSecond] [-d phaseSeconds] [-c threads]"
+                        + " [-capacity calls] [-healthy micros] [-degraded micros]");
+                return;
+            }
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "-rate": test.rate = Double.parseDouble(value); break;
+                case "-d": test.phaseSeconds = Integer.parseInt(value); break;
+                case "-c": test.threads = Integer.parseInt(value); break;
+                case "-capacity": test.capacity = Integer.parseInt(value); break;
+                case "-healthy": test.healthyMicros = Long.parseLong(value); break;
+                case "-degraded": test.degradedMicros = Long.parseLong(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if(test.rate <= 0 || test.phaseSeconds < 1 || test.threads < 1 || test.capacity < 1) {
+            throw new IllegalArgumentException("rate, phase seconds, threads and capacity must be positive");
+        }
+        System.out.println("Rate " + test.rate + "/s, " + test.phaseSeconds + " s per phase, " + test.threads + " threads, capacity "
+                + test.capacity + ", service " + test.healthyMicros + " -> " + test.degradedMicros + " -> " + test.healthyMicros + " us");
+        test.run("benchmark-degrade.properties", "no limit");
+        Worker[] workers = test.run("benchmark-degrade-limit.properties", "adaptive limit");
+        test.verify("benchmark-degrade-limit.properties", workers);
+    }
+
+    private Worker[] run(String config, String title) throws Exception {
+        DegradingAction.reset(capacity, healthyMicros);
+        WCDispatcherServlet servlet = new WCDispatcherServlet();
+        servlet.init(new MockServletConfig(config));
+        AdaptiveLimiter limiter = servlet.getConcurrencyLimiter();
+        long intervalNanos = (long) (1e9 / rate);
+        long phaseNanos = phaseSeconds * 1_000_000_000L;
+        long total = (long) (rate * phaseSeconds * PHASES.length);
+        //稍后开始，线程都已启动
+        long start = System.nanoTime() + 100_000_000L;
+        AtomicLong sequence = new AtomicLong();
+        Worker[] workers = new Worker[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        for(int i = 0; i < threads; i++) {
+            Worker worker = new Worker();
+            workers[i] = worker;
+            Thread thread = new Thread(() -> {
+                try {
+                    long n;
+                    while ((n = sequence.getAndIncrement()) < total) {
+                        long scheduled = start + n * intervalNanos;
+                        long delay;
+                        while ((delay = scheduled - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(delay);
+                        }
+                        worker.send(servlet, (int) Math.min(PHASES.length - 1, (scheduled - start) / phaseNanos), scheduled);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }, "degrade-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        //按阶段切换下游耗时，启用限制时每秒输出一次当前上限
+        for(int second = 0; second < phaseSeconds * PHASES.length; second++) {
+            int phase = second / phaseSeconds;
+            DegradingAction.serviceMicros = phase == 1 ? degradedMicros : healthyMicros;
+            LockSupport.parkNanos(start + (second + 1) * 1_000_000_000L - System.nanoTime());
+            if(limiter != null) {
+                System.out.printf("  %3ds %-10s limit=%d inFlight=%d queued=%d baseline=%.2fms%n", second + 1, PHASES[phase],
+                        limiter.getLimit(), limiter.getInFlight(), limiter.getQueued(), limiter.getBaselineNanos() / 1e6);
+            }
+        }
+        done.await();
+        System.out.printf("%n%s%n%-10s %8s %8s %8s %10s %10s %10s%n", title, "phase", "ok", "503", "other",
+                "p50 ms", "p99 ms", "max ms");
+        for(int phase = 0; phase < PHASES.length; phase++) {
+            LatencyHistogram latency = latency(workers, phase);
+            System.out.printf("%-10s %8d %8d %8d %10.1f %10.1f %10.1f%n", PHASES[phase], latency.getTotal(),
+                    rejected(workers, phase), other(workers, phase),
+                    latency.percentile(50) / 1e6, latency.percentile(99) / 1e6, latency.getMax() / 1e6);
+        }
+        System.out.println();
+        servlet.destroy();
+        return workers;
+    }
+
+    /**
+     * 检查启用限制时变慢阶段的延迟上限和503
+     */
+    private void verify(String config, Worker[] workers) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = AdaptiveLimitTest.class.getClassLoader().getResourceAsStream(config)) {
+            if(in == null) {
+                throw new IOException("Cannot find " + config + " on the classpath");
+            }
+            properties.load(in);
+        }
+        double tolerance = Double.parseDouble(properties.getProperty("concurrencyLimitTolerance", "2").trim());
+        long queueTimeoutMillis = Long.parseLong(properties.getProperty("concurrencyLimitQueueTimeout", "50").trim());
+        //排队等待加上下游耗时，再留一倍余量给线程调度
+        double boundMillis = 2 * (tolerance * degradedMicros / 1000.0 + queueTimeoutMillis);
+        double p99Millis = latency(workers, 1).percentile(99) / 1e6;
+        long rejected = rejected(workers, 1);
+        System.out.printf("degraded p99 %.1f ms (bound %.1f ms), 503 with Retry-After %d%n", p99Millis, boundMillis, rejected);
+        if(p99Millis > boundMillis) {
+            throw new AssertionError(String.format("Degraded p99 %.1f ms exceeds the bound of %.1f ms", p99Millis, boundMillis));
+        }
+        if(rejected == 0) {
+            throw new AssertionError("No 503 with Retry-After was returned while the downstream was degraded");
+        }
+    }
+
+    private static LatencyHistogram latency(Worker[] workers, int phase) {
+        LatencyHistogram latency = new LatencyHistogram();
+        for(Worker worker : workers) {
+            latency.add(worker.latency[phase]);
+        }
+        return latency;
+    }
+
+    private static long rejected(Worker[] workers, int phase) {
+        long rejected = 0;
+        for(Worker worker : workers) {
+            rejected += worker.rejected[phase];
+        }
+        return rejected;
+    }
+
+    private static long other(Worker[] workers, int phase) {
+        long other = 0;
+        for(Worker worker : workers) {
+            other += worker.other[phase];
+        }
+        return other;
+    }
+
+    /**
+     * 一个压测线程的按阶段统计
+     */
+    private static final class Worker {
+
+        final LatencyHistogram[] latency = new LatencyHistogram[PHASES.length];
+
+        //带Retry-After的503，没有Retry-After的503计入other
+        final long[] rejected = new long[PHASES.length];
+
+        final long[] other = new long[PHASES.length];
+
+        Worker() {
+            for(int i = 0; i < PHASES.length; i++) {
+                latency[i] = new LatencyHistogram();
+            }
+        }
+
+        void send(WCDispatcherServlet servlet, int phase, long scheduled) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                servlet.service(new MockHttpServletRequest("GET", "/degrade/call"), response);
+            } catch (Exception e) {
+                other[phase]++;
+                return;
+            }
+            int status = response.getStatus();
+            if(status == 200) {
+                latency[phase].record(System.nanoTime() - scheduled);
+            } else if(status == 503 && response.getHeader("Retry-After") != null) {
+                rejected[phase]++;
+            } else {
+                other[phase]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.gupaoedu.benchmark.adaptive;
+
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 模拟一个容量固定的下游（例如连接池）：最多capacity个调用同时进行，每个调用耗时serviceMicros，
+ * 压测过程中调大serviceMicros表示下游变慢，超出容量的调用在连接池上排队
+ */
+@WCController
+@WCRequestMapping("/degrade")
+public class DegradingAction {
+
+    static volatile long serviceMicros = 2000;
+
+    private static volatile Semaphore pool = new Semaphore(8, true);
+
+    static void reset(int capacity, long serviceMicros) {
+        DegradingAction.serviceMicros = serviceMicros;
+        pool = new Semaphore(capacity, true);
+    }
+
+    @WCRequestMapping("/call")
+    public String call() throws InterruptedException {
+        Semaphore connections = pool;
+        connections.acquire();
+        try {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(serviceMicros));
+            return "ok";
+        } finally {
+            connections.release();
+        }
+    }
+}
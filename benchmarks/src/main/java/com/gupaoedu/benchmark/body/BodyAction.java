@@ -0,0 +1,40 @@
+package com.gupaoedu.benchmark.body;
+
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestBody;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 单个对象、整体绑定的数组和逐个读取的数组
+ */
+@WCController
+@WCRequestMapping("/body")
+public class BodyAction {
+
+    @WCRequestMapping(value = "/order", method = RequestMethod.POST)
+    public Long order(@WCRequestBody OrderForm order) {
+        return order.getId();
+    }
+
+    @WCRequestMapping(value = "/bulk", method = RequestMethod.POST)
+    public Integer bulk(@WCRequestBody List<OrderForm> orders) {
+        int quantity = 0;
+        for(OrderForm order : orders) {
+            quantity += order.getQuantity();
+        }
+        return quantity;
+    }
+
+    @WCRequestMapping(value = "/stream", method = RequestMethod.POST)
+    public Integer stream(@WCRequestBody(maxBytes = 0) Iterator<OrderForm> orders) {
+        int quantity = 0;
+        while (orders.hasNext()) {
+            quantity += orders.next().getQuantity();
+        }
+        return quantity;
+    }
+}
@@ -0,0 +1,69 @@
+package com.gupaoedu.benchmark.body;
+
+import java.util.List;
+
+/**
+ * 提交的订单：数字、字符串、布尔和字符串列表
+ */
+public class OrderForm {
+
+    private long id;
+
+    private String customer;
+
+    private int quantity;
+
+    private double amount;
+
+    private boolean paid;
+
+    private List<String> items;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+
+    public void setPaid(boolean paid) {
+        this.paid = paid;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+
+    public void setItems(List<String> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,41 @@
+package com.gupaoedu.benchmark.conditional;
+
+import com.gupaoedu.benchmark.response.Order;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCETag;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+
+import java.util.Arrays;
+
+/**
+ * 同一个订单分别不带ETag、按响应体计算ETag和由版本方法给出ETag
+ */
+@WCController
+@WCRequestMapping("/conditional")
+public class ConditionalAction {
+
+    private final Order order = new Order(1024L, "tom", 3, 99.5, true, Arrays.asList("book", "pen", "bag"));
+
+    private final long version = 7;
+
+    @WCRequestMapping("/plain")
+    public Order plain() {
+        return order;
+    }
+
+    @WCETag
+    @WCRequestMapping("/hashed")
+    public Order hashed() {
+        return order;
+    }
+
+    @WCETag(version = "orderVersion")
+    @WCRequestMapping("/versioned")
+    public Order versioned() {
+        return order;
+    }
+
+    public long orderVersion() {
+        return version;
+    }
+}
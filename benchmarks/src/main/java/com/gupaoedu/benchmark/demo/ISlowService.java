@@ -0,0 +1,13 @@
+package com.gupaoedu.benchmark.demo;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface ISlowService {
+
+    //阻塞式下游调用
+    String get(String name);
+
+    //非阻塞式下游调用
+    CompletableFuture<String> getAsync(String name);
+
+}
@@ -0,0 +1,27 @@
+package com.gupaoedu.benchmark.demo;
+
+import com.gupaoedu.mvcframework.annotation.WCAutowired;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+
+import java.util.concurrent.CompletableFuture;
+
+@WCController
+@WCRequestMapping("/slow")
+public class SlowAction {
+
+    @WCAutowired
+    private ISlowService slowService;
+
+    @WCRequestMapping("/sync")
+    public String sync(@WCRequestParam("name") String name) {
+        return slowService.get(name);
+    }
+
+    @WCRequestMapping("/future")
+    public CompletableFuture<String> future(@WCRequestParam("name") String name) {
+        return slowService.getAsync(name);
+    }
+
+}
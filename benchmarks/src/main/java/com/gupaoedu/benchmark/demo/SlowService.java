@@ -0,0 +1,39 @@
+package com.gupaoedu.benchmark.demo;
+
+import com.gupaoedu.mvcframework.annotation.WCService;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 人为放慢的下游服务，每次调用耗时LATENCY_MILLIS
+ */
+@WCService
+public class SlowService implements ISlowService {
+
+    public static final long LATENCY_MILLIS = 5;
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "slow-service-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public String get(String name) {
+        try {
+            Thread.sleep(LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "My name is " + name;
+    }
+
+    public CompletableFuture<String> getAsync(String name) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        TIMER.schedule(() -> future.complete("My name is " + name), LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+}
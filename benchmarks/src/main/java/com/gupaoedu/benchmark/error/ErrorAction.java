@@ -0,0 +1,39 @@
+package com.gupaoedu.benchmark.error;
+
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCExceptionHandler;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+
+/**
+ * 正常返回、参数格式错误、controller自己处理的异常、advice处理的异常和未处理的异常
+ */
+@WCController
+@WCRequestMapping("/error")
+public class ErrorAction {
+
+    @WCRequestMapping("/ok")
+    public String ok(@WCRequestParam("id") Integer id) {
+        return "id=" + id;
+    }
+
+    @WCRequestMapping("/handled")
+    public String handled(@WCRequestParam("id") Integer id) {
+        throw new OrderNotFoundException(id);
+    }
+
+    @WCRequestMapping("/advised")
+    public String advised(@WCRequestParam("id") Integer id) {
+        throw new IllegalStateException("Order " + id + " is locked");
+    }
+
+    @WCRequestMapping("/unhandled")
+    public String unhandled(@WCRequestParam("id") Integer id) {
+        throw new UnsupportedOperationException("Order " + id);
+    }
+
+    @WCExceptionHandler(status = 404)
+    public String notFound(OrderNotFoundException e) {
+        return "order " + e.getId() + " not found";
+    }
+}
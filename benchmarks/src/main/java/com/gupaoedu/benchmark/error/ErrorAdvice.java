@@ -0,0 +1,16 @@
+package com.gupaoedu.benchmark.error;
+
+import com.gupaoedu.mvcframework.annotation.WCControllerAdvice;
+import com.gupaoedu.mvcframework.annotation.WCExceptionHandler;
+
+/**
+ * 所有controller共用的异常处理方法
+ */
+@WCControllerAdvice
+public class ErrorAdvice {
+
+    @WCExceptionHandler(value = IllegalStateException.class, status = 409)
+    public String conflict(IllegalStateException e) {
+        return e.getMessage();
+    }
+}
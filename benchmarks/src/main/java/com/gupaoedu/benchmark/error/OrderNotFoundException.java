@@ -0,0 +1,18 @@
+package com.gupaoedu.benchmark.error;
+
+/**
+ * 业务异常，不需要堆栈
+ */
+public class OrderNotFoundException extends RuntimeException {
+
+    private final Integer id;
+
+    public OrderNotFoundException(Integer id) {
+        super("Order " + id + " not found", null, false, false);
+        this.id = id;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+}
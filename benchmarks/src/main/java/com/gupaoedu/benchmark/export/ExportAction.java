@@ -0,0 +1,56 @@
+package com.gupaoedu.benchmark.export;
+
+import com.gupaoedu.benchmark.response.Order;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+import com.gupaoedu.mvcframework.v2.response.ResponseEmitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 同样的n行导出数据分别一次性返回List、返回Stream和由生产者线程经ResponseEmitter推送
+ */
+@WCController
+@WCRequestMapping("/export")
+public class ExportAction {
+
+    private static final List<String> ITEMS = Arrays.asList("book", "pen", "bag");
+
+    @WCRequestMapping("/list")
+    public List<Order> list(@WCRequestParam("n") Integer n) {
+        List<Order> orders = new ArrayList<>(n);
+        for(int i = 0; i < n; i++) {
+            orders.add(order(i));
+        }
+        return orders;
+    }
+
+    @WCRequestMapping("/stream")
+    public Stream<Order> stream(@WCRequestParam("n") Integer n) {
+        return IntStream.range(0, n).mapToObj(ExportAction::order);
+    }
+
+    @WCRequestMapping("/emitter")
+    public ResponseEmitter<Order> emitter(@WCRequestParam("n") Integer n) {
+        ResponseEmitter<Order> emitter = new ResponseEmitter<>();
+        Thread producer = new Thread(() -> {
+            for(int i = 0; i < n; i++) {
+                if(!emitter.send(order(i))) {return;}
+            }
+            emitter.complete();
+        }, "export-producer");
+        producer.setDaemon(true);
+        producer.start();
+        return emitter;
+    }
+
+    //每行都是新对象，代表从数据库游标逐行读出
+    private static Order order(int i) {
+        return new Order(i, "customer-" + i, i % 10, i * 1.5, (i & 1) == 0, ITEMS);
+    }
+}
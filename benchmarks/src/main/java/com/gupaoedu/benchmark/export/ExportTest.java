@@ -0,0 +1,175 @@
+package com.gupaoedu.benchmark.export;
+
+import com.gupaoedu.mvcframework.v2.server.WCServer;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 大结果集导出：同样的n行数据分别一次性返回List、返回Stream和经ResponseEmitter推送，
+ * 经内嵌WCServer和本机回环网络读取，对比首字节时间(TTFB)、总时间和导出期间的堆增长峰值：
+ * <pre>
+ * java -Xmx2g -Xmn32m -cp benchmarks/target/benchmarks.jar com.gupaoedu.benchmark.export.ExportTest -n 1000000
+ * </pre>
+ * <ul>
+ *     <li>-n：行数，默认1000000</li>
+ *     <li>-r：每种方式测量的次数，结果取中位数，默认5，之前先预热2次</li>
+ *     <li>-config：servlet配置文件，默认benchmark-export.properties</li>
+ * </ul>
+ * 堆峰值由后台线程每毫秒采样已用堆，减去请求前GC后的已用堆，包含还没有回收的垃圾，新生代设得较小时更接近存活的数据量。
+ */
+public class ExportTest {
+
+    private static final String[] PATHS = {"/export/list", "/export/stream", "/export/emitter"};
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private int rows = 1000000;
+
+    private int runs = 5;
+
+    private String config = "benchmark-export.properties";
+
+    private int port;
+
+    public static void main(String[] args) throws Exception {
+        ExportTest test = new ExportTest();
+        for(int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if("-h".equals(name) || "-help".equals(name)) {
+                System.out.println("Usage: ExportTest [-n rows] [-r runs] [-config properties]");
+                return;
+            }
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "-n": test.rows = Integer.parseInt(value); break;
+                case "-r": test.runs = Integer.parseInt(value); break;
+                case "-config": test.config = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if(test.rows < 1 || test.runs < 1) {
+            throw new IllegalArgumentException("rows and runs must be positive");
+        }
+        test.run();
+    }
+
+    private void run() throws Exception {
+        WCServer server = new WCServer(new WCDispatcherServlet(), config);
+        server.start();
+        port = server.getPort();
+        try {
+            System.out.println("Export " + rows + " rows, " + runs + " runs, java " + System.getProperty("java.version")
+                    + ", max heap " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB");
+            System.out.printf("%n%-16s %10s %10s %14s %12s%n", "path", "ttfb ms", "total ms", "peak heap MB", "bytes");
+            for(String path : PATHS) {
+                for(int i = 0; i < 2; i++) {
+                    fetch(path);
+                }
+                Sample[] samples = new Sample[runs];
+                for(int i = 0; i < runs; i++) {
+                    samples[i] = fetch(path);
+                }
+                System.out.printf("%-16s %10.2f %10.1f %14.1f %12d%n", path,
+                        median(samples, 0), median(samples, 1), median(samples, 2), samples[0].bytes);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * 读完一次导出，Connection: close，读到连接关闭为止
+     */
+    private Sample fetch(String path) throws IOException {
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+        HeapSampler sampler = new HeapSampler();
+        Thread thread = new Thread(sampler, "heap-sampler");
+        thread.setDaemon(true);
+        thread.start();
+        Sample sample = new Sample();
+        try (Socket socket = new Socket("127.0.0.1", port)) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            long begin = System.nanoTime();
+            out.write(("GET " + path + "?n=" + rows + " HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            byte[] buffer = new byte[65536];
+            int n = in.read(buffer);
+            sample.ttfbMillis = (System.nanoTime() - begin) / 1e6;
+            if(n < 12 || !new String(buffer, 0, 12, StandardCharsets.ISO_8859_1).equals("HTTP/1.1 200")) {
+                throw new IOException("Unexpected response for " + path + ": "
+                        + (n < 0 ? "connection closed" : new String(buffer, 0, Math.min(n, 200), StandardCharsets.ISO_8859_1)));
+            }
+            long bytes = 0;
+            while (n >= 0) {
+                bytes += n;
+                n = in.read(buffer);
+            }
+            sample.totalMillis = (System.nanoTime() - begin) / 1e6;
+            sample.bytes = bytes;
+        } finally {
+            sampler.running = false;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        sample.peakHeapMb = Math.max(0, sampler.peak - baseline) / (1024.0 * 1024.0);
+        return sample;
+    }
+
+    private static double median(Sample[] samples, int field) {
+        double[] values = new double[samples.length];
+        for(int i = 0; i < samples.length; i++) {
+            values[i] = field == 0 ? samples[i].ttfbMillis : field == 1 ? samples[i].totalMillis : samples[i].peakHeapMb;
+        }
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static final class Sample {
+
+        double ttfbMillis;
+
+        double totalMillis;
+
+        double peakHeapMb;
+
+        long bytes;
+    }
+
+    /**
+     * 每毫秒采样一次已用堆
+     */
+    private final class HeapSampler implements Runnable {
+
+        volatile boolean running = true;
+
+        //join之后读取
+        long peak;
+
+        @Override
+        public void run() {
+            while (running) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+}
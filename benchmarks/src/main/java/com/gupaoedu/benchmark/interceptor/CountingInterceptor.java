@@ -0,0 +1,35 @@
+package com.gupaoedu.benchmark.interceptor;
+
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+import com.gupaoedu.mvcframework.v2.interceptor.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 三个回调各计一次数，代表鉴权、追踪一类只做少量工作的拦截器
+ */
+public abstract class CountingInterceptor implements HandlerInterceptor {
+
+    private long calls;
+
+    @Override
+    public boolean preHandle(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler) {
+        calls++;
+        return true;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler, Object result) {
+        calls++;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler, Exception ex) {
+        calls++;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+}
@@ -0,0 +1,10 @@
+package com.gupaoedu.benchmark.interceptor;
+
+import com.gupaoedu.mvcframework.annotation.WCInterceptor;
+
+/**
+ * 拦截/intercept/one和/intercept/five
+ */
+@WCInterceptor(value = {"/intercept/one", "/intercept/f*"}, order = 1)
+public class Interceptor1 extends CountingInterceptor {
+}
@@ -0,0 +1,10 @@
+package com.gupaoedu.benchmark.interceptor;
+
+import com.gupaoedu.mvcframework.annotation.WCInterceptor;
+
+/**
+ * 只拦截/intercept/five
+ */
+@WCInterceptor(value = "/intercept/five/**", order = 5)
+public class Interceptor5 extends CountingInterceptor {
+}
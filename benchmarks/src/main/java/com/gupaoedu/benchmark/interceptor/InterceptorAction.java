@@ -0,0 +1,33 @@
+package com.gupaoedu.benchmark.interceptor;
+
+import com.gupaoedu.benchmark.response.Order;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+
+import java.util.Arrays;
+
+/**
+ * 同一个处理方法分别被0个、1个和5个拦截器拦截
+ */
+@WCController
+@WCRequestMapping("/intercept")
+public class InterceptorAction {
+
+    private final Order order = new Order(1024L, "tom", 3, 99.5, true, Arrays.asList("book", "pen", "bag"));
+
+    @WCRequestMapping("/none")
+    public Order none(@WCRequestParam("id") Long id) {
+        return order;
+    }
+
+    @WCRequestMapping("/one")
+    public Order one(@WCRequestParam("id") Long id) {
+        return order;
+    }
+
+    @WCRequestMapping("/five")
+    public Order five(@WCRequestParam("id") Long id) {
+        return order;
+    }
+}
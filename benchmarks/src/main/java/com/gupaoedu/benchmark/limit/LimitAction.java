@@ -0,0 +1,39 @@
+package com.gupaoedu.benchmark.limit;
+
+import com.gupaoedu.benchmark.response.Order;
+import com.gupaoedu.mvcframework.annotation.WCBulkhead;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRateLimit;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+
+import java.util.Arrays;
+
+/**
+ * 同一个处理方法分别不限流、限流与隔离都放行、总是被限流拒绝（速率在配置文件中覆盖）
+ */
+@WCController
+@WCRequestMapping("/limit")
+public class LimitAction {
+
+    private final Order order = new Order(1024L, "tom", 3, 99.5, true, Arrays.asList("book", "pen", "bag"));
+
+    @WCRequestMapping("/open")
+    public Order open(@WCRequestParam("id") Long id, @WCRequestParam("name") String name) {
+        return order;
+    }
+
+    @WCRateLimit(permitsPerSecond = 1e9, burst = 1_000_000)
+    @WCBulkhead(maxConcurrent = 1024)
+    @WCRequestMapping("/guarded")
+    public Order guarded(@WCRequestParam("id") Long id, @WCRequestParam("name") String name) {
+        return order;
+    }
+
+    @WCRateLimit(permitsPerSecond = 1e9)
+    @WCBulkhead(maxConcurrent = 1024)
+    @WCRequestMapping("/shed")
+    public Order shed(@WCRequestParam("id") Long id, @WCRequestParam("name") String name) {
+        return order;
+    }
+}
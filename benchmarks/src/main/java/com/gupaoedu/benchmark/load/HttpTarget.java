@@ -0,0 +1,129 @@
+package com.gupaoedu.benchmark.load;
+
+import com.gupaoedu.mvcframework.v2.server.WCServer;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 在本机启动内嵌的WCServer，每个压测线程一条keep-alive连接，经过回环网卡、HTTP解析和I/O线程
+ */
+class HttpTarget implements LoadTarget {
+
+    private final WCServer server;
+
+    HttpTarget(String config) throws Exception {
+        server = new WCServer(new WCDispatcherServlet(), config);
+        server.start();
+    }
+
+    @Override
+    public Client newClient() {
+        return new HttpClient(server.getPort());
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+
+    private static final class HttpClient implements Client {
+
+        private final int port;
+
+        private final StringBuilder line = new StringBuilder(128);
+
+        private Socket socket;
+
+        private InputStream in;
+
+        private OutputStream out;
+
+        HttpClient(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public int send(LoadRoute route, long sequence) throws IOException {
+            if(socket == null) {
+                socket = new Socket("127.0.0.1", port);
+                socket.setTcpNoDelay(true);
+                in = new BufferedInputStream(socket.getInputStream(), 8192);
+                out = socket.getOutputStream();
+            }
+            String request = "GET " + route.path + "?" + route.queryString(sequence) + " HTTP/1.1\r\nHost: 127.0.0.1\r\n\r\n";
+            try {
+                out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+                return readResponse();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * 读完状态行、响应头和Content-Length个字节的响应体，服务器要求关闭时下次重新连接
+         */
+        private int readResponse() throws IOException {
+            int status = -1;
+            long length = 0;
+            boolean close = false;
+            while (true) {
+                String header = readLine();
+                if(status < 0) {
+                    status = Integer.parseInt(header.substring(9, 12));
+                    continue;
+                }
+                if(header.isEmpty()) {break;}
+                int colon = header.indexOf(':');
+                String name = header.substring(0, colon);
+                if("Content-Length".equalsIgnoreCase(name)) {
+                    length = Long.parseLong(header.substring(colon + 1).trim());
+                } else if("Connection".equalsIgnoreCase(name)) {
+                    close = header.substring(colon + 1).trim().equalsIgnoreCase("close");
+                }
+            }
+            while (length > 0) {
+                long skipped = in.skip(length);
+                if(skipped <= 0) {
+                    if(in.read() < 0) {throw new EOFException();}
+                    skipped = 1;
+                }
+                length -= skipped;
+            }
+            if(close) {
+                close();
+            }
+            return status;
+        }
+
+        private String readLine() throws IOException {
+            line.setLength(0);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if(c < 0) {throw new EOFException();}
+                if(c != '\r') {
+                    line.append((char) c);
+                }
+            }
+            return line.toString();
+        }
+
+        @Override
+        public void close() {
+            if(socket == null) {return ;}
+            try {
+                socket.close();
+            } catch (IOException e) {
+                //忽略
+            }
+            socket = null;
+        }
+    }
+}
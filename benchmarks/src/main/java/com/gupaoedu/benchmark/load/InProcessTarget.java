@@ -0,0 +1,55 @@
+package com.gupaoedu.benchmark.load;
+
+import com.gupaoedu.benchmark.mock.MockHttpServletRequest;
+import com.gupaoedu.benchmark.mock.MockHttpServletResponse;
+import com.gupaoedu.benchmark.mock.MockServletConfig;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+
+import javax.servlet.http.HttpServlet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直接调用WCDispatcherServlet.service()，压测线程就是"容器线程"，不经过网络；
+ * 处理方法异步执行时等到AsyncContext.complete()
+ */
+class InProcessTarget implements LoadTarget {
+
+    private final HttpServlet servlet = new WCDispatcherServlet();
+
+    InProcessTarget(String config) throws Exception {
+        servlet.init(new MockServletConfig(config));
+    }
+
+    @Override
+    public Client newClient() {
+        return new Client() {
+            @Override
+            public int send(LoadRoute route, long sequence) throws Exception {
+                CountDownLatch done = new CountDownLatch(1);
+                MockHttpServletRequest request = new MockHttpServletRequest("GET", route.path)
+                        .setQueryString(route.queryString(sequence))
+                        .setAsyncSupported(true, done::countDown);
+                String[] params = route.params(sequence);
+                for(int i = 0; i < params.length; i += 2) {
+                    request.addParameter(params[i], params[i + 1]);
+                }
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                servlet.service(request, response);
+                if(request.isAsyncStarted() && !done.await(60, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Async request did not complete in 60 seconds");
+                }
+                return response.getStatus();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        servlet.destroy();
+    }
+}
@@ -0,0 +1,81 @@
+package com.gupaoedu.benchmark.load;
+
+/**
+ * 纳秒延迟的直方图，按2的幂分段、每段64格，相对误差不超过1/64；
+ * 不是线程安全的，每个压测线程一个，结束后合并
+ */
+public class LatencyHistogram {
+
+    //每段的格数，2^6
+    private static final int SUB_BITS = 6;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    //小于128的值每个值一格，之后每段64格，覆盖到Long.MAX_VALUE
+    private static final int SIZE = (64 - SUB_BITS) * SUB_COUNT + 2 * SUB_COUNT;
+
+    private final long[] counts = new long[SIZE];
+
+    private long total;
+
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[index(value)]++;
+        total++;
+        if(value > max) {
+            max = value;
+        }
+    }
+
+    public void add(LatencyHistogram other) {
+        for(int i = 0; i < SIZE; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile 0~100
+     * @return 纳秒，取所在格的上界，不超过最大值；没有记录时为0
+     */
+    public long percentile(double percentile) {
+        if(total == 0) {return 0;}
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for(int i = 0; i < SIZE; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int index(long value) {
+        if(value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    private static long upperBound(int index) {
+        if(index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = index - (shift << SUB_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,234 @@
+package com.gupaoedu.benchmark.load;
+
+import com.gupaoedu.mvcframework.v2.body.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * 压测结果：每条路由和合计的请求数、错误数、吞吐量和延迟分位数。
+ * <ul>
+ *     <li>latency：从计划发出时间算起，包含在压测端排队的时间，即修正了coordinated omission的延迟</li>
+ *     <li>service：从实际发出时间算起，只是服务端的处理时间，两者差距越大说明排队越严重</li>
+ * </ul>
+ * 以JSON写入文件，可以用{@link #compare}与之前的结果对比
+ */
+class LoadReport {
+
+    static final String TOTAL = "total";
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    //参数，按输入顺序
+    private final Map<String, Object> settings = new LinkedHashMap<>();
+
+    private final Map<String, RouteStats> routes = new LinkedHashMap<>();
+
+    private final RouteStats total = new RouteStats();
+
+    //计算吞吐量的时间，秒
+    private final double durationSeconds;
+
+    LoadReport(Map<String, Object> settings, double durationSeconds) {
+        this.settings.putAll(settings);
+        this.durationSeconds = durationSeconds;
+    }
+
+    /**
+     * 一个压测线程的记录，结束后合并到报告中
+     */
+    static final class RouteStats {
+
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        final LatencyHistogram service = new LatencyHistogram();
+
+        //状态码，-1表示请求抛出了异常
+        final Map<Integer, Long> statuses = new TreeMap<>();
+
+        long errors;
+
+        void record(long latencyNanos, long serviceNanos, int status) {
+            latency.record(latencyNanos);
+            service.record(serviceNanos);
+            statuses.merge(status, 1L, Long::sum);
+            if(status < 200 || status >= 400) {
+                errors++;
+            }
+        }
+
+        void add(RouteStats other) {
+            latency.add(other.latency);
+            service.add(other.service);
+            other.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+            errors += other.errors;
+        }
+    }
+
+    void add(String route, RouteStats stats) {
+        routes.computeIfAbsent(route, k -> new RouteStats()).add(stats);
+        total.add(stats);
+    }
+
+    /**
+     * 各路由加上最后的合计
+     */
+    private Map<String, RouteStats> rows() {
+        Map<String, RouteStats> rows = new LinkedHashMap<>(routes);
+        rows.put(TOTAL, total);
+        return rows;
+    }
+
+    void print(PrintStream out) {
+        out.println();
+        out.printf("%-14s %10s %8s %10s %9s %9s %9s %9s %9s  %s%n",
+                "route", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "statuses");
+        for(Map.Entry<String, RouteStats> entry : rows().entrySet()) {
+            RouteStats stats = entry.getValue();
+            printRow(out, entry.getKey(), stats, stats.latency);
+            printRow(out, "  (service)", stats, stats.service);
+        }
+    }
+
+    private void printRow(PrintStream out, String name, RouteStats stats, LatencyHistogram histogram) {
+        boolean service = histogram == stats.service;
+        out.printf("%-14s %10s %8s %10s %9.3f %9.3f %9.3f %9.3f %9.3f  %s%n",
+                name, service ? "" : String.valueOf(histogram.getTotal()), service ? "" : String.valueOf(stats.errors),
+                service ? "" : String.format("%.0f", histogram.getTotal() / durationSeconds),
+                millis(histogram.percentile(50)), millis(histogram.percentile(90)), millis(histogram.percentile(99)),
+                millis(histogram.percentile(99.9)), millis(histogram.getMax()), service ? "" : stats.statuses);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    void write(Path file) throws IOException {
+        StringBuilder json = new StringBuilder(2048);
+        json.append("{\n");
+        for(Map.Entry<String, Object> entry : settings.entrySet()) {
+            json.append("  \"").append(entry.getKey()).append("\": ");
+            Object value = entry.getValue();
+            if(value instanceof Number) {
+                json.append(value);
+            } else {
+                json.append('"').append(String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+            }
+            json.append(",\n");
+        }
+        json.append("  \"routes\": {");
+        String separator = "\n";
+        for(Map.Entry<String, RouteStats> entry : rows().entrySet()) {
+            RouteStats stats = entry.getValue();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {")
+                    .append("\"requests\": ").append(stats.latency.getTotal())
+                    .append(", \"errors\": ").append(stats.errors)
+                    .append(", \"throughput\": ").append(String.format(Locale.ROOT, "%.1f", stats.latency.getTotal() / durationSeconds))
+                    .append(", \"statuses\": {");
+            String comma = "";
+            for(Map.Entry<Integer, Long> status : stats.statuses.entrySet()) {
+                json.append(comma).append('"').append(status.getKey()).append("\": ").append(status.getValue());
+                comma = ", ";
+            }
+            json.append("}, \"latency\": ");
+            appendPercentiles(json, stats.latency);
+            json.append(", \"service\": ");
+            appendPercentiles(json, stats.service);
+            json.append('}');
+            separator = ",\n";
+        }
+        json.append("\n  }\n}\n");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void appendPercentiles(StringBuilder json, LatencyHistogram histogram) {
+        json.append('{');
+        for(int i = 0; i < PERCENTILES.length; i++) {
+            json.append('"').append(PERCENTILE_NAMES[i]).append("\": ")
+                    .append(String.format(Locale.ROOT, "%.3f", millis(histogram.percentile(PERCENTILES[i])))).append(", ");
+        }
+        json.append("\"max\": ").append(String.format(Locale.ROOT, "%.3f", millis(histogram.getMax()))).append('}');
+    }
+
+    /**
+     * 与之前写出的报告对比吞吐量和延迟分位数，按路由输出变化的百分比
+     */
+    void compare(Path baselineFile, PrintStream out) throws IOException {
+        Map<String, Object> baseline;
+        try (InputStream in = Files.newInputStream(baselineFile)) {
+            baseline = asMap(readValue(new JsonReader(in, 0, 8192)));
+        }
+        Map<String, Object> baselineRoutes = asMap(baseline.get("routes"));
+        out.println();
+        out.println("compared with " + baselineFile + " " + baseline.getOrDefault("startedAt", ""));
+        out.printf("%-14s %-12s %12s %12s %9s%n", "route", "metric", "baseline", "current", "change");
+        for(Map.Entry<String, RouteStats> entry : rows().entrySet()) {
+            Map<String, Object> before = asMap(baselineRoutes.get(entry.getKey()));
+            if(before.isEmpty()) {continue;}
+            RouteStats stats = entry.getValue();
+            Map<String, Object> latency = asMap(before.get("latency"));
+            printChange(out, entry.getKey(), "req/s", number(before.get("throughput")), stats.latency.getTotal() / durationSeconds);
+            printChange(out, "", "errors", number(before.get("errors")), stats.errors);
+            for(int i = 0; i < PERCENTILES.length; i++) {
+                printChange(out, "", PERCENTILE_NAMES[i] + " ms", number(latency.get(PERCENTILE_NAMES[i])),
+                        millis(stats.latency.percentile(PERCENTILES[i])));
+            }
+            printChange(out, "", "max ms", number(latency.get("max")), millis(stats.latency.getMax()));
+        }
+    }
+
+    private static void printChange(PrintStream out, String route, String metric, double before, double after) {
+        String change = before == 0 ? (after == 0 ? "0.0%" : "n/a") : String.format("%+.1f%%", (after - before) * 100 / before);
+        out.printf("%-14s %-12s %12.3f %12.3f %9s%n", route, metric, before, after, change);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : Collections.<String, Object>emptyMap();
+    }
+
+    /**
+     * 读成Map、List、String、Double、Boolean和null
+     */
+    private static Object readValue(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    object.put(name, readValue(reader));
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                List<Object> array = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    array.add(readValue(reader));
+                }
+                reader.endArray();
+                return array;
+            case NUMBER:
+                return reader.nextDouble();
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                return reader.nextString();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.gupaoedu.benchmark.load;
+
+/**
+ * 压测的路由和它在请求中的占比，参数按序号变化，使/demo/query的缓存有命中也有未命中
+ */
+enum LoadRoute {
+
+    QUERY("/demo/query") {
+        @Override
+        String[] params(long sequence) {
+            return new String[]{"name", "user" + sequence % 1000};
+        }
+    },
+
+    ADD("/demo/add") {
+        @Override
+        String[] params(long sequence) {
+            return new String[]{"a", String.valueOf(sequence % 10000), "b", String.valueOf(sequence % 7)};
+        }
+    },
+
+    REMOVE("/demo/remove") {
+        @Override
+        String[] params(long sequence) {
+            return new String[]{"id", String.valueOf(sequence % 100000)};
+        }
+    };
+
+    final String path;
+
+    LoadRoute(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return 参数名和参数值交替排列，都不需要URL编码
+     */
+    abstract String[] params(long sequence);
+
+    String queryString(long sequence) {
+        String[] params = params(sequence);
+        StringBuilder query = new StringBuilder(32);
+        for(int i = 0; i < params.length; i += 2) {
+            if(i > 0) {query.append('&');}
+            query.append(params[i]).append('=').append(params[i + 1]);
+        }
+        return query.toString();
+    }
+
+    static LoadRoute of(String name) {
+        for(LoadRoute route : values()) {
+            if(route.name().equalsIgnoreCase(name) || route.path.equals(name)) {
+                return route;
+            }
+        }
+        throw new IllegalArgumentException("Unknown route " + name + ", expected query, add or remove");
+    }
+}
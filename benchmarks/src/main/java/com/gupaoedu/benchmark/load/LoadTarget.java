@@ -0,0 +1,21 @@
+package com.gupaoedu.benchmark.load;
+
+/**
+ * 压测对象：每个压测线程从这里取一个客户端，客户端只在所属线程上使用
+ */
+interface LoadTarget extends AutoCloseable {
+
+    Client newClient() throws Exception;
+
+    interface Client extends AutoCloseable {
+
+        /**
+         * 发送请求并等待完整的响应
+         * @return 响应状态码
+         */
+        int send(LoadRoute route, long sequence) throws Exception;
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,253 @@
+package com.gupaoedu.benchmark.load;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 整个栈在并发下的压测，与JMH的微基准互补，观察排队、长尾延迟和线程数的影响：
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar com.gupaoedu.benchmark.load.LoadTest -mode http -c 64 -rate 20000 -d 30
+ * </pre>
+ * <ul>
+ *     <li>-mode：inprocess(默认，压测线程直接调用servlet) | http(启动内嵌WCServer，经过本机回环网络)</li>
+ *     <li>-c：并发数，即压测线程数，http方式下每个线程一条keep-alive连接，默认16</li>
+ *     <li>-rate：目标总请求速率，每秒请求数，按计划时间均匀发出(开环)，延迟从计划时间算起，
+ *     服务端变慢时不会少发请求，修正了coordinated omission；0表示闭环，每个线程收到响应后立即发下一个</li>
+ *     <li>-d：测量时间，秒，默认30；-w：预热时间，秒，默认10，不计入结果</li>
+ *     <li>-mix：路由占比，默认query:50,add:30,remove:20</li>
+ *     <li>-config：servlet配置文件，默认benchmark-load.properties</li>
+ *     <li>-o：结果文件，默认load-result.json；-baseline：之前的结果文件，输出对比</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private String mode = "inprocess";
+
+    private int concurrency = 16;
+
+    private double rate = 0;
+
+    private int durationSeconds = 30;
+
+    private int warmupSeconds = 10;
+
+    private String mix = "query:50,add:30,remove:20";
+
+    private String config = "benchmark-load.properties";
+
+    private String output = "load-result.json";
+
+    private String baseline;
+
+    //按占比展开的路由，每个请求随机取一个
+    private LoadRoute[] schedule;
+
+    public static void main(String[] args) throws Exception {
+        LoadTest test = new LoadTest();
+        if(!test.parse(args)) {
+            return;
+        }
+        test.run();
+    }
+
+    private boolean parse(String[] args) {
+        for(int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if("-h".equals(name) || "-help".equals(name)) {
+                System.out.println("Usage: LoadTest [-mode inprocess|http] [-c concurrency] [-rate requestsPerSecond]"
+                        + " [-d seconds] [-w warmupSeconds] [-mix query:50,add:30,remove:20] [-config properties]"
+                        + " [-o result.json] [-baseline previous.json]");
+                return false;
+            }
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "-mode": mode = value; break;
+                case "-c": concurrency = Integer.parseInt(value); break;
+                case "-rate": rate = Double.parseDouble(value); break;
+                case "-d": durationSeconds = Integer.parseInt(value); break;
+                case "-w": warmupSeconds = Integer.parseInt(value); break;
+                case "-mix": mix = value; break;
+                case "-config": config = value; break;
+                case "-o": output = value; break;
+                case "-baseline": baseline = value; break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        if(!"inprocess".equals(mode) && !"http".equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode " + mode + ", expected inprocess or http");
+        }
+        if(concurrency < 1 || durationSeconds < 1 || warmupSeconds < 0 || rate < 0) {
+            throw new IllegalArgumentException("concurrency and duration must be positive, warmup and rate must not be negative");
+        }
+        schedule = schedule(mix);
+        return true;
+    }
+
+    /**
+     * query:50,add:30,remove:20按最大公约数展开成10个元素的数组
+     */
+    private static LoadRoute[] schedule(String mix) {
+        Map<LoadRoute, Integer> weights = new LinkedHashMap<>();
+        int gcd = 0;
+        for(String part : mix.split(",")) {
+            String[] pair = part.trim().split(":");
+            int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+            if(weight <= 0) {continue;}
+            weights.merge(LoadRoute.of(pair[0].trim()), weight, Integer::sum);
+        }
+        for(int weight : weights.values()) {
+            gcd = gcd(gcd, weight);
+        }
+        if(weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty route mix " + mix);
+        }
+        List<LoadRoute> routes = new ArrayList<>();
+        for(Map.Entry<LoadRoute, Integer> entry : weights.entrySet()) {
+            for(int i = 0; i < entry.getValue() / gcd; i++) {
+                routes.add(entry.getKey());
+            }
+        }
+        return routes.toArray(new LoadRoute[0]);
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private void run() throws Exception {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("startedAt", OffsetDateTime.now().toString());
+        settings.put("mode", mode);
+        settings.put("concurrency", concurrency);
+        settings.put("rate", rate);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("mix", mix);
+        settings.put("config", config);
+        settings.put("java", System.getProperty("java.version"));
+        settings.put("processors", Runtime.getRuntime().availableProcessors());
+
+        try (LoadTarget target = "http".equals(mode) ? new HttpTarget(config) : new InProcessTarget(config)) {
+            System.out.println("Load test " + settings);
+            long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            long measureStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+            Worker[] workers = new Worker[concurrency];
+            CountDownLatch done = new CountDownLatch(concurrency);
+            for(int i = 0; i < concurrency; i++) {
+                workers[i] = new Worker(i, target.newClient(), start, measureStart, end, done);
+                Thread thread = new Thread(workers[i], "load-" + (i + 1));
+                thread.setDaemon(true);
+                thread.start();
+            }
+            done.await();
+
+            //过载时计划在测量时间内的请求会在之后才完成，吞吐量按最后一个完成的时间计算
+            long lastFinish = measureStart;
+            for(Worker worker : workers) {
+                lastFinish = Math.max(lastFinish, worker.lastFinish);
+            }
+            double elapsedSeconds = Math.max(durationSeconds, (lastFinish - measureStart) / 1e9);
+            settings.put("elapsedSeconds", Math.round(elapsedSeconds * 1000) / 1000.0);
+            LoadReport report = new LoadReport(settings, elapsedSeconds);
+            for(Worker worker : workers) {
+                for(LoadRoute route : LoadRoute.values()) {
+                    if(worker.stats[route.ordinal()].latency.getTotal() > 0) {
+                        report.add(route.path, worker.stats[route.ordinal()]);
+                    }
+                }
+            }
+            report.print(System.out);
+            Path outputFile = Paths.get(output);
+            report.write(outputFile);
+            System.out.println("\nResult written to " + outputFile.toAbsolutePath());
+            if(baseline != null) {
+                report.compare(Paths.get(baseline), System.out);
+            }
+        }
+    }
+
+    /**
+     * 一个压测线程：开环时第k个线程的第n个请求计划在start + (n * concurrency + k) / rate发出，
+     * 落后于计划时立即发出，但延迟仍从计划时间算起
+     */
+    private final class Worker implements Runnable {
+
+        private final int index;
+
+        private final LoadTarget.Client client;
+
+        private final long start;
+
+        private final long measureStart;
+
+        private final long end;
+
+        private final CountDownLatch done;
+
+        private final LoadReport.RouteStats[] stats = new LoadReport.RouteStats[LoadRoute.values().length];
+
+        //最后一个计入结果的请求完成的时间，done.await()之后读取
+        private long lastFinish;
+
+        Worker(int index, LoadTarget.Client client, long start, long measureStart, long end, CountDownLatch done) {
+            this.index = index;
+            this.client = client;
+            this.start = start;
+            this.measureStart = measureStart;
+            this.end = end;
+            this.done = done;
+            for(int i = 0; i < stats.length; i++) {
+                stats[i] = new LoadReport.RouteStats();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                double intervalNanos = rate > 0 ? 1e9 * concurrency / rate : 0;
+                double offsetNanos = rate > 0 ? 1e9 * index / rate : 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for(long n = 0; ; n++) {
+                    long intended;
+                    if(rate > 0) {
+                        intended = start + (long) (offsetNanos + n * intervalNanos);
+                        if(intended >= end) {break;}
+                        long wait;
+                        while ((wait = intended - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    } else {
+                        intended = System.nanoTime();
+                        if(intended >= end) {break;}
+                    }
+                    LoadRoute route = schedule[random.nextInt(schedule.length)];
+                    long begin = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(route, n * concurrency + index);
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    long finish = System.nanoTime();
+                    if(intended >= measureStart) {
+                        stats[route.ordinal()].record(finish - intended, finish - begin, status);
+                        lastFinish = finish;
+                    }
+                }
+            } finally {
+                client.close();
+                done.countDown();
+            }
+        }
+    }
+}
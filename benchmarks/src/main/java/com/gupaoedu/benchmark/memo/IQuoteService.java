@@ -0,0 +1,8 @@
+package com.gupaoedu.benchmark.memo;
+
+public interface IQuoteService {
+
+    String quote(String sku);
+
+    String quoteUncached(String sku);
+}
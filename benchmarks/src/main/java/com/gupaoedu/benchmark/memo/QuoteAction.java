@@ -0,0 +1,27 @@
+package com.gupaoedu.benchmark.memo;
+
+import com.gupaoedu.mvcframework.annotation.WCAutowired;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+
+/**
+ * 同一个查询的缓存和不缓存版本
+ */
+@WCController
+@WCRequestMapping("/quote")
+public class QuoteAction {
+
+    @WCAutowired
+    private IQuoteService quoteService;
+
+    @WCRequestMapping("/cached")
+    public String cached(@WCRequestParam("sku") String sku) {
+        return quoteService.quote(sku);
+    }
+
+    @WCRequestMapping("/uncached")
+    public String uncached(@WCRequestParam("sku") String sku) {
+        return quoteService.quoteUncached(sku);
+    }
+}
@@ -0,0 +1,39 @@
+package com.gupaoedu.benchmark.memo;
+
+import com.gupaoedu.mvcframework.annotation.WCMemoize;
+import com.gupaoedu.mvcframework.annotation.WCService;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 代价较高的纯计算查询：对sku反复做SHA-256，同样的计算分别以缓存和不缓存的方法提供
+ */
+@WCService
+public class QuoteService implements IQuoteService {
+
+    private static final int ROUNDS = 64;
+
+    @WCMemoize(maxSize = 256, ttl = 60)
+    public String quote(String sku) {
+        return compute(sku);
+    }
+
+    public String quoteUncached(String sku) {
+        return compute(sku);
+    }
+
+    private static String compute(String sku) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] value = sku.getBytes(StandardCharsets.UTF_8);
+            for(int i = 0; i < ROUNDS; i++) {
+                value = digest.digest(value);
+            }
+            return sku + ":" + (value[0] & 0xff);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.gupaoedu.benchmark.mock;
+
+import javax.servlet.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 内存中的AsyncContext，complete()时通知监听器和回调，不实现超时
+ */
+public class MockAsyncContext implements AsyncContext {
+
+    private final ServletRequest request;
+
+    private final ServletResponse response;
+
+    private final Runnable completion;
+
+    private final List<AsyncListener> listeners = new ArrayList<>();
+
+    private long timeout;
+
+    MockAsyncContext(ServletRequest request, ServletResponse response, Runnable completion) {
+        this.request = request;
+        this.response = response;
+        this.completion = completion;
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+        return true;
+    }
+
+    @Override
+    public void dispatch() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dispatch(String path) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void complete() {
+        for(AsyncListener listener : listeners) {
+            try {
+                listener.onComplete(new AsyncEvent(this, request, response));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        if(completion != null) {
+            completion.run();
+        }
+    }
+
+    @Override
+    public void start(Runnable run) {
+        new Thread(run).start();
+    }
+
+    @Override
+    public void addListener(AsyncListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+        try {
+            return clazz.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ServletException(e);
+        }
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public long getTimeout() {
+        return timeout;
+    }
+}
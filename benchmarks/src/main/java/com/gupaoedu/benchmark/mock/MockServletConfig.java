@@ -0,0 +1,44 @@
+package com.gupaoedu.benchmark.mock;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Servlet配置，ServletContext框架不使用，所有方法返回null
+ */
+public class MockServletConfig implements ServletConfig {
+
+    static final ServletContext CONTEXT = (ServletContext) Proxy.newProxyInstance(
+            MockServletConfig.class.getClassLoader(), new Class[]{ServletContext.class}, (proxy, method, args) -> null);
+
+    private final Map<String, String> initParameters = new HashMap<>();
+
+    public MockServletConfig(String contextConfigLocation) {
+        initParameters.put("contextConfigLocation", contextConfigLocation);
+    }
+
+    @Override
+    public String getServletName() {
+        return "benchmark";
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return CONTEXT;
+    }
+
+    @Override
+    public String getInitParameter(String name) {
+        return initParameters.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getInitParameterNames() {
+        return Collections.enumeration(initParameters.keySet());
+    }
+}
@@ -0,0 +1,54 @@
+package com.gupaoedu.benchmark.response;
+
+import java.util.List;
+
+/**
+ * 一个典型的返回对象：数字、字符串、布尔和字符串列表
+ */
+public class Order {
+
+    private final long id;
+
+    private final String customer;
+
+    private final int quantity;
+
+    private final double amount;
+
+    private final boolean paid;
+
+    private final List<String> items;
+
+    public Order(long id, String customer, int quantity, double amount, boolean paid, List<String> items) {
+        this.id = id;
+        this.customer = customer;
+        this.quantity = quantity;
+        this.amount = amount;
+        this.paid = paid;
+        this.items = items;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+}
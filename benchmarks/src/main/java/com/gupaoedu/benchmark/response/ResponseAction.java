@@ -0,0 +1,47 @@
+package com.gupaoedu.benchmark.response;
+
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * 同样的输出分别由处理方法经getWriter()写出和作为返回值交给框架
+ */
+@WCController
+@WCRequestMapping("/response")
+public class ResponseAction {
+
+    private final Order order = new Order(1024L, "tom", 3, 99.5, true, Arrays.asList("book", "pen", "bag"));
+
+    @WCRequestMapping("/writerText")
+    public void writerText(HttpServletResponse resp, @WCRequestParam("name") String name) throws IOException {
+        resp.getWriter().write("My name is " + name);
+    }
+
+    @WCRequestMapping("/returnText")
+    public String returnText(@WCRequestParam("name") String name) {
+        return "My name is " + name;
+    }
+
+    //手工拼接JSON，代表原来的写法
+    @WCRequestMapping("/writerJson")
+    public void writerJson(HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json;charset=UTF-8");
+        StringBuilder items = new StringBuilder();
+        for(String item : order.getItems()) {
+            items.append(items.length() == 0 ? "" : ",").append('"').append(item).append('"');
+        }
+        resp.getWriter().write("{\"id\":" + order.getId() + ",\"customer\":\"" + order.getCustomer()
+                + "\",\"quantity\":" + order.getQuantity() + ",\"amount\":" + order.getAmount()
+                + ",\"paid\":" + order.isPaid() + ",\"items\":[" + items + "]}");
+    }
+
+    @WCRequestMapping("/returnJson")
+    public Order returnJson() {
+        return order;
+    }
+}
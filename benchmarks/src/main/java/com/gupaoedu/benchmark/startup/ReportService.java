@@ -0,0 +1,7 @@
+package com.gupaoedu.benchmark.startup;
+
+import com.gupaoedu.mvcframework.annotation.WCService;
+
+@WCService
+public class ReportService extends SlowInitService {
+}
@@ -0,0 +1,17 @@
+package com.gupaoedu.benchmark.startup;
+
+/**
+ * 初始化耗时的服务，模拟连接池建立、缓存预热
+ */
+public abstract class SlowInitService {
+
+    public static final long INIT_MILLIS = 50;
+
+    protected SlowInitService() {
+        try {
+            Thread.sleep(INIT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
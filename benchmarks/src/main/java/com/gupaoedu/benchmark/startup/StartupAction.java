@@ -0,0 +1,33 @@
+package com.gupaoedu.benchmark.startup;
+
+import com.gupaoedu.mvcframework.annotation.WCAutowired;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
+
+/**
+ * 依赖四个互不依赖、初始化耗时的服务
+ */
+@WCController
+@WCRequestMapping("/startup")
+public class StartupAction {
+
+    private final ConnectionService connectionService;
+
+    private final CacheService cacheService;
+
+    @WCAutowired
+    private SearchService searchService;
+
+    @WCAutowired
+    private ReportService reportService;
+
+    public StartupAction(ConnectionService connectionService, CacheService cacheService) {
+        this.connectionService = connectionService;
+        this.cacheService = cacheService;
+    }
+
+    @WCRequestMapping("/ping")
+    public String ping() {
+        return "pong";
+    }
+}
@@ -1,14 +1,24 @@
 package com.gupaoedu.demo.mvc.action;
 
+import com.gupaoedu.demo.mvc.vo.AddResult;
 import com.gupaoedu.demo.service.IDemoService;
 import com.gupaoedu.mvcframework.annotation.WCAutowired;
+import com.gupaoedu.mvcframework.annotation.WCBulkhead;
+import com.gupaoedu.mvcframework.annotation.WCCacheable;
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
 import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCETag;
+import com.gupaoedu.mvcframework.annotation.WCPathVariable;
+import com.gupaoedu.mvcframework.annotation.WCRateLimit;
 import com.gupaoedu.mvcframework.annotation.WCRequestMapping;
 import com.gupaoedu.mvcframework.annotation.WCRequestParam;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @WCController
 @WCRequestMapping("/demo")
@@ -17,6 +27,8 @@ public class DemoAction {
   	@WCAutowired
 	private IDemoService demoService;
 
+	@WCETag
+	@WCCacheable(params = "name")
 	@WCRequestMapping("/query")
 	public void query(HttpServletRequest req, HttpServletResponse resp,
 					  @WCRequestParam("name") String name){
@@ -29,16 +41,36 @@ public class DemoAction {
 		}
 	}
 
-	@WCRequestMapping("/add")
-	public void add(HttpServletRequest req, HttpServletResponse resp,
-					@WCRequestParam("a") Integer a, @WCRequestParam("b") Integer b){
+	@WCRequestMapping("/queryAsync")
+	public CompletableFuture<String> queryAsync(@WCRequestParam("name") String name){
+		return CompletableFuture.supplyAsync(() -> demoService.get(name));
+	}
+
+	@WCRequestMapping(value = "/get/{name}", method = RequestMethod.GET)
+	public void get(HttpServletRequest req, HttpServletResponse resp,
+					@WCPathVariable("name") String name){
+		String result = demoService.get(name);
 		try {
-			resp.getWriter().write(a + "+" + b + "=" + (a + b));
+			resp.getWriter().write(result);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 	}
 
+	@WCRateLimit(permitsPerSecond = 1000, burst = 200)
+	@WCBulkhead(maxConcurrent = 64)
+	@WCRequestMapping("/add")
+	public AddResult add(HttpServletRequest req, HttpServletResponse resp,
+					@WCRequestParam("a") Integer a, @WCRequestParam("b") Integer b){
+		return new AddResult(a, b);
+	}
+
+	//逐个元素流式输出，不在内存中攒出整个列表；Accept: text/event-stream时按SSE输出
+	@WCRequestMapping(value = "/export", method = RequestMethod.GET)
+	public Stream<AddResult> export(@WCRequestParam("n") Integer n){
+		return IntStream.range(0, n).mapToObj(i -> new AddResult(i, i));
+	}
+
 	@WCRequestMapping("/remove")
 	public void remove(HttpServletRequest req,HttpServletResponse resp,
 					   @WCRequestParam("id") Integer id){
@@ -0,0 +1,29 @@
+package com.gupaoedu.demo.mvc.vo;
+
+/**
+ * 加法结果，由框架按JSON输出
+ */
+public class AddResult {
+
+	private final int a;
+
+	private final int b;
+
+	public AddResult(int a, int b) {
+		this.a = a;
+		this.b = b;
+	}
+
+	public int getA() {
+		return a;
+	}
+
+	public int getB() {
+		return b;
+	}
+
+	public int getSum() {
+		return a + b;
+	}
+
+}
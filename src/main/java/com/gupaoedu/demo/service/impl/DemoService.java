@@ -1,6 +1,7 @@
 package com.gupaoedu.demo.service.impl;
 
 import com.gupaoedu.demo.service.IDemoService;
+import com.gupaoedu.mvcframework.annotation.WCMemoize;
 import com.gupaoedu.mvcframework.annotation.WCService;
 
 /**
@@ -9,6 +10,7 @@ import com.gupaoedu.mvcframework.annotation.WCService;
 @WCService
 public class DemoService implements IDemoService{
 
+	@WCMemoize(maxSize = 1024, ttl = 60)
 	public String get(String name) {
 		return "My name is " + name;
 	}
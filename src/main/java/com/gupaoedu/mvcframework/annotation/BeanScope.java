@@ -0,0 +1,14 @@
+package com.gupaoedu.mvcframework.annotation;
+
+/**
+ * bean的作用域
+ */
+public enum BeanScope {
+
+    //容器中只有一个实例
+    SINGLETON,
+
+    //每次注入或获取时创建新实例
+    PROTOTYPE
+
+}
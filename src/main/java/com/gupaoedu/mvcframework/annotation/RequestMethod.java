@@ -0,0 +1,27 @@
+package com.gupaoedu.mvcframework.annotation;
+
+/**
+ * 请求方式，配合WCRequestMapping限定处理方法支持的HTTP方法
+ */
+public enum RequestMethod {
+    GET, HEAD, POST, PUT, PATCH, DELETE, OPTIONS, TRACE;
+
+    /**
+     * 根据请求方式名称解析，未知方式返回null
+     * @param method HttpServletRequest.getMethod()
+     */
+    public static RequestMethod resolve(String method) {
+        if(method == null) {return null;}
+        switch (method) {
+            case "GET": return GET;
+            case "HEAD": return HEAD;
+            case "POST": return POST;
+            case "PUT": return PUT;
+            case "PATCH": return PATCH;
+            case "DELETE": return DELETE;
+            case "OPTIONS": return OPTIONS;
+            case "TRACE": return TRACE;
+            default: return null;
+        }
+    }
+}
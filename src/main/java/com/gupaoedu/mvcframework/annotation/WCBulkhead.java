@@ -0,0 +1,16 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 路由并发隔离：同时处理的请求达到上限时，新请求在绑定参数之前直接返回503，不占用更多容器线程；
+ * 可以在配置文件中用bulkhead.<路由路径>覆盖
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCBulkhead {
+
+    //最大并发数，异步请求在异步处理结束时才释放
+    int maxConcurrent();
+}
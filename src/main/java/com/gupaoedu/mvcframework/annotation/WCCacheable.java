@@ -0,0 +1,21 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存处理方法输出的响应（状态码200的GET请求），命中时不再绑定参数和调用处理方法
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCCacheable {
+
+    //参与缓存key的请求参数，为空表示使用全部请求参数
+    String[] params() default {};
+
+    //过期时间
+    long ttl() default 60;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+}
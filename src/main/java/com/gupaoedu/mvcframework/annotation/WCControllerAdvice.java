@@ -0,0 +1,15 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 全局异常处理bean，其中的WCExceptionHandler方法处理所有controller的异常；controller自己的异常处理方法优先
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCControllerAdvice {
+
+    //多个advice都能处理时，越小越优先
+    int order() default 0;
+}
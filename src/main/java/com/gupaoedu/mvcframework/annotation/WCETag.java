@@ -0,0 +1,17 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * GET请求的条件响应：输出ETag，请求的If-None-Match或If-Modified-Since表明客户端内容仍然有效时返回304，不写响应体
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCETag {
+
+    //同一个controller上给出当前版本的public方法名，无参或与处理方法形参相同；
+    //返回Date、Instant作为Last-Modified，其余值作为ETag；版本未变化时不调用处理方法。
+    //为空表示缓冲处理方法的输出，按响应体计算ETag
+    String version() default "";
+}
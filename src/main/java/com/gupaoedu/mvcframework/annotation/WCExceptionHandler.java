@@ -0,0 +1,19 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 异常处理方法，写在controller上只处理该controller的异常，写在WCControllerAdvice上处理所有controller的异常。
+ * <p>方法的形参可以是异常、HttpServletRequest、HttpServletResponse和HandlerMethod，返回值与处理方法一样写出。</p>
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCExceptionHandler {
+
+    //处理的异常类型，为空时取方法形参中的异常类型
+    Class<? extends Throwable>[] value() default {};
+
+    //调用方法之前设置的状态码，方法内可以再修改
+    int status() default 500;
+}
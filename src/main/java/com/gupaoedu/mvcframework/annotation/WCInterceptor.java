@@ -0,0 +1,23 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 拦截器bean，类必须实现HandlerInterceptor；可以像WCService一样注入其他bean。
+ * <p>路径模式在映射阶段与路由路径匹配：*匹配一段，**匹配任意多段，段内的*匹配任意字符；
+ * 路径变量只能被*、**或相同的{name}匹配。</p>
+ */
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCInterceptor {
+
+    //拦截的路由路径模式
+    String[] value() default "/**";
+
+    //排除的路由路径模式
+    String[] exclude() default {};
+
+    //越小越先执行preHandle，postHandle和afterCompletion按相反顺序执行
+    int order() default 0;
+}
@@ -0,0 +1,26 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存WCService方法的返回值，按参数组成key；同一个key并发未命中时只调用一次方法，其余调用等待它的结果。
+ * <p>service在创建时被替换为接口代理，只有通过接口发生的调用经过缓存，方法应当是没有副作用的查询；
+ * 抛出的异常不缓存，返回的null会缓存。</p>
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCMemoize {
+
+    //最多缓存的条目数，超出时淘汰访问频率低的条目
+    int maxSize() default 1024;
+
+    //过期时间，0表示不过期
+    long ttl() default 0;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    //参与缓存key的参数下标，为空表示使用全部参数
+    int[] key() default {};
+}
@@ -0,0 +1,18 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 路由限流：超出速率的请求在绑定参数之前直接返回429，可以在配置文件中用rateLimit.<路由路径>覆盖
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCRateLimit {
+
+    //每秒许可数，可以小于1
+    double permitsPerSecond();
+
+    //允许瞬间通过的请求数，0表示与每秒许可数相同（至少为1）
+    int burst() default 0;
+}
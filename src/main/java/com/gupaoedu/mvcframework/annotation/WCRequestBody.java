@@ -0,0 +1,20 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 把请求体绑定到形参：JSON按形参类型（POJO、Map、List、数组或基本类型）从输入流边读边解析，
+ * 表单（application/x-www-form-urlencoded）按属性名取请求参数。
+ * <p>形参为Iterator时请求体必须是JSON数组，处理方法每取一个元素才解析一个，适合批量导入的大数组。</p>
+ */
+@Target({ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCRequestBody {
+
+    //是否必须，请求体为空时返回400
+    boolean required() default true;
+
+    //请求体的字节数上限，超出时返回413；-1使用配置的requestBodyMaxBytes，0表示不限制
+    long maxBytes() default -1;
+}
@@ -7,4 +7,7 @@ import java.lang.annotation.*;
 @Documented
 public @interface WCRequestMapping {
     String value() default "";
+
+    //支持的请求方式，为空表示不限制
+    RequestMethod[] method() default {};
 }
@@ -6,5 +6,15 @@ import java.lang.annotation.*;
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 public @interface WCRequestParam {
+
+    //未设置默认值的标记，不可能出现在真实请求中
+    String NO_DEFAULT = "\n\t\t\n\t\t\n\n\t\t\t\t\n";
+
     String value() default "";
+
+    //是否必须，缺失且没有默认值时返回400
+    boolean required() default true;
+
+    //参数缺失时的默认值，数组和List按','拆分
+    String defaultValue() default NO_DEFAULT;
 }
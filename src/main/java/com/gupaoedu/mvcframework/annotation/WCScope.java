@@ -0,0 +1,10 @@
+package com.gupaoedu.mvcframework.annotation;
+
+import java.lang.annotation.*;
+
+@Target({ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface WCScope {
+    BeanScope value() default BeanScope.SINGLETON;
+}
@@ -16,6 +16,7 @@ import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
@@ -51,7 +52,7 @@ public class GPDispatcherServlet extends HttpServlet {
             configContext.load(is);
             String scanPackage = configContext.getProperty("scanPackage");
             doScanner(scanPackage);
-            for (String className : mapping.keySet()) {
+            for (String className : new ArrayList<String>(mapping.keySet())) {
                 if(!className.contains(".")){continue;}
                 Class<?> clazz = Class.forName(className);
                 if(clazz.isAnnotationPresent(WCController.class)){
@@ -110,7 +111,7 @@ public class GPDispatcherServlet extends HttpServlet {
         System.out.print("GP MVC Framework is init");
     }
     private void doScanner(String scanPackage) {
-        URL url = this.getClass().getClassLoader().getResource("/" + scanPackage.replaceAll("\\.","/"));
+        URL url = this.getClass().getClassLoader().getResource(scanPackage.replaceAll("\\.","/"));
         File classDir = new File(url.getFile());
         for (File file : classDir.listFiles()) {
             if(file.isDirectory()){ doScanner(scanPackage + "." +  file.getName());}else {
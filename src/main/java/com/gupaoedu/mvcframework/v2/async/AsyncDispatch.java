@@ -0,0 +1,73 @@
+package com.gupaoedu.mvcframework.v2.async;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次异步请求：处理结果和超时只有一方能写响应
+ * @since V1.0.0
+ */
+public class AsyncDispatch implements AsyncListener {
+
+    private final AsyncContext context;
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    private AsyncDispatch(AsyncContext context) {
+        this.context = context;
+    }
+
+    /**
+     * 开启Servlet异步处理，容器线程可以直接返回
+     * @param req 请求
+     * @param timeout 超时时间，毫秒
+     */
+    public static AsyncDispatch start(HttpServletRequest req, long timeout) {
+        AsyncContext context = req.startAsync();
+        context.setTimeout(timeout);
+        AsyncDispatch dispatch = new AsyncDispatch(context);
+        context.addListener(dispatch);
+        return dispatch;
+    }
+
+    /**
+     * 获取写响应的权利，已超时或已完成时返回false
+     */
+    public boolean tryFinish() {
+        return finished.compareAndSet(false, true);
+    }
+
+    /**
+     * 结束异步处理，响应交还给容器
+     */
+    public void complete() {
+        context.complete();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+        if(!tryFinish()) {return;}
+        HttpServletResponse resp = (HttpServletResponse) event.getSuppliedResponse();
+        resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        resp.getWriter().write("503 Async Timeout!!!");
+        context.complete();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        tryFinish();
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
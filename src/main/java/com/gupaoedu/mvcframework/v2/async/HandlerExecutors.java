@@ -0,0 +1,91 @@
+package com.gupaoedu.mvcframework.v2.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 处理方法执行器，对应配置handlerExecutor：
+ * <ul>
+ *     <li>none(默认)：在容器线程上同步执行</li>
+ *     <li>virtual：每个请求一个虚拟线程，需要JDK 21+，低版本JDK回退为pool</li>
+ *     <li>pool：固定大小的线程池，大小由handlerExecutorThreads配置</li>
+ * </ul>
+ * @since V1.0.0
+ */
+public final class HandlerExecutors {
+
+    public static final String NONE = "none";
+
+    public static final String VIRTUAL = "virtual";
+
+    public static final String POOL = "pool";
+
+    private HandlerExecutors() {
+    }
+
+    /**
+     * 创建执行器
+     * @param mode 执行方式
+     * @param threads pool方式的线程数
+     * @return none方式返回null
+     */
+    public static ExecutorService create(String mode, int threads) {
+        return create(mode, threads, "wc-handler-");
+    }
+
+    /**
+     * 创建执行器
+     * @param mode 执行方式
+     * @param threads pool方式的线程数
+     * @param threadPrefix pool方式的线程名前缀
+     * @return none方式返回null
+     */
+    public static ExecutorService create(String mode, int threads, String threadPrefix) {
+        if(mode == null || "".equals(mode.trim()) || NONE.equalsIgnoreCase(mode.trim())) {
+            return null;
+        }
+        if(VIRTUAL.equalsIgnoreCase(mode.trim())) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if(virtual != null) {
+                return virtual;
+            }
+            System.out.println("Virtual threads are not available on this JVM, fall back to a pool of " + threads + " threads");
+        } else if(!POOL.equalsIgnoreCase(mode.trim())) {
+            throw new IllegalArgumentException("Unknown executor : " + mode);
+        }
+        return Executors.newFixedThreadPool(threads, new NamedThreadFactory(threadPrefix));
+    }
+
+    /**
+     * 编译目标为1.8，通过反射调用JDK 21的Executors.newVirtualThreadPerTaskExecutor()
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.gupaoedu.mvcframework.v2.batch;
+
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+import com.gupaoedu.mvcframework.v2.exception.ErrorResponses;
+import com.gupaoedu.mvcframework.v2.response.ReturnValueWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批量接口：一次POST携带多个子请求，每个子请求按普通请求走路由、绑定和处理，
+ * 在有界线程池上并行执行，全部完成或超时后按请求顺序合并为一个JSON数组返回。
+ * <ul>
+ *     <li>线程池和队列都有上限，队列满时由容器线程自己执行，不丢弃子请求</li>
+ *     <li>整个批次共用一个截止时间，超时的子请求被中断，结果为504</li>
+ *     <li>子请求不能指向批量、重新加载、指标等保留路径，结果为400</li>
+ * </ul>
+ * @since V1.0.0
+ */
+public final class BatchHandler {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    /**
+     * 执行一个子请求，与容器调用servlet相同：异常已经转为错误响应，不再抛出
+     */
+    public interface Dispatcher {
+        void dispatch(HttpServletRequest req, HttpServletResponse resp) throws Exception;
+    }
+
+    private final String path;
+
+    //不允许子请求访问的保留路径
+    private final Set<String> reservedPaths;
+
+    private final ThreadPoolExecutor executor;
+
+    //整个批次的超时时间，毫秒
+    private final long timeoutMillis;
+
+    private final int maxRequests;
+
+    //批量请求体的字节数上限，0表示不限制
+    private final long maxBytes;
+
+    private final Dispatcher dispatcher;
+
+    private final ReturnValueWriter returnValueWriter;
+
+    /**
+     * @param path 批量接口的路径
+     * @param reservedPaths 其它保留路径，子请求不能访问
+     * @param threads 线程数，队列长度为它的4倍
+     * @param timeoutMillis 整个批次的超时时间，毫秒
+     * @param maxRequests 一个批次最多的子请求数
+     * @param maxBytes 批量请求体的字节数上限，0表示不限制
+     * @param dispatcher 子请求的执行入口
+     * @param returnValueWriter 合并结果的输出
+     */
+    public BatchHandler(String path, Set<String> reservedPaths, int threads, long timeoutMillis, int maxRequests,
+                        long maxBytes, Dispatcher dispatcher, ReturnValueWriter returnValueWriter) {
+        if(threads <= 0 || timeoutMillis <= 0 || maxRequests <= 0) {
+            throw new IllegalArgumentException("batchThreads, batchTimeout and batchMaxRequests must be positive");
+        }
+        this.path = path;
+        this.reservedPaths = reservedPaths;
+        this.timeoutMillis = timeoutMillis;
+        this.maxRequests = maxRequests;
+        this.maxBytes = maxBytes;
+        this.dispatcher = dispatcher;
+        this.returnValueWriter = returnValueWriter;
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 4), new NamedThreadFactory("wc-batch-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 请求路径是否为批量接口
+     * @param url 请求全路径
+     * @param start 跳过contextPath后的起始位置
+     */
+    public boolean matches(String url, int start) {
+        return url.length() - start == path.length() && url.startsWith(path, start);
+    }
+
+    /**
+     * 执行批量请求，请求体格式错误或超出限制时抛出BindingException
+     */
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        if(!"POST".equals(req.getMethod())) {
+            resp.setHeader("Allow", "POST");
+            ErrorResponses.write(resp, HttpServletResponse.SC_METHOD_NOT_ALLOWED, ErrorResponses.METHOD_NOT_ALLOWED);
+            return ;
+        }
+        long length = req.getContentLengthLong();
+        if(maxBytes > 0 && length > maxBytes) {
+            throw new BindingException(413, "Request body of " + length + " bytes exceeds " + maxBytes + " bytes");
+        }
+        //已知长度的小请求体不分配完整的缓冲区
+        int bufferSize = length > 0 && length < BUFFER_SIZE ? Math.max(MIN_BUFFER_SIZE, (int) length) : BUFFER_SIZE;
+        List<BatchItem> items = BatchItem.parse(req.getInputStream(), maxBytes, bufferSize, maxRequests);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        //请求头只在容器线程上读取一次，子请求共用
+        Map<String, List<String>> headers = BatchRequest.snapshotHeaders(req);
+        List<Future<BatchResult>> futures = new ArrayList<>(items.size());
+        for(BatchItem item : items) {
+            if(isReserved(item.path)) {
+                futures.add(null);
+                continue;
+            }
+            BatchRequest subRequest = new BatchRequest(req, item, headers);
+            BatchResponse subResponse = new BatchResponse(resp);
+            futures.add(executor.submit(() -> {
+                dispatcher.dispatch(subRequest, subResponse);
+                return subResponse.toResult(item.path);
+            }));
+        }
+        List<BatchResult> results = new ArrayList<>(items.size());
+        try {
+            for(int i = 0; i < items.size(); i++) {
+                results.add(await(futures.get(i), items.get(i).path, deadline));
+            }
+        } catch (InterruptedException e) {
+            //容器线程被中断，剩下的子请求不再需要
+            for(Future<BatchResult> future : futures) {
+                if(future != null) {future.cancel(true);}
+            }
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        returnValueWriter.write(resp, results);
+    }
+
+    private boolean isReserved(String subPath) {
+        return subPath.equals(path) || reservedPaths.contains(subPath);
+    }
+
+    private static BatchResult await(Future<BatchResult> future, String subPath, long deadline) throws InterruptedException {
+        if(future == null) {
+            return error(subPath, HttpServletResponse.SC_BAD_REQUEST, "Reserved path cannot be used in a batch");
+        }
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            future.cancel(true);
+            return error(subPath, HttpServletResponse.SC_GATEWAY_TIMEOUT, "Batch timed out");
+        } catch (ExecutionException e) {
+            //dispatcher已经处理了处理方法的异常，走到这里说明是框架自身的错误
+            return error(subPath, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getCause().toString());
+        }
+    }
+
+    private static BatchResult error(String subPath, int status, String message) {
+        return new BatchResult(subPath, status, ReturnValueWriter.TEXT_CONTENT_TYPE, null,
+                status + " " + ErrorResponses.reasonPhrase(status) + ", " + message);
+    }
+
+    /**
+     * 停止线程池，正在执行的子请求不等待
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.gupaoedu.mvcframework.v2.batch;
+
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+import com.gupaoedu.mvcframework.v2.body.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量请求中的一个子请求：路径（可以带查询串）、方法和参数。
+ * <p>请求体格式：[{"path":"/demo/query?name=tom","method":"GET","params":{"id":"1","tags":["a","b"]}}, ...]，
+ * method默认为GET，params的值可以是字符串、数字、布尔或它们的数组。</p>
+ * @since V1.0.0
+ */
+final class BatchItem {
+
+    private static final String[] EMPTY = new String[0];
+
+    final String path;
+
+    final String method;
+
+    final String queryString;
+
+    //查询串与params合并后的参数
+    final Map<String, String[]> parameters;
+
+    private BatchItem(String path, String method, String queryString, Map<String, String[]> parameters) {
+        this.path = path;
+        this.method = method;
+        this.queryString = queryString;
+        this.parameters = parameters;
+    }
+
+    /**
+     * 读取请求体中的全部子请求，格式错误或数量超出上限时返回400
+     * @param in 请求体
+     * @param maxBytes 请求体的字节数上限，0表示不限制
+     * @param bufferSize 读取缓冲区大小
+     * @param maxRequests 子请求的数量上限
+     */
+    static List<BatchItem> parse(InputStream in, long maxBytes, int bufferSize, int maxRequests) throws IOException {
+        JsonReader reader = new JsonReader(in, maxBytes, bufferSize);
+        List<BatchItem> items = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if(items.size() == maxRequests) {
+                throw new BindingException("A batch can contain at most " + maxRequests + " requests");
+            }
+            items.add(read(reader));
+        }
+        reader.endArray();
+        reader.endDocument();
+        return items;
+    }
+
+    private static BatchItem read(JsonReader reader) throws IOException {
+        String path = null;
+        String method = "GET";
+        Map<String, String[]> parameters = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if("path".equals(name)) {
+                path = reader.nextString();
+            } else if("method".equals(name)) {
+                method = reader.nextString().toUpperCase();
+            } else if("params".equals(name)) {
+                readParams(reader, parameters);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if(path == null || !path.startsWith("/")) {
+            throw new BindingException("Each batch request needs a path starting with '/'");
+        }
+        String queryString = null;
+        int query = path.indexOf('?');
+        if(query >= 0) {
+            queryString = path.substring(query + 1);
+            path = path.substring(0, query);
+            parseQuery(queryString, parameters);
+        }
+        return new BatchItem(path, method, queryString, parameters);
+    }
+
+    private static void readParams(JsonReader reader, Map<String, String[]> parameters) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if(reader.peek() == JsonReader.Token.BEGIN_ARRAY) {
+                List<String> values = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    values.add(scalar(reader));
+                }
+                reader.endArray();
+                add(parameters, name, values.toArray(EMPTY));
+            } else {
+                add(parameters, name, new String[]{scalar(reader)});
+            }
+        }
+        reader.endObject();
+    }
+
+    private static String scalar(JsonReader reader) throws IOException {
+        JsonReader.Token token = reader.peek();
+        if(token == JsonReader.Token.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        }
+        if(token == JsonReader.Token.NULL) {
+            reader.nextNull();
+            return "";
+        }
+        return reader.nextString();
+    }
+
+    private static void parseQuery(String queryString, Map<String, String[]> parameters) {
+        for(String pair : queryString.split("&")) {
+            if(pair.isEmpty()) {continue;}
+            int eq = pair.indexOf('=');
+            try {
+                String name = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), "UTF-8");
+                String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), "UTF-8");
+                add(parameters, name, new String[]{value});
+            } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+                throw new BindingException("Invalid query string in batch request: " + queryString);
+            }
+        }
+    }
+
+    /**
+     * 同名参数追加在已有值之后，与容器合并查询串和表单参数的方式一致
+     */
+    private static void add(Map<String, String[]> parameters, String name, String[] values) {
+        String[] exist = parameters.get(name);
+        if(exist == null) {
+            parameters.put(name, values);
+            return ;
+        }
+        String[] merged = new String[exist.length + values.length];
+        System.arraycopy(exist, 0, merged, 0, exist.length);
+        System.arraycopy(values, 0, merged, exist.length, values.length);
+        parameters.put(name, merged);
+    }
+}
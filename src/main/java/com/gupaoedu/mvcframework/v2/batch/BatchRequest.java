@@ -0,0 +1,262 @@
+package com.gupaoedu.mvcframework.v2.batch;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 批量请求中的一个子请求：路径、方法和参数来自{@link BatchItem}，请求头来自外层请求的快照，
+ * 属性各自独立，没有请求体，不支持异步。
+ * <p>子请求在批量执行器的线程上运行，外层请求对象在容器线程之外不保证可用，所以除了
+ * 快照之外不读取外层请求的可变状态。</p>
+ * @since V1.0.0
+ */
+final class BatchRequest extends HttpServletRequestWrapper {
+
+    private static final ServletInputStream EMPTY_INPUT = new ServletInputStream() {
+        @Override
+        public int read() {
+            return -1;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return true;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    private final BatchItem item;
+
+    private final String requestURI;
+
+    //请求头快照，key为小写的名字，同一批次的子请求共用
+    private final Map<String, List<String>> headers;
+
+    private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+    /**
+     * @param outer 外层的批量请求
+     * @param item 子请求
+     * @param headers 外层请求头的快照
+     */
+    BatchRequest(HttpServletRequest outer, BatchItem item, Map<String, List<String>> headers) {
+        super(outer);
+        this.item = item;
+        String contextPath = outer.getContextPath();
+        this.requestURI = contextPath == null ? item.path : contextPath + item.path;
+        this.headers = headers;
+    }
+
+    /**
+     * 复制外层请求头，跳过请求体相关的Content-*和条件请求的If-*，它们只对外层请求有意义
+     */
+    static Map<String, List<String>> snapshotHeaders(HttpServletRequest outer) {
+        Map<String, List<String>> headers = new HashMap<>();
+        Enumeration<String> names = outer.getHeaderNames();
+        while (names != null && names.hasMoreElements()) {
+            String name = names.nextElement();
+            String key = name.toLowerCase(Locale.ROOT);
+            if(key.startsWith("content-") || key.startsWith("if-")) {continue;}
+            headers.put(key, Collections.list(outer.getHeaders(name)));
+        }
+        return headers;
+    }
+
+    @Override
+    public String getMethod() {
+        return item.method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer();
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort()).append(requestURI);
+        return url;
+    }
+
+    @Override
+    public String getServletPath() {
+        return item.path;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return null;
+    }
+
+    @Override
+    public String getQueryString() {
+        return item.queryString;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = item.parameters.get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = item.parameters.get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(item.parameters);
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(item.parameters.keySet());
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = headers.get(name.toLowerCase(Locale.ROOT));
+        return Collections.enumeration(values == null ? Collections.<String>emptyList() : values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        return Collections.enumeration(headers.keySet());
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if(value == null) {return -1;}
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date header " + name + ": " + value);
+        }
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value);
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if(o == null) {
+            attributes.remove(name);
+            return ;
+        }
+        attributes.put(name, o);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        attributes.remove(name);
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public int getContentLength() {
+        return 0;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return 0;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return "UTF-8";
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) {
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        return EMPTY_INPUT;
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        return new BufferedReader(new StringReader(""));
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return false;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return false;
+    }
+
+    @Override
+    public AsyncContext startAsync() {
+        throw new IllegalStateException("Batch requests do not support async processing");
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        throw new IllegalStateException("Batch requests do not support async processing");
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+}
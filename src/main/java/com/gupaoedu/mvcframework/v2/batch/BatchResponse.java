@@ -0,0 +1,368 @@
+package com.gupaoedu.mvcframework.v2.batch;
+
+import com.gupaoedu.mvcframework.v2.body.JsonReader;
+import com.gupaoedu.mvcframework.v2.response.RawJson;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * 子请求的响应：状态码、响应头和响应体全部留在内存中，不触碰外层响应，处理完成后由{@link #toResult}转为批量结果。
+ * <p>与{@link com.gupaoedu.mvcframework.v2.cache.CapturingResponse}不同，这里任何写操作都不透传，
+ * 多个子请求并行写各自的包装，外层响应只在所有子请求结束后由容器线程写出一次。</p>
+ * @since V1.0.0
+ */
+final class BatchResponse extends HttpServletResponseWrapper {
+
+    private static final String DEFAULT_CHARSET = "ISO-8859-1";
+
+    private final Body body = new Body();
+
+    //响应头，名字不区分大小写，按名字排列
+    private final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    private int status = SC_OK;
+
+    private String contentType;
+
+    private String characterEncoding;
+
+    private Locale locale = Locale.getDefault();
+
+    //调用了sendError或sendRedirect之后忽略后续输出
+    private boolean committed = false;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    BatchResponse(HttpServletResponse outer) {
+        super(outer);
+    }
+
+    /**
+     * 生成批量结果，JSON响应体原样嵌入，其余按字符集解码为字符串
+     * @param path 子请求的路径
+     */
+    BatchResult toResult(String path) {
+        if(writer != null) {
+            writer.flush();
+        }
+        Object content = null;
+        if(body.size() > 0) {
+            content = isJson() && isValidJson() ? new RawJson(body.array(), 0, body.size())
+                    : new String(body.array(), 0, body.size(), charset());
+        }
+        return new BatchResult(path, status, contentType, headers.isEmpty() ? null : headers, content);
+    }
+
+    private boolean isJson() {
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
+    }
+
+    /**
+     * 原样嵌入的内容必须是一个完整的JSON值，否则会破坏整个批量响应，校验失败时按字符串输出
+     */
+    private boolean isValidJson() {
+        try {
+            JsonReader reader = new JsonReader(new ByteArrayInputStream(body.array(), 0, body.size()), 0,
+                    Math.max(64, Math.min(body.size(), 512)));
+            reader.skipValue();
+            reader.endDocument();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    private Charset charset() {
+        try {
+            return Charset.forName(getCharacterEncoding());
+        } catch (RuntimeException e) {
+            return Charset.forName(DEFAULT_CHARSET);
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if(writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if(outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    if(!committed) {body.write(b);}
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    if(!committed) {body.write(b, off, len);}
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws UnsupportedEncodingException {
+        if(outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if(writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(body, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        if(!committed) {status = sc;}
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        setStatus(sc);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        if(committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        resetBuffer();
+        status = sc;
+        if(msg != null) {
+            contentType = "text/plain";
+            characterEncoding = "UTF-8";
+            byte[] bytes = msg.getBytes(Charset.forName("UTF-8"));
+            body.write(bytes, 0, bytes.length);
+        }
+        committed = true;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        if(committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        resetBuffer();
+        status = SC_FOUND;
+        setHeader("Location", location);
+        committed = true;
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    @Override
+    public void flushBuffer() {
+        if(writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        if(committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        flushBuffer();
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        status = SC_OK;
+        headers.clear();
+        contentType = null;
+        characterEncoding = null;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public int getBufferSize() {
+        return body.size();
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if(committed) {return ;}
+        if(type == null) {
+            contentType = null;
+            return ;
+        }
+        int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if(charset >= 0 && writer == null) {
+            characterEncoding = type.substring(charset + 8).trim();
+        }
+        contentType = type;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if(!committed && writer == null) {
+            characterEncoding = charset;
+        }
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding == null ? DEFAULT_CHARSET : characterEncoding;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        if(loc != null) {locale = loc;}
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        addHeader("Set-Cookie", cookie.getName() + "=" + cookie.getValue());
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return headers.containsKey(name);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if(committed || name == null) {return ;}
+        if(value == null) {
+            headers.remove(name);
+            return ;
+        }
+        if("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return ;
+        }
+        List<String> values = new ArrayList<>(1);
+        values.add(value);
+        headers.put(name, values);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if(committed || name == null || value == null) {return ;}
+        if("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return ;
+        }
+        headers.computeIfAbsent(name, k -> new ArrayList<>(1)).add(value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, formatDate(date));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, formatDate(date));
+    }
+
+    private static String formatDate(long date) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atOffset(ZoneOffset.UTC));
+    }
+
+    @Override
+    public String getHeader(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? null : values.get(0);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = headers.get(name);
+        return values == null ? Collections.<String>emptyList() : new ArrayList<>(values);
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        return new ArrayList<>(headers.keySet());
+    }
+
+    /**
+     * 直接读取内部数组，嵌入结果时不复制
+     */
+    private static final class Body extends ByteArrayOutputStream {
+
+        Body() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
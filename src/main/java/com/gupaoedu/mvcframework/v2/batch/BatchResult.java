@@ -0,0 +1,51 @@
+package com.gupaoedu.mvcframework.v2.batch;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个子请求的结果，按请求顺序组成批量响应：
+ * [{"path":"/demo/query","status":200,"contentType":"application/json;charset=UTF-8","headers":null,"body":{...}}, ...]，
+ * JSON响应体原样嵌入，其余响应体为字符串，没有响应体时为null
+ * @since V1.0.0
+ */
+public final class BatchResult {
+
+    private final String path;
+
+    private final int status;
+
+    private final String contentType;
+
+    private final Map<String, List<String>> headers;
+
+    private final Object body;
+
+    BatchResult(String path, int status, String contentType, Map<String, List<String>> headers, Object body) {
+        this.path = path;
+        this.status = status;
+        this.contentType = contentType;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public Map<String, List<String>> getHeaders() {
+        return headers;
+    }
+
+    public Object getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,16 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+/**
+ * 依赖缺失、存在歧义、循环依赖或实例化失败，容器启动直接失败
+ * @since V1.0.0
+ */
+public class BeanCreationException extends RuntimeException {
+
+    public BeanCreationException(String message) {
+        super(message);
+    }
+
+    public BeanCreationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
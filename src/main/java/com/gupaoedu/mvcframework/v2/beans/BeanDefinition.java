@@ -0,0 +1,370 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+import com.gupaoedu.mvcframework.annotation.BeanScope;
+import com.gupaoedu.mvcframework.annotation.WCAutowired;
+import com.gupaoedu.mvcframework.annotation.WCController;
+import com.gupaoedu.mvcframework.annotation.WCLazy;
+import com.gupaoedu.mvcframework.annotation.WCScope;
+import com.gupaoedu.mvcframework.annotation.WCService;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * bean定义：名字、作用域、构造器依赖和字段依赖，以及创建实例和注入字段用的访问器。
+ * 扫描时由{@link #introspect}通过反射生成一次，编译期索引则直接用{@link Builder}生成
+ * @since V1.0.0
+ */
+public final class BeanDefinition {
+
+    private static final Dependency[] NO_DEPENDENCIES = new Dependency[0];
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final boolean controller;
+
+    private final BeanScope scope;
+
+    private final boolean lazy;
+
+    //实现的接口名，可以按接口名注入
+    private final String[] aliases;
+
+    private final Dependency[] constructorDependencies;
+
+    private final BeanInstantiator instantiator;
+
+    private final FieldInjection[] fields;
+
+    //标注了WCMemoize的service的代理配置，不需要代理时为null
+    private final MemoizeProxy.Factory proxyFactory;
+
+    //refresh时解析的依赖目标，下标与依赖一一对应
+    BeanDefinition[] constructorTargets;
+
+    BeanDefinition[] fieldTargets;
+
+    private BeanDefinition(Builder builder) {
+        this.name = builder.name;
+        this.type = builder.type;
+        this.controller = builder.controller;
+        this.scope = builder.scope;
+        this.lazy = builder.lazy;
+        this.aliases = builder.aliases;
+        this.constructorDependencies = builder.constructorDependencies;
+        this.instantiator = builder.instantiator;
+        this.fields = builder.fields.toArray(new FieldInjection[0]);
+        this.proxyFactory = builder.memoize ? MemoizeProxy.of(type) : null;
+    }
+
+    public static Builder builder(String name, Class<?> type) {
+        return new Builder(name, type);
+    }
+
+    /**
+     * 通过反射读取注解生成bean定义，构造器和字段的访问器在这里生成一次
+     * @param name bean名字
+     * @param type bean类型
+     */
+    public static BeanDefinition introspect(String name, Class<?> type) {
+        Builder builder = builder(name, type);
+        if(type.isAnnotationPresent(WCController.class)) {
+            builder.controller();
+        }
+        if(type.isAnnotationPresent(WCService.class)) {
+            Class<?>[] interfaces = type.getInterfaces();
+            String[] aliases = new String[interfaces.length];
+            for(int i = 0; i < interfaces.length; i++) {
+                aliases[i] = interfaces[i].getName();
+            }
+            builder.aliases(aliases);
+            builder.memoize();
+        }
+        if(type.isAnnotationPresent(WCScope.class)) {
+            builder.scope(type.getAnnotation(WCScope.class).value());
+        }
+        if(type.isAnnotationPresent(WCLazy.class)) {
+            builder.lazy();
+        }
+        //构造器注入
+        Constructor<?> constructor = selectConstructor(type);
+        builder.constructor(constructorDependencies(constructor), constructorInstantiator(constructor));
+        //字段注入
+        for(Field field : type.getDeclaredFields()) {
+            if(!field.isAnnotationPresent(WCAutowired.class)) {continue;}
+            WCAutowired autowired = field.getAnnotation(WCAutowired.class);
+            Dependency dependency = "".equals(autowired.value().trim())
+                    ? Dependency.byNameOrType(field.getName(), field.getType())
+                    : Dependency.byName(autowired.value(), field.getType());
+            builder.field(field.getName(), dependency, fieldInjector(field));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 选择构造器：标注了WCAutowired的构造器，只有一个构造器时用它，否则用无参构造器
+     */
+    static Constructor<?> selectConstructor(Class<?> type) {
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        Constructor<?> selected = null;
+        for(Constructor<?> constructor : constructors) {
+            if(!constructor.isAnnotationPresent(WCAutowired.class)) {continue;}
+            if(selected != null) {
+                throw new BeanCreationException("More than one @WCAutowired constructor in " + type.getName());
+            }
+            selected = constructor;
+        }
+        if(selected != null) {return selected;}
+        if(constructors.length == 1) {return constructors[0];}
+        for(Constructor<?> constructor : constructors) {
+            if(constructor.getParameterCount() == 0) {return constructor;}
+        }
+        throw new BeanCreationException("No default constructor or @WCAutowired constructor in " + type.getName());
+    }
+
+    /**
+     * 构造器参数依赖：WCAutowired指定了名字时按名字，否则按类型
+     */
+    static Dependency[] constructorDependencies(Constructor<?> constructor) {
+        Parameter[] parameters = constructor.getParameters();
+        Dependency[] dependencies = new Dependency[parameters.length];
+        for(int i = 0; i < parameters.length; i++) {
+            WCAutowired autowired = parameters[i].getAnnotation(WCAutowired.class);
+            dependencies[i] = autowired != null && !"".equals(autowired.value().trim())
+                    ? Dependency.byName(autowired.value(), parameters[i].getType())
+                    : Dependency.byType(parameters[i].getType());
+        }
+        return dependencies;
+    }
+
+    /**
+     * 构造器转为(Object[])Object的MethodHandle
+     */
+    static BeanInstantiator constructorInstantiator(Constructor<?> constructor) {
+        MethodHandle handle;
+        try {
+            constructor.setAccessible(true);
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (IllegalAccessException e) {
+            throw new BeanCreationException("Cannot access " + constructor, e);
+        }
+        return args -> {
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BeanCreationException("Failed to invoke " + constructor, e);
+            }
+        };
+    }
+
+    /**
+     * 字段转为(Object, Object)void的MethodHandle，取代每次注入时的Field.set
+     */
+    static BeanInjector fieldInjector(Field field) {
+        if(Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+            throw new BeanCreationException("@WCAutowired field must not be static or final: " + field);
+        }
+        MethodHandle handle;
+        try {
+            field.setAccessible(true);
+            handle = MethodHandles.lookup().unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new BeanCreationException("Cannot access " + field, e);
+        }
+        return (bean, value) -> {
+            try {
+                handle.invokeExact(bean, value);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new BeanCreationException("Failed to inject " + field, e);
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isController() {
+        return controller;
+    }
+
+    public BeanScope getScope() {
+        return scope;
+    }
+
+    public boolean isPrototype() {
+        return scope == BeanScope.PROTOTYPE;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public String[] getAliases() {
+        return aliases.clone();
+    }
+
+    String[] aliases() {
+        return aliases;
+    }
+
+    Dependency[] getConstructorDependencies() {
+        return constructorDependencies;
+    }
+
+    BeanInstantiator getInstantiator() {
+        return instantiator;
+    }
+
+    FieldInjection[] getFields() {
+        return fields;
+    }
+
+    /**
+     * 是否对外提供代理而不是原始实例
+     */
+    public boolean isProxied() {
+        return proxyFactory != null;
+    }
+
+    /**
+     * 代理能否赋值给依赖的类型，不需要代理时总是true
+     */
+    boolean isExposedAs(Class<?> dependencyType) {
+        return proxyFactory == null || proxyFactory.isAssignableTo(dependencyType);
+    }
+
+    /**
+     * 对外提供的对象：需要代理时包装原始实例，字段仍然注入到原始实例
+     */
+    Object expose(Object instance) {
+        return proxyFactory == null ? instance : proxyFactory.newProxy(instance);
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + type.getName() + ")";
+    }
+
+    /**
+     * 字段依赖
+     */
+    static final class FieldInjection {
+
+        final String fieldName;
+
+        final Dependency dependency;
+
+        final BeanInjector injector;
+
+        FieldInjection(String fieldName, Dependency dependency, BeanInjector injector) {
+            this.fieldName = fieldName;
+            this.dependency = dependency;
+            this.injector = injector;
+        }
+    }
+
+    public static final class Builder {
+
+        private final String name;
+        private final Class<?> type;
+        private boolean controller;
+        private BeanScope scope = BeanScope.SINGLETON;
+        private boolean lazy;
+        private boolean memoize;
+        private String[] aliases = new String[0];
+        private Dependency[] constructorDependencies = NO_DEPENDENCIES;
+        private BeanInstantiator instantiator;
+        private final List<FieldInjection> fields = new ArrayList<>();
+
+        private Builder(String name, Class<?> type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        public Builder controller() {
+            this.controller = true;
+            return this;
+        }
+
+        public Builder scope(BeanScope scope) {
+            this.scope = scope;
+            return this;
+        }
+
+        public Builder lazy() {
+            this.lazy = true;
+            return this;
+        }
+
+        /**
+         * 检查WCMemoize方法，有时创建接口代理
+         */
+        public Builder memoize() {
+            this.memoize = true;
+            return this;
+        }
+
+        public Builder aliases(String... aliases) {
+            this.aliases = aliases;
+            return this;
+        }
+
+        /**
+         * @param dependencies 构造器参数依赖
+         * @param instantiator 用解析好的依赖创建实例
+         */
+        public Builder constructor(Dependency[] dependencies, BeanInstantiator instantiator) {
+            this.constructorDependencies = dependencies;
+            this.instantiator = instantiator;
+            return this;
+        }
+
+        /**
+         * @param fieldName 字段名
+         * @param dependency 依赖
+         * @param injector 注入器，为null时用MethodHandle访问字段（private字段）
+         */
+        public Builder field(String fieldName, Dependency dependency, BeanInjector injector) {
+            if(injector == null) {
+                Field field;
+                try {
+                    field = type.getDeclaredField(fieldName);
+                } catch (NoSuchFieldException e) {
+                    throw new BeanCreationException("No field " + type.getName() + "." + fieldName, e);
+                }
+                injector = fieldInjector(field);
+            }
+            fields.add(new FieldInjection(fieldName, dependency, injector));
+            return this;
+        }
+
+        public BeanDefinition build() {
+            if(instantiator == null) {
+                Constructor<?> constructor = selectConstructor(type);
+                constructor(constructorDependencies(constructor), constructorInstantiator(constructor));
+            }
+            return new BeanDefinition(this);
+        }
+    }
+}
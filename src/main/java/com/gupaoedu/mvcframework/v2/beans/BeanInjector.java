@@ -0,0 +1,12 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+/**
+ * 为bean的一个字段注入依赖
+ * @since V1.0.0
+ */
+@FunctionalInterface
+public interface BeanInjector {
+
+    void inject(Object bean, Object value) throws Exception;
+
+}
@@ -0,0 +1,12 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+/**
+ * 创建bean实例，入参为已解析的构造器依赖
+ * @since V1.0.0
+ */
+@FunctionalInterface
+public interface BeanInstantiator {
+
+    Object newInstance(Object[] args) throws Exception;
+
+}
@@ -0,0 +1,342 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * ioc容器：先登记bean定义，refresh时解析依赖、检查循环依赖，再按依赖图并行创建非延迟的单例。
+ * <p>构造器依赖必须是注入完成的bean；字段依赖只要求已经实例化，所以单例之间的字段循环依赖是允许的，
+ * 经过构造器或原型的循环依赖在创建任何实例之前就会失败。</p>
+ * @since V1.0.0
+ */
+public class BeanRegistry {
+
+    //在调用线程上直接执行，refresh之后的延迟创建使用
+    private static final Executor DIRECT = Runnable::run;
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    //bean名字 -> 定义，保持登记顺序
+    private final Map<String, BeanDefinition> definitions = new LinkedHashMap<>();
+
+    //接口名 -> 定义
+    private final Map<String, BeanDefinition> aliases = new HashMap<>();
+
+    private final ConcurrentHashMap<String, Singleton> singletons = new ConcurrentHashMap<>();
+
+    private volatile boolean refreshed = false;
+
+    /**
+     * 登记bean定义，refresh之前调用
+     */
+    public void register(BeanDefinition definition) {
+        if(refreshed) {
+            throw new IllegalStateException("Registry is already refreshed");
+        }
+        if(definitions.containsKey(definition.getName()) || aliases.containsKey(definition.getName())) {
+            throw new BeanCreationException("Duplicate bean name '" + definition.getName() + "'");
+        }
+        for(String alias : definition.aliases()) {
+            if(definitions.containsKey(alias) || aliases.containsKey(alias)) {
+                throw new BeanCreationException("The “" + alias + "“ is exist!!");
+            }
+        }
+        definitions.put(definition.getName(), definition);
+        for(String alias : definition.aliases()) {
+            aliases.put(alias, definition);
+        }
+    }
+
+    /**
+     * 解析依赖、检查循环依赖，并在fork-join池上并行创建所有非延迟单例
+     * @param parallelism 并行度，1表示在调用线程上依次创建
+     */
+    public void refresh(int parallelism) {
+        if(refreshed) {
+            throw new IllegalStateException("Registry is already refreshed");
+        }
+        for(BeanDefinition definition : definitions.values()) {
+            resolveDependencies(definition);
+        }
+        checkCycles();
+        refreshed = true;
+
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        Executor executor = pool != null ? pool : DIRECT;
+        try {
+            List<CompletableFuture<Object>> eager = new ArrayList<>();
+            for(BeanDefinition definition : definitions.values()) {
+                if(definition.isPrototype() || definition.isLazy()) {continue;}
+                eager.add(singleton(definition, executor).ready);
+            }
+            join(CompletableFuture.allOf(eager.toArray(new CompletableFuture[0])));
+        } finally {
+            if(pool != null) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 按名字或接口名获取bean，延迟单例在这里创建，原型每次创建新实例
+     */
+    public Object getBean(String name) {
+        BeanDefinition definition = getDefinition(name);
+        if(definition == null) {
+            throw new BeanCreationException("No bean named '" + name + "'");
+        }
+        return getBean(definition);
+    }
+
+    /**
+     * 按类型获取bean
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getBean(Class<T> type) {
+        BeanDefinition definition = resolve(Dependency.byType(type), "getBean");
+        return (T) getBean(definition);
+    }
+
+    public Object getBean(BeanDefinition definition) {
+        if(!refreshed) {
+            throw new IllegalStateException("Registry is not refreshed");
+        }
+        CompletableFuture<Object> future = definition.isPrototype()
+                ? prototype(definition, DIRECT)
+                : singleton(definition, DIRECT).ready;
+        return join(future);
+    }
+
+    public BeanDefinition getDefinition(String name) {
+        BeanDefinition definition = definitions.get(name);
+        return definition != null ? definition : aliases.get(name);
+    }
+
+    public boolean containsBean(String name) {
+        return getDefinition(name) != null;
+    }
+
+    public Collection<BeanDefinition> getDefinitions() {
+        return Collections.unmodifiableCollection(definitions.values());
+    }
+
+    public boolean isEmpty() {
+        return definitions.isEmpty();
+    }
+
+    // ---------------------------------------------------------------- 依赖解析
+
+    private void resolveDependencies(BeanDefinition definition) {
+        Dependency[] constructorDependencies = definition.getConstructorDependencies();
+        definition.constructorTargets = new BeanDefinition[constructorDependencies.length];
+        for(int i = 0; i < constructorDependencies.length; i++) {
+            definition.constructorTargets[i] = resolve(constructorDependencies[i],
+                    "constructor parameter " + i + " of " + definition);
+        }
+        BeanDefinition.FieldInjection[] fields = definition.getFields();
+        definition.fieldTargets = new BeanDefinition[fields.length];
+        for(int i = 0; i < fields.length; i++) {
+            definition.fieldTargets[i] = resolve(fields[i].dependency,
+                    "field " + definition.getType().getName() + "." + fields[i].fieldName);
+        }
+    }
+
+    /**
+     * 解析一个依赖，需要代理的bean只能按它实现的接口注入
+     */
+    private BeanDefinition resolve(Dependency dependency, String requiredBy) {
+        BeanDefinition target = find(dependency, requiredBy);
+        if(!target.isExposedAs(dependency.getType())) {
+            throw new BeanCreationException("Bean " + target + " has @WCMemoize methods and is exposed as an interface proxy, "
+                    + dependency.getType().getName() + " cannot be injected, use one of its interfaces, required by " + requiredBy);
+        }
+        return target;
+    }
+
+    /**
+     * 查找一个依赖：先按名字，再按类型；找不到或找到多个都直接失败，不再注入null
+     */
+    private BeanDefinition find(Dependency dependency, String requiredBy) {
+        if(dependency.getName() != null) {
+            BeanDefinition named = getDefinition(dependency.getName());
+            if(named != null) {
+                if(!dependency.getType().isAssignableFrom(named.getType())) {
+                    throw new BeanCreationException("Bean '" + dependency.getName() + "' of type " + named.getType().getName()
+                            + " is not assignable to " + dependency.getType().getName() + ", required by " + requiredBy);
+                }
+                return named;
+            }
+            if(!dependency.isFallbackToType()) {
+                throw new BeanCreationException("No bean named '" + dependency.getName() + "', required by " + requiredBy);
+            }
+        }
+        BeanDefinition alias = aliases.get(dependency.getType().getName());
+        if(alias != null) {return alias;}
+        BeanDefinition found = null;
+        for(BeanDefinition candidate : definitions.values()) {
+            if(!dependency.getType().isAssignableFrom(candidate.getType())) {continue;}
+            if(found != null) {
+                throw new BeanCreationException("Ambiguous dependency " + dependency + ", both " + found + " and "
+                        + candidate + " match, required by " + requiredBy);
+            }
+            found = candidate;
+        }
+        if(found == null) {
+            throw new BeanCreationException("No bean for " + dependency + ", required by " + requiredBy);
+        }
+        return found;
+    }
+
+    /**
+     * 在"实例化"和"注入完成"两个阶段组成的图上检查循环：
+     * 实例化依赖构造器参数注入完成；注入完成依赖自身实例化、单例字段依赖的实例化和原型字段依赖的注入完成
+     */
+    private void checkCycles() {
+        Map<String, Integer> state = new HashMap<>();
+        Deque<String> path = new ArrayDeque<>();
+        for(BeanDefinition definition : definitions.values()) {
+            visit(definition, true, state, path);
+        }
+    }
+
+    private void visit(BeanDefinition definition, boolean ready, Map<String, Integer> state, Deque<String> path) {
+        String key = (ready ? "" : "new ") + definition.getName();
+        Integer current = state.get(key);
+        if(current != null && current == 2) {return ;}
+        path.addLast(key);
+        if(current != null) {
+            StringBuilder cycle = new StringBuilder();
+            boolean inCycle = false;
+            for(String node : path) {
+                inCycle |= node.equals(key);
+                if(inCycle) {
+                    cycle.append(cycle.length() == 0 ? "" : " -> ").append(node);
+                }
+            }
+            throw new BeanCreationException("Circular dependency: " + cycle);
+        }
+        state.put(key, 1);
+        if(ready) {
+            visit(definition, false, state, path);
+            for(BeanDefinition target : definition.fieldTargets) {
+                visit(target, target.isPrototype(), state, path);
+            }
+        } else {
+            for(BeanDefinition target : definition.constructorTargets) {
+                visit(target, true, state, path);
+            }
+        }
+        state.put(key, 2);
+        path.removeLast();
+    }
+
+    // ---------------------------------------------------------------- 创建
+
+    /**
+     * 单例只创建一次：并发获取时共享同一组future
+     */
+    private Singleton singleton(BeanDefinition definition, Executor executor) {
+        Singleton singleton = singletons.get(definition.getName());
+        if(singleton != null) {return singleton;}
+        Singleton created = new Singleton();
+        singleton = singletons.putIfAbsent(definition.getName(), created);
+        if(singleton != null) {return singleton;}
+        create(definition, executor, created.instance, created.ready);
+        return created;
+    }
+
+    private CompletableFuture<Object> prototype(BeanDefinition definition, Executor executor) {
+        CompletableFuture<Object> ready = new CompletableFuture<>();
+        create(definition, executor, new CompletableFuture<>(), ready);
+        return ready;
+    }
+
+    /**
+     * 构造器依赖全部注入完成后在executor上实例化，字段依赖全部实例化后注入；
+     * 需要代理的bean对外的instance和ready都是代理，字段注入到原始实例
+     */
+    private void create(BeanDefinition definition, Executor executor,
+                        CompletableFuture<Object> instance, CompletableFuture<Object> ready) {
+        CompletableFuture<Object> target = new CompletableFuture<>();
+        BeanDefinition[] constructorTargets = definition.constructorTargets;
+        CompletableFuture<?>[] arguments = new CompletableFuture<?>[constructorTargets.length];
+        for(int i = 0; i < constructorTargets.length; i++) {
+            arguments[i] = constructorTargets[i].isPrototype()
+                    ? prototype(constructorTargets[i], executor)
+                    : singleton(constructorTargets[i], executor).ready;
+        }
+        CompletableFuture.allOf(arguments).thenApplyAsync(ignore -> {
+            Object[] args = arguments.length == 0 ? NO_ARGS : new Object[arguments.length];
+            for(int i = 0; i < arguments.length; i++) {
+                args[i] = arguments[i].join();
+            }
+            try {
+                return definition.getInstantiator().newInstance(args);
+            } catch (BeanCreationException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new BeanCreationException("Failed to create bean " + definition, e);
+            }
+        }, executor).whenComplete((value, error) -> {
+            complete(target, value, error);
+            complete(instance, error == null ? definition.expose(value) : null, error);
+        });
+
+        BeanDefinition[] fieldTargets = definition.fieldTargets;
+        CompletableFuture<?>[] values = new CompletableFuture<?>[fieldTargets.length + 1];
+        for(int i = 0; i < fieldTargets.length; i++) {
+            values[i] = fieldTargets[i].isPrototype()
+                    ? prototype(fieldTargets[i], executor)
+                    : singleton(fieldTargets[i], executor).instance;
+        }
+        values[fieldTargets.length] = instance;
+        CompletableFuture.allOf(values).thenApply(ignore -> {
+            Object bean = target.join();
+            BeanDefinition.FieldInjection[] fields = definition.getFields();
+            for(int i = 0; i < fields.length; i++) {
+                try {
+                    fields[i].injector.inject(bean, values[i].join());
+                } catch (BeanCreationException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new BeanCreationException("Failed to inject " + definition + "." + fields[i].fieldName, e);
+                }
+            }
+            return instance.join();
+        }).whenComplete((value, error) -> complete(ready, value, error));
+    }
+
+    private static void complete(CompletableFuture<Object> future, Object value, Throwable error) {
+        if(error != null) {
+            future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        } else {
+            future.complete(value);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof RuntimeException) {throw (RuntimeException) cause;}
+            if(cause instanceof Error) {throw (Error) cause;}
+            throw new BeanCreationException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 单例的两个阶段：实例化完成（可以作为字段依赖提前注入）和注入完成（可以对外使用）
+     */
+    private static final class Singleton {
+
+        final CompletableFuture<Object> instance = new CompletableFuture<>();
+
+        final CompletableFuture<Object> ready = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,60 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+/**
+ * 依赖描述：按名字、按类型，或优先按名字找不到时再按类型
+ * @since V1.0.0
+ */
+public final class Dependency {
+
+    //bean名字或接口名，按类型查找时为null
+    private final String name;
+
+    private final Class<?> type;
+
+    //按名字找不到时是否按类型查找
+    private final boolean fallbackToType;
+
+    private Dependency(String name, Class<?> type, boolean fallbackToType) {
+        this.name = name;
+        this.type = type;
+        this.fallbackToType = fallbackToType;
+    }
+
+    /**
+     * 按名字查找，用于显式指定了名字的WCAutowired
+     */
+    public static Dependency byName(String name, Class<?> type) {
+        return new Dependency(name, type, false);
+    }
+
+    /**
+     * 先按名字再按类型，用于未指定名字的字段，名字默认为字段名
+     */
+    public static Dependency byNameOrType(String name, Class<?> type) {
+        return new Dependency(name, type, true);
+    }
+
+    /**
+     * 按类型查找，用于未指定名字的构造器参数
+     */
+    public static Dependency byType(Class<?> type) {
+        return new Dependency(null, type, true);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean isFallbackToType() {
+        return fallbackToType;
+    }
+
+    @Override
+    public String toString() {
+        return name != null ? "'" + name + "'" : type.getName();
+    }
+}
@@ -0,0 +1,245 @@
+package com.gupaoedu.mvcframework.v2.beans;
+
+import com.gupaoedu.mvcframework.annotation.WCMemoize;
+import com.gupaoedu.mvcframework.v2.cache.MemoCache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+/**
+ * 标注了WCMemoize的service的接口代理：缓存方法先查{@link MemoCache}，其余方法直接转给原始实例。
+ * <p>登记bean时由{@link #of}检查一次注解，生成每个方法的缓存配置；每个实例创建时得到自己的一组缓存。</p>
+ * @since V1.0.0
+ */
+final class MemoizeProxy implements InvocationHandler {
+
+    //没有参数时唯一的key
+    private static final Object NO_ARGS_KEY = new Object();
+
+    //参数为null时的key
+    private static final Object NULL_KEY = new Object();
+
+    private final Object target;
+
+    //接口方法 -> 缓存，只包含标注了WCMemoize的方法
+    private final Map<Method, Memoized> memoized;
+
+    private MemoizeProxy(Object target, Map<Method, Memoized> memoized) {
+        this.target = target;
+        this.memoized = memoized;
+    }
+
+    /**
+     * 检查类中的WCMemoize方法，没有时返回null
+     * @param type service类型
+     */
+    static Factory of(Class<?> type) {
+        List<Method> annotated = new ArrayList<>();
+        for(Method method : type.getMethods()) {
+            if(method.isAnnotationPresent(WCMemoize.class)) {
+                annotated.add(method);
+            }
+        }
+        if(annotated.isEmpty()) {return null;}
+        Class<?>[] interfaces = interfacesOf(type);
+        if(interfaces.length == 0) {
+            throw new BeanCreationException("@WCMemoize requires " + type.getName() + " to implement an interface");
+        }
+        Map<Method, Spec> specs = new HashMap<>();
+        for(Method method : annotated) {
+            Spec spec = new Spec(method, method.getAnnotation(WCMemoize.class));
+            boolean found = false;
+            //同一个方法可能出现在多个接口中
+            for(Class<?> i : interfaces) {
+                try {
+                    specs.put(i.getMethod(method.getName(), method.getParameterTypes()), spec);
+                    found = true;
+                } catch (NoSuchMethodException e) {
+                    //不在这个接口中
+                }
+            }
+            if(!found) {
+                throw new BeanCreationException("@WCMemoize method " + method + " is not declared by any interface, "
+                        + "calls to it cannot be intercepted");
+            }
+        }
+        return new Factory(type, interfaces, specs);
+    }
+
+    /**
+     * 类及其父类实现的全部接口，代理实现它们，所以按任何一个接口注入都可以
+     */
+    private static Class<?>[] interfacesOf(Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            interfaces.addAll(Arrays.asList(c.getInterfaces()));
+        }
+        return interfaces.toArray(new Class<?>[0]);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Memoized cache = memoized.get(method);
+        if(cache != null) {
+            return cache.cache.get(cache.spec.key(args), () -> call(method, args));
+        }
+        if(method.getDeclaringClass() == Object.class) {
+            if("equals".equals(method.getName())) {
+                return proxy == args[0];
+            }
+            if("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            }
+        }
+        return call(method, args);
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        if(!method.isAccessible()) {
+            //包级私有的接口
+            method.setAccessible(true);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 登记时生成的代理配置
+     */
+    static final class Factory {
+
+        private final Class<?> type;
+
+        private final Class<?>[] interfaces;
+
+        private final Map<Method, Spec> specs;
+
+        private Factory(Class<?> type, Class<?>[] interfaces, Map<Method, Spec> specs) {
+            this.type = type;
+            this.interfaces = interfaces;
+            this.specs = specs;
+        }
+
+        /**
+         * 代理是否可以赋值给依赖的类型：只有实现的接口和Object可以
+         */
+        boolean isAssignableTo(Class<?> dependencyType) {
+            if(dependencyType == Object.class) {return true;}
+            for(Class<?> i : interfaces) {
+                if(dependencyType.isAssignableFrom(i)) {return true;}
+            }
+            return false;
+        }
+
+        /**
+         * 为一个实例创建代理和它自己的缓存
+         */
+        Object newProxy(Object target) {
+            Map<Method, Memoized> memoized = new HashMap<>();
+            //同一个实现方法在多个接口中时共用一个缓存
+            Map<Spec, MemoCache> caches = new IdentityHashMap<>();
+            for(Map.Entry<Method, Spec> entry : specs.entrySet()) {
+                Spec spec = entry.getValue();
+                MemoCache cache = caches.computeIfAbsent(spec, s -> new MemoCache(s.maxSize, s.ttlNanos));
+                memoized.put(entry.getKey(), new Memoized(spec, cache));
+            }
+            return Proxy.newProxyInstance(type.getClassLoader(), interfaces, new MemoizeProxy(target, memoized));
+        }
+    }
+
+    /**
+     * 一个方法的缓存配置
+     */
+    private static final class Spec {
+
+        final int maxSize;
+
+        final long ttlNanos;
+
+        //参与key的参数下标，为null表示全部参数
+        final int[] key;
+
+        Spec(Method method, WCMemoize annotation) {
+            if(method.getReturnType() == void.class) {
+                throw new BeanCreationException("@WCMemoize method " + method + " must return a value");
+            }
+            if(annotation.maxSize() <= 0 || annotation.ttl() < 0) {
+                throw new BeanCreationException("@WCMemoize on " + method + " needs a positive maxSize and a non-negative ttl");
+            }
+            for(int index : annotation.key()) {
+                if(index < 0 || index >= method.getParameterCount()) {
+                    throw new BeanCreationException("@WCMemoize key index " + index + " is out of range for " + method);
+                }
+            }
+            this.maxSize = annotation.maxSize();
+            this.ttlNanos = annotation.timeUnit().toNanos(annotation.ttl());
+            this.key = annotation.key().length == 0 ? null : annotation.key().clone();
+        }
+
+        /**
+         * 单个参数直接作为key，不分配数组
+         */
+        Object key(Object[] args) {
+            if(key == null) {
+                if(args == null || args.length == 0) {return NO_ARGS_KEY;}
+                if(args.length == 1) {return single(args[0]);}
+                return new ArgsKey(args.clone());
+            }
+            if(key.length == 1) {return single(args[key[0]]);}
+            Object[] selected = new Object[key.length];
+            for(int i = 0; i < key.length; i++) {
+                selected[i] = args[key[i]];
+            }
+            return new ArgsKey(selected);
+        }
+
+        private static Object single(Object arg) {
+            if(arg == null) {return NULL_KEY;}
+            //数组按内容比较
+            return arg.getClass().isArray() ? new ArgsKey(new Object[]{arg}) : arg;
+        }
+    }
+
+    private static final class Memoized {
+
+        final Spec spec;
+
+        final MemoCache cache;
+
+        Memoized(Spec spec, MemoCache cache) {
+            this.spec = spec;
+            this.cache = cache;
+        }
+    }
+
+    /**
+     * 多个参数组成的key，按内容比较，数组参数也按内容比较
+     */
+    private static final class ArgsKey {
+
+        private final Object[] args;
+
+        private final int hash;
+
+        ArgsKey(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof ArgsKey && hash == ((ArgsKey) o).hash && Arrays.deepEquals(args, ((ArgsKey) o).args));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
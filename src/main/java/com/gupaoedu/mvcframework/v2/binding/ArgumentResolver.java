@@ -0,0 +1,22 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 单个形参的取值器，映射阶段按形参类型和注解生成
+ * @since V1.0.0
+ */
+public interface ArgumentResolver {
+
+    /**
+     * 解析形参的值
+     * @param req 请求
+     * @param resp 响应
+     * @param match 路由匹配结果，用于获取路径变量
+     */
+    Object resolve(HttpServletRequest req, HttpServletResponse resp, RouteMatch match);
+
+}
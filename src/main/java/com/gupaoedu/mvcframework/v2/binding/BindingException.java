@@ -0,0 +1,32 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+/**
+ * 请求参数绑定失败：参数缺失或格式错误，对应400响应，请求体过大或类型不支持时为413或415；
+ * 原因在消息里已经说清楚，不填充堆栈，错误请求集中出现时不为每次失败遍历调用栈
+ * @since V1.0.0
+ */
+public class BindingException extends RuntimeException {
+
+    private final int status;
+
+    public BindingException(String message) {
+        this(400, message);
+    }
+
+    public BindingException(String message, Throwable cause) {
+        super(message, cause, false, false);
+        this.status = 400;
+    }
+
+    public BindingException(int status, String message) {
+        super(message, null, false, false);
+        this.status = status;
+    }
+
+    /**
+     * 返回给客户端的状态码
+     */
+    public int getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,184 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+import com.gupaoedu.mvcframework.annotation.WCPathVariable;
+import com.gupaoedu.mvcframework.annotation.WCRequestBody;
+import com.gupaoedu.mvcframework.annotation.WCRequestParam;
+import com.gupaoedu.mvcframework.v2.body.RequestBodyResolver;
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 参数绑定计划：映射阶段为每个形参生成一个取值器，请求阶段按下标依次取值，
+ * 不再读取形参类型和注解，也不做任何字符串拼接或正则替换
+ * @since V1.0.0
+ */
+public final class BindingPlan {
+
+    static final TypeConverter STRING = TypeConverters.forType(String.class);
+
+    private static final ArgumentResolver REQUEST = (req, resp, match) -> req;
+
+    private static final ArgumentResolver RESPONSE = (req, resp, match) -> resp;
+
+    private final ArgumentResolver[] resolvers;
+
+    //WCRequestBody形参的取值器，没有时为null
+    private final RequestBodyResolver body;
+
+    private BindingPlan(ArgumentResolver[] resolvers, RequestBodyResolver body) {
+        this.resolvers = resolvers;
+        this.body = body;
+    }
+
+    /**
+     * 生成绑定计划，形参类型不支持或注解配置有误时直接失败
+     * @param pattern 路由，用于校验路径变量
+     * @param method 处理方法
+     */
+    public static BindingPlan compile(String pattern, Method method) {
+        Parameter[] parameters = method.getParameters();
+        ArgumentResolver[] resolvers = new ArgumentResolver[parameters.length];
+        RequestBodyResolver body = null;
+        for(int i = 0; i < parameters.length; i++) {
+            try {
+                resolvers[i] = createResolver(pattern, parameters[i]);
+            } catch (IllegalStateException e) {
+                throw new IllegalStateException(e.getMessage() + " : " + method, e);
+            }
+            if(resolvers[i] instanceof RequestBodyResolver) {
+                if(body != null) {
+                    throw new IllegalStateException("Only one @WCRequestBody parameter is allowed : " + method);
+                }
+                body = (RequestBodyResolver) resolvers[i];
+            }
+        }
+        return new BindingPlan(resolvers, body);
+    }
+
+    /**
+     * 设置请求体的默认字节数上限，注册路由时调用一次
+     * @param maxBytes 0表示不限制
+     */
+    public void setMaxBodyBytes(long maxBytes) {
+        if(body != null) {
+            body.setDefaultMaxBytes(maxBytes);
+        }
+    }
+
+    /**
+     * 按绑定计划解析实参
+     * @param req 请求
+     * @param resp 响应
+     * @param match 路由匹配结果
+     * @return 与方法形参对应的入参值
+     */
+    public Object[] bind(HttpServletRequest req, HttpServletResponse resp, RouteMatch match) {
+        Object[] args = new Object[resolvers.length];
+        for(int i = 0; i < resolvers.length; i++) {
+            args[i] = resolvers[i].resolve(req, resp, match);
+        }
+        return args;
+    }
+
+    public int size() {
+        return resolvers.length;
+    }
+
+    private static ArgumentResolver createResolver(String pattern, Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if(type.isAssignableFrom(HttpServletRequest.class) && ServletRequest.class.isAssignableFrom(type)) {
+            return REQUEST;
+        }
+        if(type.isAssignableFrom(HttpServletResponse.class) && ServletResponse.class.isAssignableFrom(type)) {
+            return RESPONSE;
+        }
+        //请求体
+        if(parameter.isAnnotationPresent(WCRequestBody.class)) {
+            return RequestBodyResolver.of(parameter);
+        }
+        //路径变量
+        WCPathVariable pathVariable = parameter.getAnnotation(WCPathVariable.class);
+        if(pathVariable != null) {
+            String name = pathVariable.value().trim();
+            if("".equals(name)) {
+                if(!parameter.isNamePresent()) {
+                    throw new IllegalStateException("@WCPathVariable on " + parameter.getDeclaringExecutable().getName()
+                            + " needs a name, parameter names are not kept without -parameters");
+                }
+                name = parameter.getName();
+            }
+            if(!pattern.contains("{" + name + "}")) {
+                throw new IllegalStateException("Path variable '" + name + "' is not declared in " + pattern);
+            }
+            return new PathVariableResolver(name, type, scalarConverter(type));
+        }
+        //请求参数，未加注解时按形参名取值，并且不是必须的
+        WCRequestParam requestParam = parameter.getAnnotation(WCRequestParam.class);
+        String name = parameter.getName();
+        boolean required = false;
+        String defaultValue = null;
+        if(requestParam != null) {
+            if(!"".equals(requestParam.value().trim())) {
+                name = requestParam.value().trim();
+            }
+            required = requestParam.required();
+            if(!WCRequestParam.NO_DEFAULT.equals(requestParam.defaultValue())) {
+                defaultValue = requestParam.defaultValue();
+            }
+        }
+        if(type.isArray()) {
+            Class<?> elementType = type.getComponentType();
+            return new MultiValueParamResolver(name, type, elementType, scalarConverter(elementType), required, defaultValue);
+        }
+        if(type == List.class || type == Collection.class || type == Iterable.class || type == Set.class) {
+            Class<?> elementType = elementType(parameter.getParameterizedType());
+            return new MultiValueParamResolver(name, type, elementType, scalarConverter(elementType), required, defaultValue);
+        }
+        return new RequestParamResolver(name, type, scalarConverter(type), required, defaultValue);
+    }
+
+    private static TypeConverter scalarConverter(Class<?> type) {
+        TypeConverter converter = TypeConverters.forType(type);
+        if(converter == null) {
+            throw new IllegalStateException("Unsupported parameter type " + type.getName());
+        }
+        return converter;
+    }
+
+    /**
+     * 集合的元素类型，未声明泛型时按String处理
+     */
+    private static Class<?> elementType(Type type) {
+        if(type instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if(argument instanceof Class) {
+                return (Class<?>) argument;
+            }
+        }
+        return String.class;
+    }
+
+    static Object convert(String name, Class<?> type, TypeConverter converter, String value) {
+        try {
+            return converter.convert(value);
+        } catch (IllegalArgumentException e) {
+            throw conversionFailed(name, type, value, e);
+        }
+    }
+
+    static BindingException conversionFailed(String name, Class<?> type, String value, Exception cause) {
+        return new BindingException("Failed to convert parameter '" + name + "' value '" + value
+                + "' to " + type.getSimpleName(), cause);
+    }
+}
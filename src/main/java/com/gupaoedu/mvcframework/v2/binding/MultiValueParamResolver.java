@@ -0,0 +1,116 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 多值请求参数：数组、List、Set，每个值单独转换，空值跳过
+ */
+class MultiValueParamResolver implements ArgumentResolver {
+
+    private final String name;
+
+    //数组或集合类型
+    private final Class<?> containerType;
+
+    //元素类型
+    private final Class<?> elementType;
+
+    private final TypeConverter converter;
+
+    private final boolean required;
+
+    //按','拆分后的默认值，每次重新转换，避免共享可变对象
+    private final String[] defaultValues;
+
+    MultiValueParamResolver(String name, Class<?> containerType, Class<?> elementType, TypeConverter converter,
+                            boolean required, String defaultValue) {
+        this.name = name;
+        this.containerType = containerType;
+        this.elementType = elementType;
+        this.converter = converter;
+        this.required = required;
+        this.defaultValues = defaultValue == null ? null : defaultValue.split(",");
+        if(defaultValues != null) {
+            //初始化时校验默认值
+            convertAll(defaultValues);
+        }
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, RouteMatch match) {
+        String[] values = req.getParameterValues(name);
+        if(values == null || values.length == 0) {
+            if(defaultValues != null) {return convertAll(defaultValues);}
+            if(required) {
+                throw new BindingException("Required parameter '" + name + "' is not present");
+            }
+            return null;
+        }
+        return convertAll(values);
+    }
+
+    private Object convertAll(String[] values) {
+        if(containerType.isArray()) {
+            return toArray(values);
+        }
+        Collection<Object> result = Set.class.isAssignableFrom(containerType)
+                ? new LinkedHashSet<>(values.length * 2) : new ArrayList<>(values.length);
+        for(String value : values) {
+            if(value.isEmpty() && converter != BindingPlan.STRING) {continue;}
+            result.add(BindingPlan.convert(name, elementType, converter, value));
+        }
+        return result;
+    }
+
+    private Object toArray(String[] values) {
+        int count = 0;
+        for(String value : values) {
+            if(!value.isEmpty() || converter == BindingPlan.STRING) {count++;}
+        }
+        //常用的基本类型数组直接解析，不装箱
+        if(elementType == int.class) {
+            int[] array = new int[count];
+            int i = 0;
+            for(String value : values) {
+                if(value.isEmpty()) {continue;}
+                try {
+                    array[i++] = TypeConverters.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw BindingPlan.conversionFailed(name, elementType, value, e);
+                }
+            }
+            return array;
+        }
+        if(elementType == long.class) {
+            long[] array = new long[count];
+            int i = 0;
+            for(String value : values) {
+                if(value.isEmpty()) {continue;}
+                try {
+                    array[i++] = TypeConverters.parseLong(value);
+                } catch (NumberFormatException e) {
+                    throw BindingPlan.conversionFailed(name, elementType, value, e);
+                }
+            }
+            return array;
+        }
+        if(elementType == String.class) {
+            return values.clone();
+        }
+        Object array = Array.newInstance(elementType, count);
+        int i = 0;
+        for(String value : values) {
+            if(value.isEmpty() && converter != BindingPlan.STRING) {continue;}
+            Array.set(array, i++, BindingPlan.convert(name, elementType, converter, value));
+        }
+        return array;
+    }
+}
@@ -0,0 +1,73 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 路径变量：路由匹配时只记录了位置，这里才截取字符串，并按UTF-8做百分号解码（路由按原始URI匹配）
+ */
+class PathVariableResolver implements ArgumentResolver {
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final TypeConverter converter;
+
+    PathVariableResolver(String name, Class<?> type, TypeConverter converter) {
+        this.name = name;
+        this.type = type;
+        this.converter = converter;
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, RouteMatch match) {
+        String value = match.getVariable(name);
+        if(value == null) {
+            throw new BindingException("Missing path variable '" + name + "'");
+        }
+        return BindingPlan.convert(name, type, converter, decode(name, value));
+    }
+
+    /**
+     * 百分号解码，'+'在路径中不表示空格；转义不完整或不是合法的UTF-8时返回400
+     */
+    static String decode(String name, String value) {
+        int percent = value.indexOf('%');
+        if(percent < 0) {return value;}
+        byte[] bytes = new byte[value.length()];
+        int length = 0;
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c != '%') {
+                if(c > 0x7F) {
+                    //容器没有按ASCII给出URI，非ASCII字符不能和转义的字节混在一起
+                    throw new BindingException("Malformed path variable '" + name + "'");
+                }
+                bytes[length++] = (byte) c;
+                continue;
+            }
+            int high = i + 2 < value.length() ? Character.digit(value.charAt(i + 1), 16) : -1;
+            int low = high >= 0 ? Character.digit(value.charAt(i + 2), 16) : -1;
+            if(low < 0) {
+                throw new BindingException("Malformed escape in path variable '" + name + "'");
+            }
+            bytes[length++] = (byte) ((high << 4) | low);
+            i += 2;
+        }
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(bytes, 0, length)).toString();
+        } catch (CharacterCodingException e) {
+            throw new BindingException("Path variable '" + name + "' is not valid UTF-8", e);
+        }
+    }
+}
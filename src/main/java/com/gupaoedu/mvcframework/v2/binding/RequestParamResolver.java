@@ -0,0 +1,63 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 单值请求参数：直接转换getParameterValues()中的值，多个值时字符串以','连接，其它类型取第一个
+ */
+class RequestParamResolver implements ArgumentResolver {
+
+    private final String name;
+
+    private final Class<?> type;
+
+    private final TypeConverter converter;
+
+    private final boolean required;
+
+    //已转换的默认值，没有默认值时为null
+    private final Object defaultValue;
+
+    RequestParamResolver(String name, Class<?> type, TypeConverter converter, boolean required, String defaultValue) {
+        this.name = name;
+        this.type = type;
+        this.converter = converter;
+        this.required = required;
+        this.defaultValue = defaultValue == null ? null : BindingPlan.convert(name, type, converter, defaultValue);
+        if(type.isPrimitive() && !required && defaultValue == null) {
+            throw new IllegalStateException("Optional primitive parameter '" + name + "' must declare a defaultValue");
+        }
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, RouteMatch match) {
+        String[] values = req.getParameterValues(name);
+        if(values == null || values.length == 0 || (values[0].isEmpty() && converter != BindingPlan.STRING)) {
+            return missing();
+        }
+        if(values.length > 1 && converter == BindingPlan.STRING) {
+            return join(values);
+        }
+        return BindingPlan.convert(name, type, converter, values[0]);
+    }
+
+    private Object missing() {
+        if(defaultValue != null) {return defaultValue;}
+        if(required || type.isPrimitive()) {
+            throw new BindingException("Required parameter '" + name + "' is not present");
+        }
+        return null;
+    }
+
+    private static String join(String[] values) {
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < values.length; i++) {
+            if(i > 0) {sb.append(',');}
+            sb.append(values[i]);
+        }
+        return sb.toString();
+    }
+}
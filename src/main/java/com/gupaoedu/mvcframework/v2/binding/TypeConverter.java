@@ -0,0 +1,14 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+/**
+ * 字符串到形参类型的转换器
+ * @since V1.0.0
+ */
+public interface TypeConverter {
+
+    /**
+     * @param value 非空的请求参数值
+     */
+    Object convert(String value);
+
+}
@@ -0,0 +1,139 @@
+package com.gupaoedu.mvcframework.v2.binding;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 内置的类型转换器：字符串、基本类型及其包装类、BigDecimal、BigInteger和枚举
+ * @since V1.0.0
+ */
+public final class TypeConverters {
+
+    private static final Map<Class<?>, TypeConverter> CONVERTERS = new HashMap<>();
+
+    static {
+        TypeConverter string = value -> value;
+        //整数自己解析，格式错误时的异常不带堆栈
+        TypeConverter integer = value -> parseInt(value);
+        TypeConverter longValue = value -> parseLong(value);
+        TypeConverter shortValue = value -> (short) parseLong(value, Short.MIN_VALUE, Short.MAX_VALUE);
+        TypeConverter byteValue = value -> (byte) parseLong(value, Byte.MIN_VALUE, Byte.MAX_VALUE);
+        TypeConverter doubleValue = Double::valueOf;
+        TypeConverter floatValue = Float::valueOf;
+        TypeConverter booleanValue = TypeConverters::parseBoolean;
+        TypeConverter charValue = TypeConverters::parseChar;
+        CONVERTERS.put(String.class, string);
+        CONVERTERS.put(CharSequence.class, string);
+        CONVERTERS.put(Object.class, string);
+        CONVERTERS.put(Integer.class, integer);
+        CONVERTERS.put(int.class, integer);
+        CONVERTERS.put(Long.class, longValue);
+        CONVERTERS.put(long.class, longValue);
+        CONVERTERS.put(Short.class, shortValue);
+        CONVERTERS.put(short.class, shortValue);
+        CONVERTERS.put(Byte.class, byteValue);
+        CONVERTERS.put(byte.class, byteValue);
+        CONVERTERS.put(Double.class, doubleValue);
+        CONVERTERS.put(double.class, doubleValue);
+        CONVERTERS.put(Float.class, floatValue);
+        CONVERTERS.put(float.class, floatValue);
+        CONVERTERS.put(Boolean.class, booleanValue);
+        CONVERTERS.put(boolean.class, booleanValue);
+        CONVERTERS.put(Character.class, charValue);
+        CONVERTERS.put(char.class, charValue);
+        CONVERTERS.put(BigDecimal.class, BigDecimal::new);
+        CONVERTERS.put(BigInteger.class, BigInteger::new);
+    }
+
+    private TypeConverters() {
+    }
+
+    /**
+     * 获取类型转换器，不支持的类型返回null
+     * @param type 目标类型
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static TypeConverter forType(Class<?> type) {
+        TypeConverter converter = CONVERTERS.get(type);
+        if(converter == null && type.isEnum()) {
+            Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+            converter = value -> Enum.valueOf(enumType, value.trim());
+        }
+        return converter;
+    }
+
+    public static int parseInt(String value) {
+        return (int) parseLong(value, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public static long parseLong(String value) {
+        return parseLong(value, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * 与Long.parseLong接受的格式相同的十进制整数；格式错误或超出范围时抛出的NumberFormatException不填充堆栈，
+     * 大量错误参数涌入时不为每次失败遍历调用栈
+     * @param min 允许的最小值
+     * @param max 允许的最大值
+     */
+    static long parseLong(String value, long min, long max) {
+        int length = value.length();
+        if(length == 0) {throw new InvalidNumberException(value);}
+        int i = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if(first == '-' || first == '+') {
+            if(length == 1) {throw new InvalidNumberException(value);}
+            negative = first == '-';
+            i = 1;
+        }
+        //按负数累加，负数的范围比正数大一
+        long limit = negative ? min : -max;
+        long multmin = limit / 10;
+        long result = 0;
+        for(; i < length; i++) {
+            int digit = Character.digit(value.charAt(i), 10);
+            if(digit < 0 || result < multmin) {throw new InvalidNumberException(value);}
+            result *= 10;
+            if(result < limit + digit) {throw new InvalidNumberException(value);}
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static Boolean parseBoolean(String value) {
+        if("true".equalsIgnoreCase(value) || "on".equalsIgnoreCase(value)
+                || "yes".equalsIgnoreCase(value) || "1".equals(value)) {
+            return Boolean.TRUE;
+        }
+        if("false".equalsIgnoreCase(value) || "off".equalsIgnoreCase(value)
+                || "no".equalsIgnoreCase(value) || "0".equals(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Invalid boolean value");
+    }
+
+    private static Character parseChar(String value) {
+        if(value.length() != 1) {
+            throw new IllegalArgumentException("Invalid char value");
+        }
+        return value.charAt(0);
+    }
+
+    /**
+     * 不带堆栈的数字格式错误
+     */
+    private static final class InvalidNumberException extends NumberFormatException {
+
+        InvalidNumberException(String value) {
+            super("For input string: \"" + value + "\"");
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.gupaoedu.mvcframework.v2.body;
+
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+import com.gupaoedu.mvcframework.v2.binding.TypeConverter;
+import com.gupaoedu.mvcframework.v2.binding.TypeConverters;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * POJO的读取器，每个类只生成一次：属性为public的setX(value)和没有setter的public非final字段，
+ * 通过MethodHandle调用无参构造方法和setter；JSON中未知的属性直接跳过。
+ * <p>属性的读取器在第一次使用这个类时生成，类之间可以互相引用。</p>
+ * @since V1.0.0
+ */
+final class BeanReader implements ValueReader {
+
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(Object.class);
+
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final ClassValue<BeanReader> READERS = new ClassValue<BeanReader>() {
+        @Override
+        protected BeanReader computeValue(Class<?> type) {
+            return new BeanReader(type);
+        }
+    };
+
+    private final Class<?> type;
+
+    private final MethodHandle constructor;
+
+    private final Map<String, Property> properties;
+
+    //按属性名哈希值排列的开放寻址表，读取JSON时直接用解码出的字符查找，不为属性名生成字符串
+    private final Property[] table;
+
+    //属性的读取器是否已经生成
+    private boolean compiled;
+
+    private BeanReader(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class)).asType(CONSTRUCTOR);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Request body type " + type.getName() + " needs a public no-argument constructor");
+        }
+        this.properties = findProperties(type, lookup);
+        this.table = new Property[Integer.highestOneBit(Math.max(1, properties.size()) * 4 - 1) << 1];
+        for(Property property : properties.values()) {
+            int i = property.name.hashCode() & (table.length - 1);
+            while (table[i] != null) {
+                i = (i + 1) & (table.length - 1);
+            }
+            table[i] = property;
+        }
+    }
+
+    /**
+     * 类不是public或没有public的无参构造方法时失败
+     */
+    static BeanReader of(Class<?> type) {
+        BeanReader reader = READERS.get(type);
+        reader.compile();
+        return reader;
+    }
+
+    /**
+     * 生成属性的读取器；先标记为已生成，属性引用回这个类时直接返回
+     */
+    private void compile() {
+        synchronized (BeanReader.class) {
+            if(compiled) {return ;}
+            compiled = true;
+            try {
+                for(Property property : properties.values()) {
+                    property.reader = ValueReaders.forType(property.genericType);
+                }
+            } catch (RuntimeException e) {
+                compiled = false;
+                throw new IllegalStateException(e.getMessage() + " in " + type.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public Object read(JsonReader in) throws IOException {
+        if(ValueReaders.isNull(in)) {return null;}
+        Object bean = newInstance();
+        in.beginObject();
+        while (in.hasNext()) {
+            in.skipName();
+            Property property = find(in);
+            if(property == null) {
+                in.skipValue();
+                continue;
+            }
+            //基本类型的属性遇到null时保留默认值
+            if(property.primitive && ValueReaders.isNull(in)) {continue;}
+            property.set(bean, property.reader.read(in));
+        }
+        in.endObject();
+        return bean;
+    }
+
+    /**
+     * 表单请求体：按属性名取请求参数，只绑定基本类型、字符串和枚举这类单值属性
+     */
+    Object readForm(HttpServletRequest req) {
+        Object bean = newInstance();
+        for(Property property : properties.values()) {
+            if(property.converter == null) {continue;}
+            String value = req.getParameter(property.name);
+            if(value == null || (value.isEmpty() && property.rawType != String.class)) {continue;}
+            property.set(bean, ValueReaders.convert(value, property.converter, property.rawType));
+        }
+        return bean;
+    }
+
+    private Property find(JsonReader in) {
+        int mask = table.length - 1;
+        for(int i = in.nameHash() & mask; ; i = (i + 1) & mask) {
+            Property property = table[i];
+            if(property == null || in.nameEquals(property.name)) {return property;}
+        }
+    }
+
+    private Object newInstance() {
+        try {
+            return constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create " + type.getName(), e);
+        }
+    }
+
+    private static Map<String, Property> findProperties(Class<?> type, MethodHandles.Lookup lookup) {
+        Map<String, Property> properties = new HashMap<>();
+        try {
+            for(Method method : type.getMethods()) {
+                String name = method.getName();
+                if(Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1
+                        || !name.startsWith("set") || name.length() == 3) {continue;}
+                String property = decapitalize(name.substring(3));
+                properties.put(property, new Property(property, method.getParameterTypes()[0],
+                        method.getGenericParameterTypes()[0], lookup.unreflect(method)));
+            }
+            for(Field field : type.getFields()) {
+                int modifiers = field.getModifiers();
+                if(Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || properties.containsKey(field.getName())) {continue;}
+                properties.put(field.getName(), new Property(field.getName(), field.getType(),
+                        field.getGenericType(), lookup.unreflectSetter(field)));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access properties of " + type.getName(), e);
+        }
+        return properties;
+    }
+
+    /**
+     * 与JavaBeans规范一致：前两个字母都大写时保持原样
+     */
+    private static String decapitalize(String name) {
+        if(name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        char[] chars = name.toCharArray();
+        chars[0] = Character.toLowerCase(chars[0]);
+        return new String(chars);
+    }
+
+    /**
+     * 一个可写的属性
+     */
+    private static final class Property {
+
+        private final String name;
+
+        private final Class<?> rawType;
+
+        private final Type genericType;
+
+        private final boolean primitive;
+
+        //(Object, Object)void
+        private final MethodHandle setter;
+
+        //表单取值的转换器，不是单值类型时为null
+        private final TypeConverter converter;
+
+        //JSON取值的读取器，第一次使用这个类时生成
+        private ValueReader reader;
+
+        Property(String name, Class<?> rawType, Type genericType, MethodHandle setter) {
+            this.name = name;
+            this.rawType = rawType;
+            this.genericType = genericType;
+            this.primitive = rawType.isPrimitive();
+            this.setter = setter.asType(SETTER);
+            this.converter = rawType == Object.class ? null : TypeConverters.forType(rawType);
+        }
+
+        void set(Object bean, Object value) {
+            try {
+                setter.invokeExact(bean, value);
+            } catch (IllegalArgumentException e) {
+                //setter拒绝了这个值
+                throw new BindingException("Invalid value for property '" + name + "': " + e.getMessage(), e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot set property " + name, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.gupaoedu.mvcframework.v2.body;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 逐个读取JSON数组的元素，处理方法每调用一次next()才解析一个元素，内存中只有当前元素和一个读缓冲区；
+ * 格式错误在读到时抛出{@link com.gupaoedu.mvcframework.v2.binding.BindingException}
+ * @since V1.0.0
+ */
+final class JsonArrayIterator implements Iterator<Object> {
+
+    private final JsonReader in;
+
+    private final ValueReader element;
+
+    private boolean finished;
+
+    /**
+     * 创建时读取数组的开始，请求体不是数组时在调用处理方法之前失败
+     */
+    JsonArrayIterator(JsonReader in, ValueReader element) throws IOException {
+        this.in = in;
+        this.element = element;
+        in.beginArray();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(finished) {return false;}
+        try {
+            if(in.hasNext()) {return true;}
+            in.endArray();
+            in.endDocument();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finished = true;
+        return false;
+    }
+
+    @Override
+    public Object next() {
+        if(!hasNext()) {throw new NoSuchElementException();}
+        try {
+            return element.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,537 @@
+package com.gupaoedu.mvcframework.v2.body;
+
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * 按需从输入流读取的JSON解析器：每次只读取一个缓冲区，直接按UTF-8解码，不把请求体整体读成字符串。
+ * <p>调用方按结构依次调用beginObject/nextName/nextXxx/endObject等方法；格式错误、嵌套过深和
+ * 超出字节数上限都抛出{@link BindingException}。</p>
+ * @since V1.0.0
+ */
+public final class JsonReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    //作用域
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    //嵌套层数上限，值的读取是递归的，过深的输入会耗尽线程栈
+    private static final int MAX_DEPTH = 256;
+
+    private final InputStream in;
+
+    //字节数上限，0表示不限制
+    private final long maxBytes;
+
+    private final byte[] buffer;
+
+    private int pos;
+
+    private int limit;
+
+    //已经从输入流读取的字节数
+    private long consumed;
+
+    //按需扩大，常见的请求体只有几层
+    private int[] stack = new int[16];
+
+    private int depth;
+
+    //已经读出但还没有消费的记号
+    private Token peeked;
+
+    //解码字符串和数字的缓冲区，复用
+    private char[] chars = new char[64];
+
+    private int length;
+
+    /**
+     * @param in 输入流
+     * @param maxBytes 字节数上限，0表示不限制
+     * @param bufferSize 缓冲区大小
+     */
+    public JsonReader(InputStream in, long maxBytes, int bufferSize) {
+        this.in = in;
+        this.maxBytes = maxBytes;
+        this.buffer = new byte[bufferSize];
+        this.stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    public Token peek() throws IOException {
+        if(peeked != null) {return peeked;}
+        int c;
+        switch (stack[depth - 1]) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if(c == ']') {return peeked = Token.END_ARRAY;}
+                if(c != -1) {pos--;}
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if(c == ']') {return peeked = Token.END_ARRAY;}
+                if(c != ',') {throw syntaxError("Expected ',' or ']'");}
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if(c == '}') {return peeked = Token.END_OBJECT;}
+                if(stack[depth - 1] == NONEMPTY_OBJECT) {
+                    if(c != ',') {throw syntaxError("Expected ',' or '}'");}
+                    c = nextNonWhitespace();
+                }
+                if(c != '"') {throw syntaxError("Expected a property name");}
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                if(nextNonWhitespace() != ':') {throw syntaxError("Expected ':'");}
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                c = nextNonWhitespace();
+                if(c == -1) {return peeked = Token.END_DOCUMENT;}
+                pos--;
+                break;
+            default:
+                if(nextNonWhitespace() != -1) {throw syntaxError("Unexpected data after the JSON value");}
+                return peeked = Token.END_DOCUMENT;
+        }
+        c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return peeked = Token.NULL;
+            case -1:
+                throw syntaxError("Unexpected end of body");
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * 当前对象或数组是否还有元素
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        readString();
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * 读取属性名但不生成字符串，随后用{@link #nameHash}和{@link #nameEquals}查找
+     */
+    void skipName() throws IOException {
+        expect(Token.NAME);
+        readString();
+    }
+
+    /**
+     * 刚读取的属性名的哈希值，与String.hashCode()相同
+     */
+    int nameHash() {
+        int hash = 0;
+        for(int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        return hash;
+    }
+
+    boolean nameEquals(String name) {
+        if(name.length() != length) {return false;}
+        for(int i = 0; i < length; i++) {
+            if(name.charAt(i) != chars[i]) {return false;}
+        }
+        return true;
+    }
+
+    /**
+     * 字符串，数字按原文返回
+     */
+    public String nextString() throws IOException {
+        readScalar("a string");
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * 整数，数字或数字字符串都可以；有小数部分或超出范围时失败
+     * @param min 允许的最小值
+     * @param max 允许的最大值
+     */
+    public long nextLong(long min, long max) throws IOException {
+        readScalar("a number");
+        if(isInteger()) {
+            return parseLong(min, max);
+        }
+        //带小数点或指数，按double解析后必须是整数
+        double value = parseDouble();
+        if(value != Math.rint(value) || value < min || value > max) {
+            throw syntaxError("Expected an integer in [" + min + ", " + max + "] but was " + new String(chars, 0, length));
+        }
+        return (long) value;
+    }
+
+    public double nextDouble() throws IOException {
+        readScalar("a number");
+        return parseDouble();
+    }
+
+    public boolean nextBoolean() throws IOException {
+        Token token = peek();
+        if(token == Token.STRING) {
+            String value = nextString();
+            if("true".equals(value)) {return true;}
+            if("false".equals(value)) {return false;}
+            throw syntaxError("Expected a boolean but was \"" + value + "\"");
+        }
+        if(token != Token.BOOLEAN) {throw unexpected("a boolean", token);}
+        peeked = null;
+        if(readByte() == 't') {
+            literal("rue");
+            return true;
+        }
+        literal("alse");
+        return false;
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        readByte();
+        literal("ull");
+    }
+
+    /**
+     * 跳过一个值，包括其中嵌套的对象和数组
+     */
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            Token token = peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    count++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    count++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    count--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    count--;
+                    break;
+                case NAME:
+                    nextName();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of body");
+                default:
+                    nextString();
+            }
+        } while (count > 0);
+    }
+
+    /**
+     * 确认值之后只有空白
+     */
+    public void endDocument() throws IOException {
+        expect(Token.END_DOCUMENT);
+    }
+
+    /**
+     * 已经读取的字节数
+     */
+    public long getConsumed() {
+        return consumed - (limit - pos);
+    }
+
+    /**
+     * 把字符串或数字的原文读到chars
+     */
+    private void readScalar(String expected) throws IOException {
+        Token token = peek();
+        if(token == Token.STRING) {
+            peeked = null;
+            readString();
+        } else if(token == Token.NUMBER) {
+            peeked = null;
+            readNumber();
+        } else {
+            throw unexpected(expected, token);
+        }
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token token = peek();
+        if(token != expected) {throw unexpected(expected.name(), token);}
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if(depth > MAX_DEPTH) {throw syntaxError("Nesting is deeper than " + MAX_DEPTH);}
+        if(depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = scope;
+    }
+
+    private int readByte() throws IOException {
+        if(pos == limit && !fill()) {return -1;}
+        return buffer[pos++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        do {
+            n = in.read(buffer, 0, buffer.length);
+        } while (n == 0);
+        if(n < 0) {return false;}
+        consumed += n;
+        if(maxBytes > 0 && consumed > maxBytes) {
+            throw new BindingException(413, "Request body exceeds " + maxBytes + " bytes");
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = readByte();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private void literal(String rest) throws IOException {
+        for(int i = 0; i < rest.length(); i++) {
+            if(readByte() != rest.charAt(i)) {throw syntaxError("Invalid literal");}
+        }
+    }
+
+    /**
+     * 读取开始引号之后的字符串内容，解码到chars
+     */
+    private void readString() throws IOException {
+        length = 0;
+        while (true) {
+            int b = readByte();
+            if(b == '"') {return ;}
+            if(b == -1) {throw syntaxError("Unterminated string");}
+            if(b == '\\') {
+                append(readEscape());
+            } else if(b < 0x20) {
+                throw syntaxError("Control character in string");
+            } else if(b < 0x80) {
+                append((char) b);
+            } else {
+                appendCodePoint(readMultiByte(b));
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = readByte();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for(int i = 0; i < 4; i++) {
+                    int digit = Character.digit(readByte(), 16);
+                    if(digit < 0) {throw syntaxError("Invalid \\u escape");}
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("Invalid escape");
+        }
+    }
+
+    /**
+     * 解码UTF-8多字节序列
+     * @param b 第一个字节
+     */
+    private int readMultiByte(int b) throws IOException {
+        int count;
+        int codePoint;
+        if((b & 0xe0) == 0xc0) {
+            count = 1;
+            codePoint = b & 0x1f;
+        } else if((b & 0xf0) == 0xe0) {
+            count = 2;
+            codePoint = b & 0x0f;
+        } else if((b & 0xf8) == 0xf0) {
+            count = 3;
+            codePoint = b & 0x07;
+        } else {
+            throw syntaxError("Invalid UTF-8 byte");
+        }
+        for(int i = 0; i < count; i++) {
+            int next = readByte();
+            if((next & 0xc0) != 0x80) {throw syntaxError("Invalid UTF-8 sequence");}
+            codePoint = (codePoint << 6) | (next & 0x3f);
+        }
+        //过长的编码、代理区和超出范围的码点
+        if(codePoint < (count == 1 ? 0x80 : count == 2 ? 0x800 : 0x10000)
+                || (codePoint >= 0xd800 && codePoint <= 0xdfff) || codePoint > 0x10ffff) {
+            throw syntaxError("Invalid UTF-8 sequence");
+        }
+        return codePoint;
+    }
+
+    /**
+     * 读取数字原文到chars，只接受JSON数字中可能出现的字符，格式由解析时校验
+     */
+    private void readNumber() throws IOException {
+        length = 0;
+        while (true) {
+            if(pos == limit && !fill()) {return ;}
+            int c = buffer[pos];
+            if((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                append((char) c);
+                pos++;
+            } else {
+                return ;
+            }
+        }
+    }
+
+    /**
+     * chars中是否是可选的负号加数字，不是时可能是小数或格式错误
+     */
+    private boolean isInteger() {
+        int i = length > 0 && chars[0] == '-' ? 1 : 0;
+        if(i == length) {return false;}
+        for(; i < length; i++) {
+            if(chars[i] < '0' || chars[i] > '9') {return false;}
+        }
+        return true;
+    }
+
+    /**
+     * 直接从chars解析十进制整数，调用前已由isInteger校验格式
+     */
+    private long parseLong(long min, long max) {
+        boolean negative = chars[0] == '-';
+        int i = negative ? 1 : 0;
+        //按负数累加，负数的范围比正数大一
+        long limitValue = negative ? min : -max;
+        long multmin = limitValue / 10;
+        long result = 0;
+        for(; i < length; i++) {
+            int digit = chars[i] - '0';
+            if(result < multmin || result * 10 < limitValue + digit) {
+                throw syntaxError("Number " + new String(chars, 0, length) + " is out of range [" + min + ", " + max + "]");
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private double parseDouble() {
+        String text = new String(chars, 0, length);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number " + text);
+        }
+    }
+
+    private void append(char c) {
+        if(length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length++] = c;
+    }
+
+    private void appendCodePoint(int codePoint) {
+        if(codePoint < 0x10000) {
+            append((char) codePoint);
+            return ;
+        }
+        append(Character.highSurrogate(codePoint));
+        append(Character.lowSurrogate(codePoint));
+    }
+
+    private BindingException unexpected(String expected, Token token) {
+        return syntaxError("Expected " + expected + " but was " + token);
+    }
+
+    private BindingException syntaxError(String message) {
+        return new BindingException("Malformed JSON body at byte " + getConsumed() + ": " + message);
+    }
+}
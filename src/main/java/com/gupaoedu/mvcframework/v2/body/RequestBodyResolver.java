@@ -0,0 +1,151 @@
+package com.gupaoedu.mvcframework.v2.body;
+
+import com.gupaoedu.mvcframework.annotation.WCRequestBody;
+import com.gupaoedu.mvcframework.v2.binding.ArgumentResolver;
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * WCRequestBody形参的取值器：先按Content-Length拒绝过大的请求体，再按Content-Type选择解析方式。
+ * <p>JSON（Content-Type包含json或未声明）直接从输入流解析，读到的字节数超过上限时立即停止；
+ * 表单只能绑定到POJO或Map，由容器解析请求参数。</p>
+ * @since V1.0.0
+ */
+public final class RequestBodyResolver implements ArgumentResolver {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final int MIN_BUFFER_SIZE = 64;
+
+    private final String name;
+
+    private final boolean required;
+
+    //WCRequestBody上声明的上限，-1表示使用配置
+    private final long declaredMaxBytes;
+
+    //生效的上限，0表示不限制；注册路由时设置一次
+    private long maxBytes;
+
+    //JSON的读取器，Iterator形参为元素的读取器
+    private final ValueReader reader;
+
+    private final boolean iterator;
+
+    //表单的读取器，形参不是POJO时为null
+    private final BeanReader formReader;
+
+    //形参是Map时按请求参数生成Map
+    private final boolean formMap;
+
+    private RequestBodyResolver(String name, boolean required, long declaredMaxBytes, ValueReader reader,
+                                boolean iterator, BeanReader formReader, boolean formMap) {
+        this.name = name;
+        this.required = required;
+        this.declaredMaxBytes = declaredMaxBytes;
+        this.maxBytes = Math.max(0, declaredMaxBytes);
+        this.reader = reader;
+        this.iterator = iterator;
+        this.formReader = formReader;
+        this.formMap = formMap;
+    }
+
+    /**
+     * 形参类型不支持时失败
+     * @param parameter 标注了WCRequestBody的形参
+     */
+    public static RequestBodyResolver of(Parameter parameter) {
+        WCRequestBody annotation = parameter.getAnnotation(WCRequestBody.class);
+        Class<?> type = parameter.getType();
+        Type genericType = parameter.getParameterizedType();
+        if(type.isPrimitive() && !annotation.required()) {
+            throw new IllegalStateException("Optional request body '" + parameter.getName() + "' cannot be primitive");
+        }
+        if(type == Iterator.class) {
+            return new RequestBodyResolver(parameter.getName(), annotation.required(), annotation.maxBytes(),
+                    ValueReaders.forType(ValueReaders.typeArgument(genericType, 0)), true, null, false);
+        }
+        ValueReader reader = ValueReaders.forType(genericType);
+        //表单只能绑定到值为字符串的Map
+        boolean formMap = false;
+        if(Map.class.isAssignableFrom(type) && type.isAssignableFrom(LinkedHashMap.class)) {
+            Class<?> valueType = ValueReaders.rawType(ValueReaders.typeArgument(genericType, 1));
+            formMap = valueType == String.class || valueType == Object.class;
+        }
+        return new RequestBodyResolver(parameter.getName(), annotation.required(), annotation.maxBytes(), reader, false,
+                reader instanceof BeanReader ? (BeanReader) reader : null, formMap);
+    }
+
+    /**
+     * 设置配置的字节数上限，只对没有在WCRequestBody上声明maxBytes的形参生效
+     * @param maxBytes 0表示不限制
+     */
+    public void setDefaultMaxBytes(long maxBytes) {
+        if(declaredMaxBytes < 0) {
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    @Override
+    public Object resolve(HttpServletRequest req, HttpServletResponse resp, RouteMatch match) {
+        long length = req.getContentLengthLong();
+        if(maxBytes > 0 && length > maxBytes) {
+            throw new BindingException(413, "Request body of " + length + " bytes exceeds " + maxBytes + " bytes");
+        }
+        String contentType = req.getContentType();
+        if(contentType != null && contentType.regionMatches(true, 0, "application/x-www-form-urlencoded", 0, 33)) {
+            return readForm(req, length);
+        }
+        if(contentType != null && !contentType.contains("json") && !contentType.contains("JSON")) {
+            throw new BindingException(415, "Unsupported Content-Type " + contentType + " for request body '" + name + "'");
+        }
+        if(length == 0) {return missing();}
+        //已知长度的小请求体不分配完整的缓冲区
+        int bufferSize = length > 0 && length < BUFFER_SIZE ? Math.max(MIN_BUFFER_SIZE, (int) length) : BUFFER_SIZE;
+        try {
+            JsonReader in = new JsonReader(req.getInputStream(), maxBytes, bufferSize);
+            if(in.peek() == JsonReader.Token.END_DOCUMENT) {return missing();}
+            if(iterator) {
+                return new JsonArrayIterator(in, reader);
+            }
+            Object value = reader.read(in);
+            in.endDocument();
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object readForm(HttpServletRequest req, long length) {
+        if(formReader == null && !formMap) {
+            throw new BindingException(415, "Request body '" + name + "' cannot be bound from a form");
+        }
+        if(length == 0) {return missing();}
+        if(formReader != null) {
+            return formReader.readForm(req);
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        for(Map.Entry<String, String[]> entry : req.getParameterMap().entrySet()) {
+            values.put(entry.getKey(), entry.getValue().length > 0 ? entry.getValue()[0] : "");
+        }
+        return values;
+    }
+
+    private Object missing() {
+        if(required) {
+            throw new BindingException("Required request body '" + name + "' is missing");
+        }
+        return iterator ? Collections.emptyIterator() : null;
+    }
+}
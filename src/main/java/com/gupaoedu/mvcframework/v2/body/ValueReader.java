@@ -0,0 +1,13 @@
+package com.gupaoedu.mvcframework.v2.body;
+
+import java.io.IOException;
+
+/**
+ * 从JSON读取一个值，映射阶段按目标类型生成
+ * @since V1.0.0
+ */
+interface ValueReader {
+
+    Object read(JsonReader in) throws IOException;
+
+}
@@ -0,0 +1,237 @@
+package com.gupaoedu.mvcframework.v2.body;
+
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+import com.gupaoedu.mvcframework.v2.binding.TypeConverter;
+import com.gupaoedu.mvcframework.v2.binding.TypeConverters;
+
+import java.io.IOException;
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * 按目标类型生成{@link ValueReader}：基本类型及其包装类、字符串、BigDecimal、BigInteger、枚举、
+ * 数组、集合、以字符串或基本类型为key的Map、Object（按JSON原样生成Map、List、String、Long、Double、Boolean）和POJO
+ * @since V1.0.0
+ */
+final class ValueReaders {
+
+    private static final Map<Class<?>, ValueReader> SCALARS = new HashMap<>();
+
+    static {
+        ValueReader string = in -> isNull(in) ? null : in.nextString();
+        SCALARS.put(String.class, string);
+        SCALARS.put(CharSequence.class, string);
+        SCALARS.put(Integer.class, in -> isNull(in) ? null : (int) in.nextLong(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        SCALARS.put(int.class, in -> (int) in.nextLong(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        SCALARS.put(Long.class, in -> isNull(in) ? null : in.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+        SCALARS.put(long.class, in -> in.nextLong(Long.MIN_VALUE, Long.MAX_VALUE));
+        SCALARS.put(Short.class, in -> isNull(in) ? null : (short) in.nextLong(Short.MIN_VALUE, Short.MAX_VALUE));
+        SCALARS.put(short.class, in -> (short) in.nextLong(Short.MIN_VALUE, Short.MAX_VALUE));
+        SCALARS.put(Byte.class, in -> isNull(in) ? null : (byte) in.nextLong(Byte.MIN_VALUE, Byte.MAX_VALUE));
+        SCALARS.put(byte.class, in -> (byte) in.nextLong(Byte.MIN_VALUE, Byte.MAX_VALUE));
+        SCALARS.put(Double.class, in -> isNull(in) ? null : in.nextDouble());
+        SCALARS.put(double.class, JsonReader::nextDouble);
+        SCALARS.put(Float.class, in -> isNull(in) ? null : (float) in.nextDouble());
+        SCALARS.put(float.class, in -> (float) in.nextDouble());
+        SCALARS.put(Boolean.class, in -> isNull(in) ? null : in.nextBoolean());
+        SCALARS.put(boolean.class, JsonReader::nextBoolean);
+        SCALARS.put(Character.class, in -> isNull(in) ? null : nextChar(in));
+        SCALARS.put(char.class, ValueReaders::nextChar);
+        SCALARS.put(BigDecimal.class, in -> isNull(in) ? null : convert(in.nextString(), BigDecimal::new, BigDecimal.class));
+        SCALARS.put(BigInteger.class, in -> isNull(in) ? null : convert(in.nextString(), BigInteger::new, BigInteger.class));
+        SCALARS.put(Object.class, ValueReaders::readAny);
+    }
+
+    private ValueReaders() {
+    }
+
+    /**
+     * 不支持的类型在映射阶段失败
+     * @param type 目标类型，可以带泛型
+     */
+    static ValueReader forType(Type type) {
+        Class<?> raw = rawType(type);
+        ValueReader scalar = SCALARS.get(raw);
+        if(scalar != null) {return scalar;}
+        if(raw.isEnum()) {
+            TypeConverter converter = TypeConverters.forType(raw);
+            return in -> isNull(in) ? null : convert(in.nextString(), converter, raw);
+        }
+        if(raw.isArray()) {
+            Type componentType = type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType() : raw.getComponentType();
+            return arrayReader(raw.getComponentType(), forType(componentType));
+        }
+        if(Collection.class.isAssignableFrom(raw) || raw == Iterable.class) {
+            return collectionReader(raw, forType(typeArgument(type, 0)));
+        }
+        if(Map.class.isAssignableFrom(raw)) {
+            return mapReader(raw, keyConverter(typeArgument(type, 0)), forType(typeArgument(type, 1)));
+        }
+        if(raw.isInterface() || Modifier.isAbstract(raw.getModifiers()) || raw.isPrimitive()) {
+            throw new IllegalStateException("Unsupported request body type " + type.getTypeName());
+        }
+        return BeanReader.of(raw);
+    }
+
+    /**
+     * 当前值为null时消费它并返回true
+     */
+    static boolean isNull(JsonReader in) throws IOException {
+        if(in.peek() != JsonReader.Token.NULL) {return false;}
+        in.nextNull();
+        return true;
+    }
+
+    static Class<?> rawType(Type type) {
+        if(type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if(type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if(type instanceof GenericArrayType) {
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if(type instanceof WildcardType) {
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if(type instanceof TypeVariable) {
+            return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    /**
+     * 泛型参数，未声明时为Object
+     */
+    static Type typeArgument(Type type, int index) {
+        if(type instanceof ParameterizedType) {
+            return ((ParameterizedType) type).getActualTypeArguments()[index];
+        }
+        return Object.class;
+    }
+
+    private static ValueReader arrayReader(Class<?> componentType, ValueReader element) {
+        return in -> {
+            if(isNull(in)) {return null;}
+            List<Object> values = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if(componentType.isPrimitive() && isNull(in)) {
+                    throw new BindingException("Null element in " + componentType.getName() + "[]");
+                }
+                values.add(element.read(in));
+            }
+            in.endArray();
+            Object array = Array.newInstance(componentType, values.size());
+            for(int i = 0; i < values.size(); i++) {
+                Array.set(array, i, values.get(i));
+            }
+            return array;
+        };
+    }
+
+    private static ValueReader collectionReader(Class<?> raw, ValueReader element) {
+        boolean set = Set.class.isAssignableFrom(raw);
+        boolean sorted = SortedSet.class.isAssignableFrom(raw);
+        if(!raw.isAssignableFrom(sorted ? TreeSet.class : set ? LinkedHashSet.class : ArrayList.class)) {
+            throw new IllegalStateException("Unsupported request body type " + raw.getName());
+        }
+        return in -> {
+            if(isNull(in)) {return null;}
+            Collection<Object> values = sorted ? new TreeSet<>() : set ? new LinkedHashSet<>() : new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                values.add(element.read(in));
+            }
+            in.endArray();
+            return values;
+        };
+    }
+
+    private static ValueReader mapReader(Class<?> raw, TypeConverter key, ValueReader value) {
+        boolean sorted = SortedMap.class.isAssignableFrom(raw);
+        if(!raw.isAssignableFrom(sorted ? TreeMap.class : LinkedHashMap.class)) {
+            throw new IllegalStateException("Unsupported request body type " + raw.getName());
+        }
+        return in -> {
+            if(isNull(in)) {return null;}
+            Map<Object, Object> values = sorted ? new TreeMap<>() : new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                values.put(key == null ? name : convert(name, key, Object.class), value.read(in));
+            }
+            in.endObject();
+            return values;
+        };
+    }
+
+    /**
+     * Map的key按字符串读出，String和Object不转换，返回null
+     */
+    private static TypeConverter keyConverter(Type type) {
+        Class<?> raw = rawType(type);
+        if(raw == String.class || raw == Object.class || raw == CharSequence.class) {return null;}
+        TypeConverter converter = TypeConverters.forType(raw);
+        if(converter == null) {
+            throw new IllegalStateException("Unsupported map key type " + type.getTypeName());
+        }
+        return converter;
+    }
+
+    private static Object readAny(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> map = new LinkedHashMap<>();
+                in.beginObject();
+                while (in.hasNext()) {
+                    map.put(in.nextName(), readAny(in));
+                }
+                in.endObject();
+                return map;
+            case BEGIN_ARRAY:
+                List<Object> list = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    list.add(readAny(in));
+                }
+                in.endArray();
+                return list;
+            case NUMBER:
+                String number = in.nextString();
+                try {
+                    return TypeConverters.parseLong(number);
+                } catch (NumberFormatException e) {
+                    //小数或超出long的范围
+                    return convert(number, Double::valueOf, Double.class);
+                }
+            case BOOLEAN:
+                return in.nextBoolean();
+            case NULL:
+                in.nextNull();
+                return null;
+            default:
+                return in.nextString();
+        }
+    }
+
+    private static char nextChar(JsonReader in) throws IOException {
+        String value = in.nextString();
+        if(value.length() != 1) {
+            throw new BindingException("Expected a single character but was \"" + value + "\"");
+        }
+        return value.charAt(0);
+    }
+
+    static Object convert(String value, TypeConverter converter, Class<?> type) {
+        try {
+            return converter.convert(value);
+        } catch (IllegalArgumentException e) {
+            throw new BindingException("Failed to convert request body value '" + value + "' to " + type.getSimpleName(), e);
+        }
+    }
+}
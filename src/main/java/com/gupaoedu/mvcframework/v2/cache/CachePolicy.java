@@ -0,0 +1,73 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import com.gupaoedu.mvcframework.annotation.WCCacheable;
+
+import javax.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 处理方法的缓存配置，映射阶段从WCCacheable生成
+ * @since V1.0.0
+ */
+public final class CachePolicy {
+
+    //参与key的参数名，已排序，为null表示全部参数
+    private final String[] params;
+
+    private final long ttlNanos;
+
+    private CachePolicy(String[] params, long ttlNanos) {
+        this.params = params;
+        this.ttlNanos = ttlNanos;
+    }
+
+    /**
+     * 处理方法没有标注WCCacheable时返回null
+     */
+    public static CachePolicy of(Method method) {
+        WCCacheable cacheable = method.getAnnotation(WCCacheable.class);
+        if(cacheable == null) {return null;}
+        String[] params = null;
+        if(cacheable.params().length > 0) {
+            params = cacheable.params().clone();
+            Arrays.sort(params);
+        }
+        return new CachePolicy(params, cacheable.timeUnit().toNanos(cacheable.ttl()));
+    }
+
+    /**
+     * 缓存key：请求路径加上参数，参数按名字排序
+     * @param req 请求
+     * @param path 规范化后的请求路径，见{@link com.gupaoedu.mvcframework.v2.router.Router#normalize}
+     */
+    public String key(HttpServletRequest req, String path) {
+        StringBuilder key = new StringBuilder(path.length() + 32).append(path);
+        if(params != null) {
+            for(String name : params) {
+                appendParam(key, name, req.getParameterValues(name));
+            }
+            return key.toString();
+        }
+        Map<String, String[]> parameters = req.getParameterMap();
+        if(parameters.isEmpty()) {return key.toString();}
+        for(Map.Entry<String, String[]> entry : new TreeMap<>(parameters).entrySet()) {
+            appendParam(key, entry.getKey(), entry.getValue());
+        }
+        return key.toString();
+    }
+
+    private static void appendParam(StringBuilder key, String name, String[] values) {
+        if(values == null) {return ;}
+        for(String value : values) {
+            //用请求中不会出现的控制字符分隔，避免拼接出相同的key
+            key.append('\u0000').append(name).append('\u0001').append(value);
+        }
+    }
+
+    public long getTtlNanos() {
+        return ttlNanos;
+    }
+}
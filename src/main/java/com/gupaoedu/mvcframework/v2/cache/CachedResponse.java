@@ -0,0 +1,84 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 缓存的响应：响应头和已编码的响应体，命中时直接写入输出流
+ * @since V1.0.0
+ */
+public final class CachedResponse {
+
+    private final String contentType;
+
+    //响应头，按name、value交替存放
+    private final String[] headers;
+
+    private final byte[] body;
+
+    /**
+     * 只有内容的条目，如静态文件
+     */
+    public CachedResponse(String contentType, byte[] body) {
+        this(contentType, Collections.<String>emptyList(), body);
+    }
+
+    CachedResponse(String contentType, List<String> headers, byte[] body) {
+        this.contentType = contentType;
+        this.headers = headers.toArray(new String[0]);
+        this.body = body;
+    }
+
+    /**
+     * 写出缓存的响应，不经过Writer和字符集编码
+     */
+    public void writeTo(HttpServletResponse resp) throws IOException {
+        if(contentType != null) {
+            resp.setContentType(contentType);
+        }
+        for(int i = 0; i < headers.length; i += 2) {
+            resp.addHeader(headers[i], headers[i + 1]);
+        }
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    /**
+     * 客户端的内容仍然有效：只写出响应头和304，不写响应体
+     */
+    public void writeNotModified(HttpServletResponse resp) {
+        for(int i = 0; i < headers.length; i += 2) {
+            resp.addHeader(headers[i], headers[i + 1]);
+        }
+        resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    }
+
+    /**
+     * 缓存的响应头，没有时返回null
+     */
+    public String getHeader(String name) {
+        for(int i = 0; i < headers.length; i += 2) {
+            if(headers[i].equalsIgnoreCase(name)) {
+                return headers[i + 1];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 估算占用的字节数
+     */
+    int weight() {
+        int weight = 64 + body.length;
+        for(String header : headers) {
+            weight += 40 + header.length() * 2;
+        }
+        return weight;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
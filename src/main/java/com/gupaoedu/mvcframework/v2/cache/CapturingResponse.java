@@ -0,0 +1,285 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 未命中时包装响应：响应体写入内存，响应头透传并记录，处理完成后由{@link #finish}写出，
+ * 状态码为200时放入缓存。
+ * <p>缓存的响应会原样返回给所有客户端：Set-Cookie不记录，设置了Cookie或Cache-Control: private/no-store的响应不缓存。</p>
+ * @since V1.0.0
+ */
+public class CapturingResponse extends HttpServletResponseWrapper {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+    private final List<String> headers = new ArrayList<>();
+
+    private int status = SC_OK;
+
+    //调用了sendError或sendRedirect，不缓存也不再写出
+    private boolean bypass = false;
+
+    //设置了Cookie，响应属于当前用户，不缓存
+    private boolean cookieSet = false;
+
+    private final ResponseCache cache;
+
+    private final String key;
+
+    private final CachePolicy policy;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    /**
+     * @param response 原始响应
+     * @param cache 缓存
+     * @param key 缓存key
+     * @param policy 缓存配置
+     */
+    public CapturingResponse(HttpServletResponse response, ResponseCache cache, String key, CachePolicy policy) {
+        super(response);
+        this.cache = cache;
+        this.key = key;
+        this.policy = policy;
+    }
+
+    /**
+     * 写出捕获的响应，状态码为200时放入缓存
+     */
+    public void finish() throws IOException {
+        finish(false);
+    }
+
+    /**
+     * @param notModified 客户端的内容仍然有效：照常放入缓存，但只返回304，不写响应体
+     */
+    public void finish(boolean notModified) throws IOException {
+        if(bypass) {return ;}
+        if(writer != null) {
+            writer.flush();
+        }
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        byte[] body = buffer.toByteArray();
+        if(status == SC_OK) {
+            if(isShareable()) {
+                cache.put(key, new CachedResponse(response.getContentType(), headers, body), policy.getTtlNanos());
+            }
+            if(notModified) {
+                response.setStatus(SC_NOT_MODIFIED);
+                return ;
+            }
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * 可以返回给其他客户端：没有设置Cookie，Cache-Control不是private或no-store
+     */
+    private boolean isShareable() {
+        if(cookieSet) {return false;}
+        for(int i = 0; i < headers.size(); i += 2) {
+            if("Cache-Control".equalsIgnoreCase(headers.get(i))) {
+                String value = headers.get(i + 1).toLowerCase();
+                if(value.contains("private") || value.contains("no-store")) {return false;}
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if(writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if(outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    buffer.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    buffer.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if(writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(buffer, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        //缓冲到finish时一起写出，不能提前提交响应
+        if(writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if(writer != null) {
+            writer.flush();
+        }
+        buffer.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+        headers.clear();
+        cookieSet = false;
+        status = SC_OK;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return bypass || super.isCommitted();
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        super.setStatus(sc);
+        this.status = sc;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        super.setStatus(sc, sm);
+        this.status = sc;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        bypass = true;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        bypass = true;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        bypass = true;
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        super.addCookie(cookie);
+        cookieSet = true;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        removeHeader(name);
+        addCapturedHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        addCapturedHeader(name, value);
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        super.setDateHeader(name, date);
+        removeHeader(name);
+        addCapturedHeader(name, getHeader(name));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        super.addDateHeader(name, date);
+        //取容器格式化后的值
+        String last = null;
+        for(String value : getHeaders(name)) {
+            last = value;
+        }
+        addCapturedHeader(name, last);
+    }
+
+    private void addCapturedHeader(String name, String value) {
+        //Content-Length以缓存的响应体为准
+        if(value == null || "Content-Length".equalsIgnoreCase(name)) {return ;}
+        //Cookie只发给当前用户，不记录
+        if("Set-Cookie".equalsIgnoreCase(name)) {
+            cookieSet = true;
+            return ;
+        }
+        headers.add(name);
+        headers.add(value);
+    }
+
+    private void removeHeader(String name) {
+        for(int i = headers.size() - 2; i >= 0; i -= 2) {
+            if(headers.get(i).equalsIgnoreCase(name)) {
+                headers.remove(i + 1);
+                headers.remove(i);
+            }
+        }
+    }
+}
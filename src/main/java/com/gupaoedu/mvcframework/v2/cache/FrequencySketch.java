@@ -0,0 +1,81 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Count-Min Sketch：用4行计数器估算key最近的访问频率，计数上限15，
+ * 累计访问达到采样数后所有计数减半，让旧的热点逐渐冷却。
+ * <p>计数器的自增不加锁，并发时少量丢失不影响估算。</p>
+ * @since V1.0.0
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int[] SEEDS = {0x97cb3127, 0xd2d16f71, 0x9e3779b9, 0x7f4a7c15};
+
+    private final int[] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param width 每行的计数器数量，取不小于它的2的幂
+     */
+    FrequencySketch(int width) {
+        int size = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.table = new int[size * DEPTH];
+        this.mask = size - 1;
+        this.sampleSize = size * 10;
+    }
+
+    /**
+     * 记录一次访问
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for(int row = 0; row < DEPTH; row++) {
+            int index = indexOf(hash, row);
+            if(table[index] < MAX_COUNT) {
+                table[index]++;
+                added = true;
+            }
+        }
+        if(added && additions.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 估算频率，取各行计数的最小值
+     */
+    int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for(int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, table[indexOf(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9e3779b1;
+        h ^= h >>> 16;
+        return (row * (mask + 1)) + (h & mask);
+    }
+
+    /**
+     * 只有一个线程执行减半
+     */
+    private void reset() {
+        int current = additions.get();
+        if(current < sampleSize || !additions.compareAndSet(current, current / 2)) {return ;}
+        for(int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+    }
+}
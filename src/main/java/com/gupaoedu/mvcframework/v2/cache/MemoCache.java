@@ -0,0 +1,148 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 方法返回值缓存：按条目数限制大小，淘汰与准入由{@link TinyLfuMap}完成，与{@link ResponseCache}相同，
+ * 每个条目的权重为1。
+ * <p>未命中时同一个key只有一个线程调用加载方法（single-flight），其余线程等待它的结果或异常；
+ * 命中只读ConcurrentHashMap和频率计数，不加锁。</p>
+ * @since V1.0.0
+ */
+public final class MemoCache {
+
+    //缓存的null返回值
+    private static final Object NULL = new Object();
+
+    /**
+     * 加载方法，通常是调用被缓存的方法
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Object load() throws Throwable;
+    }
+
+    private final int maxSize;
+
+    //存活时间，0表示不过期
+    private final long ttlNanos;
+
+    private final TinyLfuMap<Object, Object> data;
+
+    //正在加载的key
+    private final ConcurrentHashMap<Object, Loading> loading = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    //等待其它线程加载结果的次数
+    private final LongAdder waits = new LongAdder();
+
+    /**
+     * @param maxSize 最多缓存的条目数
+     * @param ttlNanos 存活时间，0表示不过期
+     */
+    public MemoCache(int maxSize, long ttlNanos) {
+        if(maxSize <= 0 || ttlNanos < 0) {
+            throw new IllegalArgumentException("maxSize must be positive and ttl must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.data = new TinyLfuMap<>(maxSize, Math.max(64, maxSize));
+    }
+
+    /**
+     * 查询缓存，未命中时加载并写入；加载抛出的异常原样抛给所有等待的调用方，不缓存
+     * @param key 缓存key，不能为null
+     * @param loader 加载方法
+     */
+    public Object get(Object key, Loader loader) throws Throwable {
+        Object cached = data.get(key);
+        if(cached != null) {
+            hits.increment();
+            return unmask(cached);
+        }
+        misses.increment();
+        Loading mine = new Loading();
+        Loading other = loading.putIfAbsent(key, mine);
+        if(other != null) {
+            //加载方法递归查询同一个key时直接调用，等待自己会死锁
+            if(other.owner == Thread.currentThread()) {
+                return loader.load();
+            }
+            waits.increment();
+            return other.await();
+        }
+        try {
+            //另一个线程可能刚刚加载完成
+            cached = data.peek(key);
+            Object value;
+            if(cached != null) {
+                value = unmask(cached);
+            } else {
+                value = loader.load();
+                data.put(key, value == null ? NULL : value, 1, ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos);
+            }
+            mine.result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            //先写入缓存再移除，之后的调用要么命中要么等待
+            loading.remove(key, mine);
+        }
+    }
+
+    private static Object unmask(Object value) {
+        return value == NULL ? null : value;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getWaits() {
+        return waits.sum();
+    }
+
+    public long getEvictions() {
+        return data.getEvictions();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public String toString() {
+        return "MemoCache{hits=" + getHits() + ", misses=" + getMisses() + ", waits=" + getWaits()
+                + ", evictions=" + getEvictions() + ", size=" + size() + "/" + maxSize + "}";
+    }
+
+    /**
+     * 一次正在进行的加载
+     */
+    private static final class Loading {
+
+        final Thread owner = Thread.currentThread();
+
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Object await() throws Throwable {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
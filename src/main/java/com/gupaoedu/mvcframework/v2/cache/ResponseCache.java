@@ -0,0 +1,94 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 响应缓存：按字节数限制总大小，淘汰与准入由{@link TinyLfuMap}完成，一次性的扫描请求不会把热点挤出去；
+ * 这里只计算响应的字节数和过期时间。
+ * <p>查询只读ConcurrentHashMap和频率计数，不加锁；写入和淘汰在一把锁内完成，只发生在未命中之后。</p>
+ * @since V1.0.0
+ */
+public class ResponseCache {
+
+    private final long maxWeight;
+
+    private final TinyLfuMap<String, CachedResponse> data;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxWeight 缓存总字节数上限
+     */
+    public ResponseCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+        //按平均1KB一个响应估算条目数
+        this.data = new TinyLfuMap<>(maxWeight, (int) Math.min(1 << 20, Math.max(1024, maxWeight / 1024)));
+    }
+
+    /**
+     * 查询缓存，过期视为未命中
+     * @param key 缓存key
+     */
+    public CachedResponse get(String key) {
+        CachedResponse response = data.get(key);
+        if(response == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return response;
+    }
+
+    /**
+     * 写入缓存，超出容量时按访问频率决定淘汰谁或者拒绝写入
+     * @param key 缓存key
+     * @param response 响应
+     * @param ttlNanos 存活时间
+     */
+    public void put(String key, CachedResponse response, long ttlNanos) {
+        data.put(key, response, response.weight() + 40 + key.length() * 2, System.nanoTime() + ttlNanos);
+    }
+
+    /**
+     * 清空缓存，重新加载controller后旧代码生成的响应不再有效；统计计数保留
+     */
+    public void clear() {
+        data.clear();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return data.getEvictions();
+    }
+
+    public long getRejections() {
+        return data.getRejections();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public long weight() {
+        return data.weight();
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache{hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", rejections=" + getRejections() + ", size=" + size() + ", weight=" + weight() + "/" + maxWeight + "}";
+    }
+}
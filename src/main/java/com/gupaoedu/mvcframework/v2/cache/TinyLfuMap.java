@@ -0,0 +1,218 @@
+package com.gupaoedu.mvcframework.v2.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 按权重限制总大小的并发Map，{@link ResponseCache}与{@link MemoCache}共用：淘汰时随机采样若干条目选出访问频率最低的候选，
+ * 新条目只有比候选更常被访问时才允许进入（TinyLFU），一次性的扫描不会把热点挤出去。
+ * <p>查询只读ConcurrentHashMap和频率计数，不加锁；写入和淘汰在一把锁内完成。条目的权重与过期时间由调用方决定。</p>
+ * @since V1.0.0
+ */
+final class TinyLfuMap<K, V> {
+
+    //每次淘汰采样的条目数
+    private static final int SAMPLE_SIZE = 8;
+
+    private final long maxWeight;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> data = new ConcurrentHashMap<>();
+
+    private final FrequencySketch sketch;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    //用于随机采样的条目数组，只在evictionLock内修改
+    @SuppressWarnings("unchecked")
+    private Entry<K, V>[] slots = new Entry[16];
+
+    private int size;
+
+    private long weight;
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param maxWeight 总权重上限
+     * @param expectedSize 预计的条目数，决定频率计数的大小
+     */
+    TinyLfuMap(long maxWeight, int expectedSize) {
+        this.maxWeight = maxWeight;
+        this.sketch = new FrequencySketch(expectedSize);
+    }
+
+    /**
+     * 查询并记录一次访问，过期视为不存在
+     */
+    V get(K key) {
+        sketch.increment(spread(key.hashCode()));
+        return peek(key);
+    }
+
+    /**
+     * 查询，不记录访问
+     */
+    V peek(K key) {
+        Entry<K, V> entry = data.get(key);
+        return entry == null || entry.isExpired(System.nanoTime()) ? null : entry.value;
+    }
+
+    /**
+     * 写入，超出总权重时按访问频率决定淘汰谁或者拒绝写入
+     * @param weight 条目的权重
+     * @param expiresAt 过期时的System.nanoTime()，0表示不过期
+     * @return false表示被拒绝
+     */
+    boolean put(K key, V value, int weight, long expiresAt) {
+        Entry<K, V> candidate = new Entry<>(key, value, expiresAt, spread(key.hashCode()), weight);
+        if(weight > maxWeight) {
+            rejections.increment();
+            return false;
+        }
+        evictionLock.lock();
+        try {
+            Entry<K, V> old = data.get(key);
+            long required = weight - (old != null ? old.weight : 0);
+            while (this.weight + required > maxWeight) {
+                Entry<K, V> victim = sampleVictim(old);
+                if(victim == null) {
+                    rejections.increment();
+                    return false;
+                }
+                //过期的直接淘汰，否则新条目必须更常被访问
+                if(!victim.isExpired(System.nanoTime())
+                        && sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                    rejections.increment();
+                    return false;
+                }
+                remove(victim);
+                evictions.increment();
+            }
+            if(old != null) {
+                candidate.index = old.index;
+                slots[old.index] = candidate;
+                this.weight -= old.weight;
+            } else {
+                if(size == slots.length) {
+                    @SuppressWarnings("unchecked")
+                    Entry<K, V>[] grown = new Entry[size * 2];
+                    System.arraycopy(slots, 0, grown, 0, size);
+                    slots = grown;
+                }
+                candidate.index = size;
+                slots[size++] = candidate;
+            }
+            this.weight += weight;
+            data.put(key, candidate);
+            return true;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 清空，统计计数保留
+     */
+    @SuppressWarnings("unchecked")
+    void clear() {
+        evictionLock.lock();
+        try {
+            data.clear();
+            slots = new Entry[16];
+            size = 0;
+            weight = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * 随机采样，优先返回已过期的条目，否则返回频率最低的条目
+     * @param exclude 将被替换的旧条目，不参与采样
+     */
+    private Entry<K, V> sampleVictim(Entry<K, V> exclude) {
+        if(size == 0 || (size == 1 && slots[0] == exclude)) {return null;}
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        Entry<K, V> victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for(int i = 0; i < SAMPLE_SIZE; i++) {
+            Entry<K, V> entry = slots[random.nextInt(size)];
+            if(entry == exclude) {continue;}
+            if(entry.isExpired(now)) {return entry;}
+            int frequency = sketch.frequency(entry.hash);
+            if(frequency < victimFrequency) {
+                victim = entry;
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+
+    private void remove(Entry<K, V> entry) {
+        data.remove(entry.key, entry);
+        Entry<K, V> last = slots[--size];
+        slots[entry.index] = last;
+        last.index = entry.index;
+        slots[size] = null;
+        weight -= entry.weight;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    long getRejections() {
+        return rejections.sum();
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    long weight() {
+        evictionLock.lock();
+        try {
+            return weight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Entry<K, V> {
+
+        final K key;
+
+        final V value;
+
+        //0表示不过期
+        final long expiresAt;
+
+        final int hash;
+
+        final int weight;
+
+        //在slots中的位置
+        int index;
+
+        Entry(K key, V value, long expiresAt, int hash, int weight) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.hash = hash;
+            this.weight = weight;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != 0 && expiresAt - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.gupaoedu.mvcframework.v2.conditional;
+
+import com.gupaoedu.mvcframework.annotation.WCETag;
+import com.gupaoedu.mvcframework.v2.handler.HandlerInvoker;
+import com.gupaoedu.mvcframework.v2.handler.MethodHandleInvoker;
+
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * 处理方法的条件GET配置，映射阶段从WCETag生成：配置了版本方法时先比较版本，否则缓冲输出计算ETag
+ * @since V1.0.0
+ */
+public final class ConditionalPolicy {
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    //给出版本的方法，未配置时为null
+    private final HandlerInvoker version;
+
+    //版本方法是否与处理方法使用相同的入参
+    private final boolean versionTakesArgs;
+
+    private ConditionalPolicy(HandlerInvoker version, boolean versionTakesArgs) {
+        this.version = version;
+        this.versionTakesArgs = versionTakesArgs;
+    }
+
+    /**
+     * 处理方法没有标注WCETag时返回null，版本方法不存在时初始化失败
+     * @param instance controller实例
+     * @param method 处理方法
+     */
+    public static ConditionalPolicy of(Object instance, Method method) {
+        WCETag annotation = method.getAnnotation(WCETag.class);
+        if(annotation == null) {return null;}
+        String name = annotation.version().trim();
+        if(name.isEmpty()) {
+            return new ConditionalPolicy(null, false);
+        }
+        Class<?> type = instance.getClass();
+        Method versionMethod;
+        boolean takesArgs = method.getParameterCount() > 0;
+        try {
+            versionMethod = type.getMethod(name, method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            try {
+                versionMethod = type.getMethod(name);
+                takesArgs = false;
+            } catch (NoSuchMethodException ex) {
+                throw new IllegalStateException("Version method " + type.getName() + "." + name
+                        + " not found, it must be public and take no arguments or the same arguments as " + method.getName());
+            }
+        }
+        if(versionMethod.getReturnType() == void.class) {
+            throw new IllegalStateException("Version method " + versionMethod + " must return a value");
+        }
+        try {
+            return new ConditionalPolicy(new MethodHandleInvoker(instance, versionMethod), takesArgs);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + versionMethod, e);
+        }
+    }
+
+    /**
+     * 是否配置了版本方法
+     */
+    public boolean hasVersion() {
+        return version != null;
+    }
+
+    /**
+     * 调用版本方法，把结果作为ETag或Last-Modified写入响应头，与请求条件比较；版本方法返回null时按普通请求处理
+     * @param args 已绑定的处理方法入参
+     * @param conditions 请求的条件，可以为null
+     * @param resp 响应
+     * @return true表示已经返回304，不需要再调用处理方法
+     */
+    public boolean checkVersion(Object[] args, ConditionalRequest conditions, HttpServletResponse resp) throws Exception {
+        Object value = version.invoke(versionTakesArgs ? args : NO_ARGS);
+        if(value == null) {return false;}
+        String etag = null;
+        long lastModified = -1;
+        if(value instanceof Date) {
+            lastModified = ((Date) value).getTime();
+        } else if(value instanceof Instant) {
+            lastModified = ((Instant) value).toEpochMilli();
+        } else {
+            etag = ETags.of(value.toString());
+        }
+        if(etag != null) {
+            resp.setHeader("ETag", etag);
+        } else {
+            resp.setDateHeader("Last-Modified", lastModified);
+        }
+        if(conditions != null && conditions.isNotModified(etag, lastModified)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+package com.gupaoedu.mvcframework.v2.conditional;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 请求携带的条件：If-None-Match与If-Modified-Since，按RFC 7232两者都有时只看If-None-Match
+ * @since V1.0.0
+ */
+public final class ConditionalRequest {
+
+    private final String ifNoneMatch;
+
+    //毫秒，没有时为-1
+    private final long ifModifiedSince;
+
+    private ConditionalRequest(String ifNoneMatch, long ifModifiedSince) {
+        this.ifNoneMatch = ifNoneMatch;
+        this.ifModifiedSince = ifModifiedSince;
+    }
+
+    /**
+     * 请求不带条件时返回null
+     */
+    public static ConditionalRequest of(HttpServletRequest req) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        long ifModifiedSince = -1;
+        if(ifNoneMatch == null) {
+            try {
+                ifModifiedSince = req.getDateHeader("If-Modified-Since");
+            } catch (IllegalArgumentException e) {
+                //日期格式错误时按没有条件处理
+            }
+            if(ifModifiedSince < 0) {return null;}
+        }
+        return new ConditionalRequest(ifNoneMatch, ifModifiedSince);
+    }
+
+    /**
+     * 客户端的内容是否仍然有效
+     * @param etag 当前的ETag，没有时为null
+     * @param lastModified 当前的最后修改时间，毫秒，没有时为-1
+     * @return true表示应返回304
+     */
+    public boolean isNotModified(String etag, long lastModified) {
+        if(ifNoneMatch != null) {
+            return etag != null && matches(ifNoneMatch, etag);
+        }
+        //HTTP日期只精确到秒
+        return lastModified >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-None-Match使用弱比较：忽略W/前缀，引号连同其中的内容相同即匹配，*匹配任何ETag；逐个字符比较，不拆分字符串
+     * @param header If-None-Match的值，可以是逗号分隔的多个ETag
+     * @param etag 当前的ETag
+     */
+    static boolean matches(String header, String etag) {
+        int tagStart = etag.startsWith("W/") ? 2 : 0;
+        int tagLength = etag.length() - tagStart;
+        int n = header.length();
+        int i = 0;
+        while (i < n) {
+            char c = header.charAt(i);
+            if(c == ' ' || c == '\t' || c == ',') {
+                i++;
+                continue;
+            }
+            if(c == '*') {return true;}
+            if(header.startsWith("W/", i)) {
+                i += 2;
+            }
+            if(i >= n || header.charAt(i) != '"') {
+                //不是合法的ETag，跳到下一个
+                int comma = header.indexOf(',', i);
+                if(comma < 0) {return false;}
+                i = comma + 1;
+                continue;
+            }
+            //引号内可以出现逗号，按引号找结尾
+            int close = header.indexOf('"', i + 1);
+            if(close < 0) {return false;}
+            if(close + 1 - i == tagLength && header.regionMatches(i, etag, tagStart, tagLength)) {
+                return true;
+            }
+            i = close + 1;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package com.gupaoedu.mvcframework.v2.conditional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 生成强ETag
+ * @since V1.0.0
+ */
+final class ETags {
+
+    //SHA-256摘要保留的字节数，128位
+    private static final int DIGEST_BYTES = 16;
+
+    private static final char[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private ETags() {
+    }
+
+    /**
+     * 按响应体计算：SHA-256摘要的前128位，十六进制表示，不同内容碰撞的概率可以忽略
+     */
+    static String of(byte[] body, int length) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            //每个JRE都必须提供SHA-256
+            throw new IllegalStateException(e);
+        }
+        digest.update(body, 0, length);
+        byte[] hash = digest.digest();
+        char[] etag = new char[DIGEST_BYTES * 2 + 2];
+        etag[0] = '"';
+        for(int i = 0; i < DIGEST_BYTES; i++) {
+            etag[i * 2 + 1] = HEX[(hash[i] >> 4) & 0xf];
+            etag[i * 2 + 2] = HEX[hash[i] & 0xf];
+        }
+        etag[etag.length - 1] = '"';
+        return new String(etag);
+    }
+
+    /**
+     * 版本值或处理方法给出的ETag：已带引号的原样使用，只含可见ASCII字符时加上引号，否则按UTF-8字节计算
+     */
+    static String of(String version) {
+        int length = version.length();
+        if(length >= 2 && version.charAt(length - 1) == '"' && (version.charAt(0) == '"' || version.startsWith("W/\""))) {
+            return version;
+        }
+        for(int i = 0; i < length; i++) {
+            char c = version.charAt(i);
+            if(c < 0x21 || c > 0x7e || c == '"') {
+                byte[] bytes = version.getBytes(StandardCharsets.UTF_8);
+                return of(bytes, bytes.length);
+            }
+        }
+        return '"' + version + '"';
+    }
+}
@@ -0,0 +1,249 @@
+package com.gupaoedu.mvcframework.v2.conditional;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * 缓冲处理方法的输出，处理完成后由{@link #finish}计算ETag：状态码为200且请求条件满足时只返回304，
+ * 否则带上ETag和Content-Length写出；处理方法自己设置了ETag或Last-Modified时以它为准
+ * @since V1.0.0
+ */
+public class EtagResponse extends HttpServletResponseWrapper {
+
+    private final Body body = new Body();
+
+    //请求不带条件时为null，仍然输出ETag供下次请求使用
+    private final ConditionalRequest conditions;
+
+    private int status = SC_OK;
+
+    //调用了sendError或sendRedirect，不再写出
+    private boolean bypass = false;
+
+    //处理方法设置的ETag
+    private String etag;
+
+    //处理方法设置的Last-Modified，毫秒
+    private long lastModified = -1;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    /**
+     * @param response 原始响应
+     * @param conditions 请求的条件，可以为null
+     */
+    public EtagResponse(HttpServletResponse response, ConditionalRequest conditions) {
+        super(response);
+        this.conditions = conditions;
+    }
+
+    /**
+     * 比较条件后写出响应体或者304
+     */
+    public void finish() throws IOException {
+        if(isNotModified()) {
+            ((HttpServletResponse) getResponse()).setStatus(SC_NOT_MODIFIED);
+            return ;
+        }
+        writeBody();
+    }
+
+    /**
+     * 状态码为200时确定ETag（没有时按响应体计算并写入响应头），再与请求条件比较，不写出响应体
+     * @return true表示客户端的内容仍然有效
+     */
+    public boolean isNotModified() {
+        if(bypass || status != SC_OK) {return false;}
+        flushWriter();
+        if(etag == null) {
+            etag = ETags.of(body.array(), body.size());
+            super.setHeader("ETag", etag);
+        }
+        return conditions != null && conditions.isNotModified(etag, lastModified);
+    }
+
+    /**
+     * 带上Content-Length写出缓冲的响应体
+     */
+    public void writeBody() throws IOException {
+        if(bypass) {return ;}
+        flushWriter();
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setContentLength(body.size());
+        response.getOutputStream().write(body.array(), 0, body.size());
+    }
+
+    private void flushWriter() {
+        if(writer != null) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if(writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if(outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) {
+                    body.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    body.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if(writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(body, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        //ETag需要完整的响应体，不能提前提交响应
+        flushWriter();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        flushWriter();
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+        status = SC_OK;
+        etag = null;
+        lastModified = -1;
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return bypass || super.isCommitted();
+    }
+
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        super.setStatus(sc);
+        this.status = sc;
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setStatus(int sc, String sm) {
+        super.setStatus(sc, sm);
+        this.status = sc;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        bypass = true;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        bypass = true;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        bypass = true;
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if(value != null && "ETag".equalsIgnoreCase(name)) {
+            value = etag = ETags.of(value);
+        }
+        super.setHeader(name, value);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if(value != null && "ETag".equalsIgnoreCase(name)) {
+            //ETag只能有一个
+            setHeader(name, value);
+            return ;
+        }
+        super.addHeader(name, value);
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        if("Last-Modified".equalsIgnoreCase(name)) {
+            lastModified = date;
+        }
+        super.setDateHeader(name, date);
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        if("Last-Modified".equalsIgnoreCase(name)) {
+            lastModified = date;
+        }
+        super.addDateHeader(name, date);
+    }
+
+    /**
+     * 直接读取内部数组，计算ETag和写出时不复制
+     */
+    private static final class Body extends ByteArrayOutputStream {
+
+        Body() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
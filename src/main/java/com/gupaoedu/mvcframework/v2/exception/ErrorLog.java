@@ -0,0 +1,53 @@
+package com.gupaoedu.mvcframework.v2.exception;
+
+import com.gupaoedu.mvcframework.v2.limit.RateLimiter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限速的错误日志：错误集中出现时每秒只输出有限条堆栈，其余只计数，下一条输出时一并报告跳过的条数
+ * @since V1.0.0
+ */
+public final class ErrorLog {
+
+    //不限速时为null
+    private final RateLimiter limiter;
+
+    private final LongAdder suppressed = new LongAdder();
+
+    /**
+     * @param perSecond 每秒最多输出的条数，0表示不限制
+     */
+    public ErrorLog(double perSecond) {
+        this.limiter = perSecond > 0 ? new RateLimiter(perSecond, (int) Math.max(1, Math.ceil(perSecond))) : null;
+    }
+
+    public void log(Throwable e) {
+        log(null, e);
+    }
+
+    /**
+     * @param message 堆栈之前输出的说明，为null时不输出
+     */
+    public void log(String message, Throwable e) {
+        if(limiter != null && !limiter.tryAcquire()) {
+            suppressed.increment();
+            return ;
+        }
+        long skipped = suppressed.sumThenReset();
+        if(skipped > 0) {
+            System.err.println(skipped + " errors were not logged since the last one");
+        }
+        if(message != null) {
+            System.err.println(message);
+        }
+        e.printStackTrace();
+    }
+
+    /**
+     * 尚未报告的跳过条数
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+}
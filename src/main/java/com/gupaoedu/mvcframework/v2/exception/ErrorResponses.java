@@ -0,0 +1,71 @@
+package com.gupaoedu.mvcframework.v2.exception;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 预先编码的错误响应，框架层面的错误（404、405、500）不拼接字符串，也不输出堆栈
+ * @since V1.0.0
+ */
+public final class ErrorResponses {
+
+    public static final byte[] NOT_FOUND = bytes("404 Not Found!!!");
+
+    public static final byte[] METHOD_NOT_ALLOWED = bytes("405 Method Not Allowed!!!");
+
+    public static final byte[] INTERNAL_SERVER_ERROR = bytes("500 Internal Server Error!!!");
+
+    private static final String CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    private ErrorResponses() {
+    }
+
+    /**
+     * 错误的原因短语
+     */
+    public static String reasonPhrase(int status) {
+        switch (status) {
+            case 400:
+                return "Bad Request";
+            case 405:
+                return "Method Not Allowed";
+            case 413:
+                return "Payload Too Large";
+            case 415:
+                return "Unsupported Media Type";
+            case 500:
+                return "Internal Server Error";
+            case 504:
+                return "Gateway Timeout";
+            default:
+                return "Error";
+        }
+    }
+
+    public static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 丢弃还没有提交的输出后写出；响应已经提交时只能接在后面
+     */
+    public static void write(HttpServletResponse resp, int status, byte[] body) throws IOException {
+        if(!resp.isCommitted()) {
+            resp.resetBuffer();
+            resp.setStatus(status);
+            resp.setContentType(CONTENT_TYPE);
+            resp.setContentLength(body.length);
+        }
+        ServletOutputStream out;
+        try {
+            out = resp.getOutputStream();
+        } catch (IllegalStateException e) {
+            //处理方法已经取过Writer
+            resp.getWriter().write(new String(body, StandardCharsets.UTF_8));
+            return ;
+        }
+        out.write(body);
+    }
+}
@@ -0,0 +1,60 @@
+package com.gupaoedu.mvcframework.v2.exception;
+
+import com.gupaoedu.mvcframework.annotation.WCControllerAdvice;
+import com.gupaoedu.mvcframework.v2.beans.BeanDefinition;
+import com.gupaoedu.mvcframework.v2.beans.BeanRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 容器中标注了WCControllerAdvice的bean，在依赖注入完成后收集；映射阶段为每个controller生成一个{@link ExceptionResolver}
+ * @since V1.0.0
+ */
+public final class ExceptionAdvice {
+
+    private final List<ExceptionHandlers> advice;
+
+    //同一个controller的多条路由共用一个resolver
+    private final Map<Object, ExceptionResolver> resolvers = new IdentityHashMap<>();
+
+    private ExceptionAdvice(List<ExceptionHandlers> advice) {
+        this.advice = advice;
+    }
+
+    /**
+     * 取出所有advice bean并按order排序，order相同时保持登记顺序
+     * @param beans bean容器
+     */
+    public static ExceptionAdvice of(BeanRegistry beans) {
+        List<BeanDefinition> definitions = new ArrayList<>();
+        for(BeanDefinition definition : beans.getDefinitions()) {
+            if(definition.getType().isAnnotationPresent(WCControllerAdvice.class)) {
+                definitions.add(definition);
+            }
+        }
+        definitions.sort(Comparator.comparingInt(definition -> definition.getType().getAnnotation(WCControllerAdvice.class).order()));
+        List<ExceptionHandlers> advice = new ArrayList<>();
+        for(BeanDefinition definition : definitions) {
+            ExceptionHandlers handlers = ExceptionHandlers.of(beans.getBean(definition));
+            if(handlers != null) {
+                advice.add(handlers);
+            }
+        }
+        return new ExceptionAdvice(advice);
+    }
+
+    /**
+     * @param controller controller实例
+     * @return controller和advice都没有异常处理方法时返回null
+     */
+    public ExceptionResolver forController(Object controller) {
+        return resolvers.computeIfAbsent(controller, bean -> {
+            ExceptionHandlers local = ExceptionHandlers.of(bean);
+            return local == null && advice.isEmpty() ? null : new ExceptionResolver(local, advice);
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.gupaoedu.mvcframework.v2.exception;
+
+import com.gupaoedu.mvcframework.annotation.WCExceptionHandler;
+import com.gupaoedu.mvcframework.v2.handler.HandlerInvoker;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+import com.gupaoedu.mvcframework.v2.handler.MethodHandleInvoker;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个WCExceptionHandler方法：处理的异常类型和形参的取值方式在映射阶段确定，调用走MethodHandle
+ * @since V1.0.0
+ */
+public final class ExceptionHandlerMethod {
+
+    private static final int EXCEPTION = 0;
+    private static final int REQUEST = 1;
+    private static final int RESPONSE = 2;
+    private static final int HANDLER = 3;
+
+    private final Method method;
+
+    private final HandlerInvoker invoker;
+
+    //每个形参的取值方式
+    private final int[] parameterKinds;
+
+    private final List<Class<? extends Throwable>> exceptionTypes;
+
+    private final int status;
+
+    private ExceptionHandlerMethod(Method method, HandlerInvoker invoker, int[] parameterKinds,
+                                   List<Class<? extends Throwable>> exceptionTypes, int status) {
+        this.method = method;
+        this.invoker = invoker;
+        this.parameterKinds = parameterKinds;
+        this.exceptionTypes = exceptionTypes;
+        this.status = status;
+    }
+
+    /**
+     * 校验形参并生成调用器，不支持的形参或无法确定异常类型时初始化失败
+     * @param bean controller或advice实例
+     * @param method 标注了WCExceptionHandler的方法
+     */
+    @SuppressWarnings("unchecked")
+    static ExceptionHandlerMethod of(Object bean, Method method) {
+        WCExceptionHandler annotation = method.getAnnotation(WCExceptionHandler.class);
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int[] kinds = new int[parameterTypes.length];
+        Class<?> exceptionParameter = null;
+        for(int i = 0; i < parameterTypes.length; i++) {
+            Class<?> type = parameterTypes[i];
+            if(Throwable.class.isAssignableFrom(type)) {
+                kinds[i] = EXCEPTION;
+                exceptionParameter = type;
+            } else if(type == HttpServletRequest.class) {
+                kinds[i] = REQUEST;
+            } else if(type == HttpServletResponse.class) {
+                kinds[i] = RESPONSE;
+            } else if(type == HandlerMethod.class) {
+                kinds[i] = HANDLER;
+            } else {
+                throw new IllegalStateException("Unsupported parameter type " + type.getName() + " in " + method);
+            }
+        }
+        List<Class<? extends Throwable>> types = new ArrayList<>();
+        for(Class<? extends Throwable> type : annotation.value()) {
+            if(exceptionParameter != null && !exceptionParameter.isAssignableFrom(type)) {
+                throw new IllegalStateException(type.getName() + " is not assignable to the exception parameter of " + method);
+            }
+            types.add(type);
+        }
+        if(types.isEmpty()) {
+            if(exceptionParameter == null) {
+                throw new IllegalStateException("No exception type declared for " + method);
+            }
+            types.add((Class<? extends Throwable>) exceptionParameter);
+        }
+        try {
+            return new ExceptionHandlerMethod(method, new MethodHandleInvoker(bean, method), kinds, types, annotation.status());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + method, e);
+        }
+    }
+
+    /**
+     * 设置状态码后调用
+     * @param handler 出错的处理器
+     * @param ex 异常
+     * @return 方法的返回值，void方法为null
+     */
+    public Object invoke(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler, Throwable ex) throws Exception {
+        resp.setStatus(status);
+        Object[] args = new Object[parameterKinds.length];
+        for(int i = 0; i < args.length; i++) {
+            switch (parameterKinds[i]) {
+                case EXCEPTION:
+                    args[i] = ex;
+                    break;
+                case REQUEST:
+                    args[i] = req;
+                    break;
+                case RESPONSE:
+                    args[i] = resp;
+                    break;
+                default:
+                    args[i] = handler;
+            }
+        }
+        return invoker.invoke(args);
+    }
+
+    List<Class<? extends Throwable>> getExceptionTypes() {
+        return exceptionTypes;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return exceptionTypes + " -> " + method;
+    }
+}
@@ -0,0 +1,51 @@
+package com.gupaoedu.mvcframework.v2.exception;
+
+import com.gupaoedu.mvcframework.annotation.WCExceptionHandler;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一个bean上的全部异常处理方法，按异常类型在继承链上的距离选出最接近的一个
+ * @since V1.0.0
+ */
+final class ExceptionHandlers {
+
+    private final Map<Class<? extends Throwable>, ExceptionHandlerMethod> byType;
+
+    private ExceptionHandlers(Map<Class<? extends Throwable>, ExceptionHandlerMethod> byType) {
+        this.byType = byType;
+    }
+
+    /**
+     * @return 没有异常处理方法时返回null
+     */
+    static ExceptionHandlers of(Object bean) {
+        Map<Class<? extends Throwable>, ExceptionHandlerMethod> byType = new HashMap<>();
+        for(Method method : bean.getClass().getMethods()) {
+            if(!method.isAnnotationPresent(WCExceptionHandler.class)) {continue;}
+            ExceptionHandlerMethod handlerMethod = ExceptionHandlerMethod.of(bean, method);
+            for(Class<? extends Throwable> type : handlerMethod.getExceptionTypes()) {
+                ExceptionHandlerMethod exist = byType.put(type, handlerMethod);
+                if(exist != null) {
+                    throw new IllegalStateException("Ambiguous exception handler for " + type.getName()
+                            + ": " + exist.getMethod() + " and " + method);
+                }
+            }
+        }
+        return byType.isEmpty() ? null : new ExceptionHandlers(byType);
+    }
+
+    /**
+     * 从异常类型开始沿父类查找，第一个登记过的类型即距离最近的处理方法
+     * @return 没有能处理的方法时返回null
+     */
+    ExceptionHandlerMethod find(Class<?> exceptionType) {
+        for(Class<?> type = exceptionType; type != null && type != Object.class; type = type.getSuperclass()) {
+            ExceptionHandlerMethod method = byType.get(type);
+            if(method != null) {return method;}
+        }
+        return null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.gupaoedu.mvcframework.v2.exception;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一个controller的异常处理方法查找：先找controller自己的，再按顺序找advice的；
+ * 每种异常类型只查找一次，结果（包括找不到）缓存起来，错误集中出现时只多一次map查询
+ * @since V1.0.0
+ */
+public final class ExceptionResolver {
+
+    //缓存中表示没有处理方法
+    private static final Object NONE = new Object();
+
+    //controller自己的异常处理方法，没有时为null
+    private final ExceptionHandlers local;
+
+    private final List<ExceptionHandlers> advice;
+
+    private final ConcurrentHashMap<Class<?>, Object> cache = new ConcurrentHashMap<>();
+
+    ExceptionResolver(ExceptionHandlers local, List<ExceptionHandlers> advice) {
+        this.local = local;
+        this.advice = advice;
+    }
+
+    /**
+     * @param exceptionType 异常类型
+     * @return 没有能处理的方法时返回null
+     */
+    public ExceptionHandlerMethod resolve(Class<?> exceptionType) {
+        Object cached = cache.get(exceptionType);
+        if(cached == null) {
+            ExceptionHandlerMethod method = lookup(exceptionType);
+            cached = method != null ? method : NONE;
+            cache.putIfAbsent(exceptionType, cached);
+        }
+        return cached == NONE ? null : (ExceptionHandlerMethod) cached;
+    }
+
+    private ExceptionHandlerMethod lookup(Class<?> exceptionType) {
+        if(local != null) {
+            ExceptionHandlerMethod method = local.find(exceptionType);
+            if(method != null) {return method;}
+        }
+        for(ExceptionHandlers handlers : advice) {
+            ExceptionHandlerMethod method = handlers.find(exceptionType);
+            if(method != null) {return method;}
+        }
+        return null;
+    }
+}
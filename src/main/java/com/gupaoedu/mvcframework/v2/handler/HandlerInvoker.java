@@ -0,0 +1,16 @@
+package com.gupaoedu.mvcframework.v2.handler;
+
+/**
+ * 处理器调用器：在映射阶段生成，请求阶段直接调用
+ * @since V1.0.0
+ */
+public interface HandlerInvoker {
+
+    /**
+     * 调用处理器方法
+     * @param args 与方法形参对应的入参值
+     * @return 方法返回值，void方法返回null
+     */
+    Object invoke(Object[] args) throws Exception;
+
+}
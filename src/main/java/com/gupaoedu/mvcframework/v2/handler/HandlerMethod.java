@@ -0,0 +1,152 @@
+package com.gupaoedu.mvcframework.v2.handler;
+
+import com.gupaoedu.mvcframework.v2.binding.BindingPlan;
+import com.gupaoedu.mvcframework.v2.cache.CachePolicy;
+import com.gupaoedu.mvcframework.v2.conditional.ConditionalPolicy;
+import com.gupaoedu.mvcframework.v2.exception.ExceptionResolver;
+import com.gupaoedu.mvcframework.v2.interceptor.HandlerInterceptor;
+import com.gupaoedu.mvcframework.v2.limit.RouteLimiter;
+import com.gupaoedu.mvcframework.v2.metrics.RouteMetrics;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+
+/**
+ * 路由处理器：初始化时确定controller实例、方法形参与调用器，请求阶段不再做任何查找
+ * @since V1.0.0
+ */
+public class HandlerMethod {
+
+    //路由路径
+    private final String url;
+
+    //controller实例
+    private final Object instance;
+
+    //处理方法
+    private final Method method;
+
+    //方法形参列表，Method.getParameters()每次都会复制数组，这里只取一次
+    private final Parameter[] parameters;
+
+    //调用器
+    private final HandlerInvoker invoker;
+
+    //参数绑定计划
+    private final BindingPlan bindingPlan;
+
+    //响应缓存配置，未标注WCCacheable时为null
+    private final CachePolicy cachePolicy;
+
+    //条件GET配置，未标注WCETag时为null
+    private final ConditionalPolicy conditionalPolicy;
+
+    //路由指标，未启用指标时为null；注册路由时设置一次
+    private RouteMetrics metrics;
+
+    //限流与并发隔离，未配置时为null；注册路由时设置一次
+    private RouteLimiter limiter;
+
+    //作用于这条路由的拦截器，按执行顺序排好，没有时为null；注册路由时设置一次
+    private HandlerInterceptor[] interceptors;
+
+    //controller和advice的异常处理方法，都没有时为null；注册路由时设置一次
+    private ExceptionResolver exceptionResolver;
+
+    public HandlerMethod(String url, Object instance, Method method, boolean reflective) throws IllegalAccessException {
+        this(url, instance, method, reflective
+                ? new ReflectiveInvoker(instance, method)
+                : new MethodHandleInvoker(instance, method));
+    }
+
+    /**
+     * 使用指定的调用器，编译期生成的索引传入直接调用处理方法的lambda
+     */
+    public HandlerMethod(String url, Object instance, Method method, HandlerInvoker invoker) {
+        this.url = url;
+        this.instance = instance;
+        this.method = method;
+        this.parameters = method.getParameters();
+        this.invoker = invoker;
+        this.bindingPlan = BindingPlan.compile(url, method);
+        this.cachePolicy = CachePolicy.of(method);
+        this.conditionalPolicy = ConditionalPolicy.of(instance, method);
+    }
+
+    /**
+     * 调用处理方法
+     * @param args 与方法形参对应的入参值
+     */
+    public Object invoke(Object[] args) throws Exception {
+        return invoker.invoke(args);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Object getInstance() {
+        return instance;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public Parameter[] getParameters() {
+        return parameters;
+    }
+
+    public HandlerInvoker getInvoker() {
+        return invoker;
+    }
+
+    public BindingPlan getBindingPlan() {
+        return bindingPlan;
+    }
+
+    public CachePolicy getCachePolicy() {
+        return cachePolicy;
+    }
+
+    public ConditionalPolicy getConditionalPolicy() {
+        return conditionalPolicy;
+    }
+
+    public RouteMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(RouteMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public RouteLimiter getLimiter() {
+        return limiter;
+    }
+
+    public void setLimiter(RouteLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public HandlerInterceptor[] getInterceptors() {
+        return interceptors;
+    }
+
+    public void setInterceptors(HandlerInterceptor[] interceptors) {
+        this.interceptors = interceptors;
+    }
+
+    public ExceptionResolver getExceptionResolver() {
+        return exceptionResolver;
+    }
+
+    public void setExceptionResolver(ExceptionResolver exceptionResolver) {
+        this.exceptionResolver = exceptionResolver;
+    }
+
+    @Override
+    public String toString() {
+        return url + " -> " + method;
+    }
+}
@@ -0,0 +1,36 @@
+package com.gupaoedu.mvcframework.v2.handler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 基于MethodHandle的调用器：实例已绑定，签名统一为(Object[])Object，可以invokeExact
+ * @since V1.0.0
+ */
+public class MethodHandleInvoker implements HandlerInvoker {
+
+    private static final MethodType GENERIC_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final MethodHandle handle;
+
+    public MethodHandleInvoker(Object instance, Method method) throws IllegalAccessException {
+        method.setAccessible(true);
+        this.handle = MethodHandles.lookup().unreflect(method)
+                .bindTo(instance)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(GENERIC_TYPE);
+    }
+
+    @Override
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return (Object) handle.invokeExact(args);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+}
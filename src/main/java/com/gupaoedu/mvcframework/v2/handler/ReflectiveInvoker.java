@@ -0,0 +1,34 @@
+package com.gupaoedu.mvcframework.v2.handler;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 基于反射的调用器：保留原有的Method.invoke路径，用于对比
+ * @since V1.0.0
+ */
+public class ReflectiveInvoker implements HandlerInvoker {
+
+    private final Object instance;
+
+    private final Method method;
+
+    public ReflectiveInvoker(Object instance, Method method) {
+        method.setAccessible(true);
+        this.instance = instance;
+        this.method = method;
+    }
+
+    @Override
+    public Object invoke(Object[] args) throws Exception {
+        try {
+            return method.invoke(instance, args);
+        } catch (InvocationTargetException e) {
+            //拆包，与MethodHandle路径抛出的异常保持一致
+            Throwable target = e.getTargetException();
+            if(target instanceof Exception) {throw (Exception) target;}
+            if(target instanceof Error) {throw (Error) target;}
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.gupaoedu.mvcframework.v2.index;
+
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.v2.beans.BeanDefinition;
+import com.gupaoedu.mvcframework.v2.handler.HandlerInvoker;
+
+/**
+ * 生成的索引通过该接口向容器登记bean和路由
+ * @since V1.0.0
+ */
+public interface IndexRegistry {
+
+    /**
+     * 登记bean定义，实例由容器按依赖图创建
+     */
+    void register(BeanDefinition definition);
+
+    /**
+     * 获取bean，不存在时抛出异常
+     */
+    Object bean(String beanName);
+
+    /**
+     * 登记路由
+     * @param url 路由
+     * @param methods 支持的请求方式
+     * @param instance controller实例
+     * @param type 处理方法所在的类
+     * @param methodName 处理方法名
+     * @param parameterTypes 处理方法的形参类型，用于生成参数绑定计划
+     * @param invoker 直接调用处理方法的调用器
+     */
+    void route(String url, RequestMethod[] methods, Object instance, Class<?> type, String methodName,
+               Class<?>[] parameterTypes, HandlerInvoker invoker);
+
+}
@@ -0,0 +1,27 @@
+package com.gupaoedu.mvcframework.v2.index;
+
+/**
+ * 编译期生成的应用索引，每个包含注解类的包生成一个实现（WCGeneratedIndex），
+ * 并登记在META-INF/services中。存在索引时，启动过程不再扫描文件系统，
+ * 也不再逐个Class.forName和读取注解。
+ * <p>调用顺序：所有索引的registerBeans，容器创建bean之后再调用registerRoutes。</p>
+ * @since V1.0.0
+ */
+public interface WCApplicationIndex {
+
+    /**
+     * 索引所属的包，只有在scanPackage之下的索引才会被使用
+     */
+    String getPackage();
+
+    /**
+     * 登记controller和service的bean定义，构造器和非private字段由生成的代码直接调用
+     */
+    void registerBeans(IndexRegistry registry);
+
+    /**
+     * 注册路由，调用器为直接调用处理方法的代码
+     */
+    void registerRoutes(IndexRegistry registry);
+
+}
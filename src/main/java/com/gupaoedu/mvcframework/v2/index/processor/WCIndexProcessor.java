@@ -0,0 +1,727 @@
+package com.gupaoedu.mvcframework.v2.index.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * 编译期索引生成器：读取WCController、WCService、WCInterceptor、WCControllerAdvice、WCAutowired、WCMemoize、WCRequestMapping、WCRequestParam、WCPathVariable，
+ * 为每个包生成一个WCGeneratedIndex，登记用new创建实例、直接赋值注入字段的bean定义，用lambda直接调用处理方法，
+ * 并在编译期检查重复路由、缺失的bean和参数注解的错误配置。
+ * <p>依赖其他jar中bean的模块可以用 -Awc.index.strict=false 把缺失bean的错误降级为警告。</p>
+ * <p>只依赖JDK，不引用框架中的其他类，编译时先于其他代码单独编译。</p>
+ * @since V1.0.0
+ */
+public class WCIndexProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION_PACKAGE = "com.gupaoedu.mvcframework.annotation.";
+    static final String CONTROLLER = ANNOTATION_PACKAGE + "WCController";
+    static final String SERVICE = ANNOTATION_PACKAGE + "WCService";
+    static final String INTERCEPTOR = ANNOTATION_PACKAGE + "WCInterceptor";
+    static final String ADVICE = ANNOTATION_PACKAGE + "WCControllerAdvice";
+    static final String AUTOWIRED = ANNOTATION_PACKAGE + "WCAutowired";
+    static final String REQUEST_MAPPING = ANNOTATION_PACKAGE + "WCRequestMapping";
+    static final String REQUEST_PARAM = ANNOTATION_PACKAGE + "WCRequestParam";
+    static final String PATH_VARIABLE = ANNOTATION_PACKAGE + "WCPathVariable";
+    static final String REQUEST_BODY = ANNOTATION_PACKAGE + "WCRequestBody";
+    static final String REQUEST_METHOD = ANNOTATION_PACKAGE + "RequestMethod";
+    static final String SCOPE = ANNOTATION_PACKAGE + "WCScope";
+    static final String LAZY = ANNOTATION_PACKAGE + "WCLazy";
+    static final String MEMOIZE = ANNOTATION_PACKAGE + "WCMemoize";
+    static final String BEAN_SCOPE = ANNOTATION_PACKAGE + "BeanScope";
+
+    static final String INDEX_INTERFACE = "com.gupaoedu.mvcframework.v2.index.WCApplicationIndex";
+    static final String INDEX_REGISTRY = "com.gupaoedu.mvcframework.v2.index.IndexRegistry";
+    static final String INDEX_CLASS = "WCGeneratedIndex";
+    static final String BEAN_DEFINITION = "com.gupaoedu.mvcframework.v2.beans.BeanDefinition";
+    static final String DEPENDENCY = "com.gupaoedu.mvcframework.v2.beans.Dependency";
+
+    //与WCRequestParam.NO_DEFAULT一致
+    private static final String NO_DEFAULT = "\n\t\t\n\t\t\n\n\t\t\t\t\n";
+
+    private static final String STRICT_OPTION = "wc.index.strict";
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Filer filer;
+    private boolean strict = true;
+
+    //已生成的索引类，最后一轮写入META-INF/services
+    private final List<String> generated = new ArrayList<>();
+
+    private boolean done = false;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.messager = processingEnv.getMessager();
+        this.filer = processingEnv.getFiler();
+        this.strict = !"false".equalsIgnoreCase(processingEnv.getOptions().get(STRICT_OPTION));
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(CONTROLLER, SERVICE, INTERCEPTOR, ADVICE, AUTOWIRED, REQUEST_MAPPING, REQUEST_PARAM, PATH_VARIABLE, SCOPE, LAZY));
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(STRICT_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if(roundEnv.processingOver()) {
+            writeServiceFile();
+            return false;
+        }
+        //全量编译时所有源码都在第一轮，生成的索引类不再包含注解
+        if(done) {return false;}
+        List<BeanModel> beans = collectBeans(roundEnv);
+        if(beans.isEmpty()) {return false;}
+        done = true;
+        if(!validate(beans)) {return false;}
+        //按包生成
+        Map<String, List<BeanModel>> byPackage = new TreeMap<>();
+        for(BeanModel bean : beans) {
+            byPackage.computeIfAbsent(bean.packageName, k -> new ArrayList<>()).add(bean);
+        }
+        for(Map.Entry<String, List<BeanModel>> entry : byPackage.entrySet()) {
+            generateIndex(entry.getKey(), entry.getValue());
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------------- 收集
+
+    private List<BeanModel> collectBeans(RoundEnvironment roundEnv) {
+        List<BeanModel> beans = new ArrayList<>();
+        for(String annotation : new String[]{CONTROLLER, SERVICE, INTERCEPTOR, ADVICE}) {
+            TypeElement annotationType = elements.getTypeElement(annotation);
+            if(annotationType == null) {continue;}
+            for(Element element : roundEnv.getElementsAnnotatedWith(annotationType)) {
+                if(element.getKind() != ElementKind.CLASS) {continue;}
+                BeanModel bean = createBean((TypeElement) element, annotation);
+                if(bean != null) {
+                    beans.add(bean);
+                }
+            }
+        }
+        return beans;
+    }
+
+    /**
+     * @param kind 类上的注解：WCController、WCService、WCInterceptor或WCControllerAdvice，只有service按接口名登记别名
+     */
+    private BeanModel createBean(TypeElement type, String kind) {
+        boolean controller = CONTROLLER.equals(kind);
+        boolean service = SERVICE.equals(kind);
+        if(type.getModifiers().contains(Modifier.ABSTRACT)
+                || type.getNestingKind() == NestingKind.LOCAL || type.getNestingKind() == NestingKind.ANONYMOUS
+                || (type.getNestingKind() == NestingKind.MEMBER && !type.getModifiers().contains(Modifier.STATIC))) {
+            error("@" + simpleName(kind) + " class must be a concrete top level or static nested class", type);
+            return null;
+        }
+        BeanModel bean = new BeanModel();
+        bean.element = type;
+        bean.controller = controller;
+        bean.typeName = type.getQualifiedName().toString();
+        bean.packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String beanName = service ? stringValue(annotation(type, SERVICE), "value") : "";
+        bean.beanName = beanName.trim().isEmpty() ? toLowerFirstCase(type.getSimpleName().toString()) : beanName;
+        if(service) {
+            for(TypeMirror i : type.getInterfaces()) {
+                //与Class.getName()一致，内部接口使用$分隔
+                bean.interfaceNames.add(elements.getBinaryName((TypeElement) types.asElement(i)).toString());
+            }
+            //有WCMemoize方法时运行时生成接口代理，与Class.getMethods()一致：包含继承的public方法
+            for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+                if(annotation(method, MEMOIZE) != null && method.getModifiers().contains(Modifier.PUBLIC)) {
+                    bean.memoize = true;
+                    break;
+                }
+            }
+        }
+        AnnotationMirror scope = annotation(type, SCOPE);
+        if(scope != null) {
+            bean.scope = ((VariableElement) value(scope, "value")).getSimpleName().toString();
+        }
+        bean.lazy = annotation(type, LAZY) != null;
+        //构造器注入，选择规则与BeanDefinition.selectConstructor一致
+        ExecutableElement constructor = selectConstructor(type);
+        if(constructor == null) {
+            return null;
+        }
+        //private构造器由运行时反射创建
+        bean.constructorDirect = !constructor.getModifiers().contains(Modifier.PRIVATE);
+        for(VariableElement parameter : constructor.getParameters()) {
+            AnnotationMirror autowired = annotation(parameter, AUTOWIRED);
+            String value = autowired == null ? "" : stringValue(autowired, "value");
+            DependencyModel dependency = new DependencyModel();
+            dependency.element = parameter;
+            dependency.name = value.trim().isEmpty() ? null : value;
+            dependency.fallbackToType = dependency.name == null;
+            dependency.type = types.erasure(parameter.asType());
+            dependency.typeName = typeName(parameter.asType());
+            bean.constructorDependencies.add(dependency);
+            bean.introspect |= !isAccessible(parameter.asType(), bean.packageName);
+        }
+        //只处理当前类声明的字段，与getDeclaredFields一致
+        for(VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            AnnotationMirror autowired = annotation(field, AUTOWIRED);
+            if(autowired == null) {continue;}
+            if(field.getModifiers().contains(Modifier.FINAL) || field.getModifiers().contains(Modifier.STATIC)) {
+                error("@WCAutowired field must not be static or final", field);
+                continue;
+            }
+            FieldModel model = new FieldModel();
+            model.element = field;
+            model.name = field.getSimpleName().toString();
+            String value = stringValue(autowired, "value");
+            model.dependency.element = field;
+            model.dependency.name = value.trim().isEmpty() ? model.name : value;
+            model.dependency.fallbackToType = value.trim().isEmpty();
+            model.dependency.type = types.erasure(field.asType());
+            model.dependency.typeName = typeName(field.asType());
+            model.direct = !field.getModifiers().contains(Modifier.PRIVATE);
+            bean.introspect |= !isAccessible(field.asType(), bean.packageName);
+            bean.fields.add(model);
+        }
+        if(controller) {
+            collectRoutes(bean, type);
+        }
+        return bean;
+    }
+
+    private void collectRoutes(BeanModel bean, TypeElement type) {
+        String baseUrl = "";
+        AnnotationMirror classMapping = annotation(type, REQUEST_MAPPING);
+        if(classMapping != null) {
+            baseUrl = stringValue(classMapping, "value");
+        }
+        //与Class.getMethods()一致：包含继承的public方法
+        for(ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            AnnotationMirror mapping = annotation(method, REQUEST_MAPPING);
+            if(mapping == null) {continue;}
+            if(!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+                warning("@WCRequestMapping is only supported on public instance methods, ignored", method);
+                continue;
+            }
+            RouteModel route = new RouteModel();
+            route.element = method;
+            route.url = ("/" + baseUrl + "/" + stringValue(mapping, "value")).replaceAll("/+", "/");
+            route.methodName = method.getSimpleName().toString();
+            route.returnsVoid = method.getReturnType().getKind() == TypeKind.VOID;
+            for(AnnotationValue value : listValue(mapping, "method")) {
+                route.methods.add(((VariableElement) value.getValue()).getSimpleName().toString());
+            }
+            for(VariableElement parameter : method.getParameters()) {
+                route.parameterTypes.add(typeName(parameter.asType()));
+                route.parameters.add(parameter);
+            }
+            bean.routes.add(route);
+        }
+    }
+
+    // ---------------------------------------------------------------- 校验
+
+    private boolean validate(List<BeanModel> beans) {
+        boolean valid = true;
+        //bean名字与接口名在同一个命名空间，与运行时的ioc一致
+        Map<String, BeanModel> names = new HashMap<>();
+        for(BeanModel bean : beans) {
+            BeanModel exist = names.put(bean.beanName, bean);
+            if(exist != null) {
+                error("Duplicate bean name '" + bean.beanName + "', already defined by " + exist.typeName, bean.element);
+                valid = false;
+            }
+        }
+        for(BeanModel bean : beans) {
+            if(bean.controller) {continue;}
+            for(String i : bean.interfaceNames) {
+                BeanModel exist = names.put(i, bean);
+                if(exist != null && exist != bean) {
+                    error("The “" + i + "“ is exist!! already implemented by " + exist.typeName, bean.element);
+                    valid = false;
+                }
+            }
+        }
+        for(BeanModel bean : beans) {
+            for(DependencyModel dependency : bean.constructorDependencies) {
+                valid &= validateDependency(dependency, names, beans, "constructor parameter of " + bean.typeName);
+            }
+            for(FieldModel field : bean.fields) {
+                valid &= validateDependency(field.dependency, names, beans, "@WCAutowired field " + bean.typeName + "." + field.name);
+            }
+        }
+        //路由冲突：路径变量名不同但位置相同也视为同一条路由
+        Map<String, List<RouteModel>> routes = new HashMap<>();
+        for(BeanModel bean : beans) {
+            for(RouteModel route : bean.routes) {
+                valid &= validateParameters(route);
+                String key = route.url.replaceAll("\\{[^}]*}", "{}");
+                List<RouteModel> sameUrl = routes.computeIfAbsent(key, k -> new ArrayList<>());
+                for(RouteModel exist : sameUrl) {
+                    if(exist.methods.isEmpty() || route.methods.isEmpty()
+                            || !Collections.disjoint(exist.methods, route.methods)) {
+                        error("Ambiguous mapping " + route.url + " " + route.methods
+                                + ", already mapped to " + enclosingName(exist.element) + "." + exist.methodName, route.element);
+                        valid = false;
+                    }
+                }
+                sameUrl.add(route);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * 与BeanRegistry的依赖解析一致：先按名字，再按接口名或唯一可赋值的bean
+     */
+    private boolean validateDependency(DependencyModel dependency, Map<String, BeanModel> names,
+                                       List<BeanModel> beans, String requiredBy) {
+        if(dependency.name != null) {
+            BeanModel named = names.get(dependency.name);
+            if(named != null) {
+                if(!types.isAssignable(named.element.asType(), dependency.type)) {
+                    error("Bean '" + dependency.name + "' of type " + named.typeName + " is not assignable to "
+                            + dependency.typeName + ", required by " + requiredBy, dependency.element);
+                    return false;
+                }
+                return exposedAs(named, dependency, requiredBy);
+            }
+            if(!dependency.fallbackToType) {
+                return missing("No bean named '" + dependency.name + "' for " + requiredBy, dependency.element);
+            }
+        }
+        TypeElement typeElement = (TypeElement) types.asElement(dependency.type);
+        if(typeElement != null && names.containsKey(elements.getBinaryName(typeElement).toString())) {
+            return true;
+        }
+        BeanModel found = null;
+        for(BeanModel candidate : beans) {
+            if(!types.isAssignable(candidate.element.asType(), dependency.type)) {continue;}
+            if(found != null) {
+                error("Ambiguous dependency " + dependency.typeName + ", both " + found.typeName + " and "
+                        + candidate.typeName + " match, required by " + requiredBy, dependency.element);
+                return false;
+            }
+            found = candidate;
+        }
+        if(found == null) {
+            return missing("No bean for " + (dependency.name != null ? "'" + dependency.name + "'" : dependency.typeName)
+                    + ", required by " + requiredBy, dependency.element);
+        }
+        return exposedAs(found, dependency, requiredBy);
+    }
+
+    /**
+     * 有WCMemoize方法的service运行时是接口代理，只能按接口注入
+     */
+    private boolean exposedAs(BeanModel bean, DependencyModel dependency, String requiredBy) {
+        Element element = types.asElement(dependency.type);
+        if(!bean.memoize || element == null || element.getKind() == ElementKind.INTERFACE
+                || Object.class.getName().equals(dependency.typeName)) {
+            return true;
+        }
+        error("Bean " + bean.typeName + " has @WCMemoize methods and is exposed as an interface proxy, "
+                + dependency.typeName + " cannot be injected, use one of its interfaces, required by " + requiredBy, dependency.element);
+        return false;
+    }
+
+    private boolean missing(String message, Element element) {
+        if(strict) {
+            error(message, element);
+            return false;
+        }
+        warning(message, element);
+        return true;
+    }
+
+    /**
+     * 与BindingPlan在初始化时的校验一致，提前到编译期
+     */
+    private boolean validateParameters(RouteModel route) {
+        boolean valid = true;
+        Set<String> variables = new HashSet<>();
+        java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("\\{([^}]*)}").matcher(route.url);
+        while (matcher.find()) {
+            variables.add(matcher.group(1));
+        }
+        boolean hasBody = false;
+        for(VariableElement parameter : route.parameters) {
+            AnnotationMirror body = annotation(parameter, REQUEST_BODY);
+            if(body != null) {
+                if(hasBody) {
+                    error("Only one @WCRequestBody parameter is allowed", parameter);
+                    valid = false;
+                }
+                hasBody = true;
+                if(parameter.asType().getKind().isPrimitive() && Boolean.FALSE.equals(value(body, "required"))) {
+                    error("Optional request body cannot be primitive", parameter);
+                    valid = false;
+                }
+            }
+            AnnotationMirror pathVariable = annotation(parameter, PATH_VARIABLE);
+            if(pathVariable != null) {
+                String name = stringValue(pathVariable, "value").trim();
+                //运行时的形参名只有用-parameters编译时才保留，否则是arg0，必须显式写出变量名
+                if(name.isEmpty()) {
+                    error("@WCPathVariable needs a name, e.g. @WCPathVariable(\"" + parameter.getSimpleName()
+                            + "\"), parameter names are not kept without -parameters", parameter);
+                    valid = false;
+                } else if(!variables.contains(name)) {
+                    error("Path variable '" + name + "' is not defined in " + route.url, parameter);
+                    valid = false;
+                }
+            }
+            AnnotationMirror param = annotation(parameter, REQUEST_PARAM);
+            if(param != null && parameter.asType().getKind().isPrimitive()
+                    && Boolean.FALSE.equals(value(param, "required"))
+                    && NO_DEFAULT.equals(stringValue(param, "defaultValue"))) {
+                error("Optional primitive parameter '" + stringValue(param, "value") + "' needs a defaultValue", parameter);
+                valid = false;
+            }
+        }
+        return valid;
+    }
+
+    // ---------------------------------------------------------------- 生成
+
+    private void generateIndex(String packageName, List<BeanModel> beans) {
+        String className = packageName.isEmpty() ? INDEX_CLASS : packageName + "." + INDEX_CLASS;
+        StringBuilder code = new StringBuilder(4096);
+        if(!packageName.isEmpty()) {
+            code.append("package ").append(packageName).append(";\n\n");
+        }
+        code.append("/**\n * 由").append(WCIndexProcessor.class.getSimpleName()).append("生成，请勿修改\n */\n");
+        code.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        code.append("public final class ").append(INDEX_CLASS).append(" implements ").append(INDEX_INTERFACE).append(" {\n\n");
+
+        code.append("    @Override\n    public String getPackage() {\n        return \"").append(packageName).append("\";\n    }\n\n");
+
+        code.append("    @Override\n    public void registerBeans(").append(INDEX_REGISTRY).append(" registry) {\n");
+        for(BeanModel bean : beans) {
+            if(bean.introspect) {
+                code.append("        registry.register(").append(BEAN_DEFINITION).append(".introspect(")
+                        .append(literal(bean.beanName)).append(", ").append(bean.typeName).append(".class));\n");
+                continue;
+            }
+            code.append("        registry.register(").append(BEAN_DEFINITION).append(".builder(")
+                    .append(literal(bean.beanName)).append(", ").append(bean.typeName).append(".class)");
+            if(bean.controller) {
+                code.append("\n                .controller()");
+            }
+            if(bean.scope != null) {
+                code.append("\n                .scope(").append(BEAN_SCOPE).append(".").append(bean.scope).append(")");
+            }
+            if(bean.lazy) {
+                code.append("\n                .lazy()");
+            }
+            if(bean.memoize) {
+                code.append("\n                .memoize()");
+            }
+            if(!bean.interfaceNames.isEmpty()) {
+                code.append("\n                .aliases(");
+                for(int i = 0; i < bean.interfaceNames.size(); i++) {
+                    code.append(i == 0 ? "" : ", ").append(literal(bean.interfaceNames.get(i)));
+                }
+                code.append(")");
+            }
+            if(bean.constructorDirect) {
+                code.append("\n                .constructor(new ").append(DEPENDENCY).append("[]{");
+                for(int i = 0; i < bean.constructorDependencies.size(); i++) {
+                    code.append(i == 0 ? "" : ", ").append(dependencyCode(bean.constructorDependencies.get(i)));
+                }
+                code.append("},\n                        args -> new ").append(bean.typeName).append("(");
+                for(int i = 0; i < bean.constructorDependencies.size(); i++) {
+                    code.append(i == 0 ? "" : ", ").append("(").append(bean.constructorDependencies.get(i).typeName)
+                            .append(") args[").append(i).append("]");
+                }
+                code.append("))");
+            }
+            for(FieldModel field : bean.fields) {
+                code.append("\n                .field(").append(literal(field.name)).append(", ")
+                        .append(dependencyCode(field.dependency)).append(", ");
+                if(field.direct) {
+                    code.append("(bean, value) -> ((").append(bean.typeName).append(") bean).").append(field.name)
+                            .append(" = (").append(field.dependency.typeName).append(") value)");
+                } else {
+                    code.append("null)");
+                }
+            }
+            code.append("\n                .build());\n");
+        }
+        code.append("    }\n\n");
+
+        code.append("    @Override\n    public void registerRoutes(").append(INDEX_REGISTRY).append(" registry) {\n");
+        for(BeanModel bean : beans) {
+            if(bean.routes.isEmpty()) {continue;}
+            String variable = toLowerFirstCase(bean.element.getSimpleName().toString()) + "_";
+            code.append("        final ").append(bean.typeName).append(" ").append(variable).append(" = (")
+                    .append(bean.typeName).append(") registry.bean(").append(literal(bean.beanName)).append(");\n");
+            for(RouteModel route : bean.routes) {
+                code.append("        registry.route(").append(literal(route.url)).append(", new ")
+                        .append(REQUEST_METHOD).append("[]{");
+                for(int i = 0; i < route.methods.size(); i++) {
+                    code.append(i == 0 ? "" : ", ").append(REQUEST_METHOD).append(".").append(route.methods.get(i));
+                }
+                code.append("},\n                ").append(variable).append(", ").append(bean.typeName).append(".class, ")
+                        .append(literal(route.methodName)).append(", new Class<?>[]{");
+                for(int i = 0; i < route.parameterTypes.size(); i++) {
+                    code.append(i == 0 ? "" : ", ").append(route.parameterTypes.get(i)).append(".class");
+                }
+                code.append("},\n                args -> ");
+                StringBuilder call = new StringBuilder();
+                call.append(variable).append(".").append(route.methodName).append("(");
+                for(int i = 0; i < route.parameterTypes.size(); i++) {
+                    call.append(i == 0 ? "" : ", ").append("(").append(route.parameterTypes.get(i)).append(") args[").append(i).append("]");
+                }
+                call.append(")");
+                if(route.returnsVoid) {
+                    code.append("{ ").append(call).append("; return null; });\n");
+                } else {
+                    code.append(call).append(");\n");
+                }
+            }
+        }
+        code.append("    }\n}\n");
+
+        Element[] origins = new Element[beans.size()];
+        for(int i = 0; i < beans.size(); i++) {
+            origins[i] = beans.get(i).element;
+        }
+        try {
+            JavaFileObject file = filer.createSourceFile(className, origins);
+            try (Writer writer = file.openWriter()) {
+                writer.write(code.toString());
+            }
+            generated.add(className);
+        } catch (IOException e) {
+            error("Failed to generate " + className + ": " + e.getMessage(), origins[0]);
+        }
+    }
+
+    private void writeServiceFile() {
+        if(generated.isEmpty()) {return ;}
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + INDEX_INTERFACE);
+            try (Writer writer = file.openWriter()) {
+                for(String className : generated) {
+                    writer.write(className);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write index service file: " + e.getMessage());
+        }
+    }
+
+    // ---------------------------------------------------------------- 工具
+
+    /**
+     * 标注了WCAutowired的构造器，只有一个构造器时用它，否则用无参构造器
+     */
+    private ExecutableElement selectConstructor(TypeElement type) {
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        ExecutableElement selected = null;
+        for(ExecutableElement constructor : constructors) {
+            if(annotation(constructor, AUTOWIRED) == null) {continue;}
+            if(selected != null) {
+                error("More than one @WCAutowired constructor", constructor);
+                return null;
+            }
+            selected = constructor;
+        }
+        if(selected != null) {return selected;}
+        if(constructors.size() == 1) {return constructors.get(0);}
+        for(ExecutableElement constructor : constructors) {
+            if(constructor.getParameters().isEmpty()) {return constructor;}
+        }
+        error("No default constructor or @WCAutowired constructor", type);
+        return null;
+    }
+
+    /**
+     * 类型可以在生成的代码（与bean同包）中引用时才直接访问
+     */
+    private boolean isAccessible(TypeMirror type, String packageName) {
+        Element element = types.asElement(types.erasure(type));
+        while (element instanceof TypeElement) {
+            boolean visible = element.getModifiers().contains(Modifier.PUBLIC)
+                    || (!element.getModifiers().contains(Modifier.PRIVATE)
+                    && elements.getPackageOf(element).getQualifiedName().contentEquals(packageName));
+            if(!visible) {return false;}
+            element = element.getEnclosingElement();
+        }
+        return true;
+    }
+
+    private String dependencyCode(DependencyModel dependency) {
+        String type = dependency.typeName + ".class";
+        if(dependency.name == null) {
+            return DEPENDENCY + ".byType(" + type + ")";
+        }
+        return DEPENDENCY + (dependency.fallbackToType ? ".byNameOrType(" : ".byName(")
+                + literal(dependency.name) + ", " + type + ")";
+    }
+
+    private String typeName(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    private AnnotationMirror annotation(Element element, String annotationType) {
+        for(AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if(((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String name) {
+        for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if(entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String stringValue(AnnotationMirror mirror, String name) {
+        Object value = value(mirror, name);
+        return value == null ? "" : value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<? extends AnnotationValue> listValue(AnnotationMirror mirror, String name) {
+        Object value = value(mirror, name);
+        return value instanceof List ? (List<? extends AnnotationValue>) value : Collections.<AnnotationValue>emptyList();
+    }
+
+    private String enclosingName(Element element) {
+        return ((TypeElement) element.getEnclosingElement()).getQualifiedName().toString();
+    }
+
+    private static String simpleName(String annotationType) {
+        return annotationType.substring(annotationType.lastIndexOf('.') + 1);
+    }
+
+    private static String toLowerFirstCase(String simpleName) {
+        char[] chars = simpleName.toCharArray();
+        if(chars[0] >= 'A' && chars[0] <= 'Z') {
+            chars[0] += 32;
+        }
+        return String.valueOf(chars);
+    }
+
+    private static String literal(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if(c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private void error(String message, Element element) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void warning(String message, Element element) {
+        messager.printMessage(Diagnostic.Kind.WARNING, message, element);
+    }
+
+    private static final class BeanModel {
+        TypeElement element;
+        boolean controller;
+        String typeName;
+        String packageName;
+        String beanName;
+        //BeanScope常量名，未标注WCScope时为null
+        String scope;
+        boolean lazy;
+        //有WCMemoize方法，运行时按接口代理
+        boolean memoize;
+        //构造器可以在生成的代码中直接调用
+        boolean constructorDirect;
+        //依赖的类型在生成的代码中无法引用，退回到运行时反射
+        boolean introspect;
+        final List<DependencyModel> constructorDependencies = new ArrayList<>();
+        final List<String> interfaceNames = new ArrayList<>();
+        final List<FieldModel> fields = new ArrayList<>();
+        final List<RouteModel> routes = new ArrayList<>();
+    }
+
+    private static final class FieldModel {
+        VariableElement element;
+        String name;
+        final DependencyModel dependency = new DependencyModel();
+        //非private字段由生成代码直接赋值
+        boolean direct;
+    }
+
+    private static final class DependencyModel {
+        VariableElement element;
+        //按类型注入时为null
+        String name;
+        boolean fallbackToType;
+        TypeMirror type;
+        String typeName;
+    }
+
+    private static final class RouteModel {
+        ExecutableElement element;
+        String url;
+        String methodName;
+        boolean returnsVoid;
+        final List<String> methods = new ArrayList<>();
+        final List<String> parameterTypes = new ArrayList<>();
+        final List<VariableElement> parameters = new ArrayList<>();
+    }
+}
@@ -0,0 +1,37 @@
+package com.gupaoedu.mvcframework.v2.interceptor;
+
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 处理器拦截器，实现类标注WCInterceptor后作为bean登记，映射阶段按路径模式分配给路由
+ * @since V1.0.0
+ */
+public interface HandlerInterceptor {
+
+    /**
+     * 响应缓存、条件GET和参数绑定之前调用
+     * @return false表示请求已由拦截器处理完毕，不再调用后面的拦截器和处理方法
+     */
+    default boolean preHandle(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler) throws Exception {
+        return true;
+    }
+
+    /**
+     * 处理方法正常返回之后、写出返回值之前调用；缓存命中或版本未变化时处理方法没有调用，也不调用这里
+     * @param result 处理方法的返回值，异步处理时为CompletionStage
+     */
+    default void postHandle(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler,
+                            Object result) throws Exception {
+    }
+
+    /**
+     * 请求结束后调用，异步请求在容器结束异步处理时调用；只对preHandle返回true的拦截器调用
+     * @param ex 处理过程中的异常，没有时为null
+     */
+    default void afterCompletion(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler,
+                                 Exception ex) throws Exception {
+    }
+}
@@ -0,0 +1,101 @@
+package com.gupaoedu.mvcframework.v2.interceptor;
+
+import com.gupaoedu.mvcframework.v2.exception.ErrorLog;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 一次请求的拦截器执行状态：记录preHandle返回true的拦截器个数，afterCompletion只回调这些拦截器。
+ * 只为配置了拦截器的路由创建
+ * @since V1.0.0
+ */
+public final class InterceptorChain {
+
+    private final HandlerMethod handler;
+
+    private final HandlerInterceptor[] interceptors;
+
+    //afterCompletion抛出的异常记到这里
+    private final ErrorLog errorLog;
+
+    //preHandle返回true的拦截器个数
+    private int applied;
+
+    public InterceptorChain(HandlerMethod handler, HandlerInterceptor[] interceptors, ErrorLog errorLog) {
+        this.handler = handler;
+        this.interceptors = interceptors;
+        this.errorLog = errorLog;
+    }
+
+    /**
+     * 按顺序调用preHandle
+     * @return false表示某个拦截器已经处理了请求
+     */
+    public boolean applyPreHandle(HttpServletRequest req, HttpServletResponse resp) throws Exception {
+        for(HandlerInterceptor interceptor : interceptors) {
+            if(!interceptor.preHandle(req, resp, handler)) {return false;}
+            applied++;
+        }
+        return true;
+    }
+
+    /**
+     * 按相反顺序调用postHandle，能走到这里说明所有preHandle都返回了true
+     * @param result 处理方法的返回值
+     */
+    public static void applyPostHandle(HandlerInterceptor[] interceptors, HttpServletRequest req, HttpServletResponse resp,
+                                       HandlerMethod handler, Object result) throws Exception {
+        for(int i = interceptors.length - 1; i >= 0; i--) {
+            interceptors[i].postHandle(req, resp, handler, result);
+        }
+    }
+
+    /**
+     * 按相反顺序调用afterCompletion，某个拦截器出错时记入限速的错误日志，不影响其余的拦截器
+     * @param ex 处理过程中的异常，没有时为null
+     */
+    public void triggerAfterCompletion(HttpServletRequest req, HttpServletResponse resp, Exception ex) {
+        for(int i = applied - 1; i >= 0; i--) {
+            try {
+                interceptors[i].afterCompletion(req, resp, handler, ex);
+            } catch (Exception e) {
+                errorLog.log(interceptors[i].getClass().getName() + ".afterCompletion failed on " + handler.getUrl(), e);
+            }
+        }
+    }
+
+    /**
+     * 异步请求在容器结束异步处理时调用afterCompletion，超时或出错时传入对应的异常
+     */
+    public AsyncListener asyncListener(HttpServletRequest req, HttpServletResponse resp) {
+        return new AsyncListener() {
+
+            private volatile Exception error;
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                triggerAfterCompletion(req, resp, error);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                error = new TimeoutException("Async request timed out");
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                Throwable throwable = event.getThrowable();
+                error = throwable instanceof Exception ? (Exception) throwable : new Exception(throwable);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        };
+    }
+}
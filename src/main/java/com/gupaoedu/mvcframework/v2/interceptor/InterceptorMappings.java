@@ -0,0 +1,99 @@
+package com.gupaoedu.mvcframework.v2.interceptor;
+
+import com.gupaoedu.mvcframework.annotation.WCInterceptor;
+import com.gupaoedu.mvcframework.v2.beans.BeanDefinition;
+import com.gupaoedu.mvcframework.v2.beans.BeanRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 容器中所有标注了WCInterceptor的bean及其路径模式，映射阶段为每条路由算出一个按顺序排好的拦截器数组，
+ * 请求阶段不再匹配路径模式
+ * @since V1.0.0
+ */
+public final class InterceptorMappings {
+
+    private static final HandlerInterceptor[] NONE = new HandlerInterceptor[0];
+
+    private final List<Mapping> mappings;
+
+    private InterceptorMappings(List<Mapping> mappings) {
+        this.mappings = mappings;
+    }
+
+    /**
+     * 在依赖注入完成后调用，取出所有拦截器bean并按order排序，order相同时保持登记顺序
+     * @param beans bean容器
+     */
+    public static InterceptorMappings of(BeanRegistry beans) {
+        List<Mapping> mappings = new ArrayList<>();
+        for(BeanDefinition definition : beans.getDefinitions()) {
+            WCInterceptor annotation = definition.getType().getAnnotation(WCInterceptor.class);
+            if(annotation == null) {continue;}
+            Object bean = beans.getBean(definition);
+            if(!(bean instanceof HandlerInterceptor)) {
+                throw new IllegalStateException(definition.getType().getName()
+                        + " is annotated with @WCInterceptor but does not implement " + HandlerInterceptor.class.getName());
+            }
+            mappings.add(new Mapping((HandlerInterceptor) bean, annotation));
+        }
+        mappings.sort(Comparator.comparingInt(mapping -> mapping.order));
+        return new InterceptorMappings(mappings);
+    }
+
+    /**
+     * @param route 路由路径
+     * @return 作用于这条路由的拦截器，没有时返回null，分发时只多一次判空
+     */
+    public HandlerInterceptor[] forRoute(String route) {
+        List<HandlerInterceptor> matched = new ArrayList<>();
+        for(Mapping mapping : mappings) {
+            if(mapping.appliesTo(route)) {
+                matched.add(mapping.interceptor);
+            }
+        }
+        return matched.isEmpty() ? null : matched.toArray(NONE);
+    }
+
+    public boolean isEmpty() {
+        return mappings.isEmpty();
+    }
+
+    private static final class Mapping {
+
+        final HandlerInterceptor interceptor;
+
+        final PathPattern[] includes;
+
+        final PathPattern[] excludes;
+
+        final int order;
+
+        Mapping(HandlerInterceptor interceptor, WCInterceptor annotation) {
+            this.interceptor = interceptor;
+            this.includes = patterns(annotation.value());
+            this.excludes = patterns(annotation.exclude());
+            this.order = annotation.order();
+        }
+
+        boolean appliesTo(String route) {
+            for(PathPattern exclude : excludes) {
+                if(exclude.matches(route)) {return false;}
+            }
+            for(PathPattern include : includes) {
+                if(include.matches(route)) {return true;}
+            }
+            return false;
+        }
+
+        private static PathPattern[] patterns(String[] values) {
+            PathPattern[] patterns = new PathPattern[values.length];
+            for(int i = 0; i < values.length; i++) {
+                patterns[i] = new PathPattern(values[i].trim());
+            }
+            return patterns;
+        }
+    }
+}
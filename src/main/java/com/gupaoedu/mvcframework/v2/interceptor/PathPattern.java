@@ -0,0 +1,84 @@
+package com.gupaoedu.mvcframework.v2.interceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 拦截器的路径模式，与路由路径（不是请求路径）按段匹配，只在映射阶段使用
+ * @since V1.0.0
+ */
+final class PathPattern {
+
+    private final String pattern;
+
+    private final String[] segments;
+
+    PathPattern(String pattern) {
+        this.pattern = pattern;
+        this.segments = split(pattern);
+    }
+
+    /**
+     * @param route 路由路径，例如/demo/get/{name}
+     */
+    boolean matches(String route) {
+        return matches(0, split(route), 0);
+    }
+
+    private boolean matches(int p, String[] route, int r) {
+        while (p < segments.length) {
+            String segment = segments[p];
+            if("**".equals(segment)) {
+                if(p == segments.length - 1) {return true;}
+                for(int k = r; k <= route.length; k++) {
+                    if(matches(p + 1, route, k)) {return true;}
+                }
+                return false;
+            }
+            if(r >= route.length || !matchesSegment(segment, route[r])) {return false;}
+            p++;
+            r++;
+        }
+        return r == route.length;
+    }
+
+    /**
+     * 段内的*匹配任意字符；路径变量的值要到请求时才知道，只能被*或相同的文本匹配
+     */
+    private static boolean matchesSegment(String pattern, String segment) {
+        if("*".equals(pattern) || pattern.equals(segment)) {return true;}
+        if(segment.startsWith("{") || pattern.indexOf('*') < 0) {return false;}
+        return glob(pattern, 0, segment, 0);
+    }
+
+    private static boolean glob(String pattern, int p, String text, int t) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if(c == '*') {
+                for(int k = t; k <= text.length(); k++) {
+                    if(glob(pattern, p + 1, text, k)) {return true;}
+                }
+                return false;
+            }
+            if(t >= text.length() || text.charAt(t) != c) {return false;}
+            p++;
+            t++;
+        }
+        return t == text.length();
+    }
+
+    private static String[] split(String path) {
+        List<String> segments = new ArrayList<>();
+        for(String segment : path.split("/")) {
+            if(!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments.toArray(new String[0]);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
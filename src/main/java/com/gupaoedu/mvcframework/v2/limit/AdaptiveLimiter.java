@@ -0,0 +1,350 @@
+package com.gupaoedu.mvcframework.v2.limit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 全局自适应并发限制：所有路由共用一个并发上限，按观测到的处理耗时调整，下游变慢时少放请求进来，而不是让所有请求一起排队。
+ * <p>按梯度算法调整：每个窗口取平均耗时，与基线（无排队时的耗时，取各窗口平均值的最小值）比较，
+ * 梯度 = clamp(容忍倍数 × 基线 / 平均耗时, 0.5, 1)，新上限 = 上限 × 梯度 + √上限；
+ * 耗时在容忍范围内时每个窗口增加√上限，超出时最多减半。每100个窗口把上限减半、重新测量基线，
+ * 下游持续变慢后基线随之更新，上限不会一直压在最小值。</p>
+ * <p>达到上限时进入一个小的等待队列，队列满或等待超时立即返回503和Retry-After，
+ * 不创建异常，也不调用处理方法。没有排队的请求只有一次CAS。</p>
+ * <p>流式输出的时长取决于数据量和客户端，开始流式输出时提前归还许可（{@link #detach}），不作为耗时样本。</p>
+ * @since V1.0.0
+ */
+public final class AdaptiveLimiter {
+
+    //请求属性：本次请求持有的许可，流式输出开始时据此提前归还
+    public static final String PERMIT_ATTRIBUTE = AdaptiveLimiter.class.getName() + ".PERMIT";
+
+    //窗口至少的样本数，样本不够时窗口延长
+    private static final int MIN_SAMPLES = 10;
+
+    //每隔多少个窗口重新测量基线
+    private static final int PROBE_WINDOWS = 100;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double tolerance;
+
+    private final long windowNanos;
+
+    private final int queueSize;
+
+    private final long queueTimeoutNanos;
+
+    //当前上限，请求线程只读
+    private volatile int limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    //等待中的请求数，持有lock时修改；没有等待的请求时走不加锁的快速路径
+    private volatile int queued;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition available = lock.newCondition();
+
+    //以下窗口统计持有windowLock时读写
+    private final Object windowLock = new Object();
+
+    private double estimatedLimit;
+
+    private long windowStart = System.nanoTime();
+
+    private long windowSumNanos;
+
+    private int windowCount;
+
+    private int windowMaxInFlight;
+
+    //基线耗时，纳秒，0表示还没有测量
+    private volatile double baselineNanos;
+
+    private int windows;
+
+    private final LongAdder queueFull = new LongAdder();
+
+    private final LongAdder queueTimeout = new LongAdder();
+
+    /**
+     * @param initialLimit 初始上限
+     * @param minLimit 最小上限
+     * @param maxLimit 最大上限
+     * @param tolerance 平均耗时不超过基线的多少倍时认为没有排队
+     * @param windowMillis 调整上限的间隔，毫秒
+     * @param queueSize 等待队列长度，0表示达到上限时直接拒绝
+     * @param queueTimeoutMillis 在队列中最多等待的毫秒数
+     */
+    public AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+                           long windowMillis, int queueSize, long queueTimeoutMillis) {
+        if(minLimit < 1 || maxLimit < minLimit || tolerance < 1 || windowMillis <= 0 || queueSize < 0) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings: min=" + minLimit + ", max=" + maxLimit
+                    + ", tolerance=" + tolerance + ", window=" + windowMillis + ", queueSize=" + queueSize);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.queueSize = queueSize;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 按配置文件中的concurrencyLimit*创建
+     * @return 未配置concurrencyLimitEnabled=true时返回null
+     */
+    public static AdaptiveLimiter of(Properties config) {
+        if(!"true".equalsIgnoreCase(config.getProperty("concurrencyLimitEnabled", "false").trim())) {return null;}
+        return new AdaptiveLimiter(
+                Integer.parseInt(config.getProperty("concurrencyLimitInitial", "20").trim()),
+                Integer.parseInt(config.getProperty("concurrencyLimitMin", "4").trim()),
+                Integer.parseInt(config.getProperty("concurrencyLimitMax", "1000").trim()),
+                Double.parseDouble(config.getProperty("concurrencyLimitTolerance", "2").trim()),
+                Long.parseLong(config.getProperty("concurrencyLimitWindow", "100").trim()),
+                Integer.parseInt(config.getProperty("concurrencyLimitQueueSize", "16").trim()),
+                Long.parseLong(config.getProperty("concurrencyLimitQueueTimeout", "50").trim()));
+    }
+
+    /**
+     * 取一个并发许可，达到上限时在队列中等待，被拒绝时直接写出503
+     * @return null表示请求已被拒绝；否则必须调用{@link #release}
+     */
+    public Permit tryAcquire(HttpServletResponse resp) throws IOException {
+        if((queued == 0 && tryIncrement()) || await()) {
+            return new Permit(System.nanoTime());
+        }
+        RouteLimiter.reject(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, RouteLimiter.SERVICE_UNAVAILABLE, "1");
+        return null;
+    }
+
+    private boolean tryIncrement() {
+        for(;;) {
+            int current = inFlight.get();
+            if(current >= limit) {return false;}
+            if(inFlight.compareAndSet(current, current + 1)) {return true;}
+        }
+    }
+
+    private boolean await() {
+        lock.lock();
+        try {
+            if(queued >= queueSize) {
+                queueFull.increment();
+                return false;
+            }
+            queued++;
+            try {
+                long remaining = queueTimeoutNanos;
+                while (!tryIncrement()) {
+                    if(remaining <= 0) {
+                        queueTimeout.increment();
+                        return false;
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queueTimeout.increment();
+                return false;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 请求处理结束：同步请求立即归还许可，异步请求在容器结束异步处理时归还；耗时从取得许可算起，不含排队时间。
+     * 已经{@link #detach}的许可不再归还
+     */
+    public void release(HttpServletRequest req, HttpServletResponse resp, Permit permit) {
+        if(permit.released.get()) {return ;}
+        if(req.isAsyncStarted()) {
+            req.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    complete(resp, permit);
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+            return ;
+        }
+        complete(resp, permit);
+    }
+
+    /**
+     * 开始流式输出：立即归还许可，不记录耗时；之后的{@link #release}不再重复归还
+     */
+    public void detach(Permit permit) {
+        if(permit.released.compareAndSet(false, true)) {
+            giveBack();
+        }
+    }
+
+    private void complete(HttpServletResponse resp, Permit permit) {
+        if(!permit.released.compareAndSet(false, true)) {return ;}
+        long rtt = System.nanoTime() - permit.begin;
+        int current = giveBack();
+        //4xx多是参数错误，很快返回，不代表下游的耗时
+        int status = resp.getStatus();
+        if(status >= 400 && status < 500) {return ;}
+        sample(rtt, current);
+    }
+
+    /**
+     * 归还许可并唤醒一个等待的请求
+     * @return 归还之前的并发数
+     */
+    private int giveBack() {
+        int current = inFlight.getAndDecrement();
+        if(queued > 0) {
+            lock.lock();
+            try {
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private void sample(long rtt, int current) {
+        int previous;
+        int next;
+        synchronized (windowLock) {
+            windowSumNanos += rtt;
+            windowCount++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, current);
+            long now = System.nanoTime();
+            if(windowCount < MIN_SAMPLES || now - windowStart < windowNanos) {return ;}
+            double average = (double) windowSumNanos / windowCount;
+            double baseline = baselineNanos;
+            if(baseline == 0 || average < baseline) {
+                baseline = average;
+                baselineNanos = baseline;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / average));
+            //并发远没有用到上限时不再增加，避免空闲时上限无限增长
+            double queueAllowance = windowMaxInFlight * 2 >= estimatedLimit ? Math.sqrt(estimatedLimit) : 0;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit * gradient + queueAllowance));
+            if(++windows % PROBE_WINDOWS == 0) {
+                //减半让排队消失，下一个窗口重新测量基线
+                estimatedLimit = Math.max(minLimit, estimatedLimit / 2);
+                baselineNanos = 0;
+            }
+            previous = limit;
+            next = (int) estimatedLimit;
+            limit = next;
+            windowStart = now;
+            windowSumNanos = 0;
+            windowCount = 0;
+            windowMaxInFlight = 0;
+        }
+        if(next > previous && queued > 0) {
+            lock.lock();
+            try {
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 当前并发上限
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 正在处理的请求数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * 正在队列中等待的请求数
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * 队列已满被拒绝的请求数
+     */
+    public long getQueueFull() {
+        return queueFull.sum();
+    }
+
+    /**
+     * 等待超时被拒绝的请求数
+     */
+    public long getQueueTimeout() {
+        return queueTimeout.sum();
+    }
+
+    /**
+     * 基线耗时，纳秒，重新测量期间为0
+     */
+    public long getBaselineNanos() {
+        return (long) baselineNanos;
+    }
+
+    /**
+     * 一个请求持有的并发许可
+     */
+    public static final class Permit {
+
+        //取得许可时的System.nanoTime()
+        private final long begin;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long begin) {
+            this.begin = begin;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveLimiter{limit=" + getLimit() + " (" + minLimit + "~" + maxLimit + "), inFlight=" + getInFlight()
+                + ", queued=" + getQueued() + "/" + queueSize + ", queueFull=" + getQueueFull()
+                + ", queueTimeout=" + getQueueTimeout() + ", baseline=" + getBaselineNanos() / 1000 + "us}";
+    }
+}
@@ -0,0 +1,55 @@
+package com.gupaoedu.mvcframework.v2.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌桶限流，按GCRA实现：只记录下一个许可的理论到达时间，不需要补充令牌的后台线程，
+ * 一次判断只有一次System.nanoTime()和一次CAS
+ * @since V1.0.0
+ */
+public final class RateLimiter {
+
+    //两个许可之间的间隔，纳秒
+    private final long intervalNanos;
+
+    //允许提前的时间，即桶的容量减一个间隔
+    private final long toleranceNanos;
+
+    //理论到达时间，不早于当前时间时说明桶里的令牌已用掉一部分
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param permitsPerSecond 每秒许可数
+     * @param burst 桶的容量，允许瞬间通过的请求数
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if(permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1L, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * (burst - 1);
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 取一个许可，不阻塞
+     * @return false表示超出速率
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        for(;;) {
+            long current = theoreticalArrival.get();
+            //nanoTime可能溢出，只比较差值
+            long base = current - now > 0 ? current : now;
+            if(base - now > toleranceNanos) {return false;}
+            if(theoreticalArrival.compareAndSet(current, base + intervalNanos)) {return true;}
+        }
+    }
+
+    /**
+     * 两个许可之间的间隔，纳秒
+     */
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+}
@@ -0,0 +1,168 @@
+package com.gupaoedu.mvcframework.v2.limit;
+
+import com.gupaoedu.mvcframework.annotation.WCBulkhead;
+import com.gupaoedu.mvcframework.annotation.WCRateLimit;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一条路由的限流与并发隔离，映射阶段从WCRateLimit、WCBulkhead和配置文件生成。
+ * <p>分发时在计时和参数绑定之前检查，被拒绝的请求只写出预先编码好的429或503，不创建异常，也不调用处理方法。</p>
+ * @since V1.0.0
+ */
+public final class RouteLimiter {
+
+    private static final byte[] TOO_MANY_REQUESTS = "429 Too Many Requests!!!".getBytes(StandardCharsets.UTF_8);
+
+    static final byte[] SERVICE_UNAVAILABLE = "503 Service Unavailable!!!".getBytes(StandardCharsets.UTF_8);
+
+    private static final String CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    //未配置限流时为null
+    private final RateLimiter rateLimiter;
+
+    //未配置并发隔离时为null；非公平的tryAcquire只是一次CAS
+    private final Semaphore bulkhead;
+
+    private final int maxConcurrent;
+
+    //429的Retry-After，取一个许可间隔向上取整的秒数
+    private final String retryAfter;
+
+    private final LongAdder rateLimited = new LongAdder();
+
+    private final LongAdder bulkheadRejected = new LongAdder();
+
+    private RouteLimiter(RateLimiter rateLimiter, int maxConcurrent) {
+        this.rateLimiter = rateLimiter;
+        this.maxConcurrent = maxConcurrent;
+        this.bulkhead = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        long interval = rateLimiter != null ? rateLimiter.getIntervalNanos() : 0;
+        this.retryAfter = String.valueOf(Math.max(1L, (interval + 999_999_999L) / 1_000_000_000L));
+    }
+
+    /**
+     * 配置文件中的rateLimit.<路由路径>=每秒许可数[,突发数]与bulkhead.<路由路径>=最大并发数覆盖注解，0表示关闭
+     * @param method 处理方法
+     * @param url 路由路径
+     * @param config 主配置
+     * @return 既不限流也不隔离时返回null
+     */
+    public static RouteLimiter of(Method method, String url, Properties config) {
+        WCRateLimit rate = method.getAnnotation(WCRateLimit.class);
+        WCBulkhead bulk = method.getAnnotation(WCBulkhead.class);
+        double permitsPerSecond = rate != null ? rate.permitsPerSecond() : 0;
+        int burst = rate != null ? rate.burst() : 0;
+        int maxConcurrent = bulk != null ? bulk.maxConcurrent() : 0;
+        String rateConfig = config.getProperty("rateLimit." + url);
+        if(rateConfig != null) {
+            String[] parts = rateConfig.split(",");
+            permitsPerSecond = Double.parseDouble(parts[0].trim());
+            burst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 0;
+        }
+        String bulkConfig = config.getProperty("bulkhead." + url);
+        if(bulkConfig != null) {
+            maxConcurrent = Integer.parseInt(bulkConfig.trim());
+        }
+        if(permitsPerSecond <= 0 && maxConcurrent <= 0) {return null;}
+        RateLimiter rateLimiter = null;
+        if(permitsPerSecond > 0) {
+            //未指定突发数时允许一秒的量
+            rateLimiter = new RateLimiter(permitsPerSecond, burst > 0 ? burst : (int) Math.max(1, Math.ceil(permitsPerSecond)));
+        }
+        return new RouteLimiter(rateLimiter, maxConcurrent);
+    }
+
+    /**
+     * 先限流后隔离，被拒绝时直接写出响应
+     * @return false表示请求已被拒绝；返回true时必须调用{@link #release}
+     */
+    public boolean tryAcquire(HttpServletResponse resp) throws IOException {
+        if(rateLimiter != null && !rateLimiter.tryAcquire()) {
+            rateLimited.increment();
+            reject(resp, 429, TOO_MANY_REQUESTS, retryAfter);
+            return false;
+        }
+        if(bulkhead != null && !bulkhead.tryAcquire()) {
+            bulkheadRejected.increment();
+            reject(resp, HttpServletResponse.SC_SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE, "1");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 请求处理结束：同步请求立即归还并发许可，异步请求在容器结束异步处理时归还
+     */
+    public void release(HttpServletRequest req) {
+        if(bulkhead == null) {return ;}
+        if(req.isAsyncStarted()) {
+            req.getAsyncContext().addListener(new AsyncListener() {
+                @Override
+                public void onComplete(AsyncEvent event) {
+                    bulkhead.release();
+                }
+
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+            return ;
+        }
+        bulkhead.release();
+    }
+
+    static void reject(HttpServletResponse resp, int status, byte[] body, String retryAfter) throws IOException {
+        resp.setStatus(status);
+        resp.setHeader("Retry-After", retryAfter);
+        resp.setContentType(CONTENT_TYPE);
+        resp.setContentLength(body.length);
+        resp.getOutputStream().write(body);
+    }
+
+    /**
+     * 超出速率被拒绝的请求数
+     */
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * 并发达到上限被拒绝的请求数
+     */
+    public long getBulkheadRejected() {
+        return bulkheadRejected.sum();
+    }
+
+    /**
+     * 正在占用的并发许可数
+     */
+    public int getBulkheadInUse() {
+        return bulkhead != null ? maxConcurrent - bulkhead.availablePermits() : 0;
+    }
+
+    public boolean hasRateLimit() {
+        return rateLimiter != null;
+    }
+
+    public boolean hasBulkhead() {
+        return bulkhead != null;
+    }
+}
@@ -0,0 +1,80 @@
+package com.gupaoedu.mvcframework.v2.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 延迟直方图：桶的上界是固定的2的幂纳秒（约8μs到17s），落桶只需要一次前导零计数，
+ * 每个桶是一个LongAdder，并发记录时各线程写不同的分段，不争用同一个缓存行
+ * @since V1.0.0
+ */
+public final class LatencyHistogram {
+
+    //第一个桶的上界为2^13纳秒
+    private static final int MIN_SHIFT = 13;
+
+    //最后一个有限桶的上界为2^34纳秒，之后是+Inf
+    private static final int MAX_SHIFT = 34;
+
+    private static final int BUCKETS = MAX_SHIFT - MIN_SHIFT + 2;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+
+    private final LongAdder sum = new LongAdder();
+
+    public LatencyHistogram() {
+        for(int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     * @param nanos 纳秒
+     */
+    public void record(long nanos) {
+        counts[bucket(nanos)].increment();
+        sum.add(nanos);
+    }
+
+    /**
+     * 不大于上界的最小桶：(nanos - 1) >>> 13 的有效位数即桶下标
+     */
+    static int bucket(long nanos) {
+        if(nanos <= 0) {return 0;}
+        int index = 64 - Long.numberOfLeadingZeros((nanos - 1) >>> MIN_SHIFT);
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    public int bucketCount() {
+        return BUCKETS;
+    }
+
+    /**
+     * 桶的上界，最后一个桶为Long.MAX_VALUE（+Inf）
+     */
+    public long upperBoundNanos(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (MIN_SHIFT + bucket);
+    }
+
+    /**
+     * 落在该桶内的次数（非累计）
+     */
+    public long count(int bucket) {
+        return counts[bucket].sum();
+    }
+
+    /**
+     * 所有桶的总次数
+     */
+    public long totalCount() {
+        long total = 0;
+        for(LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    public long sumNanos() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,202 @@
+package com.gupaoedu.mvcframework.v2.metrics;
+
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.v2.cache.ResponseCache;
+import com.gupaoedu.mvcframework.v2.limit.AdaptiveLimiter;
+import com.gupaoedu.mvcframework.v2.limit.RouteLimiter;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 指标容器：初始化时为每条路由创建{@link RouteMetrics}，请求阶段只做记录，
+ * 读取时按Prometheus文本格式输出
+ * @since V1.0.0
+ */
+public class MetricsRegistry {
+
+    //Prometheus文本格式的Content-Type
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    //按路由路径和请求方式，重新加载后同一条路由沿用原来的计数
+    private final Map<String, RouteMetrics> routes = new LinkedHashMap<>();
+
+    private final LongAdder notFound = new LongAdder();
+
+    private final LongAdder methodNotAllowed = new LongAdder();
+
+    /**
+     * 为一条路由创建指标（初始化和重新加载阶段调用），已存在时沿用原来的计数
+     * @param url 路由路径
+     * @param methods 支持的请求方式，为空表示不限制
+     * @param limiter 路由的限流与并发隔离，可以为null
+     */
+    public synchronized RouteMetrics route(String url, RequestMethod[] methods, RouteLimiter limiter) {
+        StringBuilder method = new StringBuilder();
+        for(RequestMethod requestMethod : methods) {
+            method.append(method.length() == 0 ? "" : ",").append(requestMethod.name());
+        }
+        String name = method.length() == 0 ? "ANY" : method.toString();
+        RouteMetrics metrics = routes.get(url + ' ' + name);
+        if(metrics != null) {
+            metrics.setLimiter(limiter);
+            return metrics;
+        }
+        metrics = new RouteMetrics(url, name, limiter);
+        routes.put(url + ' ' + name, metrics);
+        return metrics;
+    }
+
+    /**
+     * 重新加载后只保留仍然存在的路由
+     * @param live 新路由表使用的指标
+     */
+    public synchronized void retain(Collection<RouteMetrics> live) {
+        Set<RouteMetrics> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+        keep.addAll(live);
+        routes.values().removeIf(metrics -> !keep.contains(metrics));
+    }
+
+    public void notFound() {
+        notFound.increment();
+    }
+
+    public void methodNotAllowed() {
+        methodNotAllowed.increment();
+    }
+
+    /**
+     * 按Prometheus文本格式输出所有指标
+     * @param cache 响应缓存，未启用时为null
+     * @param concurrency 全局自适应并发限制，未启用时为null
+     */
+    public String scrape(ResponseCache cache, AdaptiveLimiter concurrency) {
+        List<RouteMetrics> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(routes.values());
+        }
+        StringBuilder out = new StringBuilder(512 + snapshot.size() * 2048);
+
+        header(out, "wc_http_requests_total", "counter", "Requests handled per route.");
+        for(RouteMetrics route : snapshot) {
+            sample(out, "wc_http_requests_total", route, null, null, route.getRequests());
+        }
+        header(out, "wc_http_request_errors_total", "counter", "Requests whose handler failed or timed out, or that ended with a 5xx status.");
+        for(RouteMetrics route : snapshot) {
+            sample(out, "wc_http_request_errors_total", route, null, null, route.getErrors());
+        }
+        header(out, "wc_http_requests_in_flight", "gauge", "Requests currently being handled per route.");
+        for(RouteMetrics route : snapshot) {
+            sample(out, "wc_http_requests_in_flight", route, null, null, route.getInFlight());
+        }
+        header(out, "wc_http_request_duration_seconds", "histogram", "Request latency per route.");
+        for(RouteMetrics route : snapshot) {
+            LatencyHistogram latency = route.getLatency();
+            long cumulative = 0;
+            for(int i = 0; i < latency.bucketCount(); i++) {
+                cumulative += latency.count(i);
+                long bound = latency.upperBoundNanos(i);
+                sample(out, "wc_http_request_duration_seconds_bucket", route,
+                        "le", bound == Long.MAX_VALUE ? "+Inf" : seconds(bound), cumulative);
+            }
+            out.append("wc_http_request_duration_seconds_sum");
+            labels(out, route, null, null);
+            out.append(' ').append(seconds(latency.sumNanos())).append('\n');
+            sample(out, "wc_http_request_duration_seconds_count", route, null, null, cumulative);
+        }
+        header(out, "wc_http_rejected_requests_total", "counter", "Requests shed by a route's rate limit or bulkhead before binding.");
+        for(RouteMetrics route : snapshot) {
+            RouteLimiter limiter = route.getLimiter();
+            if(limiter == null) {continue;}
+            if(limiter.hasRateLimit()) {
+                sample(out, "wc_http_rejected_requests_total", route, "reason", "rate_limit", limiter.getRateLimited());
+            }
+            if(limiter.hasBulkhead()) {
+                sample(out, "wc_http_rejected_requests_total", route, "reason", "bulkhead", limiter.getBulkheadRejected());
+            }
+        }
+        header(out, "wc_http_bulkhead_in_use", "gauge", "Bulkhead permits currently held per route.");
+        for(RouteMetrics route : snapshot) {
+            RouteLimiter limiter = route.getLimiter();
+            if(limiter != null && limiter.hasBulkhead()) {
+                sample(out, "wc_http_bulkhead_in_use", route, null, null, limiter.getBulkheadInUse());
+            }
+        }
+        header(out, "wc_http_unmatched_requests_total", "counter", "Requests that matched no route.");
+        out.append("wc_http_unmatched_requests_total{status=\"404\"} ").append(notFound.sum()).append('\n');
+        out.append("wc_http_unmatched_requests_total{status=\"405\"} ").append(methodNotAllowed.sum()).append('\n');
+
+        if(concurrency != null) {
+            header(out, "wc_concurrency_limit", "gauge", "Current adaptive concurrency limit.");
+            out.append("wc_concurrency_limit ").append(concurrency.getLimit()).append('\n');
+            header(out, "wc_concurrency_in_flight", "gauge", "Requests holding an adaptive concurrency permit.");
+            out.append("wc_concurrency_in_flight ").append(concurrency.getInFlight()).append('\n');
+            header(out, "wc_concurrency_queued", "gauge", "Requests waiting for an adaptive concurrency permit.");
+            out.append("wc_concurrency_queued ").append(concurrency.getQueued()).append('\n');
+            header(out, "wc_concurrency_baseline_seconds", "gauge", "Uncongested request duration the limit is adjusted against.");
+            out.append("wc_concurrency_baseline_seconds ").append(seconds(concurrency.getBaselineNanos())).append('\n');
+            header(out, "wc_concurrency_rejected_requests_total", "counter", "Requests shed with 503 by the adaptive concurrency limit.");
+            out.append("wc_concurrency_rejected_requests_total{reason=\"queue_full\"} ").append(concurrency.getQueueFull()).append('\n');
+            out.append("wc_concurrency_rejected_requests_total{reason=\"queue_timeout\"} ").append(concurrency.getQueueTimeout()).append('\n');
+        }
+        if(cache != null) {
+            header(out, "wc_response_cache_requests_total", "counter", "Response cache lookups by result.");
+            out.append("wc_response_cache_requests_total{result=\"hit\"} ").append(cache.getHits()).append('\n');
+            out.append("wc_response_cache_requests_total{result=\"miss\"} ").append(cache.getMisses()).append('\n');
+            header(out, "wc_response_cache_evictions_total", "counter", "Entries evicted from the response cache.");
+            out.append("wc_response_cache_evictions_total ").append(cache.getEvictions()).append('\n');
+            header(out, "wc_response_cache_rejections_total", "counter", "Responses refused admission to the response cache.");
+            out.append("wc_response_cache_rejections_total ").append(cache.getRejections()).append('\n');
+            header(out, "wc_response_cache_entries", "gauge", "Entries in the response cache.");
+            out.append("wc_response_cache_entries ").append(cache.size()).append('\n');
+            header(out, "wc_response_cache_bytes", "gauge", "Estimated bytes held by the response cache.");
+            out.append("wc_response_cache_bytes ").append(cache.weight()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, RouteMetrics route, String label, String labelValue, long value) {
+        out.append(name);
+        labels(out, route, label, labelValue);
+        out.append(' ').append(value).append('\n');
+    }
+
+    /**
+     * 路由和请求方式标签，再加上一个可选的标签（直方图的le、拒绝原因）
+     */
+    private static void labels(StringBuilder out, RouteMetrics route, String label, String labelValue) {
+        out.append("{route=\"");
+        escape(out, route.getRoute());
+        out.append("\",method=\"").append(route.getMethod()).append('"');
+        if(label != null) {
+            out.append(',').append(label).append("=\"").append(labelValue).append('"');
+        }
+        out.append('}');
+    }
+
+    /**
+     * 标签值转义：反斜杠、双引号和换行
+     */
+    private static void escape(StringBuilder out, String value) {
+        for(int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if(c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if(c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,131 @@
+package com.gupaoedu.mvcframework.v2.metrics;
+
+import com.gupaoedu.mvcframework.v2.limit.RouteLimiter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一条路由的指标：请求数、错误数、处理中的请求数和延迟直方图，全部是LongAdder，分发路径上不加锁。
+ * <p>请求数取直方图的总次数，处理中的请求数由开始次数减去完成次数得到，每个请求只更新三个计数器。</p>
+ * @since V1.0.0
+ */
+public final class RouteMetrics {
+
+    //路由路径
+    private final String route;
+
+    //请求方式，多个用逗号分隔，不限制时为ANY
+    private final String method;
+
+    private final LongAdder started = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    //路由的限流与并发隔离，输出拒绝数，未配置时为null；重新加载时替换
+    private volatile RouteLimiter limiter;
+
+    RouteMetrics(String route, String method, RouteLimiter limiter) {
+        this.route = route;
+        this.method = method;
+        this.limiter = limiter;
+    }
+
+    /**
+     * 请求开始
+     * @return 开始时间，传给{@link #stop}
+     */
+    public long start() {
+        started.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * 请求结束
+     * @param start {@link #start}的返回值
+     * @param failed 处理方法是否失败
+     */
+    public void stop(long start, boolean failed) {
+        latency.record(System.nanoTime() - start);
+        if(failed) {
+            errors.increment();
+        }
+    }
+
+    /**
+     * 异步请求在容器结束异步处理时记录，超时和5xx响应计为错误
+     * @param start {@link #start}的返回值
+     */
+    public AsyncListener asyncListener(long start) {
+        return new AsyncListener() {
+
+            private volatile boolean failed;
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                boolean error = failed;
+                if(event.getSuppliedResponse() instanceof HttpServletResponse) {
+                    error |= ((HttpServletResponse) event.getSuppliedResponse()).getStatus() >= 500;
+                }
+                stop(start, error);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                failed = true;
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                failed = true;
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        };
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * 已完成的请求数
+     */
+    public long getRequests() {
+        return latency.totalCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * 处理中的请求数，先读完成数再读开始数，并发时不会出现负数
+     */
+    public long getInFlight() {
+        long completed = latency.totalCount();
+        return Math.max(0, started.sum() - completed);
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public RouteLimiter getLimiter() {
+        return limiter;
+    }
+
+    void setLimiter(RouteLimiter limiter) {
+        this.limiter = limiter;
+    }
+}
@@ -0,0 +1,65 @@
+package com.gupaoedu.mvcframework.v2.reload;
+
+import com.gupaoedu.mvcframework.v2.beans.BeanRegistry;
+import com.gupaoedu.mvcframework.v2.router.Router;
+
+/**
+ * 一次初始化或重新加载的结果：路由表、bean容器和加载它们的类加载器，发布后不再修改。
+ * <p>请求线程只读取一次当前快照的引用，已经开始的请求继续使用旧快照中的处理器，重新加载不会中断它们。</p>
+ * @since V1.0.0
+ */
+public final class ApplicationSnapshot {
+
+    //从1开始，每次重新加载加1
+    private final long version;
+
+    private final Router router;
+
+    private final BeanRegistry beans;
+
+    private final ClassLoader classLoader;
+
+    private final int routeCount;
+
+    //构建耗时，纳秒
+    private final long buildNanos;
+
+    public ApplicationSnapshot(long version, Router router, BeanRegistry beans, ClassLoader classLoader,
+                               int routeCount, long buildNanos) {
+        this.version = version;
+        this.router = router;
+        this.beans = beans;
+        this.classLoader = classLoader;
+        this.routeCount = routeCount;
+        this.buildNanos = buildNanos;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Router getRouter() {
+        return router;
+    }
+
+    public BeanRegistry getBeans() {
+        return beans;
+    }
+
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    public int getRouteCount() {
+        return routeCount;
+    }
+
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "version " + version + ", " + routeCount + " routes in " + buildNanos / 1_000_000 + " ms";
+    }
+}
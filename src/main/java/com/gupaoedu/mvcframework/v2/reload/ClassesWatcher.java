@@ -0,0 +1,108 @@
+package com.gupaoedu.mvcframework.v2.reload;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * 监视扫描包的类文件目录，类文件停止变化一段时间后回调一次；编译器一次写出多个类文件，不会每个文件触发一次重新加载，
+ * 目录中的其他文件（例如IDE复制的源文件）不触发
+ * @since V1.0.0
+ */
+public final class ClassesWatcher implements Closeable {
+
+    private final WatchService watchService;
+
+    //最后一次变化之后等待的毫秒数
+    private final long quietMillis;
+
+    private final Runnable onChange;
+
+    private final Thread thread;
+
+    /**
+     * @param directory 扫描包对应的目录，子目录一起监视
+     * @param quietMillis 文件停止变化后等待的毫秒数
+     * @param onChange 回调，在监视线程上执行
+     */
+    public ClassesWatcher(Path directory, long quietMillis, Runnable onChange) throws IOException {
+        this.watchService = directory.getFileSystem().newWatchService();
+        this.quietMillis = quietMillis;
+        this.onChange = onChange;
+        registerTree(directory);
+        this.thread = new Thread(this::watch, "wc-classes-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    private void registerTree(Path directory) throws IOException {
+        try (Stream<Path> dirs = Files.walk(directory)) {
+            for(Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                //等到一段时间内没有新的变化
+                while (key != null) {
+                    changed |= drain(key);
+                    key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+                }
+                if(!changed) {continue;}
+                try {
+                    onChange.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //关闭
+        }
+    }
+
+    /**
+     * 取出事件，新建的子目录加入监视
+     * @return 是否有类文件或目录变化，事件丢失时也算作变化
+     */
+    private boolean drain(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        boolean changed = false;
+        for(WatchEvent<?> event : key.pollEvents()) {
+            if(event.kind() == OVERFLOW) {
+                changed = true;
+                continue;
+            }
+            Path child = dir.resolve((Path) event.context());
+            if(child.getFileName().toString().endsWith(".class")) {
+                changed = true;
+            } else if(event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+                changed = true;
+                try {
+                    registerTree(child);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
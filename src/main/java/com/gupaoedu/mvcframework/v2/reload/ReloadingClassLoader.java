@@ -0,0 +1,95 @@
+package com.gupaoedu.mvcframework.v2.reload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 重新加载用的类加载器：扫描包下的类优先从类文件目录重新读取，其余类（框架、servlet api、第三方库）交给父加载器。
+ * <p>每次重新加载创建一个新的实例，旧快照不再被引用后连同它加载的类一起回收。</p>
+ * @since V1.0.0
+ */
+public final class ReloadingClassLoader extends ClassLoader {
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    //类文件目录，即包路径的上级
+    private final Path root;
+
+    //扫描包名加上"."
+    private final String packagePrefix;
+
+    private ReloadingClassLoader(ClassLoader parent, Path root, String scanPackage) {
+        super(parent);
+        this.root = root;
+        this.packagePrefix = scanPackage + ".";
+    }
+
+    /**
+     * @param parent 原来的类加载器
+     * @param scanPackage 扫描类的包路径
+     * @return 扫描包不在目录中（例如打包成jar）时返回null，此时只能用原来的类重新构建
+     */
+    public static ReloadingClassLoader create(ClassLoader parent, String scanPackage) {
+        Path root = classesRoot(parent, scanPackage);
+        return root == null ? null : new ReloadingClassLoader(parent, root, scanPackage);
+    }
+
+    /**
+     * 扫描包所在的类文件目录，不在目录中时返回null
+     */
+    public static Path classesRoot(ClassLoader classLoader, String scanPackage) {
+        String path = scanPackage.replace('.', '/');
+        URL url = classLoader.getResource(path);
+        if(url == null || !"file".equals(url.getProtocol())) {return null;}
+        Path packageDir;
+        try {
+            packageDir = Paths.get(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        Path root = packageDir;
+        for(int i = path.split("/").length; i > 0 && root != null; i--) {
+            root = root.getParent();
+        }
+        return root;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if(!name.startsWith(packagePrefix)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> clazz = findLoadedClass(name);
+            if(clazz == null) {
+                Path file = root.resolve(name.replace('.', '/') + ".class");
+                if(!Files.isRegularFile(file)) {
+                    //目录中没有的类（例如来自jar的同名包）仍交给父加载器
+                    return super.loadClass(name, resolve);
+                }
+                byte[] bytes;
+                try {
+                    bytes = Files.readAllBytes(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                clazz = defineClass(name, bytes, 0, bytes.length);
+            }
+            if(resolve) {
+                resolveClass(clazz);
+            }
+            return clazz;
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+}
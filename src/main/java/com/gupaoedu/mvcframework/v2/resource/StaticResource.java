@@ -0,0 +1,51 @@
+package com.gupaoedu.mvcframework.v2.resource;
+
+import java.nio.file.Path;
+
+/**
+ * 一个静态文件的信息：长度、修改时间和据此生成的ETag，每隔一段时间重新检查一次文件
+ * @since V1.0.0
+ */
+final class StaticResource {
+
+    final Path path;
+
+    final long length;
+
+    //毫秒
+    final long lastModified;
+
+    //修改时间加长度，与nginx相同
+    final String etag;
+
+    final String contentType;
+
+    //内容缓存的key，文件变化后ETag不同，旧内容自然过期
+    final String cacheKey;
+
+    //预压缩的.gz文件，没有时为null
+    final StaticResource gzip;
+
+    //上次检查文件的时间，System.nanoTime()
+    volatile long checkedAt;
+
+    StaticResource(Path path, long length, long lastModified, String contentType, StaticResource gzip,
+                   boolean compressed, long checkedAt) {
+        this.path = path;
+        this.length = length;
+        this.lastModified = lastModified;
+        this.etag = "\"" + Long.toHexString(lastModified) + '-' + Long.toHexString(length) + (compressed ? "-gz\"" : "\"");
+        this.contentType = contentType;
+        this.cacheKey = path + etag;
+        this.gzip = gzip;
+        this.checkedAt = checkedAt;
+    }
+
+    /**
+     * 文件和.gz文件都没有变化
+     */
+    boolean sameAs(StaticResource other) {
+        return length == other.length && lastModified == other.lastModified
+                && (gzip == null ? other.gzip == null : other.gzip != null && gzip.sameAs(other.gzip));
+    }
+}
@@ -0,0 +1,408 @@
+package com.gupaoedu.mvcframework.v2.resource;
+
+import com.gupaoedu.mvcframework.v2.cache.CachedResponse;
+import com.gupaoedu.mvcframework.v2.cache.ResponseCache;
+import com.gupaoedu.mvcframework.v2.conditional.ConditionalRequest;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 静态资源：请求路径以前缀开头且没有匹配的路由时，从根目录读取文件。
+ * <ul>
+ *     <li>小文件的内容放在按访问频率准入的{@link ResponseCache}中，命中时不读磁盘</li>
+ *     <li>大文件在容器支持时交给Tomcat的sendfile，由内核直接从文件发送到socket；否则用FileChannel.transferTo写出</li>
+ *     <li>支持单个Range、If-Range、ETag/Last-Modified条件请求，客户端接受gzip时优先发送预压缩的.gz文件</li>
+ * </ul>
+ * @since V1.0.0
+ */
+public class StaticResourceHandler {
+
+    //文件信息的有效期，过期后重新读取文件属性
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    //Tomcat的sendfile约定：容器支持时请求带有该属性，处理方法设置文件名与范围后不写响应体
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    //容器不认识的扩展名
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("html", "text/html;charset=UTF-8");
+        MIME_TYPES.put("htm", "text/html;charset=UTF-8");
+        MIME_TYPES.put("css", "text/css;charset=UTF-8");
+        MIME_TYPES.put("js", "application/javascript;charset=UTF-8");
+        MIME_TYPES.put("mjs", "application/javascript;charset=UTF-8");
+        MIME_TYPES.put("json", "application/json;charset=UTF-8");
+        MIME_TYPES.put("map", "application/json;charset=UTF-8");
+        MIME_TYPES.put("txt", "text/plain;charset=UTF-8");
+        MIME_TYPES.put("xml", "application/xml;charset=UTF-8");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("wasm", "application/wasm");
+        MIME_TYPES.put("pdf", "application/pdf");
+        MIME_TYPES.put("mp4", "video/mp4");
+    }
+
+    private final String prefix;
+
+    private final Path root;
+
+    private final ServletContext context;
+
+    //文件内容缓存，staticCacheMaxBytes=0时为null
+    private final ResponseCache cache;
+
+    //超过这个大小的文件不进入内容缓存
+    private final int cacheFileMaxBytes;
+
+    private final String cacheControl;
+
+    //按相对路径缓存文件信息，只有存在的文件才会放入
+    private final ConcurrentHashMap<String, StaticResource> resources = new ConcurrentHashMap<>();
+
+    /**
+     * @param prefix 请求路径前缀，如/static/
+     * @param root 根目录，相对路径按web应用的根目录解析
+     * @param context 用于解析根目录和查询MIME类型，可以为null
+     * @param cacheMaxBytes 内容缓存的总字节数，为0时不缓存
+     * @param cacheFileMaxBytes 进入内容缓存的单个文件上限
+     * @param maxAgeSeconds 浏览器缓存时间，为0时每次都要求浏览器验证
+     */
+    public StaticResourceHandler(String prefix, String root, ServletContext context,
+                                 long cacheMaxBytes, int cacheFileMaxBytes, long maxAgeSeconds) {
+        this.prefix = prefix.endsWith("/") ? prefix : prefix + "/";
+        this.root = resolveRoot(root, context);
+        this.context = context;
+        this.cache = cacheMaxBytes > 0 ? new ResponseCache(cacheMaxBytes) : null;
+        this.cacheFileMaxBytes = cacheFileMaxBytes;
+        this.cacheControl = maxAgeSeconds > 0 ? "public, max-age=" + maxAgeSeconds : "no-cache";
+        if(!Files.isDirectory(this.root)) {
+            System.out.println("Static resource root " + this.root + " is not a directory");
+        }
+    }
+
+    private static Path resolveRoot(String root, ServletContext context) {
+        Path path = Paths.get(root);
+        if(!path.isAbsolute()) {
+            String webRoot = context != null ? context.getRealPath("/") : null;
+            path = webRoot != null ? Paths.get(webRoot).resolve(root) : path.toAbsolutePath();
+        }
+        return path.normalize();
+    }
+
+    /**
+     * 请求路径在前缀之下时处理请求并返回true，否则返回false交给调用方
+     * @param url 请求路径
+     * @param start 跳过contextPath后的起始位置
+     */
+    public boolean handle(HttpServletRequest req, HttpServletResponse resp, String url, int start) throws IOException {
+        if(!url.startsWith(prefix, start)) {return false;}
+        String method = req.getMethod();
+        boolean head = "HEAD".equals(method);
+        if(!head && !"GET".equals(method)) {
+            resp.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            resp.setHeader("Allow", "GET, HEAD");
+            resp.getWriter().write("405 Method Not Allowed!!!");
+            return true;
+        }
+        String relative = decodePath(url, start + prefix.length());
+        StaticResource resource = relative != null ? lookup(relative) : null;
+        if(resource == null) {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            resp.getWriter().write("404 Not Found!!!");
+            return true;
+        }
+        //选择发送的文件：Range按原始文件计算，只在没有Range时发送预压缩的文件
+        String range = req.getHeader("Range");
+        StaticResource selected = resource;
+        if(resource.gzip != null) {
+            resp.setHeader("Vary", "Accept-Encoding");
+            if(range == null && acceptsGzip(req.getHeader("Accept-Encoding"))) {
+                selected = resource.gzip;
+                resp.setHeader("Content-Encoding", "gzip");
+            }
+        }
+        resp.setContentType(resource.contentType);
+        resp.setHeader("ETag", selected.etag);
+        resp.setDateHeader("Last-Modified", selected.lastModified);
+        resp.setHeader("Cache-Control", cacheControl);
+        resp.setHeader("Accept-Ranges", "bytes");
+        ConditionalRequest conditions = ConditionalRequest.of(req);
+        if(conditions != null && conditions.isNotModified(selected.etag, selected.lastModified)) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        long from = 0;
+        long count = selected.length;
+        if(range != null && ifRangeMatches(req, selected)) {
+            long[] bounds = parseRange(range, selected.length);
+            if(bounds != null && bounds[0] < 0) {
+                resp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                resp.setHeader("Content-Range", "bytes */" + selected.length);
+                return true;
+            }
+            if(bounds != null) {
+                from = bounds[0];
+                count = bounds[1] - bounds[0] + 1;
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setHeader("Content-Range", "bytes " + bounds[0] + "-" + bounds[1] + "/" + selected.length);
+            }
+        }
+        resp.setContentLengthLong(count);
+        if(head || count == 0) {return true;}
+        byte[] content = cache != null && selected.length <= cacheFileMaxBytes ? content(relative, selected) : null;
+        if(content != null) {
+            resp.getOutputStream().write(content, (int) from, (int) count);
+        } else if(Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute(SENDFILE_FILENAME, selected.path.toString());
+            req.setAttribute(SENDFILE_START, from);
+            req.setAttribute(SENDFILE_END, from + count);
+        } else {
+            transfer(selected.path, from, count, resp.getOutputStream());
+        }
+        return true;
+    }
+
+    /**
+     * 文件内容缓存，ETag参与key，文件变化后读到新内容；读到的长度与文件信息不一致时说明文件正在变化，不缓存
+     */
+    private byte[] content(String relative, StaticResource resource) throws IOException {
+        CachedResponse cached = cache.get(resource.cacheKey);
+        if(cached != null) {return cached.getBody();}
+        byte[] content = Files.readAllBytes(resource.path);
+        if(content.length != resource.length) {
+            resources.remove(relative, resource);
+            return null;
+        }
+        //key带有ETag，不需要过期时间
+        cache.put(resource.cacheKey, new CachedResponse(resource.contentType, content), Long.MAX_VALUE);
+        return content;
+    }
+
+    /**
+     * 写出文件的一段；写入的目标不是socket时JDK按8KB分块复制
+     */
+    private static void transfer(Path path, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long end = position + count;
+            while (position < end) {
+                long n = channel.transferTo(position, end - position, target);
+                //文件在传输过程中变短
+                if(n <= 0) {break;}
+                position += n;
+            }
+        }
+    }
+
+    /**
+     * 查询文件信息，超过检查间隔时重新读取文件属性
+     */
+    private StaticResource lookup(String relative) throws IOException {
+        StaticResource resource = resources.get(relative);
+        long now = System.nanoTime();
+        if(resource != null && now - resource.checkedAt < CHECK_INTERVAL_NANOS) {return resource;}
+        StaticResource current = load(relative, now);
+        if(current == null) {
+            if(resource != null) {resources.remove(relative, resource);}
+            return null;
+        }
+        if(resource != null && resource.sameAs(current)) {
+            resource.checkedAt = now;
+            return resource;
+        }
+        resources.put(relative, current);
+        return current;
+    }
+
+    private StaticResource load(String relative, long now) throws IOException {
+        Path file = root.resolve(relative).normalize();
+        if(!file.startsWith(root)) {return null;}
+        BasicFileAttributes attributes = attributes(file);
+        if(attributes == null || !attributes.isRegularFile()) {return null;}
+        String contentType = contentType(file.getFileName().toString());
+        Path gzFile = file.resolveSibling(file.getFileName() + ".gz");
+        BasicFileAttributes gzAttributes = attributes(gzFile);
+        StaticResource gzip = gzAttributes != null && gzAttributes.isRegularFile()
+                ? new StaticResource(gzFile, gzAttributes.size(), gzAttributes.lastModifiedTime().toMillis(),
+                contentType, null, true, now)
+                : null;
+        return new StaticResource(file, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                contentType, gzip, false, now);
+    }
+
+    private static BasicFileAttributes attributes(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private String contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String type = dot >= 0 ? MIME_TYPES.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT)) : null;
+        if(type == null && context != null) {
+            type = context.getMimeType(fileName);
+        }
+        return type != null ? type : "application/octet-stream";
+    }
+
+    /**
+     * 解码请求路径中的%xx（+不当作空格），拒绝空片段、.和..、反斜杠与控制字符；非法路径返回null
+     * @param url 请求路径
+     * @param from 相对路径的起始位置
+     */
+    static String decodePath(String url, int from) {
+        String path = url.substring(from);
+        if(path.indexOf('%') >= 0) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(path.length());
+            for(int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if(c == '%') {
+                    if(i + 2 >= path.length()) {return null;}
+                    int hi = Character.digit(path.charAt(i + 1), 16);
+                    int lo = Character.digit(path.charAt(i + 2), 16);
+                    if(hi < 0 || lo < 0) {return null;}
+                    bytes.write((hi << 4) | lo);
+                    i += 2;
+                } else if(c < 0x80) {
+                    bytes.write(c);
+                } else {
+                    byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                    bytes.write(encoded, 0, encoded.length);
+                }
+            }
+            path = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+        if(path.isEmpty()) {return null;}
+        int segmentStart = 0;
+        for(int i = 0; i <= path.length(); i++) {
+            char c = i < path.length() ? path.charAt(i) : '/';
+            if(c == '/') {
+                int length = i - segmentStart;
+                if(length == 0 || (length == 1 && path.charAt(segmentStart) == '.')
+                        || (length == 2 && path.startsWith("..", segmentStart))) {
+                    return null;
+                }
+                segmentStart = i + 1;
+            } else if(c == '\\' || c < 0x20 || c == 0x7f || c == ':') {
+                return null;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * If-Range：值为ETag时必须与当前ETag完全相同，为日期时必须与修改时间相同，否则忽略Range发送完整文件
+     */
+    private static boolean ifRangeMatches(HttpServletRequest req, StaticResource resource) {
+        String ifRange = req.getHeader("If-Range");
+        if(ifRange == null) {return true;}
+        if(ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(resource.etag);
+        }
+        try {
+            return req.getDateHeader("If-Range") / 1000 == resource.lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单个bytes范围：bytes=a-b、bytes=a-、bytes=-n
+     * @return 闭区间[first, last]；多个范围或格式错误时返回null，按完整文件发送；范围无法满足时返回{-1, -1}
+     */
+    static long[] parseRange(String header, long length) {
+        if(!header.startsWith("bytes=") || header.indexOf(',') >= 0) {return null;}
+        int dash = header.indexOf('-', 6);
+        if(dash < 0) {return null;}
+        try {
+            String first = header.substring(6, dash).trim();
+            String last = header.substring(dash + 1).trim();
+            long from;
+            long to;
+            if(first.isEmpty()) {
+                //最后n个字节
+                long suffix = Long.parseLong(last);
+                if(suffix <= 0 || length == 0) {return new long[]{-1, -1};}
+                from = Math.max(0, length - suffix);
+                to = length - 1;
+            } else {
+                from = Long.parseLong(first);
+                to = length - 1;
+                if(!last.isEmpty()) {
+                    long end = Long.parseLong(last);
+                    //结束位置小于开始位置是语法错误，忽略Range
+                    if(end < from) {return null;}
+                    to = Math.min(end, to);
+                }
+            }
+            if(from < 0 || from >= length) {return new long[]{-1, -1};}
+            return new long[]{from, to};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Accept-Encoding中出现gzip或*且q不为0
+     */
+    static boolean acceptsGzip(String header) {
+        if(header == null) {return false;}
+        for(String item : header.split(",")) {
+            int semicolon = item.indexOf(';');
+            String coding = (semicolon >= 0 ? item.substring(0, semicolon) : item).trim();
+            if(!"gzip".equalsIgnoreCase(coding) && !"*".equals(coding)) {continue;}
+            if(semicolon < 0) {return true;}
+            String parameter = item.substring(semicolon + 1).trim();
+            if(!parameter.startsWith("q=")) {return true;}
+            try {
+                return Double.parseDouble(parameter.substring(2).trim()) > 0;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 文件内容缓存，未启用时为null
+     */
+    public ResponseCache getCache() {
+        return cache;
+    }
+}
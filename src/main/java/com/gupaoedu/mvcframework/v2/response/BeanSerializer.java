@@ -0,0 +1,267 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import java.io.IOException;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 对象的JSON编码器，每个类只生成一次：属性为public的getX()/isX()和没有getter的public字段，
+ * getter由LambdaMetafactory生成访问器，基本类型属性不装箱，属性名连同引号和冒号预先编码为字节。
+ * <p>属性顺序：先按字段声明顺序（父类在前），再按名字排列没有对应字段的getter。</p>
+ * @since V1.0.0
+ */
+final class BeanSerializer {
+
+    private static final ClassValue<BeanSerializer> SERIALIZERS = new ClassValue<BeanSerializer>() {
+        @Override
+        protected BeanSerializer computeValue(Class<?> type) {
+            return new BeanSerializer(type);
+        }
+    };
+
+    private final Property[] properties;
+
+    private BeanSerializer(Class<?> type) {
+        List<Property> list = new ArrayList<>();
+        Map<String, Member> accessors = findAccessors(type);
+        for(Map.Entry<String, Member> entry : accessors.entrySet()) {
+            list.add(new Property(entry.getKey(), entry.getValue()));
+        }
+        this.properties = list.toArray(new Property[0]);
+    }
+
+    static BeanSerializer of(Class<?> type) {
+        return SERIALIZERS.get(type);
+    }
+
+    void write(ResponseBuffer out, Object bean, int depth) throws IOException {
+        out.write('{');
+        for(int i = 0; i < properties.length; i++) {
+            Property property = properties[i];
+            out.write(property.prefix, i == 0 ? 1 : 0, property.prefix.length - (i == 0 ? 1 : 0));
+            property.write(out, bean, depth);
+        }
+        out.write('}');
+    }
+
+    /**
+     * 按输出顺序收集属性名与访问器
+     */
+    private static Map<String, Member> findAccessors(Class<?> type) {
+        Map<String, Method> getters = new TreeMap<>();
+        for(Method method : type.getMethods()) {
+            if(Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0
+                    || method.getDeclaringClass() == Object.class || method.getReturnType() == void.class) {continue;}
+            String name = method.getName();
+            String property = null;
+            if(name.startsWith("get") && name.length() > 3) {
+                property = decapitalize(name.substring(3));
+            } else if(name.startsWith("is") && name.length() > 2 && method.getReturnType() == boolean.class) {
+                property = decapitalize(name.substring(2));
+            }
+            if(property != null) {
+                getters.put(property, method);
+            }
+        }
+        Map<String, Member> accessors = new LinkedHashMap<>();
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            hierarchy.addFirst(c);
+        }
+        for(Class<?> c : hierarchy) {
+            for(Field field : c.getDeclaredFields()) {
+                if(Modifier.isStatic(field.getModifiers()) || accessors.containsKey(field.getName())) {continue;}
+                Method getter = getters.remove(field.getName());
+                if(getter != null) {
+                    accessors.put(field.getName(), getter);
+                } else if(Modifier.isPublic(field.getModifiers())) {
+                    accessors.put(field.getName(), field);
+                }
+            }
+        }
+        accessors.putAll(getters);
+        return accessors;
+    }
+
+    /**
+     * 与JavaBeans规范一致：前两个字母都大写时保持原样
+     */
+    private static String decapitalize(String name) {
+        if(name.length() > 1 && Character.isUpperCase(name.charAt(0)) && Character.isUpperCase(name.charAt(1))) {
+            return name;
+        }
+        char[] chars = name.toCharArray();
+        chars[0] = Character.toLowerCase(chars[0]);
+        return new String(chars);
+    }
+
+    /**
+     * 一个属性：按声明类型选择不装箱的访问方式
+     */
+    private static final class Property {
+
+        private static final int LONG = 0;
+        private static final int DOUBLE = 1;
+        private static final int BOOLEAN = 2;
+        private static final int STRING = 3;
+        private static final int OBJECT = 4;
+
+        //,"name":
+        final byte[] prefix;
+
+        final int kind;
+
+        //ToLongFunction、ToDoubleFunction、Predicate或Function，与kind对应
+        final Object accessor;
+
+        Property(String name, Member member) {
+            ResponseBuffer encoded = new ResponseBuffer(name.length() * 6 + 8);
+            try {
+                encoded.write(',');
+                JsonWriter.writeString(encoded, name);
+                encoded.write(':');
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.prefix = Arrays.copyOf(encoded.array(), encoded.size());
+
+            Class<?> type = member instanceof Method ? ((Method) member).getReturnType() : ((Field) member).getType();
+            if(type == int.class || type == long.class || type == short.class || type == byte.class) {
+                kind = LONG;
+                accessor = accessor(member, ToLongFunction.class, "applyAsLong", long.class);
+            } else if(type == double.class || type == float.class) {
+                kind = DOUBLE;
+                accessor = accessor(member, ToDoubleFunction.class, "applyAsDouble", double.class);
+            } else if(type == boolean.class) {
+                kind = BOOLEAN;
+                accessor = accessor(member, Predicate.class, "test", boolean.class);
+            } else {
+                kind = type == String.class ? STRING : OBJECT;
+                accessor = accessor(member, Function.class, "apply", Object.class);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(ResponseBuffer out, Object bean, int depth) throws IOException {
+            switch (kind) {
+                case LONG:
+                    out.writeLong(((ToLongFunction<Object>) accessor).applyAsLong(bean));
+                    break;
+                case DOUBLE:
+                    JsonWriter.writeDouble(out, ((ToDoubleFunction<Object>) accessor).applyAsDouble(bean));
+                    break;
+                case BOOLEAN:
+                    JsonWriter.writeBoolean(out, ((Predicate<Object>) accessor).test(bean));
+                    break;
+                case STRING:
+                    Object s = ((Function<Object, Object>) accessor).apply(bean);
+                    if(s == null) {
+                        JsonWriter.write(out, null, depth);
+                    } else {
+                        JsonWriter.writeString(out, (String) s);
+                    }
+                    break;
+                default:
+                    JsonWriter.write(out, ((Function<Object, Object>) accessor).apply(bean), depth);
+            }
+        }
+    }
+
+    /**
+     * 生成属性访问器：public类的getter用LambdaMetafactory生成实现类，调用时和普通接口调用一样可以被JIT内联；
+     * 字段、非public类以及框架的类加载器看不到的类，退回到包装MethodHandle
+     * @param function 函数式接口
+     * @param sam 接口方法名
+     * @param returnType 接口方法的返回类型
+     */
+    private static Object accessor(Member member, Class<?> function, String sam, Class<?> returnType) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle raw;
+        try {
+            if(member instanceof Method) {
+                ((Method) member).setAccessible(true);
+                raw = lookup.unreflect((Method) member);
+            } else {
+                ((Field) member).setAccessible(true);
+                raw = lookup.unreflectGetter((Field) member);
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access " + member, e);
+        }
+        MethodType erased = MethodType.methodType(returnType, Object.class);
+        if(member instanceof Method && isLinkable(member.getDeclaringClass())) {
+            try {
+                CallSite site = LambdaMetafactory.metafactory(lookup, sam, MethodType.methodType(function), erased, raw,
+                        MethodType.methodType(returnType, member.getDeclaringClass()));
+                return site.getTarget().invoke();
+            } catch (Throwable e) {
+                //生成失败时使用MethodHandle
+            }
+        }
+        MethodHandle handle = raw.asType(erased);
+        if(returnType == long.class) {
+            return (ToLongFunction<Object>) bean -> {
+                try {
+                    return (long) handle.invokeExact(bean);
+                } catch (Throwable e) {
+                    throw rethrow(member, e);
+                }
+            };
+        }
+        if(returnType == double.class) {
+            return (ToDoubleFunction<Object>) bean -> {
+                try {
+                    return (double) handle.invokeExact(bean);
+                } catch (Throwable e) {
+                    throw rethrow(member, e);
+                }
+            };
+        }
+        if(returnType == boolean.class) {
+            return (Predicate<Object>) bean -> {
+                try {
+                    return (boolean) handle.invokeExact(bean);
+                } catch (Throwable e) {
+                    throw rethrow(member, e);
+                }
+            };
+        }
+        return (Function<Object, Object>) bean -> {
+            try {
+                return (Object) handle.invokeExact(bean);
+            } catch (Throwable e) {
+                throw rethrow(member, e);
+            }
+        };
+    }
+
+    /**
+     * 生成的类按名字链接到目标类：目标类必须是public的，并且能从框架的类加载器找到同一个类
+     */
+    private static boolean isLinkable(Class<?> type) {
+        if(!Modifier.isPublic(type.getModifiers())) {return false;}
+        try {
+            return Class.forName(type.getName(), false, BeanSerializer.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    private static RuntimeException rethrow(Member member, Throwable e) {
+        if(e instanceof RuntimeException) {return (RuntimeException) e;}
+        if(e instanceof Error) {throw (Error) e;}
+        return new IllegalStateException("Failed to read " + member, e);
+    }
+}
@@ -0,0 +1,240 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+
+/**
+ * 流式JSON编码：值直接编码为UTF-8写入{@link ResponseBuffer}，不生成中间字符串。
+ * <p>支持null、字符串、数字、布尔、枚举、Map、集合、数组、Optional、Date（毫秒数）、
+ * java.time类型（toString）、{@link RawJson}（原样写出），其余对象按{@link BeanSerializer}编译好的属性访问器输出。</p>
+ * @since V1.0.0
+ */
+public final class JsonWriter {
+
+    //超过这个嵌套深度视为循环引用
+    private static final int MAX_DEPTH = 64;
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+
+    private static final int LONG = 0;
+    private static final int DOUBLE = 1;
+    private static final int LITERAL = 2;
+    private static final int STRING = 3;
+    private static final int ENUM = 4;
+    private static final int DATE = 5;
+    private static final int OPTIONAL = 6;
+    private static final int MAP = 7;
+    private static final int COLLECTION = 8;
+    private static final int ARRAY = 9;
+    private static final int BEAN = 10;
+    private static final int RAW = 11;
+
+    private static final ClassValue<Integer> KINDS = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return kindOf(type);
+        }
+    };
+
+    private JsonWriter() {
+    }
+
+    /**
+     * 写入一个JSON值
+     */
+    public static void write(ResponseBuffer out, Object value) throws IOException {
+        write(out, value, 0);
+    }
+
+    static void write(ResponseBuffer out, Object value, int depth) throws IOException {
+        if(value == null) {
+            out.write(NULL);
+            return ;
+        }
+        //常见的final类型直接比较Class，其余类型的分类按类缓存，避免逐个做接口instanceof
+        Class<?> type = value.getClass();
+        if(type == String.class) {
+            writeString(out, (String) value);
+        } else if(type == Integer.class || type == Long.class) {
+            out.writeLong(((Number) value).longValue());
+        } else if(type == Boolean.class) {
+            writeBoolean(out, (Boolean) value);
+        } else if(type == Double.class) {
+            writeDouble(out, (Double) value);
+        } else {
+            writeKind(out, value, KINDS.get(type), depth);
+        }
+    }
+
+    private static void writeKind(ResponseBuffer out, Object value, int kind, int depth) throws IOException {
+        switch (kind) {
+            case LONG:
+                out.writeLong(((Number) value).longValue());
+                return ;
+            case DOUBLE:
+                writeDouble(out, ((Number) value).doubleValue());
+                return ;
+            case LITERAL:
+                out.writeAscii(value.toString());
+                return ;
+            case STRING:
+                writeString(out, value.toString());
+                return ;
+            case ENUM:
+                writeString(out, ((Enum<?>) value).name());
+                return ;
+            case DATE:
+                out.writeLong(((Date) value).getTime());
+                return ;
+            case OPTIONAL:
+                write(out, ((Optional<?>) value).orElse(null), depth);
+                return ;
+            case RAW:
+                ((RawJson) value).writeTo(out);
+                return ;
+            default:
+        }
+        if(depth >= MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting deeper than " + MAX_DEPTH + ", possible cycle at " + value.getClass().getName());
+        }
+        switch (kind) {
+            case MAP:
+                writeMap(out, (Map<?, ?>) value, depth + 1);
+                break;
+            case COLLECTION:
+                writeCollection(out, (Collection<?>) value, depth + 1);
+                break;
+            case ARRAY:
+                writeArray(out, value, depth + 1);
+                break;
+            default:
+                BeanSerializer.of(value.getClass()).write(out, value, depth + 1);
+        }
+    }
+
+    private static int kindOf(Class<?> type) {
+        if(type == Integer.class || type == Long.class || type == Short.class || type == Byte.class) {
+            return LONG;
+        } else if(type == Double.class || type == Float.class) {
+            return DOUBLE;
+        } else if(BigDecimal.class.isAssignableFrom(type) || BigInteger.class.isAssignableFrom(type)) {
+            return LITERAL;
+        } else if(Enum.class.isAssignableFrom(type)) {
+            return ENUM;
+        } else if(CharSequence.class.isAssignableFrom(type) || type == Character.class
+                || TemporalAccessor.class.isAssignableFrom(type)) {
+            return STRING;
+        } else if(Number.class.isAssignableFrom(type)) {
+            return DOUBLE;
+        } else if(Date.class.isAssignableFrom(type)) {
+            return DATE;
+        } else if(Map.class.isAssignableFrom(type)) {
+            return MAP;
+        } else if(Collection.class.isAssignableFrom(type)) {
+            return COLLECTION;
+        } else if(type.isArray()) {
+            return ARRAY;
+        } else if(type == Optional.class) {
+            return OPTIONAL;
+        } else if(type == RawJson.class) {
+            return RAW;
+        }
+        return BEAN;
+    }
+
+    public static void writeBoolean(ResponseBuffer out, boolean value) throws IOException {
+        out.write(value ? TRUE : FALSE);
+    }
+
+    /**
+     * NaN和无穷大在JSON中没有表示，写为null
+     */
+    public static void writeDouble(ResponseBuffer out, double value) throws IOException {
+        if(Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write(NULL);
+        } else if(value == (long) value && Math.abs(value) < 1e15) {
+            out.writeLong((long) value);
+        } else {
+            out.writeAscii(Double.toString(value));
+        }
+    }
+
+    /**
+     * 写入字符串：转义双引号、反斜杠和控制字符，其余按UTF-8编码
+     */
+    public static void writeString(ResponseBuffer out, CharSequence s) throws IOException {
+        out.writeJsonString(s);
+    }
+
+    private static void writeMap(ResponseBuffer out, Map<?, ?> map, int depth) throws IOException {
+        out.write('{');
+        boolean first = true;
+        for(Map.Entry<?, ?> entry : map.entrySet()) {
+            if(!first) {out.write(',');}
+            first = false;
+            writeString(out, String.valueOf(entry.getKey()));
+            out.write(':');
+            write(out, entry.getValue(), depth);
+        }
+        out.write('}');
+    }
+
+    private static void writeCollection(ResponseBuffer out, Collection<?> collection, int depth) throws IOException {
+        out.write('[');
+        if(collection instanceof List && collection instanceof RandomAccess) {
+            //按下标遍历，不创建迭代器
+            List<?> list = (List<?>) collection;
+            for(int i = 0; i < list.size(); i++) {
+                if(i > 0) {out.write(',');}
+                write(out, list.get(i), depth);
+            }
+        } else {
+            boolean first = true;
+            for(Object element : collection) {
+                if(!first) {out.write(',');}
+                first = false;
+                write(out, element, depth);
+            }
+        }
+        out.write(']');
+    }
+
+    private static void writeArray(ResponseBuffer out, Object array, int depth) throws IOException {
+        out.write('[');
+        if(array instanceof Object[]) {
+            Object[] objects = (Object[]) array;
+            for(int i = 0; i < objects.length; i++) {
+                if(i > 0) {out.write(',');}
+                write(out, objects[i], depth);
+            }
+        } else if(array instanceof int[]) {
+            int[] ints = (int[]) array;
+            for(int i = 0; i < ints.length; i++) {
+                if(i > 0) {out.write(',');}
+                out.writeLong(ints[i]);
+            }
+        } else if(array instanceof long[]) {
+            long[] longs = (long[]) array;
+            for(int i = 0; i < longs.length; i++) {
+                if(i > 0) {out.write(',');}
+                out.writeLong(longs[i]);
+            }
+        } else {
+            //其它基本类型数组较少见，逐个装箱
+            int length = Array.getLength(array);
+            for(int i = 0; i < length; i++) {
+                if(i > 0) {out.write(',');}
+                write(out, Array.get(array, i), depth);
+            }
+        }
+        out.write(']');
+    }
+}
@@ -0,0 +1,29 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import java.io.IOException;
+
+/**
+ * 已经编码好的JSON，{@link JsonWriter}原样写出，用于把其它响应的JSON响应体嵌入到新的JSON中
+ * @since V1.0.0
+ */
+public final class RawJson {
+
+    private final byte[] bytes;
+
+    private final int offset;
+
+    private final int length;
+
+    /**
+     * @param bytes UTF-8编码的完整JSON值，调用方保证格式正确
+     */
+    public RawJson(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    void writeTo(ResponseBuffer out) throws IOException {
+        out.write(bytes, offset, length);
+    }
+}
@@ -0,0 +1,265 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 可复用的响应缓冲区：编码结果先写入固定大小的字节数组，全部放得下时设置Content-Length一次写出，
+ * 放不下时把已满的部分写入ServletOutputStream（不再设置Content-Length），再继续复用同一个数组。
+ * <p>由{@link ResponseBufferPool}借出和归还，一次只服务一个响应，不是线程安全的。</p>
+ * @since V1.0.0
+ */
+public final class ResponseBuffer {
+
+    private static final byte[] DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9'};
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for(int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private final byte[] buf;
+
+    private int count;
+
+    //写入响应时用于设置Content-Length，写入普通输出流时为null
+    private HttpServletResponse response;
+
+    private OutputStream out;
+
+    //已经写出的字节数
+    private long flushed;
+
+    ResponseBuffer(int size) {
+        this.buf = new byte[size];
+    }
+
+    /**
+     * 开始服务一个响应
+     * @param response 响应
+     * @param out 响应的输出流，调用方先取得，取不到时可以改用Writer
+     */
+    void open(HttpServletResponse response, OutputStream out) {
+        this.response = response;
+        this.out = out;
+        this.count = 0;
+        this.flushed = 0;
+    }
+
+    /**
+     * 归还前清理，不持有响应对象
+     */
+    void clear() {
+        this.response = null;
+        this.out = null;
+        this.count = 0;
+        this.flushed = 0;
+    }
+
+    public void write(int b) throws IOException {
+        if(count == buf.length) {
+            spill();
+        }
+        buf[count++] = (byte) b;
+    }
+
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException {
+        int pos = count;
+        if(len <= buf.length - pos) {
+            //属性名等短数组逐字节复制，比System.arraycopy的调用开销小
+            if(len <= 16) {
+                for(int i = 0; i < len; i++) {
+                    buf[pos + i] = b[off + i];
+                }
+            } else {
+                System.arraycopy(b, off, buf, pos, len);
+            }
+            count = pos + len;
+            return ;
+        }
+        while (len > 0) {
+            if(count == buf.length) {
+                spill();
+            }
+            int n = Math.min(len, buf.length - count);
+            System.arraycopy(b, off, buf, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * 写入只含ASCII字符的字符串，如数字和字面量
+     */
+    public void writeAscii(String s) throws IOException {
+        writeChars(s, false);
+    }
+
+    /**
+     * 按UTF-8编码写入，不经过CharsetEncoder也不生成中间数组；不成对的代理字符写为'?'
+     */
+    public void writeUtf8(CharSequence s) throws IOException {
+        writeChars(s, false);
+    }
+
+    /**
+     * 写入带引号的JSON字符串：转义双引号、反斜杠和控制字符，其余按UTF-8编码
+     */
+    void writeJsonString(CharSequence s) throws IOException {
+        write('"');
+        writeChars(s, true);
+        write('"');
+    }
+
+    /**
+     * 逐个字符编码，直接写入数组；剩余空间不足一个字符的最大长度（6字节）时先写出
+     * @param escape 是否按JSON字符串转义
+     */
+    private void writeChars(CharSequence s, boolean escape) throws IOException {
+        byte[] buf = this.buf;
+        int pos = count;
+        int length = s.length();
+        //整个字符串按最坏情况都放得下时不再逐个字符检查剩余空间
+        int checkedUntil = buf.length - pos >= (long) length * 6 ? length : 0;
+        for(int i = 0; i < length; i++) {
+            if(i >= checkedUntil && buf.length - pos < 6) {
+                count = pos;
+                spill();
+                pos = count;
+            }
+            char c = s.charAt(i);
+            if(c < 0x80) {
+                if(!escape || (c >= 0x20 && c != '"' && c != '\\')) {
+                    buf[pos++] = (byte) c;
+                } else {
+                    buf[pos++] = '\\';
+                    switch (c) {
+                        case '"': buf[pos++] = '"'; break;
+                        case '\\': buf[pos++] = '\\'; break;
+                        case '\n': buf[pos++] = 'n'; break;
+                        case '\r': buf[pos++] = 'r'; break;
+                        case '\t': buf[pos++] = 't'; break;
+                        case '\b': buf[pos++] = 'b'; break;
+                        case '\f': buf[pos++] = 'f'; break;
+                        default:
+                            buf[pos++] = 'u';
+                            buf[pos++] = '0';
+                            buf[pos++] = '0';
+                            buf[pos++] = HEX[c >> 4];
+                            buf[pos++] = HEX[c & 0xf];
+                    }
+                }
+            } else if(c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xf0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3f));
+            } else if(Character.isSurrogate(c)) {
+                buf[pos++] = '?';
+            } else {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        count = pos;
+    }
+
+    /**
+     * 写入十进制整数，不生成字符串
+     */
+    public void writeLong(long v) throws IOException {
+        if(v == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return ;
+        }
+        if(buf.length - count < 20) {
+            spill();
+        }
+        if(v < 0) {
+            buf[count++] = '-';
+            v = -v;
+        }
+        int digits = 1;
+        while (digits < 19 && v >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        int pos = count + digits;
+        //int范围内用int除法，更便宜
+        while (v > Integer.MAX_VALUE) {
+            buf[--pos] = DIGITS[(int) (v % 10)];
+            v /= 10;
+        }
+        int i = (int) v;
+        do {
+            buf[--pos] = DIGITS[i % 10];
+            i /= 10;
+        } while (i != 0);
+        count += digits;
+    }
+
+    /**
+     * 已写入缓冲区、还未写出的字节数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 缓冲区已满，写出已有内容；第一次写出后不能再设置Content-Length
+     */
+    private void spill() throws IOException {
+        out.write(buf, 0, count);
+        flushed += count;
+        count = 0;
+    }
+
+    /**
+     * 写出已缓冲的内容并刷新输出流，流式输出时让客户端尽早收到
+     */
+    void flush() throws IOException {
+        if(count > 0) {
+            spill();
+        }
+        out.flush();
+    }
+
+    /**
+     * 开始服务当前响应以来写入的总字节数，包括已经写出的
+     */
+    long written() {
+        return flushed + count;
+    }
+
+    /**
+     * 写出剩余内容：没有溢出过时先设置Content-Length
+     */
+    void finish() throws IOException {
+        if(flushed == 0 && response != null) {
+            response.setContentLength(count);
+        }
+        out.write(buf, 0, count);
+        flushed += count;
+        count = 0;
+    }
+
+    byte[] array() {
+        return buf;
+    }
+}
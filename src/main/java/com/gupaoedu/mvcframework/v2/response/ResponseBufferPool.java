@@ -0,0 +1,60 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 响应缓冲区池：固定数量的槽位，借出和归还各自从线程对应的槽位开始探测几个位置，
+ * 只用CAS，不加锁也不分配节点；池空时新建，池满时直接丢弃
+ * @since V1.0.0
+ */
+final class ResponseBufferPool {
+
+    //每次借出或归还最多探测的槽位数
+    private static final int PROBES = 4;
+
+    private final AtomicReferenceArray<ResponseBuffer> slots;
+
+    private final int mask;
+
+    private final int bufferSize;
+
+    /**
+     * @param capacity 最多保留的缓冲区数量，取不小于它的2的幂
+     * @param bufferSize 每个缓冲区的字节数
+     */
+    ResponseBufferPool(int capacity, int bufferSize) {
+        int size = Integer.highestOneBit(Math.max(PROBES, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.bufferSize = bufferSize;
+    }
+
+    ResponseBuffer acquire() {
+        int start = probeStart();
+        for(int i = 0; i < PROBES; i++) {
+            int index = (start + i) & mask;
+            ResponseBuffer buffer = slots.get(index);
+            if(buffer != null && slots.compareAndSet(index, buffer, null)) {
+                return buffer;
+            }
+        }
+        return new ResponseBuffer(bufferSize);
+    }
+
+    void release(ResponseBuffer buffer) {
+        buffer.clear();
+        int start = probeStart();
+        for(int i = 0; i < PROBES; i++) {
+            int index = (start + i) & mask;
+            if(slots.get(index) == null && slots.compareAndSet(index, null, buffer)) {
+                return ;
+            }
+        }
+    }
+
+    private int probeStart() {
+        long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,141 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 推送式的返回值：处理方法返回它，生产者在自己的线程上调用{@link #send}逐个发送，框架在请求线程上取出并流式写出。
+ * <p>两者之间是有界队列，写出跟不上时send阻塞；客户端断开或输出出错后send返回false，生产者应当停止发送。
+ * 生产者最后必须调用{@link #complete}或{@link #error}。</p>
+ * @since V1.0.0
+ */
+public final class ResponseEmitter<T> {
+
+    //结束标记
+    static final Object END = new Object();
+
+    //队列不能放null
+    private static final Object NULL = new Object();
+
+    private final BlockingQueue<Object> queue;
+
+    //毫秒
+    private final long timeout;
+
+    private volatile boolean cancelled = false;
+
+    /**
+     * 队列容量256，等待下一个元素最多30秒
+     */
+    public ResponseEmitter() {
+        this(256, 30000L);
+    }
+
+    /**
+     * @param capacity 队列容量
+     * @param timeout 等待下一个元素的最长时间，毫秒，超时按出错结束，0表示不超时
+     */
+    public ResponseEmitter(int capacity, long timeout) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.timeout = timeout;
+    }
+
+    /**
+     * 发送一个元素，队列满时等待
+     * @return false表示已经取消，不必再发送
+     */
+    public boolean send(T element) {
+        return offer(element == null ? NULL : element);
+    }
+
+    /**
+     * 正常结束
+     */
+    public void complete() {
+        offer(END);
+    }
+
+    /**
+     * 出错结束：还没有写出时按处理方法抛出的异常处理，已经写出一部分时中断输出
+     */
+    public void error(Throwable error) {
+        offer(new Failure(error));
+    }
+
+    /**
+     * 客户端已经断开或输出已经结束
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private boolean offer(Object item) {
+        try {
+            //限时等待，取消后不会一直阻塞
+            while (!cancelled) {
+                if(queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    return !cancelled;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * 暂时没有可以取出的元素
+     */
+    boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    /**
+     * 取出下一个元素，在请求线程上调用
+     * @return 元素，结束时返回{@link #END}
+     * @throws RuntimeException 生产者出错时原样抛出，受检异常和等待超时包装为CompletionException
+     */
+    Object take() {
+        Object item;
+        try {
+            item = timeout > 0 ? queue.poll(timeout, TimeUnit.MILLISECONDS) : queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        if(item == null) {
+            throw new CompletionException(new TimeoutException("No element emitted within " + timeout + " ms"));
+        }
+        if(item instanceof Failure) {
+            Throwable error = ((Failure) item).error;
+            if(error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if(error instanceof Error) {
+                throw (Error) error;
+            }
+            throw new CompletionException(error);
+        }
+        return item == NULL ? null : item;
+    }
+
+    /**
+     * 输出结束，丢弃还没有取出的元素，唤醒等待的生产者
+     */
+    void cancel() {
+        cancelled = true;
+        queue.clear();
+    }
+
+    private static final class Failure {
+
+        final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+}
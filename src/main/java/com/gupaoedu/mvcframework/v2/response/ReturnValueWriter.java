@@ -0,0 +1,141 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 处理方法返回值的输出：字符串按text/plain输出，其余对象编码为JSON，
+ * 都写入池化的{@link ResponseBuffer}再交给ServletOutputStream，能一次放下时设置Content-Length；
+ * Iterator、Stream和{@link ResponseEmitter}由{@link StreamingWriter}逐个元素写出
+ * @since V1.0.0
+ */
+public class ReturnValueWriter {
+
+    public static final String TEXT_CONTENT_TYPE = "text/plain;charset=UTF-8";
+
+    public static final String JSON_CONTENT_TYPE = "application/json;charset=UTF-8";
+
+    public static final String EVENT_STREAM_CONTENT_TYPE = StreamingWriter.EVENT_STREAM + ";charset=UTF-8";
+
+    private final ResponseBufferPool pool;
+
+    private final StreamingWriter streamingWriter;
+
+    /**
+     * 流式输出每8KB或200毫秒刷新一次
+     * @param poolSize 最多保留的缓冲区数量
+     * @param bufferSize 每个缓冲区的字节数，超出时分块写出
+     */
+    public ReturnValueWriter(int poolSize, int bufferSize) {
+        this(poolSize, bufferSize, 8192, 200);
+    }
+
+    /**
+     * @param poolSize 最多保留的缓冲区数量
+     * @param bufferSize 每个缓冲区的字节数，超出时分块写出
+     * @param flushBytes 流式输出自上次刷新起写入的字节数达到时刷新
+     * @param flushMillis 流式输出距上次刷新的毫秒数达到时刷新
+     */
+    public ReturnValueWriter(int poolSize, int bufferSize, int flushBytes, long flushMillis) {
+        this.pool = new ResponseBufferPool(poolSize, bufferSize);
+        this.streamingWriter = new StreamingWriter(flushBytes, flushMillis);
+    }
+
+    /**
+     * 是否按流式输出：Iterator、Stream和ResponseEmitter
+     */
+    public static boolean isStreaming(Object value) {
+        return StreamingWriter.isStreaming(value);
+    }
+
+    /**
+     * 写出返回值，Iterator、Stream和ResponseEmitter按JSON数组或SSE（请求Accept: text/event-stream时）流式写出
+     * @param req 请求，用于选择流式输出的格式
+     * @param resp 响应
+     * @param value 处理方法的返回值
+     */
+    public void write(HttpServletRequest req, HttpServletResponse resp, Object value) throws IOException {
+        if(!StreamingWriter.isStreaming(value)) {
+            write(resp, value);
+            return ;
+        }
+        boolean sse = StreamingWriter.isEventStream(req, resp);
+        if(resp.getContentType() == null) {
+            resp.setContentType(sse ? EVENT_STREAM_CONTENT_TYPE : JSON_CONTENT_TYPE);
+        }
+        OutputStream out = null;
+        if("UTF-8".equalsIgnoreCase(resp.getCharacterEncoding())) {
+            try {
+                out = resp.getOutputStream();
+            } catch (IllegalStateException e) {
+                //处理方法已经使用过getWriter()
+            }
+        }
+        if(out == null) {
+            //只能经过Writer时取出全部元素后按JSON数组写出
+            write(resp, streamingWriter.collect(value));
+            return ;
+        }
+        ResponseBuffer buffer = pool.acquire();
+        try {
+            buffer.open(resp, out);
+            streamingWriter.write(resp, buffer, value, sse);
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * 写出返回值，null不输出
+     * @param resp 响应
+     * @param value 处理方法的返回值
+     */
+    public void write(HttpServletResponse resp, Object value) throws IOException {
+        if(value == null) {return ;}
+        boolean text = value instanceof CharSequence;
+        if(resp.getContentType() == null) {
+            resp.setContentType(text ? TEXT_CONTENT_TYPE : JSON_CONTENT_TYPE);
+        } else if(!"UTF-8".equalsIgnoreCase(resp.getCharacterEncoding())) {
+            //处理方法指定了其它字符集，交给容器的Writer编码
+            String body = text ? value.toString() : toJson(value);
+            resp.getWriter().write(body);
+            return ;
+        }
+        OutputStream out;
+        try {
+            out = resp.getOutputStream();
+        } catch (IllegalStateException e) {
+            //处理方法已经使用过getWriter()，输出流不可用，只能经过Writer
+            resp.getWriter().write(text ? value.toString() : toJson(value));
+            return ;
+        }
+        ResponseBuffer buffer = pool.acquire();
+        try {
+            buffer.open(resp, out);
+            if(text) {
+                buffer.writeUtf8((CharSequence) value);
+            } else {
+                JsonWriter.write(buffer, value);
+            }
+            buffer.finish();
+        } finally {
+            pool.release(buffer);
+        }
+    }
+
+    /**
+     * 编码为JSON字符串，用于只能经过Writer输出的情况
+     */
+    static String toJson(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ResponseBuffer buffer = new ResponseBuffer(1024);
+        buffer.open(null, bytes);
+        JsonWriter.write(buffer, value);
+        buffer.finish();
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
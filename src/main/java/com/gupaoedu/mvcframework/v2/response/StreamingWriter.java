@@ -0,0 +1,201 @@
+package com.gupaoedu.mvcframework.v2.response;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.BaseStream;
+
+/**
+ * 流式写出Iterator、Stream和{@link ResponseEmitter}：逐个元素编码进{@link ResponseBuffer}，
+ * 自上次刷新起写入超过flushBytes、经过flushMillis或者ResponseEmitter暂时没有元素时刷新，内存中只有一个缓冲区。
+ * <p>默认输出JSON数组；请求的Accept或处理方法设置的Content-Type是text/event-stream时按SSE输出，
+ * 每个元素一个事件并立即刷新。写出失败视为客户端断开，停止取元素；结束后关闭Stream和可关闭的Iterator。</p>
+ * @since V1.0.0
+ */
+final class StreamingWriter {
+
+    static final String EVENT_STREAM = "text/event-stream";
+
+    private static final byte[] DATA = "data: ".getBytes(StandardCharsets.US_ASCII);
+
+    //已经写出一部分后出错，告诉SSE客户端不是正常结束，具体原因只进日志
+    private static final byte[] ERROR_EVENT = "event: error\ndata: 500 Internal Server Error\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final long flushBytes;
+
+    private final long flushNanos;
+
+    /**
+     * @param flushBytes 自上次刷新起写入的字节数达到时刷新
+     * @param flushMillis 距上次刷新的毫秒数达到时刷新
+     */
+    StreamingWriter(long flushBytes, long flushMillis) {
+        this.flushBytes = flushBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+    }
+
+    static boolean isStreaming(Object value) {
+        return value instanceof Iterator || value instanceof BaseStream || value instanceof ResponseEmitter;
+    }
+
+    /**
+     * 处理方法设置的Content-Type优先，没有设置时看请求的Accept
+     */
+    static boolean isEventStream(HttpServletRequest req, HttpServletResponse resp) {
+        String contentType = resp.getContentType();
+        if(contentType != null) {
+            return contentType.startsWith(EVENT_STREAM);
+        }
+        String accept = req.getHeader("Accept");
+        return accept != null && accept.contains(EVENT_STREAM);
+    }
+
+    /**
+     * 逐个元素写出
+     * @param buffer 已经打开的缓冲区
+     * @param sse 是否按SSE输出
+     */
+    void write(HttpServletResponse resp, ResponseBuffer buffer, Object value, boolean sse) throws IOException {
+        ResponseEmitter<?> emitter = value instanceof ResponseEmitter ? (ResponseEmitter<?>) value : null;
+        Iterator<?> iterator = emitter == null ? iterator(value) : null;
+        try {
+            if(sse) {
+                resp.setHeader("Cache-Control", "no-cache");
+                //先提交响应头，客户端立即知道事件流已经建立
+                buffer.flush();
+            } else {
+                buffer.write('[');
+            }
+            long flushedBytes = buffer.written();
+            long flushedAt = System.nanoTime();
+            boolean first = true;
+            while (true) {
+                Object element;
+                if(emitter != null) {
+                    if(emitter.isEmpty() && buffer.written() > flushedBytes) {
+                        //生产者暂时没有数据，先把已有的写出
+                        buffer.flush();
+                        flushedBytes = buffer.written();
+                        flushedAt = System.nanoTime();
+                    }
+                    element = emitter.take();
+                    if(element == ResponseEmitter.END) {break;}
+                } else {
+                    if(!iterator.hasNext()) {break;}
+                    element = iterator.next();
+                }
+                if(sse) {
+                    writeEvent(buffer, element);
+                } else {
+                    if(!first) {buffer.write(',');}
+                    JsonWriter.write(buffer, element);
+                }
+                first = false;
+                if(sse || buffer.written() - flushedBytes >= flushBytes || System.nanoTime() - flushedAt >= flushNanos) {
+                    buffer.flush();
+                    flushedBytes = buffer.written();
+                    flushedAt = System.nanoTime();
+                }
+            }
+            if(!sse) {
+                buffer.write(']');
+            }
+            buffer.finish();
+        } catch (IOException e) {
+            //客户端已经断开，停止输出，不按异常处理
+        } catch (RuntimeException e) {
+            //取元素或编码出错
+            failed(resp, buffer, sse);
+            throw e;
+        } finally {
+            close(value, emitter, iterator);
+        }
+    }
+
+    /**
+     * 出错时已经提交的SSE响应补一个error事件；还没有提交的响应交给异常处理，缓冲的内容不再写出
+     */
+    private static void failed(HttpServletResponse resp, ResponseBuffer buffer, boolean sse) {
+        if(!sse || !resp.isCommitted()) {return ;}
+        try {
+            buffer.write(ERROR_EVENT);
+            buffer.flush();
+        } catch (IOException e) {
+            //客户端已经断开
+        }
+    }
+
+    /**
+     * 取出全部元素，用于只能经过Writer输出的情况
+     */
+    List<Object> collect(Object value) {
+        ResponseEmitter<?> emitter = value instanceof ResponseEmitter ? (ResponseEmitter<?>) value : null;
+        Iterator<?> iterator = emitter == null ? iterator(value) : null;
+        List<Object> elements = new ArrayList<>();
+        try {
+            if(emitter != null) {
+                Object element;
+                while ((element = emitter.take()) != ResponseEmitter.END) {
+                    elements.add(element);
+                }
+            } else {
+                while (iterator.hasNext()) {
+                    elements.add(iterator.next());
+                }
+            }
+        } finally {
+            close(value, emitter, iterator);
+        }
+        return elements;
+    }
+
+    /**
+     * 一个事件：字符串每行一个data字段，其余对象编码为一行JSON
+     */
+    private static void writeEvent(ResponseBuffer buffer, Object element) throws IOException {
+        if(element instanceof CharSequence) {
+            CharSequence text = (CharSequence) element;
+            int start = 0;
+            for(int i = 0; i <= text.length(); i++) {
+                if(i == text.length() || text.charAt(i) == '\n') {
+                    int end = i > start && text.charAt(i - 1) == '\r' ? i - 1 : i;
+                    buffer.write(DATA);
+                    buffer.writeUtf8(text.subSequence(start, end));
+                    buffer.write('\n');
+                    start = i + 1;
+                }
+            }
+        } else {
+            buffer.write(DATA);
+            JsonWriter.write(buffer, element);
+            buffer.write('\n');
+        }
+        buffer.write('\n');
+    }
+
+    private static Iterator<?> iterator(Object value) {
+        return value instanceof Iterator ? (Iterator<?>) value : ((BaseStream<?, ?>) value).iterator();
+    }
+
+    /**
+     * 关闭数据源：Stream可能持有文件或游标，ResponseEmitter通知生产者停止
+     */
+    private static void close(Object value, ResponseEmitter<?> emitter, Iterator<?> iterator) {
+        if(emitter != null) {
+            emitter.cancel();
+        } else if(value instanceof BaseStream) {
+            ((BaseStream<?, ?>) value).close();
+        } else if(iterator instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) iterator).close();
+            } catch (Exception e) {
+                //响应已经写完，关闭失败不影响结果
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.gupaoedu.mvcframework.v2.router;
+
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+
+/**
+ * 路由匹配结果：纯字面量路由的结果在注册时预先生成，匹配时不产生新对象；
+ * 带路径变量的路由只记录变量在uri中的起止位置，取值时才截取字符串
+ * @since V1.0.0
+ */
+public final class RouteMatch {
+
+    public enum Status {
+        FOUND, NOT_FOUND, METHOD_NOT_ALLOWED
+    }
+
+    static final String[] NO_VARIABLES = new String[0];
+
+    public static final RouteMatch NOT_FOUND = new RouteMatch(Status.NOT_FOUND, null, null, NO_VARIABLES);
+
+    private final Status status;
+
+    private final HandlerMethod handler;
+
+    //405时的Allow响应头
+    private final String allow;
+
+    //路径变量名，按在路由中出现的顺序
+    private final String[] variableNames;
+
+    //请求uri，路径变量从中截取
+    private final String uri;
+
+    //路径变量在uri中的起止位置，[start0, end0, start1, end1, ...]
+    private final int[] offsets;
+
+    RouteMatch(Status status, HandlerMethod handler, String allow, String[] variableNames) {
+        this(status, handler, allow, variableNames, null, null);
+    }
+
+    private RouteMatch(Status status, HandlerMethod handler, String allow, String[] variableNames,
+                       String uri, int[] offsets) {
+        this.status = status;
+        this.handler = handler;
+        this.allow = allow;
+        this.variableNames = variableNames;
+        this.uri = uri;
+        this.offsets = offsets;
+    }
+
+    /**
+     * 以当前结果为模板，生成记录路径变量位置的结果
+     * @param uri 请求uri
+     */
+    RouteMatch withUri(String uri) {
+        return new RouteMatch(status, handler, allow, variableNames, uri, new int[variableNames.length << 1]);
+    }
+
+    /**
+     * 回溯时记录路径变量的位置
+     */
+    void capture(int index, int start, int end) {
+        offsets[index << 1] = start;
+        offsets[(index << 1) + 1] = end;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+
+    public HandlerMethod getHandler() {
+        return handler;
+    }
+
+    public String getAllow() {
+        return allow;
+    }
+
+    public int getVariableCount() {
+        return variableNames.length;
+    }
+
+    /**
+     * 获取路径变量的值，不存在时返回null
+     * @param name 路径变量名
+     */
+    public String getVariable(String name) {
+        for(int i = 0; i < variableNames.length; i++) {
+            if(variableNames[i].equals(name)) {
+                return getVariable(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按顺序获取路径变量的值
+     * @param index 路径变量下标
+     */
+    public String getVariable(int index) {
+        return uri.substring(offsets[index << 1], offsets[(index << 1) + 1]);
+    }
+}
@@ -0,0 +1,154 @@
+package com.gupaoedu.mvcframework.v2.router;
+
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+
+import java.util.Arrays;
+
+/**
+ * 路由树节点：一个节点对应一级路径片段
+ */
+final class RouteNode {
+
+    private static final int[] NO_HASHES = new int[0];
+
+    private static final String[] NO_SEGMENTS = new String[0];
+
+    private static final RouteNode[] NO_CHILDREN = new RouteNode[0];
+
+    private static final RequestMethod[] METHODS = RequestMethod.values();
+
+    //字面量子节点，按片段hash排序，匹配时二分查找，不截取字符串
+    private int[] hashes = NO_HASHES;
+    private String[] segments = NO_SEGMENTS;
+    private RouteNode[] children = NO_CHILDREN;
+
+    // {var} 子节点
+    RouteNode variable;
+
+    // * 子节点，匹配一级任意片段
+    RouteNode wildcard;
+
+    // ** 子节点，匹配剩余的所有片段
+    RouteNode catchAll;
+
+    //按请求方式注册的匹配结果模板，下标为RequestMethod.ordinal()
+    private RouteMatch[] templates;
+
+    //不限制请求方式的匹配结果模板
+    private RouteMatch anyTemplate;
+
+    //405结果
+    private RouteMatch notAllowed;
+
+    /**
+     * 获取或创建字面量子节点（初始化阶段调用）
+     */
+    RouteNode literal(String segment) {
+        int hash = segment.hashCode();
+        for(int i = 0; i < segments.length; i++) {
+            if(hashes[i] == hash && segments[i].equals(segment)) {
+                return children[i];
+            }
+        }
+        int pos = 0;
+        while (pos < hashes.length && hashes[pos] <= hash) {pos++;}
+        RouteNode child = new RouteNode();
+        hashes = insert(hashes, pos, hash);
+        segments = insert(segments, pos, segment);
+        children = insert(children, pos, child);
+        return child;
+    }
+
+    /**
+     * 查找与uri[from, to)相同的字面量子节点
+     * @param hash 片段的hash，与String.hashCode()算法一致
+     */
+    RouteNode findLiteral(String uri, int from, int to, int hash) {
+        int i = Arrays.binarySearch(hashes, hash);
+        if(i < 0) {return null;}
+        while (i > 0 && hashes[i - 1] == hash) {i--;}
+        int length = to - from;
+        for(; i < hashes.length && hashes[i] == hash; i++) {
+            String segment = segments[i];
+            if(segment.length() == length && uri.regionMatches(from, segment, 0, length)) {
+                return children[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 注册处理器（初始化阶段调用）
+     * @param pattern 路由
+     * @param methods 支持的请求方式，为空表示不限制
+     * @param variableNames 路径变量名
+     */
+    void register(String pattern, RequestMethod[] methods, String[] variableNames, HandlerMethod handler) {
+        if(templates == null) {
+            templates = new RouteMatch[METHODS.length];
+        }
+        RouteMatch template = new RouteMatch(RouteMatch.Status.FOUND, handler, null, variableNames);
+        if(methods.length == 0) {
+            if(anyTemplate != null) {
+                throw new IllegalStateException("Ambiguous mapping " + pattern + " : " + anyTemplate.getHandler() + " , " + handler);
+            }
+            anyTemplate = template;
+        }
+        for(RequestMethod method : methods) {
+            RouteMatch exists = templates[method.ordinal()];
+            if(exists != null) {
+                throw new IllegalStateException("Ambiguous mapping " + method + " " + pattern + " : " + exists.getHandler() + " , " + handler);
+            }
+            templates[method.ordinal()] = template;
+        }
+        //重新生成Allow
+        StringBuilder allow = new StringBuilder();
+        for(RequestMethod method : METHODS) {
+            if(templates[method.ordinal()] == null) {continue;}
+            if(allow.length() > 0) {allow.append(", ");}
+            allow.append(method.name());
+        }
+        notAllowed = new RouteMatch(RouteMatch.Status.METHOD_NOT_ALLOWED, null, allow.toString(), RouteMatch.NO_VARIABLES);
+    }
+
+    /**
+     * 按请求方式选择处理器
+     * @param method 请求方式，未知方式为null
+     * @param uri 请求uri
+     * @return 匹配成功或405，未注册处理器时返回null
+     */
+    RouteMatch select(RequestMethod method, String uri) {
+        if(templates == null) {return null;}
+        RouteMatch template = null;
+        if(method != null) {
+            template = templates[method.ordinal()];
+            //HEAD默认交给GET处理
+            if(template == null && method == RequestMethod.HEAD) {
+                template = templates[RequestMethod.GET.ordinal()];
+            }
+        }
+        if(template == null) {
+            template = anyTemplate;
+        }
+        if(template == null) {
+            return notAllowed;
+        }
+        return template.getVariableCount() == 0 ? template : template.withUri(uri);
+    }
+
+    private static int[] insert(int[] array, int pos, int value) {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, pos);
+        result[pos] = value;
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        return result;
+    }
+
+    private static <T> T[] insert(T[] array, int pos, T value) {
+        T[] result = Arrays.copyOf(array, array.length + 1);
+        System.arraycopy(array, pos, result, pos + 1, array.length - pos);
+        result[pos] = value;
+        return result;
+    }
+}
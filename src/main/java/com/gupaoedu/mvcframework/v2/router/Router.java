@@ -0,0 +1,152 @@
+package com.gupaoedu.mvcframework.v2.router;
+
+import com.gupaoedu.mvcframework.annotation.RequestMethod;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按路径片段组织的路由树
+ * <p>支持字面量片段、{var}路径变量、*(一级任意片段)和**(剩余所有片段，只能出现在最后)。
+ * 优先级为 字面量 &gt; {var} &gt; * &gt; **。匹配时对uri只扫描一次，连续的'/'视为一个，
+ * 不使用正则，也不截取字符串。</p>
+ * @since V1.0.0
+ */
+public class Router {
+
+    private final RouteNode root = new RouteNode();
+
+    /**
+     * 注册路由（初始化阶段调用）
+     * @param pattern 路由，如 /demo/{id}
+     * @param methods 支持的请求方式，为空表示不限制
+     * @param handler 处理器
+     */
+    public void register(String pattern, RequestMethod[] methods, HandlerMethod handler) {
+        RouteNode node = root;
+        List<String> variableNames = new ArrayList<>();
+        String[] segments = pattern.split("/");
+        for(int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            if(segment.isEmpty()) {continue;}
+            if("**".equals(segment)) {
+                if(i != segments.length - 1) {
+                    throw new IllegalArgumentException("'**' must be the last segment : " + pattern);
+                }
+                if(node.catchAll == null) {node.catchAll = new RouteNode();}
+                node = node.catchAll;
+            } else if("*".equals(segment)) {
+                if(node.wildcard == null) {node.wildcard = new RouteNode();}
+                node = node.wildcard;
+            } else if(segment.length() > 2 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}') {
+                variableNames.add(segment.substring(1, segment.length() - 1).trim());
+                if(node.variable == null) {node.variable = new RouteNode();}
+                node = node.variable;
+            } else {
+                node = node.literal(segment);
+            }
+        }
+        node.register(pattern, methods, variableNames.toArray(new String[0]), handler);
+    }
+
+    /**
+     * 匹配路由
+     * @param uri 请求uri
+     * @param start 路由部分在uri中的起始位置（跳过contextPath）
+     * @param method 请求方式
+     * @return 匹配结果，不会为null
+     */
+    public RouteMatch match(String uri, int start, String method) {
+        RouteMatch match = find(root, uri, start, RequestMethod.resolve(method), 0);
+        return match == null ? RouteMatch.NOT_FOUND : match;
+    }
+
+    /**
+     * 按匹配时的规则规范化路径：连续的'/'合并为一个，去掉末尾的'/'，匹配到同一路由的同一资源得到同一个路径。
+     * 已经规范的路径原样返回，不产生新对象
+     * @param path 请求路径
+     */
+    public static String normalize(String path) {
+        int length = path.length();
+        boolean normalized = length > 0 && path.charAt(0) == '/' && (length == 1 || path.charAt(length - 1) != '/');
+        for(int i = 1; normalized && i < length; i++) {
+            if(path.charAt(i) == '/' && path.charAt(i - 1) == '/') {normalized = false;}
+        }
+        if(normalized) {return path;}
+        StringBuilder result = new StringBuilder(length + 1);
+        for(int i = 0; i < length; i++) {
+            char c = path.charAt(i);
+            if(c != '/') {
+                result.append('/');
+                while (i < length && (c = path.charAt(i)) != '/') {
+                    result.append(c);
+                    i++;
+                }
+            }
+        }
+        return result.length() == 0 ? "/" : result.toString();
+    }
+
+    /**
+     * 深度优先匹配，失败时回溯到优先级更低的分支；405结果只在没有任何分支匹配成功时返回
+     * @param captureIndex 已经经过的路径变量个数
+     */
+    private RouteMatch find(RouteNode node, String uri, int pos, RequestMethod method, int captureIndex) {
+        int length = uri.length();
+        //连续的'/'视为一个
+        while (pos < length && uri.charAt(pos) == '/') {pos++;}
+        if(pos >= length) {
+            RouteMatch match = node.select(method, uri);
+            if(match != null && match.isFound()) {return match;}
+            // ** 可以匹配0个片段
+            if(node.catchAll != null) {
+                RouteMatch rest = node.catchAll.select(method, uri);
+                if(rest != null && (rest.isFound() || match == null)) {return rest;}
+            }
+            return match;
+        }
+        //读取一个片段并计算hash
+        int end = pos;
+        int hash = 0;
+        char c;
+        while (end < length && (c = uri.charAt(end)) != '/') {
+            hash = 31 * hash + c;
+            end++;
+        }
+        RouteMatch fallback = null;
+        RouteNode child = node.findLiteral(uri, pos, end, hash);
+        if(child != null) {
+            RouteMatch match = find(child, uri, end, method, captureIndex);
+            if(match != null) {
+                if(match.isFound()) {return match;}
+                fallback = match;
+            }
+        }
+        if(node.variable != null) {
+            RouteMatch match = find(node.variable, uri, end, method, captureIndex + 1);
+            if(match != null) {
+                if(match.isFound()) {
+                    match.capture(captureIndex, pos, end);
+                    return match;
+                }
+                if(fallback == null) {fallback = match;}
+            }
+        }
+        if(node.wildcard != null) {
+            RouteMatch match = find(node.wildcard, uri, end, method, captureIndex);
+            if(match != null) {
+                if(match.isFound()) {return match;}
+                if(fallback == null) {fallback = match;}
+            }
+        }
+        if(node.catchAll != null) {
+            RouteMatch match = node.catchAll.select(method, uri);
+            if(match != null) {
+                if(match.isFound()) {return match;}
+                if(fallback == null) {fallback = match;}
+            }
+        }
+        return fallback;
+    }
+}
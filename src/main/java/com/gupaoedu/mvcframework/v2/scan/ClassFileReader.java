@@ -0,0 +1,174 @@
+package com.gupaoedu.mvcframework.v2.scan;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 类文件读取：只解析常量池和类上的RuntimeVisibleAnnotations属性，判断是否带有指定注解，
+ * 不加载类，也不为常量池中的字符串创建对象
+ * @since V1.0.0
+ */
+final class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] bytes;
+
+    //常量池中各项的起始位置（指向tag），Utf8之外的项只用于跳过
+    private int[] offsets;
+
+    private int position;
+
+    ClassFileReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * 类上是否带有任意一个注解
+     * @param descriptors 注解的类型描述符，如Lcom/gupaoedu/mvcframework/annotation/WCController;
+     */
+    boolean hasAnyAnnotation(byte[][] descriptors) {
+        if(bytes.length < 10 || readInt(0) != MAGIC) {return false;}
+        position = 8;
+        readConstantPool();
+        //access_flags, this_class, super_class
+        position += 6;
+        int interfaces = readUnsignedShort();
+        position += interfaces * 2;
+        skipMembers();
+        skipMembers();
+        int attributes = readUnsignedShort();
+        for(int i = 0; i < attributes; i++) {
+            int nameIndex = readUnsignedShort();
+            int length = readInt(position);
+            position += 4;
+            int end = position + length;
+            if(utf8Equals(nameIndex, RUNTIME_VISIBLE_ANNOTATIONS) && annotationsMatch(descriptors)) {
+                return true;
+            }
+            position = end;
+        }
+        return false;
+    }
+
+    private void readConstantPool() {
+        int count = readUnsignedShort();
+        offsets = new int[count];
+        for(int i = 1; i < count; i++) {
+            offsets[i] = position;
+            int tag = bytes[position++] & 0xFF;
+            switch (tag) {
+                case 1:
+                    position += 2 + readUnsignedShort(position);
+                    break;
+                case 7: case 8: case 16: case 19: case 20:
+                    position += 2;
+                    break;
+                case 15:
+                    position += 3;
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    position += 4;
+                    break;
+                case 5: case 6:
+                    //long和double占两个位置
+                    position += 8;
+                    i++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+            }
+        }
+    }
+
+    /**
+     * 跳过字段或方法表
+     */
+    private void skipMembers() {
+        int count = readUnsignedShort();
+        for(int i = 0; i < count; i++) {
+            //access_flags, name_index, descriptor_index
+            position += 6;
+            int attributes = readUnsignedShort();
+            for(int j = 0; j < attributes; j++) {
+                position += 2;
+                int length = readInt(position);
+                position += 4 + length;
+            }
+        }
+    }
+
+    private boolean annotationsMatch(byte[][] descriptors) {
+        int count = readUnsignedShort();
+        for(int i = 0; i < count; i++) {
+            int typeIndex = readUnsignedShort();
+            for(byte[] descriptor : descriptors) {
+                if(utf8Equals(typeIndex, descriptor)) {return true;}
+            }
+            int pairs = readUnsignedShort();
+            for(int j = 0; j < pairs; j++) {
+                position += 2;
+                skipElementValue();
+            }
+        }
+        return false;
+    }
+
+    private void skipElementValue() {
+        int tag = bytes[position++] & 0xFF;
+        switch (tag) {
+            case 'e':
+                position += 4;
+                break;
+            case '@':
+                position += 2;
+                int pairs = readUnsignedShort();
+                for(int j = 0; j < pairs; j++) {
+                    position += 2;
+                    skipElementValue();
+                }
+                break;
+            case '[':
+                int values = readUnsignedShort();
+                for(int j = 0; j < values; j++) {
+                    skipElementValue();
+                }
+                break;
+            default:
+                //基本类型、String和Class都是一个常量池下标
+                position += 2;
+        }
+    }
+
+    /**
+     * 常量池中的Utf8项与给定字节逐个比较，类型描述符都是ASCII，修改版UTF-8与标准UTF-8一致
+     */
+    private boolean utf8Equals(int index, byte[] expected) {
+        if(index <= 0 || index >= offsets.length) {return false;}
+        int offset = offsets[index];
+        if(bytes[offset] != 1) {return false;}
+        int length = readUnsignedShort(offset + 1);
+        if(length != expected.length) {return false;}
+        int start = offset + 3;
+        for(int i = 0; i < length; i++) {
+            if(bytes[start + i] != expected[i]) {return false;}
+        }
+        return true;
+    }
+
+    private int readUnsignedShort() {
+        int value = readUnsignedShort(position);
+        position += 2;
+        return value;
+    }
+
+    private int readUnsignedShort(int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private int readInt(int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+}
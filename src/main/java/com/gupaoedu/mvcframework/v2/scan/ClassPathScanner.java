@@ -0,0 +1,149 @@
+package com.gupaoedu.mvcframework.v2.scan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Annotation;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 类路径扫描：支持目录和jar（如WEB-INF/lib下的jar），并行读取类文件，
+ * 只返回类上带有指定注解的类名，其余类不会被加载
+ * @since V1.0.0
+ */
+public class ClassPathScanner {
+
+    private static final String CLASS_SUFFIX = ".class";
+
+    private final ClassLoader classLoader;
+
+    //注解的类型描述符
+    private final byte[][] descriptors;
+
+    @SafeVarargs
+    public ClassPathScanner(ClassLoader classLoader, Class<? extends Annotation>... annotationTypes) {
+        this.classLoader = classLoader;
+        this.descriptors = new byte[annotationTypes.length][];
+        for(int i = 0; i < annotationTypes.length; i++) {
+            this.descriptors[i] = ("L" + annotationTypes[i].getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 扫描包及其子包
+     * @param scanPackage 扫描类的包路径
+     * @return 带有指定注解的类名，按名字排序
+     */
+    public List<String> scan(String scanPackage) throws IOException {
+        String path = scanPackage.replace('.', '/');
+        List<URL> roots = Collections.list(classLoader.getResources(path));
+        //同一个包可能分布在多个目录和jar中
+        return roots.parallelStream()
+                .flatMap(root -> scanRoot(root, path))
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Stream<String> scanRoot(URL root, String path) {
+        try {
+            if("file".equals(root.getProtocol())) {
+                return scanDirectory(new File(root.toURI()).toPath(), path.replace('/', '.'));
+            }
+            URLConnection connection = root.openConnection();
+            if(connection instanceof JarURLConnection) {
+                return scanJar((JarURLConnection) connection, path + "/");
+            }
+            System.out.println("Unsupported scan location :" + root);
+            return Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private Stream<String> scanDirectory(Path directory, String scanPackage) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(file -> file.getFileName().toString().endsWith(CLASS_SUFFIX))
+                    .collect(Collectors.toList());
+        }
+        return files.parallelStream()
+                .filter(file -> matches(readFile(file), file))
+                .map(file -> {
+                    String relative = directory.relativize(file).toString().replace(File.separatorChar, '.');
+                    return scanPackage + "." + relative.substring(0, relative.length() - CLASS_SUFFIX.length());
+                });
+    }
+
+    private Stream<String> scanJar(JarURLConnection connection, String prefix) throws IOException {
+        //不使用缓存，自己打开的JarFile可以放心关闭，不影响类加载器
+        connection.setUseCaches(false);
+        List<String> classNames;
+        try (JarFile jar = connection.getJarFile()) {
+            List<JarEntry> entries = new ArrayList<>();
+            for(Enumeration<JarEntry> e = jar.entries(); e.hasMoreElements(); ) {
+                JarEntry entry = e.nextElement();
+                if(!entry.isDirectory() && entry.getName().startsWith(prefix) && entry.getName().endsWith(CLASS_SUFFIX)) {
+                    entries.add(entry);
+                }
+            }
+            //ZipFile支持多线程读取不同条目，必须在关闭前收集结果
+            classNames = entries.parallelStream()
+                    .filter(entry -> matches(readEntry(jar, entry), entry.getName()))
+                    .map(entry -> {
+                        String name = entry.getName();
+                        return name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.');
+                    })
+                    .collect(Collectors.toList());
+        }
+        return classNames.stream();
+    }
+
+    private boolean matches(byte[] bytes, Object source) {
+        try {
+            return new ClassFileReader(bytes).hasAnyAnnotation(descriptors);
+        } catch (RuntimeException e) {
+            //损坏或无法识别的类文件直接跳过
+            System.out.println("Skip unreadable class file :" + source + " " + e);
+            return false;
+        }
+    }
+
+    private static byte[] readFile(Path file) {
+        try {
+            return Files.readAllBytes(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] readEntry(JarFile jar, JarEntry entry) {
+        try (InputStream is = jar.getInputStream(entry)) {
+            long size = entry.getSize();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(size > 0 ? (int) size : 4096);
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个客户端连接，只在所属的I/O线程上访问。
+ * <p>流水线上的请求按到达顺序放进inFlight，可以并行处理，写出时只从队头取已经完成的，保证响应顺序；
+ * 处理中的请求达到上限时暂停读取，由TCP的接收窗口把压力传回客户端。</p>
+ * @since V1.0.0
+ */
+final class Connection {
+
+    private static final byte[] CONTINUE = "HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    //最多等待客户端关闭连接的时间
+    private static final long LINGER_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final WCServer server;
+
+    private final IoLoop loop;
+
+    private final SocketChannel channel;
+
+    private final RequestParser parser;
+
+    private final InetSocketAddress remoteAddress;
+
+    private final InetSocketAddress localAddress;
+
+    //处理中的请求，按到达顺序
+    private final ArrayDeque<Exchange> inFlight = new ArrayDeque<>();
+
+    //等待写出的数据
+    private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>();
+
+    private SelectionKey key;
+
+    //写模式
+    private ByteBuffer input;
+
+    //已经回复过100 Continue的请求
+    private EmbeddedRequest continued;
+
+    //正在解析，complete里不重入
+    private boolean parsing = false;
+
+    //处理中的请求太多，暂停读取
+    private boolean paused = false;
+
+    //不再读取新的请求：客户端关闭了输出、要求关闭连接或者请求格式错误
+    private boolean inputDone = false;
+
+    //客户端已经关闭了输出
+    private boolean eof = false;
+
+    //响应已经写完并关闭了输出，丢弃客户端还在发送的数据，等它关闭连接，避免直接关闭时未读的数据触发RST冲掉响应
+    private boolean lingering = false;
+
+    private boolean closed = false;
+
+    //最后一次读写的时间，System.nanoTime()
+    private long lastActive = System.nanoTime();
+
+    Connection(WCServer server, IoLoop loop, SocketChannel channel) throws IOException {
+        this.server = server;
+        this.loop = loop;
+        this.channel = channel;
+        this.parser = new RequestParser(server.maxHeaderBytes(), server.maxBodyBytes());
+        this.input = ByteBuffer.allocate(Math.min(4096, server.maxHeaderBytes()));
+        this.remoteAddress = (InetSocketAddress) channel.getRemoteAddress();
+        this.localAddress = (InetSocketAddress) channel.getLocalAddress();
+    }
+
+    void register(SelectionKey key) {
+        this.key = key;
+    }
+
+    WCServer server() {
+        return server;
+    }
+
+    IoLoop loop() {
+        return loop;
+    }
+
+    InetSocketAddress remoteAddress() {
+        return remoteAddress;
+    }
+
+    InetSocketAddress localAddress() {
+        return localAddress;
+    }
+
+    /**
+     * 可读时读入缓冲区并解析
+     */
+    void onReadable() {
+        if(lingering) {
+            discard();
+            return ;
+        }
+        int n;
+        try {
+            if(!input.hasRemaining()) {
+                //请求头放不下时扩容，上限由解析器检查
+                ByteBuffer larger = ByteBuffer.allocate(Math.min(input.capacity() * 2, server.maxHeaderBytes() + 1024));
+                input.flip();
+                larger.put(input);
+                input = larger;
+            }
+            n = channel.read(input);
+        } catch (IOException e) {
+            close();
+            return ;
+        }
+        if(n < 0) {
+            //客户端关闭了输出，写完已经收到的请求再关闭
+            eof = true;
+            inputDone = true;
+            interest(SelectionKey.OP_READ, false);
+            if(inFlight.isEmpty() && output.isEmpty()) {
+                close();
+            }
+            return ;
+        }
+        lastActive = System.nanoTime();
+        parse();
+    }
+
+    /**
+     * 从缓冲区解析出所有完整的请求并交给工作线程
+     */
+    private void parse() {
+        parsing = true;
+        input.flip();
+        try {
+            while (!paused && !inputDone && !closed) {
+                EmbeddedRequest request;
+                try {
+                    request = parser.parse(input, (method, target, protocol) -> new Exchange(this, method, target, protocol).request());
+                } catch (RequestParser.BadRequest e) {
+                    inputDone = true;
+                    inFlight.add(Exchange.error(this, e.status, e.getMessage()));
+                    interest(SelectionKey.OP_READ, false);
+                    break;
+                }
+                if(request == null) {
+                    expectContinue();
+                    break;
+                }
+                continued = null;
+                if(!request.isKeepAlive()) {
+                    inputDone = true;
+                    interest(SelectionKey.OP_READ, false);
+                }
+                Exchange exchange = request.exchange();
+                inFlight.add(exchange);
+                if(inFlight.size() >= server.maxPipelined()) {
+                    paused = true;
+                    interest(SelectionKey.OP_READ, false);
+                }
+                server.dispatch(exchange);
+            }
+        } finally {
+            input.compact();
+            parsing = false;
+        }
+        drain();
+    }
+
+    /**
+     * 请求头带Expect: 100-continue且前面没有处理中的请求时，先回复100再等待请求体
+     */
+    private void expectContinue() {
+        EmbeddedRequest pending = parser.pending();
+        if(pending == null || pending == continued || !parser.isReadingBody() || !inFlight.isEmpty()) {return ;}
+        String expect = pending.getHeader("Expect");
+        if(expect != null && "100-continue".equalsIgnoreCase(expect.trim()) && "HTTP/1.1".equals(pending.getProtocol())) {
+            continued = pending;
+            output.add(ByteBuffer.wrap(CONTINUE));
+        }
+    }
+
+    /**
+     * 一个请求处理完成，在I/O线程上调用
+     */
+    void complete(Exchange exchange) {
+        if(closed) {return ;}
+        drain();
+        if(paused && inFlight.size() < server.maxPipelined() && !closed) {
+            paused = false;
+            if(!inputDone) {
+                interest(SelectionKey.OP_READ, true);
+                if(!parsing) {
+                    //暂停期间已经读入的数据
+                    parse();
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理中的请求交来了分块，在I/O线程上调用
+     */
+    void flush() {
+        if(closed) {return ;}
+        drain();
+    }
+
+    /**
+     * 按顺序取出队头已经完成的响应并写出，队头还在分块写出时先写出已有的分块
+     */
+    private void drain() {
+        while (!inFlight.isEmpty()) {
+            Exchange head = inFlight.peekFirst();
+            //先读完成标记再取分块，完成之前交来的分块这时都已经在队列里
+            boolean finished = head.isDone();
+            head.takeChunks(output);
+            if(!finished) {break;}
+            Exchange done = inFlight.pollFirst();
+            for(ByteBuffer buffer : done.output()) {
+                output.add(buffer);
+            }
+            if(done.isClose()) {
+                //后面的请求不再处理
+                inputDone = true;
+                for(Exchange exchange : inFlight) {
+                    exchange.abort();
+                }
+                inFlight.clear();
+                interest(SelectionKey.OP_READ, false);
+                break;
+            }
+        }
+        write();
+    }
+
+    void onWritable() {
+        write();
+    }
+
+    private void write() {
+        if(closed) {return ;}
+        if(!output.isEmpty()) {
+            try {
+                ByteBuffer[] buffers = output.toArray(new ByteBuffer[0]);
+                channel.write(buffers);
+            } catch (IOException e) {
+                close();
+                return ;
+            }
+            lastActive = System.nanoTime();
+            while (!output.isEmpty() && !output.peekFirst().hasRemaining()) {
+                output.pollFirst();
+            }
+            if(output.isEmpty() && !inFlight.isEmpty()) {
+                inFlight.peekFirst().chunksWritten();
+            }
+        }
+        if(!output.isEmpty()) {
+            interest(SelectionKey.OP_WRITE, true);
+            return ;
+        }
+        interest(SelectionKey.OP_WRITE, false);
+        if(inputDone && inFlight.isEmpty()) {
+            if(eof) {
+                close();
+            } else {
+                linger();
+            }
+        }
+    }
+
+    private void linger() {
+        if(lingering) {return ;}
+        try {
+            channel.shutdownOutput();
+        } catch (IOException e) {
+            close();
+            return ;
+        }
+        lingering = true;
+        lastActive = System.nanoTime();
+        interest(SelectionKey.OP_READ, true);
+    }
+
+    private void discard() {
+        try {
+            input.clear();
+            while (true) {
+                int n = channel.read(input);
+                if(n < 0) {
+                    close();
+                    return ;
+                }
+                if(n == 0) {return ;}
+                input.clear();
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * 没有处理中的请求且超过keep-alive时间没有读写时关闭，也包括请求只发了一半的连接
+     */
+    void closeIfIdle(long now, long timeoutNanos) {
+        if(lingering && now - lastActive > Math.min(timeoutNanos, LINGER_NANOS)) {
+            close();
+            return ;
+        }
+        if(inFlight.isEmpty() && output.isEmpty() && now - lastActive > timeoutNanos) {
+            close();
+        }
+    }
+
+    void close() {
+        if(closed) {return ;}
+        closed = true;
+        for(Exchange exchange : inFlight) {
+            exchange.abort();
+        }
+        inFlight.clear();
+        output.clear();
+        if(key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            //关闭时的错误忽略
+        }
+    }
+
+    private void interest(int op, boolean on) {
+        if(key == null || !key.isValid()) {return ;}
+        int ops = key.interestOps();
+        int updated = on ? ops | op : ops & ~op;
+        if(updated != ops) {
+            key.interestOps(updated);
+        }
+    }
+}
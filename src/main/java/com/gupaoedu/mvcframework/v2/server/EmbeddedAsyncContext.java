@@ -0,0 +1,191 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 内嵌服务器的异步上下文：service返回后才开始计算超时，complete只生效一次，之后响应交给连接写出。
+ * <p>不支持dispatch，框架只使用complete。</p>
+ * @since V1.0.0
+ */
+final class EmbeddedAsyncContext implements AsyncContext {
+
+    private final Exchange exchange;
+
+    private final ServletRequest request;
+
+    private final ServletResponse response;
+
+    private final List<Registration> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    //毫秒，0或负数表示不超时
+    private volatile long timeout = 30000L;
+
+    private volatile ScheduledFuture<?> timeoutTask;
+
+    EmbeddedAsyncContext(Exchange exchange, ServletRequest request, ServletResponse response) {
+        this.exchange = exchange;
+        this.request = request;
+        this.response = response;
+    }
+
+    /**
+     * service返回后开始计时，期间已经完成的不再计时
+     */
+    void scheduleTimeout() {
+        if(timeout <= 0 || completed.get()) {return ;}
+        timeoutTask = exchange.scheduler().schedule(this::onTimeout, timeout, TimeUnit.MILLISECONDS);
+        if(completed.get()) {
+            timeoutTask.cancel(false);
+        }
+    }
+
+    /**
+     * 通知监听器，监听器没有结束处理时返回500
+     */
+    private void onTimeout() {
+        if(completed.get()) {return ;}
+        for(Registration registration : listeners) {
+            try {
+                registration.listener.onTimeout(registration.event(this));
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        if(completed.get()) {return ;}
+        HttpServletResponse resp = (HttpServletResponse) response;
+        try {
+            if(!resp.isCommitted()) {
+                resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Async Timeout");
+            }
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+        complete();
+    }
+
+    boolean isCompleted() {
+        return completed.get();
+    }
+
+    @Override
+    public void complete() {
+        if(!completed.compareAndSet(false, true)) {return ;}
+        ScheduledFuture<?> task = timeoutTask;
+        if(task != null) {
+            task.cancel(false);
+        }
+        for(Registration registration : listeners) {
+            try {
+                registration.listener.onComplete(registration.event(this));
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        exchange.release();
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+        return response;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+        return request instanceof EmbeddedRequest && response instanceof EmbeddedResponse;
+    }
+
+    @Override
+    public void dispatch() {
+        throw new UnsupportedOperationException("Async dispatch is not supported by the embedded server");
+    }
+
+    @Override
+    public void dispatch(String path) {
+        throw new UnsupportedOperationException("Async dispatch is not supported by the embedded server");
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+        throw new UnsupportedOperationException("Async dispatch is not supported by the embedded server");
+    }
+
+    /**
+     * 在工作线程池上执行，服务器在I/O线程上处理请求时使用公共线程池
+     */
+    @Override
+    public void start(Runnable run) {
+        exchange.executor().execute(run);
+    }
+
+    @Override
+    public void addListener(AsyncListener listener) {
+        listeners.add(new Registration(listener, null, null));
+    }
+
+    @Override
+    public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+        listeners.add(new Registration(listener, servletRequest, servletResponse));
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> clazz) throws ServletException {
+        try {
+            return clazz.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ServletException(e);
+        }
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * 监听器与注册时给出的请求和响应，没有给出时使用异步上下文的
+     */
+    private static final class Registration {
+
+        final AsyncListener listener;
+
+        final ServletRequest request;
+
+        final ServletResponse response;
+
+        Registration(AsyncListener listener, ServletRequest request, ServletResponse response) {
+            this.listener = listener;
+            this.request = request;
+            this.response = response;
+        }
+
+        AsyncEvent event(EmbeddedAsyncContext context) {
+            return new AsyncEvent(context, request != null ? request : context.request,
+                    response != null ? response : context.response);
+        }
+    }
+}
@@ -0,0 +1,698 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.Part;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * 内嵌服务器的请求：请求头按接收顺序保存在两个列表中，按名字线性查找（请求头通常只有十几个）；
+ * 参数在第一次读取时从查询串和表单请求体解析。
+ * <p>只实现框架用到的部分：不支持session、登录、multipart和协议升级，调用时抛出UnsupportedOperationException。</p>
+ * @since V1.0.0
+ */
+final class EmbeddedRequest implements HttpServletRequest {
+
+    private static final String FORM_CONTENT_TYPE = "application/x-www-form-urlencoded";
+
+    private final Exchange exchange;
+
+    private final String method;
+
+    private final String requestURI;
+
+    private final String queryString;
+
+    private final String protocol;
+
+    private final List<String> headerNames = new ArrayList<>(16);
+
+    private final List<String> headerValues = new ArrayList<>(16);
+
+    private byte[] body;
+
+    private String characterEncoding;
+
+    private Map<String, Object> attributes;
+
+    private Map<String, String[]> parameters;
+
+    private Cookie[] cookies;
+
+    private ServletInputStream inputStream;
+
+    private BufferedReader reader;
+
+    private EmbeddedAsyncContext asyncContext;
+
+    /**
+     * @param target 请求目标，路径加查询串
+     */
+    EmbeddedRequest(Exchange exchange, String method, String target, String protocol) {
+        this.exchange = exchange;
+        this.method = method;
+        int query = target.indexOf('?');
+        this.requestURI = query < 0 ? target : target.substring(0, query);
+        this.queryString = query < 0 ? null : target.substring(query + 1);
+        this.protocol = protocol;
+    }
+
+    void addHeader(String name, String value) {
+        headerNames.add(name);
+        headerValues.add(value);
+    }
+
+    void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    /**
+     * 客户端要求保持连接：HTTP/1.1默认保持，HTTP/1.0需要Connection: keep-alive
+     */
+    boolean isKeepAlive() {
+        String connection = getHeader("Connection");
+        if("HTTP/1.1".equals(protocol)) {
+            return connection == null || !connection.toLowerCase(Locale.ROOT).contains("close");
+        }
+        return connection != null && connection.toLowerCase(Locale.ROOT).contains("keep-alive");
+    }
+
+    Exchange exchange() {
+        return exchange;
+    }
+
+    EmbeddedAsyncContext asyncContext() {
+        return asyncContext;
+    }
+
+    // ---------------------------------------------------------------- 请求行与请求头
+
+    @Override
+    public String getMethod() {
+        return method;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        StringBuffer url = new StringBuffer(64);
+        url.append(getScheme()).append("://").append(getServerName()).append(':').append(getServerPort()).append(requestURI);
+        return url;
+    }
+
+    @Override
+    public String getQueryString() {
+        return queryString;
+    }
+
+    @Override
+    public String getProtocol() {
+        return protocol;
+    }
+
+    @Override
+    public String getScheme() {
+        return "http";
+    }
+
+    @Override
+    public boolean isSecure() {
+        return false;
+    }
+
+    @Override
+    public String getContextPath() {
+        return "";
+    }
+
+    @Override
+    public String getServletPath() {
+        return "";
+    }
+
+    @Override
+    public String getPathInfo() {
+        return requestURI;
+    }
+
+    @Override
+    public String getPathTranslated() {
+        return getServletContext().getRealPath(requestURI);
+    }
+
+    @Override
+    public String getHeader(String name) {
+        for(int i = 0; i < headerNames.size(); i++) {
+            if(headerNames.get(i).equalsIgnoreCase(name)) {
+                return headerValues.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        List<String> values = new ArrayList<>(1);
+        for(int i = 0; i < headerNames.size(); i++) {
+            if(headerNames.get(i).equalsIgnoreCase(name)) {
+                values.add(headerValues.get(i));
+            }
+        }
+        return Collections.enumeration(values);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        Set<String> names = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        names.addAll(headerNames);
+        return Collections.enumeration(names);
+    }
+
+    @Override
+    public long getDateHeader(String name) {
+        String value = getHeader(name);
+        if(value == null) {return -1;}
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date header " + name + ": " + value);
+        }
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        String value = getHeader(name);
+        return value == null ? -1 : Integer.parseInt(value.trim());
+    }
+
+    @Override
+    public Cookie[] getCookies() {
+        if(cookies == null) {
+            List<Cookie> list = new ArrayList<>();
+            for(Enumeration<String> values = getHeaders("Cookie"); values.hasMoreElements(); ) {
+                for(String pair : values.nextElement().split(";")) {
+                    int eq = pair.indexOf('=');
+                    if(eq <= 0) {continue;}
+                    String name = pair.substring(0, eq).trim();
+                    String value = pair.substring(eq + 1).trim();
+                    if(value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    try {
+                        list.add(new Cookie(name, value));
+                    } catch (IllegalArgumentException e) {
+                        //名字不合法的cookie忽略
+                    }
+                }
+            }
+            cookies = list.toArray(new Cookie[0]);
+        }
+        return cookies.length == 0 ? null : cookies.clone();
+    }
+
+    @Override
+    public Locale getLocale() {
+        Enumeration<Locale> locales = getLocales();
+        return locales.nextElement();
+    }
+
+    @Override
+    public Enumeration<Locale> getLocales() {
+        String value = getHeader("Accept-Language");
+        List<Locale> locales = new ArrayList<>();
+        if(value != null) {
+            try {
+                for(Locale.LanguageRange range : Locale.LanguageRange.parse(value)) {
+                    if(!"*".equals(range.getRange())) {
+                        locales.add(Locale.forLanguageTag(range.getRange()));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                //格式错误时使用默认
+            }
+        }
+        if(locales.isEmpty()) {
+            locales.add(Locale.getDefault());
+        }
+        return Collections.enumeration(locales);
+    }
+
+    // ---------------------------------------------------------------- 请求体与参数
+
+    @Override
+    public String getContentType() {
+        return getHeader("Content-Type");
+    }
+
+    @Override
+    public int getContentLength() {
+        return body == null ? -1 : body.length;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return getContentLength();
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        if(characterEncoding != null) {return characterEncoding;}
+        String contentType = getContentType();
+        if(contentType != null) {
+            int charset = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+            if(charset >= 0) {
+                String value = contentType.substring(charset + 8).trim();
+                int semicolon = value.indexOf(';');
+                return semicolon < 0 ? value : value.substring(0, semicolon).trim();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void setCharacterEncoding(String env) throws UnsupportedEncodingException {
+        if(!Charset.isSupported(env)) {
+            throw new UnsupportedEncodingException(env);
+        }
+        this.characterEncoding = env;
+    }
+
+    /**
+     * 没有指定编码时按UTF-8读取参数和请求体，与框架其它部分一致
+     */
+    private Charset charset() {
+        String encoding = getCharacterEncoding();
+        try {
+            return encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+        if(reader != null) {
+            throw new IllegalStateException("getReader() has already been called");
+        }
+        if(inputStream == null) {
+            final ByteArrayInputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body);
+            inputStream = new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public int available() {
+                    return in.available();
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() {
+        if(inputStream != null) {
+            throw new IllegalStateException("getInputStream() has already been called");
+        }
+        if(reader == null) {
+            reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body == null ? new byte[0] : body), charset()));
+        }
+        return reader;
+    }
+
+    @Override
+    public String getParameter(String name) {
+        String[] values = parameters().get(name);
+        return values == null || values.length == 0 ? null : values[0];
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return Collections.enumeration(parameters().keySet());
+    }
+
+    @Override
+    public String[] getParameterValues(String name) {
+        String[] values = parameters().get(name);
+        return values == null ? null : values.clone();
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        return Collections.unmodifiableMap(parameters());
+    }
+
+    /**
+     * 查询串在前，表单请求体在后
+     */
+    private Map<String, String[]> parameters() {
+        if(parameters == null) {
+            Map<String, String[]> parsed = new LinkedHashMap<>();
+            Charset charset = charset();
+            if(queryString != null) {
+                parse(queryString, charset, parsed);
+            }
+            String contentType = getContentType();
+            if(body != null && body.length > 0 && contentType != null
+                    && contentType.toLowerCase(Locale.ROOT).startsWith(FORM_CONTENT_TYPE)) {
+                parse(new String(body, StandardCharsets.ISO_8859_1), charset, parsed);
+            }
+            parameters = parsed;
+        }
+        return parameters;
+    }
+
+    private static void parse(String encoded, Charset charset, Map<String, String[]> parameters) {
+        for(String pair : encoded.split("&")) {
+            if(pair.isEmpty()) {continue;}
+            int eq = pair.indexOf('=');
+            String name = decode(eq < 0 ? pair : pair.substring(0, eq), charset);
+            String value = eq < 0 ? "" : decode(pair.substring(eq + 1), charset);
+            String[] exist = parameters.get(name);
+            if(exist == null) {
+                parameters.put(name, new String[]{value});
+            } else {
+                String[] merged = Arrays.copyOf(exist, exist.length + 1);
+                merged[exist.length] = value;
+                parameters.put(name, merged);
+            }
+        }
+    }
+
+    /**
+     * 请求行和请求体都按ISO-8859-1转成了字符串，先按实际编码还原非ASCII字符，再处理%转义
+     */
+    private static String decode(String value, Charset charset) {
+        String text = isAscii(value) ? value : new String(value.getBytes(StandardCharsets.ISO_8859_1), charset);
+        if(text.indexOf('%') < 0 && text.indexOf('+') < 0) {return text;}
+        try {
+            return URLDecoder.decode(text, charset.name());
+        } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+            //格式错误的%转义按原文保留
+            return text;
+        }
+    }
+
+    private static boolean isAscii(String value) {
+        for(int i = 0; i < value.length(); i++) {
+            if(value.charAt(i) >= 0x80) {return false;}
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------- 属性与连接信息
+
+    @Override
+    public Object getAttribute(String name) {
+        return attributes == null ? null : attributes.get(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        return Collections.enumeration(attributes == null ? Collections.<String>emptySet() : attributes.keySet());
+    }
+
+    @Override
+    public void setAttribute(String name, Object o) {
+        if(o == null) {
+            removeAttribute(name);
+            return ;
+        }
+        if(attributes == null) {
+            attributes = new HashMap<>();
+        }
+        attributes.put(name, o);
+    }
+
+    @Override
+    public void removeAttribute(String name) {
+        if(attributes != null) {
+            attributes.remove(name);
+        }
+    }
+
+    @Override
+    public String getServerName() {
+        String host = getHeader("Host");
+        if(host == null || host.isEmpty()) {
+            return getLocalName();
+        }
+        int colon = host.startsWith("[") ? host.indexOf(':', host.indexOf(']')) : host.indexOf(':');
+        return colon < 0 ? host : host.substring(0, colon);
+    }
+
+    @Override
+    public int getServerPort() {
+        String host = getHeader("Host");
+        int colon = host == null ? -1 : host.startsWith("[") ? host.indexOf(':', host.indexOf(']')) : host.indexOf(':');
+        if(colon < 0) {
+            return host == null ? getLocalPort() : 80;
+        }
+        try {
+            return Integer.parseInt(host.substring(colon + 1).trim());
+        } catch (NumberFormatException e) {
+            return getLocalPort();
+        }
+    }
+
+    @Override
+    public String getRemoteAddr() {
+        InetSocketAddress address = exchange.remoteAddress();
+        return address == null ? null : address.getAddress().getHostAddress();
+    }
+
+    @Override
+    public String getRemoteHost() {
+        return getRemoteAddr();
+    }
+
+    @Override
+    public int getRemotePort() {
+        InetSocketAddress address = exchange.remoteAddress();
+        return address == null ? -1 : address.getPort();
+    }
+
+    @Override
+    public String getLocalName() {
+        InetSocketAddress address = exchange.localAddress();
+        return address == null ? null : address.getHostString();
+    }
+
+    @Override
+    public String getLocalAddr() {
+        InetSocketAddress address = exchange.localAddress();
+        return address == null ? null : address.getAddress().getHostAddress();
+    }
+
+    @Override
+    public int getLocalPort() {
+        InetSocketAddress address = exchange.localAddress();
+        return address == null ? -1 : address.getPort();
+    }
+
+    @Override
+    public ServletContext getServletContext() {
+        return exchange.servletContext();
+    }
+
+    @Override
+    public RequestDispatcher getRequestDispatcher(String path) {
+        return null;
+    }
+
+    @Override
+    @Deprecated
+    public String getRealPath(String path) {
+        return getServletContext().getRealPath(path);
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return DispatcherType.REQUEST;
+    }
+
+    // ---------------------------------------------------------------- 异步
+
+    @Override
+    public AsyncContext startAsync() {
+        return startAsync(this, exchange.response());
+    }
+
+    @Override
+    public AsyncContext startAsync(ServletRequest servletRequest, ServletResponse servletResponse) {
+        if(asyncContext != null) {
+            throw new IllegalStateException("Async processing has already been started");
+        }
+        asyncContext = new EmbeddedAsyncContext(exchange, servletRequest, servletResponse);
+        exchange.asyncStarted();
+        return asyncContext;
+    }
+
+    @Override
+    public boolean isAsyncStarted() {
+        return asyncContext != null && !asyncContext.isCompleted();
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return true;
+    }
+
+    @Override
+    public AsyncContext getAsyncContext() {
+        if(asyncContext == null) {
+            throw new IllegalStateException("Async processing has not been started");
+        }
+        return asyncContext;
+    }
+
+    // ---------------------------------------------------------------- 不支持的部分
+
+    @Override
+    public String getAuthType() {
+        return null;
+    }
+
+    @Override
+    public String getRemoteUser() {
+        return null;
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return false;
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return null;
+    }
+
+    @Override
+    public String getRequestedSessionId() {
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession(boolean create) {
+        if(create) {
+            throw new UnsupportedOperationException("Sessions are not supported by the embedded server");
+        }
+        return null;
+    }
+
+    @Override
+    public HttpSession getSession() {
+        return getSession(true);
+    }
+
+    @Override
+    public String changeSessionId() {
+        throw new IllegalStateException("No session");
+    }
+
+    @Override
+    public boolean isRequestedSessionIdValid() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromCookie() {
+        return false;
+    }
+
+    @Override
+    public boolean isRequestedSessionIdFromURL() {
+        return false;
+    }
+
+    @Override
+    @Deprecated
+    public boolean isRequestedSessionIdFromUrl() {
+        return false;
+    }
+
+    @Override
+    public boolean authenticate(HttpServletResponse response) {
+        throw new UnsupportedOperationException("Authentication is not supported by the embedded server");
+    }
+
+    @Override
+    public void login(String username, String password) {
+        throw new UnsupportedOperationException("Authentication is not supported by the embedded server");
+    }
+
+    @Override
+    public void logout() {
+        throw new UnsupportedOperationException("Authentication is not supported by the embedded server");
+    }
+
+    @Override
+    public Collection<Part> getParts() {
+        throw new UnsupportedOperationException("Multipart requests are not supported by the embedded server");
+    }
+
+    @Override
+    public Part getPart(String name) {
+        throw new UnsupportedOperationException("Multipart requests are not supported by the embedded server");
+    }
+
+    @Override
+    public <T extends HttpUpgradeHandler> T upgrade(Class<T> handlerClass) {
+        throw new UnsupportedOperationException("Protocol upgrade is not supported by the embedded server");
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + requestURI + (queryString == null ? "" : "?" + queryString) + " " + protocol;
+    }
+}
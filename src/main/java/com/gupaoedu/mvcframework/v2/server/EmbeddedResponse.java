@@ -0,0 +1,728 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * 内嵌服务器的响应：响应体先缓冲在内存中，处理完成后由{@link #encode}一次性编码出状态行、响应头和响应体，
+ * 带上准确的Content-Length，保持连接时不需要chunked。
+ * <p>缓冲超过bufferSize或调用flushBuffer时提前提交：先写出响应头，之后每次把缓冲的内容交给连接写出，
+ * 处理方法设置了Content-Length时按长度写出，否则HTTP/1.1按chunked分块，HTTP/1.0写完后关闭连接。</p>
+ * @since V1.0.0
+ */
+final class EmbeddedResponse implements HttpServletResponse {
+
+    private static final byte[] LAST_CHUNK = "0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    //Date响应头按秒缓存，所有连接共用
+    private static volatile DateHeader date = new DateHeader(0, "");
+
+    private final EmbeddedRequest request;
+
+    private final Body body = new Body();
+
+    //写入body后检查是否超过缓冲上限
+    private final OutputStream sink = new Sink();
+
+    private final List<String> headerNames = new ArrayList<>(8);
+
+    private final List<String> headerValues = new ArrayList<>(8);
+
+    private int status = SC_OK;
+
+    private String contentType;
+
+    private String characterEncoding;
+
+    //处理方法设置的长度，只在HEAD请求中使用，其它请求按缓冲的响应体计算
+    private long contentLength = -1;
+
+    private Locale locale = Locale.getDefault();
+
+    private boolean committed = false;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    //框架内部刷新Writer时不触发提交
+    private boolean flushingWriter = false;
+
+    //缓冲的上限，超出时提前提交
+    private int bufferSize;
+
+    //已经提前提交，响应头和之前的内容已经交给连接
+    private boolean streaming = false;
+
+    //按chunked分块，否则按Content-Length或关闭连接结束
+    private boolean chunked = false;
+
+    //提前提交时确定的是否保持连接
+    private boolean streamKeepAlive = false;
+
+    //写出一部分后出错，不写结束块
+    private boolean abandoned = false;
+
+    //HEAD请求和没有响应体的状态码丢弃的字节数
+    private long discarded;
+
+    EmbeddedResponse(EmbeddedRequest request, int bufferSize) {
+        this.request = request;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * 编码整个响应，在工作线程上执行，之后响应不再修改
+     * @param keepAlive 是否保持连接
+     * @return 响应头和响应体两个缓冲区，提前提交过时只有剩下的最后一块
+     */
+    ByteBuffer[] encode(boolean keepAlive) {
+        flushWriter();
+        if(streaming) {
+            //只剩最后一块
+            if(abandoned) {
+                return new ByteBuffer[0];
+            }
+            return new ByteBuffer[]{ByteBuffer.wrap(takeChunk(true))};
+        }
+        //1xx、204、304没有Content-Length，HEAD请求的长度与GET相同
+        boolean noContent = status < 200 || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED;
+        boolean head = "HEAD".equals(request.getMethod());
+        long length = head && contentLength >= 0 ? contentLength : discarded + body.size();
+        ByteBuffer header = encodeHeader(keepAlive, noContent ? -1 : length, false);
+        if(noContent || head || body.size() == 0) {
+            return new ByteBuffer[]{header};
+        }
+        return new ByteBuffer[]{header, ByteBuffer.wrap(body.array(), 0, body.size())};
+    }
+
+    /**
+     * 编码状态行和响应头
+     * @param length Content-Length，小于0时不写
+     * @param chunked 是否写Transfer-Encoding: chunked
+     */
+    private ByteBuffer encodeHeader(boolean keepAlive, long length, boolean chunked) {
+        StringBuilder header = new StringBuilder(256);
+        header.append("HTTP/1.1 ").append(status).append(' ').append(reasonPhrase(status)).append("\r\n");
+        for(int i = 0; i < headerNames.size(); i++) {
+            header.append(headerNames.get(i)).append(": ").append(headerValues.get(i)).append("\r\n");
+        }
+        header.append("Date: ").append(currentDate()).append("\r\n");
+        String type = getContentType();
+        if(type != null) {
+            header.append("Content-Type: ").append(type).append("\r\n");
+        }
+        if(length >= 0) {
+            header.append("Content-Length: ").append(length).append("\r\n");
+        } else if(chunked) {
+            header.append("Transfer-Encoding: chunked\r\n");
+        }
+        if(!keepAlive) {
+            header.append("Connection: close\r\n");
+        } else if("HTTP/1.0".equals(request.getProtocol())) {
+            header.append("Connection: keep-alive\r\n");
+        }
+        header.append("\r\n");
+        return ByteBuffer.wrap(header.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * 1xx、204、304和HEAD请求没有响应体
+     */
+    private boolean isBodiless() {
+        return status < 200 || status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || "HEAD".equals(request.getMethod());
+    }
+
+    /**
+     * 提前提交：第一次先写出响应头，之后把缓冲的内容交给连接写出，连接已经关闭时抛出IOException
+     */
+    private void stream() throws IOException {
+        if(abandoned) {return ;}
+        if(isBodiless()) {
+            //没有响应体，丢弃缓冲的内容，只保留长度
+            discarded += body.size();
+            body.reset();
+            return ;
+        }
+        Exchange exchange = request.exchange();
+        if(!streaming) {
+            streaming = true;
+            chunked = contentLength < 0 && "HTTP/1.1".equals(request.getProtocol());
+            //HTTP/1.0又没有长度时只能以关闭连接表示结束
+            streamKeepAlive = (contentLength >= 0 || chunked) && exchange.canKeepAlive();
+            ByteBuffer head = encodeHeader(streamKeepAlive, contentLength, chunked);
+            if(body.size() == 0) {
+                exchange.send(head);
+                return ;
+            }
+            exchange.send(head, ByteBuffer.wrap(takeChunk(false)));
+            return ;
+        }
+        if(body.size() == 0) {return ;}
+        exchange.send(ByteBuffer.wrap(takeChunk(false)));
+    }
+
+    /**
+     * 取出缓冲的内容，chunked时加上分块长度
+     * @param last 是否是最后一块，chunked时加上结束块
+     */
+    private byte[] takeChunk(boolean last) {
+        int size = body.size();
+        if(!chunked) {
+            byte[] bytes = Arrays.copyOf(body.array(), size);
+            body.reset();
+            return bytes;
+        }
+        byte[] prefix = size == 0 ? new byte[0] : (Integer.toHexString(size) + "\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        int suffix = (size == 0 ? 0 : 2) + (last ? 5 : 0);
+        byte[] bytes = new byte[prefix.length + size + suffix];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        System.arraycopy(body.array(), 0, bytes, prefix.length, size);
+        int pos = prefix.length + size;
+        if(size > 0) {
+            bytes[pos++] = '\r';
+            bytes[pos++] = '\n';
+        }
+        if(last) {
+            System.arraycopy(LAST_CHUNK, 0, bytes, pos, LAST_CHUNK.length);
+        }
+        body.reset();
+        return bytes;
+    }
+
+    boolean isStreaming() {
+        return streaming;
+    }
+
+    boolean isStreamKeepAlive() {
+        return streamKeepAlive && !abandoned;
+    }
+
+    /**
+     * 提前提交后出错，不写结束块，连接随后关闭
+     */
+    void abandon() {
+        if(streaming) {
+            abandoned = true;
+        }
+    }
+
+    private void flushWriter() {
+        if(writer == null) {return ;}
+        flushingWriter = true;
+        try {
+            writer.flush();
+        } finally {
+            flushingWriter = false;
+        }
+    }
+
+    /**
+     * 处理方法要求关闭连接
+     */
+    boolean isConnectionClose() {
+        String connection = getHeader("Connection");
+        return connection != null && connection.toLowerCase(Locale.ROOT).contains("close");
+    }
+
+    static String currentDate() {
+        long second = System.currentTimeMillis() / 1000;
+        DateHeader current = date;
+        if(current.second != second) {
+            current = new DateHeader(second, HTTP_DATE.format(Instant.ofEpochSecond(second)));
+            date = current;
+        }
+        return current.value;
+    }
+
+    static String reasonPhrase(int status) {
+        switch (status) {
+            case 100: return "Continue";
+            case 200: return "OK";
+            case 201: return "Created";
+            case 202: return "Accepted";
+            case 204: return "No Content";
+            case 206: return "Partial Content";
+            case 301: return "Moved Permanently";
+            case 302: return "Found";
+            case 303: return "See Other";
+            case 304: return "Not Modified";
+            case 307: return "Temporary Redirect";
+            case 308: return "Permanent Redirect";
+            case 400: return "Bad Request";
+            case 401: return "Unauthorized";
+            case 403: return "Forbidden";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 406: return "Not Acceptable";
+            case 408: return "Request Timeout";
+            case 409: return "Conflict";
+            case 412: return "Precondition Failed";
+            case 413: return "Payload Too Large";
+            case 415: return "Unsupported Media Type";
+            case 416: return "Range Not Satisfiable";
+            case 429: return "Too Many Requests";
+            case 431: return "Request Header Fields Too Large";
+            case 500: return "Internal Server Error";
+            case 501: return "Not Implemented";
+            case 502: return "Bad Gateway";
+            case 503: return "Service Unavailable";
+            case 504: return "Gateway Timeout";
+            case 505: return "HTTP Version Not Supported";
+            default: return "Unknown";
+        }
+    }
+
+    // ---------------------------------------------------------------- 状态与响应头
+
+    @Override
+    public void setStatus(int sc) {
+        if(committed) {return ;}
+        this.status = sc;
+    }
+
+    @Override
+    @Deprecated
+    public void setStatus(int sc, String sm) {
+        setStatus(sc);
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void sendError(int sc, String msg) {
+        if(committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        resetBuffer();
+        status = sc;
+        contentType = "text/plain";
+        characterEncoding = "UTF-8";
+        String text = sc + " " + reasonPhrase(sc) + (msg == null || msg.isEmpty() ? "" : ", " + msg);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        body.write(bytes, 0, bytes.length);
+        committed = true;
+    }
+
+    @Override
+    public void sendError(int sc) {
+        sendError(sc, null);
+    }
+
+    @Override
+    public void sendRedirect(String location) {
+        if(committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        resetBuffer();
+        status = SC_FOUND;
+        setHeader("Location", location);
+        committed = true;
+    }
+
+    @Override
+    public boolean containsHeader(String name) {
+        return indexOf(name) >= 0
+                || "Content-Type".equalsIgnoreCase(name) && contentType != null
+                || "Content-Length".equalsIgnoreCase(name) && contentLength >= 0;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if("Content-Type".equalsIgnoreCase(name)) {
+            return getContentType();
+        }
+        if("Content-Length".equalsIgnoreCase(name)) {
+            return contentLength >= 0 ? String.valueOf(contentLength) : null;
+        }
+        int index = indexOf(name);
+        return index < 0 ? null : headerValues.get(index);
+    }
+
+    @Override
+    public Collection<String> getHeaders(String name) {
+        List<String> values = new ArrayList<>(1);
+        for(int i = 0; i < headerNames.size(); i++) {
+            if(headerNames.get(i).equalsIgnoreCase(name)) {
+                values.add(headerValues.get(i));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Collection<String> getHeaderNames() {
+        Set<String> names = new LinkedHashSet<>(headerNames);
+        if(contentType != null) {names.add("Content-Type");}
+        return names;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if(committed || special(name, value)) {return ;}
+        removeHeader(name);
+        if(value != null) {
+            headerNames.add(name);
+            headerValues.add(value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if(committed || value == null || special(name, value)) {return ;}
+        headerNames.add(name);
+        headerValues.add(value);
+    }
+
+    /**
+     * Content-Type和Content-Length单独保存，编码时由服务器写出
+     */
+    private boolean special(String name, String value) {
+        if("Content-Type".equalsIgnoreCase(name)) {
+            setContentType(value);
+            return true;
+        }
+        if("Content-Length".equalsIgnoreCase(name)) {
+            contentLength = value == null ? -1 : Long.parseLong(value.trim());
+            return true;
+        }
+        return false;
+    }
+
+    private void removeHeader(String name) {
+        for(int i = headerNames.size() - 1; i >= 0; i--) {
+            if(headerNames.get(i).equalsIgnoreCase(name)) {
+                headerNames.remove(i);
+                headerValues.remove(i);
+            }
+        }
+    }
+
+    private int indexOf(String name) {
+        for(int i = 0; i < headerNames.size(); i++) {
+            if(headerNames.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void setDateHeader(String name, long date) {
+        setHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void addDateHeader(String name, long date) {
+        addHeader(name, HTTP_DATE.format(Instant.ofEpochMilli(date)));
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        setHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        addHeader(name, String.valueOf(value));
+    }
+
+    @Override
+    public void addCookie(Cookie cookie) {
+        StringBuilder value = new StringBuilder(64);
+        value.append(cookie.getName()).append('=').append(cookie.getValue() == null ? "" : cookie.getValue());
+        if(cookie.getMaxAge() >= 0) {
+            value.append("; Max-Age=").append(cookie.getMaxAge());
+            value.append("; Expires=").append(HTTP_DATE.format(
+                    Instant.ofEpochMilli(System.currentTimeMillis() + cookie.getMaxAge() * 1000L)));
+        }
+        if(cookie.getDomain() != null) {
+            value.append("; Domain=").append(cookie.getDomain());
+        }
+        if(cookie.getPath() != null) {
+            value.append("; Path=").append(cookie.getPath());
+        }
+        if(cookie.getSecure()) {
+            value.append("; Secure");
+        }
+        if(cookie.isHttpOnly()) {
+            value.append("; HttpOnly");
+        }
+        addHeader("Set-Cookie", value.toString());
+    }
+
+    @Override
+    public String encodeURL(String url) {
+        return url;
+    }
+
+    @Override
+    public String encodeRedirectURL(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeUrl(String url) {
+        return url;
+    }
+
+    @Override
+    @Deprecated
+    public String encodeRedirectUrl(String url) {
+        return url;
+    }
+
+    // ---------------------------------------------------------------- 内容类型与编码
+
+    @Override
+    public String getCharacterEncoding() {
+        return characterEncoding != null ? characterEncoding : "ISO-8859-1";
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        if(committed || writer != null) {return ;}
+        this.characterEncoding = charset;
+    }
+
+    @Override
+    public String getContentType() {
+        if(contentType == null) {return null;}
+        return characterEncoding == null ? contentType : contentType + ";charset=" + characterEncoding;
+    }
+
+    @Override
+    public void setContentType(String type) {
+        if(committed) {return ;}
+        if(type == null) {
+            contentType = null;
+            return ;
+        }
+        int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if(charset < 0) {
+            contentType = type.trim();
+            return ;
+        }
+        String value = type.substring(charset + 8).trim();
+        int semicolon = value.indexOf(';');
+        int start = type.lastIndexOf(';', charset);
+        contentType = (start < 0 ? type.substring(0, charset) : type.substring(0, start)).trim();
+        if(writer == null) {
+            characterEncoding = (semicolon < 0 ? value : value.substring(0, semicolon)).trim().replace("\"", "");
+        }
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        setContentLengthLong(len);
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        if(committed) {return ;}
+        this.contentLength = len;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        if(committed || loc == null) {return ;}
+        this.locale = loc;
+        setHeader("Content-Language", loc.toLanguageTag());
+    }
+
+    @Override
+    public Locale getLocale() {
+        return locale;
+    }
+
+    // ---------------------------------------------------------------- 响应体
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if(writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if(outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    sink.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    sink.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    flushBuffer();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws UnsupportedEncodingException {
+        if(outputStream != null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if(writer == null) {
+            String encoding = getCharacterEncoding();
+            if(!Charset.isSupported(encoding)) {
+                throw new UnsupportedEncodingException(encoding);
+            }
+            if(characterEncoding == null && contentType != null) {
+                //Content-Type要带上实际使用的编码
+                characterEncoding = encoding;
+            }
+            writer = new PrintWriter(new OutputStreamWriter(sink, Charset.forName(encoding)));
+        }
+        return writer;
+    }
+
+    /**
+     * 已经写入内容后不再修改
+     */
+    @Override
+    public void setBufferSize(int size) {
+        if(committed || body.size() > 0) {return ;}
+        this.bufferSize = Math.max(1024, size);
+    }
+
+    @Override
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 提交响应，写出响应头和已缓冲的内容，之后的内容分块写出
+     */
+    @Override
+    public void flushBuffer() throws IOException {
+        flushWriter();
+        commit();
+    }
+
+    private void commit() throws IOException {
+        committed = true;
+        stream();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if(committed) {
+            throw new IllegalStateException("Response has already been committed");
+        }
+        flushWriter();
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        status = SC_OK;
+        headerNames.clear();
+        headerValues.clear();
+        contentType = null;
+        contentLength = -1;
+        if(writer == null) {
+            characterEncoding = null;
+        }
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * 写入缓冲区，超过上限时提前提交
+     */
+    private final class Sink extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            body.write(b);
+            if(body.size() >= bufferSize) {
+                commit();
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            body.write(b, off, len);
+            if(body.size() >= bufferSize) {
+                commit();
+            }
+        }
+
+        /**
+         * 处理方法刷新Writer时提交，框架内部刷新时不提交
+         */
+        @Override
+        public void flush() throws IOException {
+            if(!flushingWriter) {
+                flushBuffer();
+            }
+        }
+    }
+
+    /**
+     * 直接读取内部数组，编码时不复制
+     */
+    private static final class Body extends ByteArrayOutputStream {
+
+        Body() {
+            super(256);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private static final class DateHeader {
+
+        final long second;
+
+        final String value;
+
+        DateHeader(long second, String value) {
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
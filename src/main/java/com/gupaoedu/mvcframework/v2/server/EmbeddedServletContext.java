@@ -0,0 +1,118 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import javax.servlet.ServletContext;
+import java.lang.reflect.Proxy;
+import java.net.URLConnection;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内嵌服务器的ServletContext，只实现框架用到的方法：web应用根目录、MIME类型、属性和日志，
+ * 其余方法返回null或默认值
+ * @since V1.0.0
+ */
+final class EmbeddedServletContext {
+
+    //JDK自带的映射表缺少的常见类型
+    private static final Map<String, String> MIME_TYPES = new HashMap<>();
+
+    static {
+        MIME_TYPES.put("html", "text/html");
+        MIME_TYPES.put("htm", "text/html");
+        MIME_TYPES.put("css", "text/css");
+        MIME_TYPES.put("js", "application/javascript");
+        MIME_TYPES.put("json", "application/json");
+        MIME_TYPES.put("txt", "text/plain");
+        MIME_TYPES.put("xml", "application/xml");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("jpeg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("webp", "image/webp");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("map", "application/json");
+        MIME_TYPES.put("wasm", "application/wasm");
+        MIME_TYPES.put("pdf", "application/pdf");
+    }
+
+    private EmbeddedServletContext() {
+    }
+
+    /**
+     * @param webRoot web应用根目录，绝对路径
+     */
+    static ServletContext create(Path webRoot) {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return (ServletContext) Proxy.newProxyInstance(EmbeddedServletContext.class.getClassLoader(),
+                new Class[]{ServletContext.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getRealPath":
+                            String path = (String) args[0];
+                            return webRoot.resolve(path.startsWith("/") ? path.substring(1) : path).toString();
+                        case "getMimeType":
+                            return mimeType((String) args[0]);
+                        case "getContextPath":
+                            return "";
+                        case "getServerInfo":
+                            return "WCServer/1.0";
+                        case "getServletContextName":
+                            return "wc";
+                        case "getMajorVersion":
+                        case "getEffectiveMajorVersion":
+                            return 3;
+                        case "getMinorVersion":
+                        case "getEffectiveMinorVersion":
+                            return 1;
+                        case "getClassLoader":
+                            return Thread.currentThread().getContextClassLoader();
+                        case "getAttribute":
+                            return attributes.get((String) args[0]);
+                        case "getAttributeNames":
+                            return Collections.enumeration(attributes.keySet());
+                        case "setAttribute":
+                            if(args[1] == null) {
+                                attributes.remove((String) args[0]);
+                            } else {
+                                attributes.put((String) args[0], args[1]);
+                            }
+                            return null;
+                        case "removeAttribute":
+                            attributes.remove((String) args[0]);
+                            return null;
+                        case "getInitParameterNames":
+                            return Collections.emptyEnumeration();
+                        case "log":
+                            System.out.println(args[0]);
+                            if(args.length > 1 && args[1] instanceof Throwable) {
+                                ((Throwable) args[1]).printStackTrace();
+                            }
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "EmbeddedServletContext[" + webRoot + "]";
+                        default:
+                            return method.getReturnType() == boolean.class ? Boolean.FALSE
+                                    : method.getReturnType() == int.class ? 0 : null;
+                    }
+                });
+    }
+
+    private static String mimeType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        if(dot >= 0) {
+            String type = MIME_TYPES.get(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+            if(type != null) {return type;}
+        }
+        return URLConnection.getFileNameMap().getContentTypeFor(fileName);
+    }
+}
@@ -0,0 +1,245 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接上的一次请求与响应：service返回和异步处理完成各占一个计数，都结束后编码响应，交回连接所在的I/O线程按顺序写出。
+ * <p>响应改为分块写出时，工作线程通过{@link #send}把分块交给I/O线程，未写出的数据超过两个响应缓冲区时等待，
+ * 连接关闭后抛出IOException，处理方法据此停止输出。</p>
+ * @since V1.0.0
+ */
+final class Exchange implements Runnable {
+
+    private final Connection connection;
+
+    private final EmbeddedRequest request;
+
+    private final EmbeddedResponse response;
+
+    //service本身占一个，startAsync再加一个
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    //编码好的响应，完成后在I/O线程上读取
+    private volatile ByteBuffer[] output;
+
+    //写出后关闭连接
+    private volatile boolean close;
+
+    //已经开始分块写出
+    private volatile boolean streaming = false;
+
+    //工作线程交过来、I/O线程还没有取走的分块
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+
+    //已经交过来、还没有写出的字节数，包括I/O线程取走的
+    private long queuedBytes;
+
+    //I/O线程取走、还在连接输出队列里的字节数
+    private long inTransit;
+
+    //连接已经关闭，不再接收分块
+    private boolean aborted = false;
+
+    Exchange(Connection connection, String method, String target, String protocol) {
+        this.connection = connection;
+        this.request = new EmbeddedRequest(this, method, target, protocol);
+        this.response = new EmbeddedResponse(request, connection.server().responseBufferBytes());
+    }
+
+    /**
+     * 解析失败时直接返回的错误响应，之后关闭连接
+     */
+    private Exchange(Connection connection, ByteBuffer[] output) {
+        this.connection = connection;
+        this.request = null;
+        this.response = null;
+        this.output = output;
+        this.close = true;
+    }
+
+    static Exchange error(Connection connection, int status, String message) {
+        byte[] body = (status + " " + EmbeddedResponse.reasonPhrase(status) + ", " + message).getBytes(StandardCharsets.UTF_8);
+        String header = "HTTP/1.1 " + status + " " + EmbeddedResponse.reasonPhrase(status) + "\r\n"
+                + "Date: " + EmbeddedResponse.currentDate() + "\r\n"
+                + "Content-Type: text/plain;charset=UTF-8\r\n"
+                + "Content-Length: " + body.length + "\r\n"
+                + "Connection: close\r\n\r\n";
+        return new Exchange(connection, new ByteBuffer[]{
+                ByteBuffer.wrap(header.getBytes(StandardCharsets.ISO_8859_1)), ByteBuffer.wrap(body)});
+    }
+
+    EmbeddedRequest request() {
+        return request;
+    }
+
+    EmbeddedResponse response() {
+        return response;
+    }
+
+    /**
+     * 调用servlet，未捕获的异常在响应还没有提交时返回500
+     */
+    @Override
+    public void run() {
+        HttpServlet servlet = connection.server().servlet();
+        try {
+            servlet.service(request, response);
+        } catch (Throwable e) {
+            servlet.log("Unhandled exception for " + request, e);
+            if(!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            } else {
+                //已经写出了一部分，不写结束块并关闭连接，客户端据此知道响应不完整
+                response.abandon();
+            }
+        }
+        EmbeddedAsyncContext async = request.asyncContext();
+        if(async != null) {
+            async.scheduleTimeout();
+        }
+        release();
+    }
+
+    void asyncStarted() {
+        pending.incrementAndGet();
+    }
+
+    /**
+     * 最后一个计数释放时在当前线程编码响应，再交给I/O线程
+     */
+    void release() {
+        if(pending.decrementAndGet() != 0) {return ;}
+        //servlet在提交之后出错，响应不完整
+        if(request.getAttribute(RequestDispatcher.ERROR_EXCEPTION) != null) {
+            response.abandon();
+        }
+        //分块写出时响应头里已经确定
+        boolean keepAlive = response.isStreaming() ? response.isStreamKeepAlive() : canKeepAlive();
+        //output最后赋值，I/O线程看到output时close已经确定
+        close = !keepAlive;
+        output = response.encode(keepAlive);
+        connection.loop().execute(() -> connection.complete(this));
+    }
+
+    /**
+     * 请求和处理方法都允许保持连接
+     */
+    boolean canKeepAlive() {
+        return request.isKeepAlive() && !response.isConnectionClose() && connection.server().isRunning();
+    }
+
+    /**
+     * 分块写出，在工作线程上调用
+     * @throws IOException 连接已经关闭
+     */
+    void send(ByteBuffer... buffers) throws IOException {
+        synchronized (this) {
+            if(aborted) {
+                throw new IOException("Connection closed");
+            }
+            for(ByteBuffer buffer : buffers) {
+                chunks.add(buffer);
+                queuedBytes += buffer.remaining();
+            }
+        }
+        streaming = true;
+        connection.loop().execute(connection::flush);
+        //serverExecutor=none时就在I/O线程上，不能等待自己写出
+        if(connection.loop().inLoop()) {return ;}
+        long limit = 2L * connection.server().responseBufferBytes();
+        synchronized (this) {
+            try {
+                while (queuedBytes > limit && !aborted) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            if(aborted) {
+                throw new IOException("Connection closed");
+            }
+        }
+    }
+
+    /**
+     * I/O线程取走已经交过来的分块
+     */
+    void takeChunks(ArrayDeque<ByteBuffer> output) {
+        if(!streaming) {return ;}
+        synchronized (this) {
+            ByteBuffer chunk;
+            while ((chunk = chunks.poll()) != null) {
+                inTransit += chunk.remaining();
+                output.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * 连接的输出队列已经写空，唤醒等待的工作线程
+     */
+    void chunksWritten() {
+        if(!streaming) {return ;}
+        synchronized (this) {
+            if(inTransit == 0) {return ;}
+            queuedBytes -= inTransit;
+            inTransit = 0;
+            notifyAll();
+        }
+    }
+
+    /**
+     * 连接关闭，之后的send抛出IOException
+     */
+    synchronized void abort() {
+        aborted = true;
+        chunks.clear();
+        notifyAll();
+    }
+
+    boolean isDone() {
+        return output != null;
+    }
+
+    ByteBuffer[] output() {
+        return output;
+    }
+
+    boolean isClose() {
+        return close;
+    }
+
+    InetSocketAddress remoteAddress() {
+        return connection.remoteAddress();
+    }
+
+    InetSocketAddress localAddress() {
+        return connection.localAddress();
+    }
+
+    ServletContext servletContext() {
+        return connection.server().servletContext();
+    }
+
+    ScheduledExecutorService scheduler() {
+        return connection.server().scheduler();
+    }
+
+    Executor executor() {
+        return connection.server().asyncExecutor();
+    }
+}
@@ -0,0 +1,160 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个I/O线程：一个Selector加一个任务队列，负责若干连接的读写；其它线程通过{@link #execute}把操作交给它
+ * @since V1.0.0
+ */
+final class IoLoop implements Runnable {
+
+    private final WCServer server;
+
+    private final Selector selector;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private final Thread thread;
+
+    private final long idleTimeoutNanos;
+
+    private volatile boolean running = true;
+
+    //上次检查空闲连接的时间
+    private long idleCheckedAt = System.nanoTime();
+
+    IoLoop(WCServer server, String name, long idleTimeoutMillis) throws IOException {
+        this.server = server;
+        this.selector = Selector.open();
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * 在I/O线程上执行，当前就是I/O线程时直接执行
+     */
+    void execute(Runnable task) {
+        if(inLoop()) {
+            task.run();
+            return ;
+        }
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * 当前线程就是这个I/O线程
+     */
+    boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 接收线程交过来的新连接
+     */
+    void register(SocketChannel channel) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                Connection connection = new Connection(server, this, channel);
+                connection.register(channel.register(selector, SelectionKey.OP_READ, connection));
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    //忽略
+                }
+            }
+        });
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select(1000);
+            } catch (IOException e) {
+                e.printStackTrace();
+                continue;
+            }
+            runTasks();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Connection connection = (Connection) key.attachment();
+                try {
+                    if(key.isReadable()) {
+                        connection.onReadable();
+                    }
+                    if(key.isValid() && key.isWritable()) {
+                        connection.onWritable();
+                    }
+                } catch (CancelledKeyException e) {
+                    connection.close();
+                }
+            }
+            closeIdle();
+        }
+        runTasks();
+        for(SelectionKey key : selector.keys()) {
+            ((Connection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 每秒最多检查一次
+     */
+    private void closeIdle() {
+        long now = System.nanoTime();
+        if(now - idleCheckedAt < TimeUnit.SECONDS.toNanos(1)) {return ;}
+        idleCheckedAt = now;
+        for(SelectionKey key : selector.keys()) {
+            if(key.isValid()) {
+                ((Connection) key.attachment()).closeIfIdle(now, idleTimeoutNanos);
+            }
+        }
+    }
+
+    /**
+     * 关闭所有连接并结束线程
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HTTP/1.1请求的增量解析：每次读到数据后调用{@link #parse}，凑齐请求行、请求头和请求体时返回一个请求，
+ * 数据不够时返回null，剩下的数据留在缓冲区等下一次读取，同一个缓冲区中的多个请求（流水线）依次返回。
+ * <p>请求体支持Content-Length和chunked，不处理obs-fold；同时出现两者视为请求走私，直接拒绝。</p>
+ * @since V1.0.0
+ */
+final class RequestParser {
+
+    private static final int HEAD = 0;
+    private static final int BODY = 1;
+    private static final int CHUNK_SIZE = 2;
+    private static final int CHUNK_DATA = 3;
+    private static final int CHUNK_END = 4;
+    private static final int TRAILER = 5;
+
+    //chunk大小行和trailer行的长度上限
+    private static final int MAX_LINE = 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int maxHeaderBytes;
+
+    private final long maxBodyBytes;
+
+    private int state = HEAD;
+
+    //已经检查过的请求头字节数，下次从这里继续找空行
+    private int scanned;
+
+    private EmbeddedRequest request;
+
+    private byte[] body;
+
+    private int bodyFilled;
+
+    private ByteArrayOutputStream chunks;
+
+    private long chunkRemaining;
+
+    /**
+     * 解析失败，status为返回给客户端的状态码，之后关闭连接
+     */
+    static final class BadRequest extends Exception {
+
+        final int status;
+
+        BadRequest(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+
+    /**
+     * @param maxHeaderBytes 请求行加请求头的字节数上限
+     * @param maxBodyBytes 请求体的字节数上限
+     */
+    RequestParser(int maxHeaderBytes, long maxBodyBytes) {
+        this.maxHeaderBytes = maxHeaderBytes;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    /**
+     * 请求头已经读完，正在等待请求体
+     */
+    boolean isReadingBody() {
+        return state != HEAD;
+    }
+
+    /**
+     * 正在读取的请求，还没有请求头时为null
+     */
+    EmbeddedRequest pending() {
+        return request;
+    }
+
+    /**
+     * @param in 读模式的缓冲区，消费掉的字节移动position
+     * @param factory 请求头读完时创建请求
+     * @return 完整的请求，数据不够时返回null
+     */
+    EmbeddedRequest parse(ByteBuffer in, RequestFactory factory) throws BadRequest {
+        while (true) {
+            switch (state) {
+                case HEAD:
+                    if(!parseHead(in, factory)) {return null;}
+                    break;
+                case BODY:
+                    int count = Math.min(in.remaining(), body.length - bodyFilled);
+                    in.get(body, bodyFilled, count);
+                    bodyFilled += count;
+                    if(bodyFilled < body.length) {return null;}
+                    return complete(body);
+                case CHUNK_SIZE:
+                    String line = readLine(in);
+                    if(line == null) {return null;}
+                    int semicolon = line.indexOf(';');
+                    long size;
+                    try {
+                        size = Long.parseLong((semicolon < 0 ? line : line.substring(0, semicolon)).trim(), 16);
+                    } catch (NumberFormatException e) {
+                        throw new BadRequest(400, "Invalid chunk size");
+                    }
+                    if(size < 0 || chunks.size() + size > maxBodyBytes) {
+                        throw new BadRequest(413, "Request body exceeds " + maxBodyBytes + " bytes");
+                    }
+                    chunkRemaining = size;
+                    state = size == 0 ? TRAILER : CHUNK_DATA;
+                    break;
+                case CHUNK_DATA:
+                    int n = (int) Math.min(in.remaining(), chunkRemaining);
+                    chunks.write(in.array(), in.arrayOffset() + in.position(), n);
+                    in.position(in.position() + n);
+                    chunkRemaining -= n;
+                    if(chunkRemaining > 0) {return null;}
+                    state = CHUNK_END;
+                    break;
+                case CHUNK_END:
+                    String end = readLine(in);
+                    if(end == null) {return null;}
+                    if(!end.isEmpty()) {
+                        throw new BadRequest(400, "Missing CRLF after chunk data");
+                    }
+                    state = CHUNK_SIZE;
+                    break;
+                case TRAILER:
+                    //trailer不使用，读到空行为止
+                    String trailer = readLine(in);
+                    if(trailer == null) {return null;}
+                    if(trailer.isEmpty()) {
+                        return complete(chunks.toByteArray());
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+
+    /**
+     * 找到空行后解析请求行和请求头，确定请求体的读取方式
+     */
+    private boolean parseHead(ByteBuffer in, RequestFactory factory) throws BadRequest {
+        byte[] bytes = in.array();
+        int start = in.arrayOffset() + in.position();
+        int limit = in.arrayOffset() + in.limit();
+        //请求之间多余的空行
+        while (scanned == 0 && start < limit && (bytes[start] == '\r' || bytes[start] == '\n')) {
+            start++;
+            in.position(in.position() + 1);
+        }
+        int end = -1;
+        for(int i = Math.max(start + 3, start + scanned); i < limit; i++) {
+            if(bytes[i] == '\n' && bytes[i - 1] == '\r' && bytes[i - 2] == '\n' && bytes[i - 3] == '\r') {
+                end = i + 1;
+                break;
+            }
+        }
+        if(end < 0) {
+            scanned = Math.max(0, limit - start - 3);
+            if(limit - start > maxHeaderBytes) {
+                throw new BadRequest(431, "Request header exceeds " + maxHeaderBytes + " bytes");
+            }
+            return false;
+        }
+        if(end - start > maxHeaderBytes) {
+            throw new BadRequest(431, "Request header exceeds " + maxHeaderBytes + " bytes");
+        }
+        scanned = 0;
+        String head = new String(bytes, start, end - start - 4, StandardCharsets.ISO_8859_1);
+        in.position(in.position() + end - start);
+        request = parseRequest(head, factory);
+
+        String transferEncoding = request.getHeader("Transfer-Encoding");
+        String contentLength = request.getHeader("Content-Length");
+        if(transferEncoding != null) {
+            if(contentLength != null) {
+                throw new BadRequest(400, "Both Transfer-Encoding and Content-Length are present");
+            }
+            if(!transferEncoding.trim().toLowerCase().endsWith("chunked")) {
+                throw new BadRequest(501, "Unsupported Transfer-Encoding " + transferEncoding);
+            }
+            chunks = new ByteArrayOutputStream(256);
+            state = CHUNK_SIZE;
+            return true;
+        }
+        long length = 0;
+        if(contentLength != null) {
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequest(400, "Invalid Content-Length " + contentLength);
+            }
+            if(length < 0) {
+                throw new BadRequest(400, "Invalid Content-Length " + contentLength);
+            }
+            if(length > maxBodyBytes) {
+                throw new BadRequest(413, "Request body of " + length + " bytes exceeds " + maxBodyBytes + " bytes");
+            }
+        }
+        body = length == 0 ? EMPTY : new byte[(int) length];
+        bodyFilled = 0;
+        state = BODY;
+        return true;
+    }
+
+    private static EmbeddedRequest parseRequest(String head, RequestFactory factory) throws BadRequest {
+        int lineEnd = head.indexOf("\r\n");
+        String requestLine = lineEnd < 0 ? head : head.substring(0, lineEnd);
+        int firstSpace = requestLine.indexOf(' ');
+        int lastSpace = requestLine.lastIndexOf(' ');
+        if(firstSpace <= 0 || lastSpace == firstSpace) {
+            throw new BadRequest(400, "Invalid request line");
+        }
+        String method = requestLine.substring(0, firstSpace);
+        String target = requestLine.substring(firstSpace + 1, lastSpace);
+        String protocol = requestLine.substring(lastSpace + 1);
+        if(!"HTTP/1.1".equals(protocol) && !"HTTP/1.0".equals(protocol)) {
+            throw new BadRequest(505, "Unsupported protocol " + protocol);
+        }
+        //绝对形式的请求目标只保留路径
+        if(target.startsWith("http://") || target.startsWith("https://")) {
+            int path = target.indexOf('/', target.indexOf("//") + 2);
+            target = path < 0 ? "/" : target.substring(path);
+        }
+        if(!target.startsWith("/") && !"*".equals(target)) {
+            throw new BadRequest(400, "Invalid request target");
+        }
+        EmbeddedRequest request = factory.create(method, target, protocol);
+        int position = lineEnd < 0 ? head.length() : lineEnd + 2;
+        while (position < head.length()) {
+            int next = head.indexOf("\r\n", position);
+            if(next < 0) {
+                next = head.length();
+            }
+            int colon = head.indexOf(':', position);
+            if(colon <= position || colon > next || head.charAt(position) == ' ' || head.charAt(position) == '\t'
+                    || head.charAt(colon - 1) == ' ') {
+                throw new BadRequest(400, "Invalid header line");
+            }
+            request.addHeader(head.substring(position, colon), head.substring(colon + 1, next).trim());
+            position = next + 2;
+        }
+        if("HTTP/1.1".equals(protocol) && request.getHeader("Host") == null) {
+            throw new BadRequest(400, "Missing Host header");
+        }
+        return request;
+    }
+
+    /**
+     * 读取以CRLF结束的一行，数据不够时返回null
+     */
+    private static String readLine(ByteBuffer in) throws BadRequest {
+        byte[] bytes = in.array();
+        int start = in.arrayOffset() + in.position();
+        int limit = in.arrayOffset() + in.limit();
+        for(int i = start + 1; i < limit; i++) {
+            if(bytes[i] == '\n' && bytes[i - 1] == '\r') {
+                in.position(in.position() + i + 1 - start);
+                return new String(bytes, start, i - 1 - start, StandardCharsets.ISO_8859_1);
+            }
+        }
+        if(limit - start > MAX_LINE) {
+            throw new BadRequest(400, "Line too long in chunked body");
+        }
+        return null;
+    }
+
+    private EmbeddedRequest complete(byte[] content) {
+        EmbeddedRequest complete = request;
+        complete.setBody(content);
+        request = null;
+        body = null;
+        chunks = null;
+        state = HEAD;
+        return complete;
+    }
+
+    /**
+     * 请求头读完时创建请求对象，由连接提供地址等信息
+     */
+    interface RequestFactory {
+        EmbeddedRequest create(String method, String target, String protocol);
+    }
+}
@@ -0,0 +1,283 @@
+package com.gupaoedu.mvcframework.v2.server;
+
+import com.gupaoedu.mvcframework.v2.async.HandlerExecutors;
+import com.gupaoedu.mvcframework.v2.servlet.WCDispatcherServlet;
+
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * 内嵌的HTTP/1.1服务器，不需要外部容器即可运行WCDispatcherServlet：
+ * <ul>
+ *     <li>一个接收线程，新连接轮流分给serverIoThreads个I/O线程，每个I/O线程一个Selector</li>
+ *     <li>支持keep-alive和流水线，响应按请求顺序写出</li>
+ *     <li>响应体超过serverResponseBufferBytes或处理方法调用flushBuffer时改为chunked分块写出</li>
+ *     <li>请求在serverExecutor上执行：none(I/O线程上直接执行，只适合不阻塞的处理方法) | pool(默认) | virtual</li>
+ * </ul>
+ * 配置与servlet共用同一个properties文件，启动：java com.gupaoedu.mvcframework.v2.server.WCServer [application.properties]
+ * @since V1.0.0
+ */
+public final class WCServer {
+
+    private final HttpServlet servlet;
+
+    private final String contextConfigLocation;
+
+    private final int port;
+
+    private final int ioThreads;
+
+    private final long keepAliveTimeout;
+
+    private final int maxHeaderBytes;
+
+    private final long maxBodyBytes;
+
+    private final int maxPipelined;
+
+    private final int responseBufferBytes;
+
+    private final String executorMode;
+
+    private final int executorThreads;
+
+    private final ServletContext servletContext;
+
+    //请求的执行器，none方式为null
+    private ExecutorService worker;
+
+    //异步请求的超时
+    private ScheduledExecutorService scheduler;
+
+    private ServerSocketChannel serverChannel;
+
+    private IoLoop[] loops;
+
+    private Thread acceptor;
+
+    private volatile boolean running = false;
+
+    /**
+     * @param servlet 要运行的servlet，尚未初始化
+     * @param contextConfigLocation 类路径下的配置文件，同时作为servlet的contextConfigLocation
+     */
+    public WCServer(HttpServlet servlet, String contextConfigLocation) throws IOException {
+        this.servlet = servlet;
+        this.contextConfigLocation = contextConfigLocation;
+        Properties config = new Properties();
+        try (InputStream is = WCServer.class.getClassLoader().getResourceAsStream(contextConfigLocation)) {
+            if(is == null) {
+                throw new IOException("Config " + contextConfigLocation + " not found on the classpath");
+            }
+            config.load(is);
+        }
+        this.port = Integer.parseInt(config.getProperty("serverPort", "8080").trim());
+        this.ioThreads = Integer.parseInt(config.getProperty("serverIoThreads",
+                String.valueOf(Math.max(1, Runtime.getRuntime().availableProcessors() / 2))).trim());
+        this.keepAliveTimeout = Long.parseLong(config.getProperty("serverKeepAliveTimeout", "30000").trim());
+        this.maxHeaderBytes = Integer.parseInt(config.getProperty("serverMaxHeaderBytes", "8192").trim());
+        this.maxBodyBytes = Long.parseLong(config.getProperty("serverMaxBodyBytes", "8388608").trim());
+        this.maxPipelined = Math.max(1, Integer.parseInt(config.getProperty("serverMaxPipelined", "16").trim()));
+        this.responseBufferBytes = Math.max(1024, Integer.parseInt(config.getProperty("serverResponseBufferBytes", "65536").trim()));
+        this.executorMode = config.getProperty("serverExecutor", HandlerExecutors.POOL).trim();
+        this.executorThreads = Integer.parseInt(config.getProperty("serverExecutorThreads", "200").trim());
+        this.servletContext = EmbeddedServletContext.create(webRoot(config.getProperty("serverWebRoot", "").trim()));
+    }
+
+    /**
+     * 未配置时使用工作目录下的src/main/webapp，不存在时使用工作目录
+     */
+    private static Path webRoot(String configured) {
+        if(!configured.isEmpty()) {
+            return Paths.get(configured).toAbsolutePath().normalize();
+        }
+        Path webapp = Paths.get("src", "main", "webapp");
+        return (Files.isDirectory(webapp) ? webapp : Paths.get("")).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 初始化servlet后开始监听
+     */
+    public synchronized void start() throws IOException, ServletException {
+        if(running) {return ;}
+        servlet.init(new EmbeddedServletConfig());
+        worker = HandlerExecutors.create(executorMode, executorThreads, "wc-worker-");
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "wc-async-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        scheduler = timer;
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        loops = new IoLoop[Math.max(1, ioThreads)];
+        for(int i = 0; i < loops.length; i++) {
+            loops[i] = new IoLoop(this, "wc-io-" + (i + 1), keepAliveTimeout);
+            loops[i].start();
+        }
+        running = true;
+        acceptor = new Thread(this::accept, "wc-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * 阻塞接收连接，轮流分给I/O线程
+     */
+    private void accept() {
+        int next = 0;
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (ClosedChannelException e) {
+                return ;
+            } catch (IOException e) {
+                if(running) {
+                    e.printStackTrace();
+                }
+                continue;
+            }
+            try {
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            } catch (IOException e) {
+                //不影响使用
+            }
+            loops[next].register(channel);
+            next = (next + 1) % loops.length;
+        }
+    }
+
+    /**
+     * 停止接收新连接，关闭所有连接，销毁servlet
+     */
+    public synchronized void stop() {
+        if(!running) {return ;}
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for(IoLoop loop : loops) {
+            loop.shutdown();
+        }
+        if(worker != null) {
+            worker.shutdown();
+        }
+        scheduler.shutdownNow();
+        servlet.destroy();
+    }
+
+    /**
+     * 实际监听的端口，配置serverPort=0时由系统分配
+     */
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * 交给执行器，none方式或执行器已经关闭时在当前I/O线程上执行
+     */
+    void dispatch(Exchange exchange) {
+        if(worker != null) {
+            try {
+                worker.execute(exchange);
+                return ;
+            } catch (RejectedExecutionException e) {
+                //停止过程中，直接执行
+            }
+        }
+        exchange.run();
+    }
+
+    Executor asyncExecutor() {
+        return worker != null ? worker : ForkJoinPool.commonPool();
+    }
+
+    HttpServlet servlet() {
+        return servlet;
+    }
+
+    ServletContext servletContext() {
+        return servletContext;
+    }
+
+    ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    int maxHeaderBytes() {
+        return maxHeaderBytes;
+    }
+
+    long maxBodyBytes() {
+        return maxBodyBytes;
+    }
+
+    int maxPipelined() {
+        return maxPipelined;
+    }
+
+    int responseBufferBytes() {
+        return responseBufferBytes;
+    }
+
+    private final class EmbeddedServletConfig implements ServletConfig {
+
+        @Override
+        public String getServletName() {
+            return "wc";
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return servletContext;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return "contextConfigLocation".equals(name) ? contextConfigLocation : null;
+        }
+
+        @Override
+        public Enumeration<String> getInitParameterNames() {
+            return Collections.enumeration(Collections.singleton("contextConfigLocation"));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        long begin = System.nanoTime();
+        WCServer server = new WCServer(new WCDispatcherServlet(), args.length > 0 ? args[0] : "application.properties");
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop, "wc-shutdown"));
+        System.out.println("WCServer started on port " + server.getPort() + " in "
+                + (System.nanoTime() - begin) / 1000000 + " ms");
+    }
+}
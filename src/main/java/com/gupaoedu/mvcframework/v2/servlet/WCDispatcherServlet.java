@@ -1,20 +1,65 @@
 package com.gupaoedu.mvcframework.v2.servlet;
 
 import com.gupaoedu.mvcframework.annotation.*;
+import com.gupaoedu.mvcframework.v2.async.AsyncDispatch;
+import com.gupaoedu.mvcframework.v2.async.HandlerExecutors;
+import com.gupaoedu.mvcframework.v2.batch.BatchHandler;
+import com.gupaoedu.mvcframework.v2.beans.BeanDefinition;
+import com.gupaoedu.mvcframework.v2.beans.BeanRegistry;
+import com.gupaoedu.mvcframework.v2.binding.BindingException;
+import com.gupaoedu.mvcframework.v2.cache.CachePolicy;
+import com.gupaoedu.mvcframework.v2.cache.CachedResponse;
+import com.gupaoedu.mvcframework.v2.cache.CapturingResponse;
+import com.gupaoedu.mvcframework.v2.cache.ResponseCache;
+import com.gupaoedu.mvcframework.v2.conditional.ConditionalPolicy;
+import com.gupaoedu.mvcframework.v2.conditional.ConditionalRequest;
+import com.gupaoedu.mvcframework.v2.conditional.EtagResponse;
+import com.gupaoedu.mvcframework.v2.exception.ErrorLog;
+import com.gupaoedu.mvcframework.v2.exception.ErrorResponses;
+import com.gupaoedu.mvcframework.v2.exception.ExceptionAdvice;
+import com.gupaoedu.mvcframework.v2.exception.ExceptionHandlerMethod;
+import com.gupaoedu.mvcframework.v2.exception.ExceptionResolver;
+import com.gupaoedu.mvcframework.v2.handler.HandlerInvoker;
+import com.gupaoedu.mvcframework.v2.handler.HandlerMethod;
+import com.gupaoedu.mvcframework.v2.index.IndexRegistry;
+import com.gupaoedu.mvcframework.v2.index.WCApplicationIndex;
+import com.gupaoedu.mvcframework.v2.interceptor.HandlerInterceptor;
+import com.gupaoedu.mvcframework.v2.interceptor.InterceptorChain;
+import com.gupaoedu.mvcframework.v2.interceptor.InterceptorMappings;
+import com.gupaoedu.mvcframework.v2.limit.AdaptiveLimiter;
+import com.gupaoedu.mvcframework.v2.limit.RouteLimiter;
+import com.gupaoedu.mvcframework.v2.metrics.MetricsRegistry;
+import com.gupaoedu.mvcframework.v2.metrics.RouteMetrics;
+import com.gupaoedu.mvcframework.v2.reload.ApplicationSnapshot;
+import com.gupaoedu.mvcframework.v2.reload.ClassesWatcher;
+import com.gupaoedu.mvcframework.v2.reload.ReloadingClassLoader;
+import com.gupaoedu.mvcframework.v2.resource.StaticResourceHandler;
+import com.gupaoedu.mvcframework.v2.response.ReturnValueWriter;
+import com.gupaoedu.mvcframework.v2.router.RouteMatch;
+import com.gupaoedu.mvcframework.v2.router.Router;
+import com.gupaoedu.mvcframework.v2.scan.ClassPathScanner;
+import com.gupaoedu.mvcframework.v2.trace.DispatchTrace;
+import com.gupaoedu.mvcframework.v2.trace.DispatchTracer;
+import com.gupaoedu.mvcframework.v2.trace.TraceRing;
 
+import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
+import javax.servlet.http.HttpServletResponseWrapper;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
-import java.lang.reflect.Parameter;
-import java.net.URL;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * @author Wang Chong at 2019-10-28 21:12
@@ -25,14 +70,89 @@ public class WCDispatcherServlet extends HttpServlet {
     //存储主配置的内容
     private Properties contextConfig = new Properties();
 
-    //存储所有扫描类的名字
+    //当前生效的路由表与bean，请求线程只读取这一个引用，不加锁；重新加载时构建新快照后整体替换
+    private final AtomicReference<ApplicationSnapshot> snapshot = new AtomicReference<>();
+
+    //初始化和重新加载互斥，以下几个构建中的容器只在持有这把锁时使用
+    private final Object reloadLock = new Object();
+
+    //存储扫描到的带注解类的名字
     private List<String> classNames = new ArrayList<>();
 
-    //暂时用HashMap当ioc容器
-    private Map<String, Object> ioc = new HashMap<>();
+    //ioc容器，按依赖图创建bean
+    private BeanRegistry ioc = new BeanRegistry();
+
+    //路径映射容器，按路径片段组织的路由树
+    private Router handlerMapping = new Router();
+
+    //加载controller和service的类加载器，重新加载时每次新建
+    private ClassLoader classLoader;
+
+    //构建中的路由所用的指标，发布后清理已经不存在的路由
+    private List<RouteMetrics> routeMetrics = new ArrayList<>();
+
+    //构建中的路由数
+    private int routeCount;
+
+    //构建中的拦截器，依赖注入完成后取出，注册路由时为每条路由算出拦截器数组
+    private InterceptorMappings interceptorMappings;
+
+    //构建中的advice，依赖注入完成后取出，注册路由时为每个controller算出异常处理方法的查找
+    private ExceptionAdvice exceptionAdvice;
+
+    //处理方法抛出的未处理异常的日志，限制每秒输出的堆栈条数
+    private ErrorLog errorLog = new ErrorLog(0);
+
+    //WCRequestBody请求体的默认字节数上限，0表示不限制
+    private long requestBodyMaxBytes = 1048576L;
+
+    //重新加载的保留路径，只接受POST，未配置时为null
+    private String reloadPath;
+
+    //批量接口，未配置batchPath时为null
+    private BatchHandler batchHandler;
+
+    //类文件监视，未启用时为null
+    private ClassesWatcher classesWatcher;
+
+    //是否使用反射调用处理方法，默认使用MethodHandle，配置handlerInvoker=reflect时回退到反射
+    private boolean reflectiveInvoker = false;
+
+    //处理方法执行器，为null时在容器线程上同步执行
+    private ExecutorService handlerExecutor;
+
+    //异步请求超时时间，毫秒
+    private long asyncTimeout = 30000L;
+
+    //响应缓存，配置responseCacheMaxBytes=0时为null
+    private ResponseCache responseCache;
+
+    //全局自适应并发限制，未配置concurrencyLimitEnabled=true时为null
+    private AdaptiveLimiter concurrencyLimiter;
 
-    //路径映射容器
-    private Map<String, Method> handlerMapping = new HashMap<>();
+    //路由指标，配置metricsEnabled=false时为null，分发路径上只多一次判空
+    private MetricsRegistry metrics;
+
+    //输出指标的保留路径
+    private String metricsPath = "/_metrics";
+
+    //请求的阶段计时：JFR事件和采样
+    private DispatchTracer tracer = new DispatchTracer(0, 0);
+
+    //采样到的请求，配置traceSampleRate=0时为null
+    private TraceRing traceRing;
+
+    //输出采样到的请求的保留路径
+    private String tracePath = "/_trace";
+
+    //静态资源，未配置staticRoot时为null
+    private StaticResourceHandler staticResources;
+
+    //返回值输出，字符串按文本、其余对象按JSON写入池化的缓冲区
+    private ReturnValueWriter returnValueWriter;
+
+    //并行创建bean的线程数，bean初始化多为阻塞操作（建立连接、预热缓存），不少于4
+    private int beanInitThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
 
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
@@ -41,11 +161,58 @@ public class WCDispatcherServlet extends HttpServlet {
 
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        //开启了JFR事件或被采样时计时，否则为null
+        DispatchTrace trace = tracer.begin(req);
         try {
-            doDispatch(req, resp);
+            doDispatch(req, resp, trace);
         } catch (Exception e) {
-            e.printStackTrace();
-            resp.getWriter().write("500 Execution, Detail" + Arrays.toString(e.getStackTrace()));
+            handleException(req, resp, e);
+        } finally {
+            if(trace != null) {trace.end(req, resp);}
+        }
+    }
+
+    /**
+     * 异常处理，同步与异步请求共用
+     * @param req 请求
+     * @param resp 响应
+     * @param e 异常
+     */
+    private void handleException(HttpServletRequest req, HttpServletResponse resp, Exception e) throws IOException {
+        if(e instanceof BindingException) {
+            //客户端的错误，不记录日志
+            int status = ((BindingException) e).getStatus();
+            ErrorResponses.write(resp, status, ErrorResponses.bytes(status + " " + ErrorResponses.reasonPhrase(status) + ", " + e.getMessage()));
+            return ;
+        }
+        //堆栈只进日志，不返回给客户端
+        errorLog.log(e);
+        //已经提交的响应（流式输出写出了一部分）不能再改状态码，追加错误信息只会破坏已经写出的内容，
+        //只标记出错，内嵌服务器据此不写结束块并关闭连接
+        if(resp.isCommitted()) {
+            req.setAttribute(RequestDispatcher.ERROR_EXCEPTION, e);
+            return ;
+        }
+        ErrorResponses.write(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, ErrorResponses.INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * 交给处理器所在controller或advice的WCExceptionHandler方法，丢弃还没有提交的输出后写出它的返回值
+     * @return 没有能处理的方法或处理方法本身出错时返回false，由handleException处理原来的异常
+     */
+    private boolean resolveException(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler, Exception e) {
+        ExceptionResolver resolver = handler.getExceptionResolver();
+        if(resolver == null) {return false;}
+        ExceptionHandlerMethod method = resolver.resolve(e.getClass());
+        //流式输出已经写出了一部分，不能再换成异常处理方法的结果
+        if(method == null || resp.isCommitted()) {return false;}
+        try {
+            resp.resetBuffer();
+            writeReturnValue(req, resp, method.invoke(req, resp, handler, e));
+            return true;
+        } catch (Exception ex) {
+            errorLog.log(ex);
+            return false;
         }
     }
 
@@ -53,91 +220,355 @@ public class WCDispatcherServlet extends HttpServlet {
      * 根据uri做请求委派
      * @param req 请求参数
      * @param resp 响应参数
+     * @param trace 阶段计时，不需要时为null
      */
-    private void doDispatch(HttpServletRequest req, HttpServletResponse resp) throws Exception {
-        //请求全路径
+    private void doDispatch(HttpServletRequest req, HttpServletResponse resp, DispatchTrace trace) throws Exception {
+        //请求全路径，跳过contextPath，不做字符串替换
         String url = req.getRequestURI();
         String contextPath = req.getContextPath();
-        url = url.replaceAll(contextPath, "").replaceAll("/+", "/");
+        int start = (contextPath != null && url.startsWith(contextPath)) ? contextPath.length() : 0;
+        //指标输出
+        if(metrics != null && url.length() - start == metricsPath.length() && url.startsWith(metricsPath, start)) {
+            resp.setContentType(MetricsRegistry.CONTENT_TYPE);
+            resp.getWriter().write(metrics.scrape(responseCache, concurrencyLimiter));
+            return ;
+        }
+        //采样到的请求
+        if(traceRing != null && url.length() - start == tracePath.length() && url.startsWith(tracePath, start)) {
+            writeReturnValue(req, resp, traceRing.snapshot());
+            return ;
+        }
+        //重新加载
+        if(reloadPath != null && url.length() - start == reloadPath.length() && url.startsWith(reloadPath, start)) {
+            doReload(req, resp);
+            return ;
+        }
+        //批量请求，子请求重新进入doPost
+        if(batchHandler != null && batchHandler.matches(url, start)) {
+            batchHandler.handle(req, resp);
+            return ;
+        }
+        //读取一次当前快照，本次请求始终使用同一张路由表
+        RouteMatch match = snapshot.get().getRouter().match(url, start, req.getMethod());
+        if(trace != null) {
+            trace.routed(match.getStatus() == RouteMatch.Status.FOUND ? match.getHandler().getUrl() : null);
+        }
         //404情况
-        if(!handlerMapping.containsKey(url)) {
-            resp.getWriter().write("404 Not Found!!!");
+        if(match.getStatus() == RouteMatch.Status.NOT_FOUND) {
+            //没有路由时按静态资源处理
+            if(staticResources != null && staticResources.handle(req, resp, url, start)) {return ;}
+            if(metrics != null) {metrics.notFound();}
+            ErrorResponses.write(resp, HttpServletResponse.SC_NOT_FOUND, ErrorResponses.NOT_FOUND);
+            return ;
+        }
+        //405情况
+        if(match.getStatus() == RouteMatch.Status.METHOD_NOT_ALLOWED) {
+            if(metrics != null) {metrics.methodNotAllowed();}
+            resp.setHeader("Allow", match.getAllow());
+            ErrorResponses.write(resp, HttpServletResponse.SC_METHOD_NOT_ALLOWED, ErrorResponses.METHOD_NOT_ALLOWED);
             return ;
         }
-        //执行方法
-        Method method = handlerMapping.get(url);
-        String beanName = toLowerFirstCase(method.getDeclaringClass().getSimpleName());
-        Object instance = ioc.get(beanName);
-        //方法形参列表
-        Parameter[] parameters = method.getParameters();
+        //执行方法，实例、调用器与参数绑定计划在初始化时已确定
+        HandlerMethod handler = match.getHandler();
+        //限流与并发隔离：超出时在计时和参数绑定之前拒绝
+        RouteLimiter limiter = handler.getLimiter();
+        if(limiter == null) {
+            this.doAdmit(req, resp, url, match, handler, trace);
+            return ;
+        }
+        if(!limiter.tryAcquire(resp)) {return ;}
+        try {
+            this.doAdmit(req, resp, url, match, handler, trace);
+        } finally {
+            limiter.release(req);
+        }
+    }
+
+    /**
+     * 经过全局自适应并发限制后执行，达到上限时短暂排队，队列满或等待超时返回503；未启用时直接执行
+     */
+    private void doAdmit(HttpServletRequest req, HttpServletResponse resp, String url,
+                         RouteMatch match, HandlerMethod handler, DispatchTrace trace) throws Exception {
+        AdaptiveLimiter limiter = concurrencyLimiter;
+        if(limiter == null) {
+            this.doMeasure(req, resp, url, match, handler, trace);
+            return ;
+        }
+        AdaptiveLimiter.Permit permit = limiter.tryAcquire(resp);
+        if(permit == null) {return ;}
+        //返回值流式输出时提前归还
+        req.setAttribute(AdaptiveLimiter.PERMIT_ATTRIBUTE, permit);
+        try {
+            this.doMeasure(req, resp, url, match, handler, trace);
+        } finally {
+            limiter.release(req, resp, permit);
+        }
+    }
+
+    /**
+     * 记录路由指标后执行处理器，未启用指标时直接执行
+     */
+    private void doMeasure(HttpServletRequest req, HttpServletResponse resp, String url,
+                           RouteMatch match, HandlerMethod handler, DispatchTrace trace) throws Exception {
+        RouteMetrics routeMetrics = handler.getMetrics();
+        if(routeMetrics == null) {
+            this.doExecute(req, resp, url, match, handler, trace);
+            return ;
+        }
+        //记录耗时，异步请求在容器结束异步处理时记录
+        long begin = routeMetrics.start();
+        boolean failed = true;
+        try {
+            this.doExecute(req, resp, url, match, handler, trace);
+            //异常处理方法返回的5xx也算失败
+            failed = resp.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } catch (BindingException e) {
+            failed = false;
+            throw e;
+        } finally {
+            if(!failed && req.isAsyncStarted()) {
+                req.getAsyncContext().addListener(routeMetrics.asyncListener(begin));
+            } else {
+                routeMetrics.stop(begin, failed);
+            }
+        }
+    }
+
+    /**
+     * 执行拦截器链和处理器，抛出的异常先交给异常处理方法，没有能处理的方法时继续向外抛出
+     */
+    private void doExecute(HttpServletRequest req, HttpServletResponse resp, String url,
+                           RouteMatch match, HandlerMethod handler, DispatchTrace trace) throws Exception {
+        try {
+            this.doIntercept(req, resp, url, match, handler, trace);
+        } catch (Exception e) {
+            if(!resolveException(req, resp, handler, e)) {throw e;}
+        }
+    }
+
+    /**
+     * 执行拦截器链，没有拦截器的路由直接执行处理器
+     */
+    private void doIntercept(HttpServletRequest req, HttpServletResponse resp, String url,
+                             RouteMatch match, HandlerMethod handler, DispatchTrace trace) throws Exception {
+        HandlerInterceptor[] interceptors = handler.getInterceptors();
+        if(interceptors == null) {
+            this.doHandle(req, resp, url, match, handler, trace);
+            return ;
+        }
+        InterceptorChain chain = new InterceptorChain(handler, interceptors, errorLog);
+        Exception failure = null;
+        try {
+            if(!chain.applyPreHandle(req, resp)) {return ;}
+            this.doHandle(req, resp, url, match, handler, trace);
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            if(failure == null && req.isAsyncStarted()) {
+                req.getAsyncContext().addListener(chain.asyncListener(req, resp));
+            } else {
+                chain.triggerAfterCompletion(req, resp, failure);
+            }
+        }
+    }
+
+    /**
+     * 执行匹配到的处理器：响应缓存、条件GET、参数绑定和方法调用
+     */
+    private void doHandle(HttpServletRequest req, HttpServletResponse resp, String url,
+                          RouteMatch match, HandlerMethod handler, DispatchTrace trace) throws Exception {
+        boolean get = "GET".equals(req.getMethod());
+        //条件GET：标注了WCETag时读取请求条件，请求不带条件时为null
+        ConditionalPolicy conditionalPolicy = get ? handler.getConditionalPolicy() : null;
+        ConditionalRequest conditions = conditionalPolicy != null ? ConditionalRequest.of(req) : null;
+        //可缓存的GET请求：命中时直接写出，未命中时捕获响应
+        CachePolicy cachePolicy = handler.getCachePolicy();
+        if(cachePolicy != null && responseCache != null && get) {
+            //与路由匹配时一样合并'/'，//demo/query与/demo/query共用一条缓存
+            String key = cachePolicy.key(req, Router.normalize(url));
+            CachedResponse cached = responseCache.get(key);
+            if(cached != null) {
+                resp.setHeader("X-Cache", "HIT");
+                if(conditions != null && conditions.isNotModified(cached.getHeader("ETag"), -1)) {
+                    cached.writeNotModified(resp);
+                } else {
+                    cached.writeTo(resp);
+                }
+                return ;
+            }
+            resp.setHeader("X-Cache", "MISS");
+            resp = new CapturingResponse(resp, responseCache, key, cachePolicy);
+        }
+        //没有版本方法时缓冲输出计算ETag，在绑定之前包装，处理方法拿到的也是包装后的响应
+        if(conditionalPolicy != null && !conditionalPolicy.hasVersion()) {
+            resp = new EtagResponse(resp, conditions);
+        }
         //请求参数与方法形参映射
-        Object[] paramValues = new Object[parameters.length];
-        this.parameterMapping(req, resp, parameters, paramValues);
+        Object[] paramValues = handler.getBindingPlan().bind(req, resp, match);
+        if(trace != null) {trace.bound();}
+        //版本未变化时不调用处理方法
+        if(conditionalPolicy != null && conditionalPolicy.hasVersion()
+                && conditionalPolicy.checkVersion(paramValues, conditions, resp)) {
+            return ;
+        }
         //方法委派调用
-        method.invoke(instance, paramValues);
+        this.invokeHandler(req, resp, handler, paramValues, trace);
+        if(!req.isAsyncStarted()) {
+            finishResponse(resp);
+            if(trace != null) {trace.written();}
+        }
     }
 
     /**
-     * 请求参数与方法形参列表映射
+     * 调用处理方法：配置了执行器时交给执行器，返回CompletionStage时等其完成后再写响应，
+     * 两种情况都通过Servlet异步处理释放容器线程
      * @param req 请求
      * @param resp 响应
-     * @param parameters 方法形参列表
-     * @param paramValues 与方法形参对应的入参值
-     */
-    private void parameterMapping(HttpServletRequest req, HttpServletResponse resp, Parameter[] parameters, Object[] paramValues) {
-        Map<String, String[]> parameterMap = req.getParameterMap();
-        //请求参数
-       for(int i = 0; i < parameters.length; i++) {
-           Class parameterType = parameters[i].getType();
-           if(parameterType == HttpServletRequest.class) {
-               paramValues[i] = req;
-               continue;
-           }
-           if(parameterType == HttpServletResponse.class) {
-               paramValues[i] = resp;
-               continue;
-           }
-           //获取实参key
-           String parameterName = this.getRealParamKey(parameters[i]);
-           //实参数组处理
-           String value = Arrays.toString(parameterMap.get(parameterName))
-                   .replaceAll("\\[|\\]","")
-                   .replaceAll("\\s",",");
-           //类型转换,实参与形参映射
-           paramValues[i] = this.covertType(parameterType, value);
-       }
-    }
-
-    /**
-     * 实参类型转换
-     * @param parameterType 形参类型
-     * @param value 实参转换类型的值
-     */
-    private Object covertType(Class parameterType, String value) {
-        if(String.class == parameterType) {
-            return value;
-        }
-        if(Integer.class == parameterType) {
-            return Integer.valueOf(value);
-        }
-
-        return null;
-    }
-
-    /**
-     * 获取实参key
-     * @param parameter 方法参数对象
-     */
-    private String getRealParamKey(Parameter parameter) {
-        String parameterName =  parameter.getName();
-        boolean isAnno = parameter.isAnnotationPresent(WCRequestParam.class);
-        if(isAnno) {
-            WCRequestParam requestParam = parameter.getAnnotation(WCRequestParam.class);
-            if(!"".equals(requestParam.value().trim())) {
-                parameterName = requestParam.value().trim();
+     * @param handler 处理器
+     * @param paramValues 入参
+     * @param trace 阶段计时，可以为null
+     */
+    private void invokeHandler(HttpServletRequest req, HttpServletResponse resp,
+                               HandlerMethod handler, Object[] paramValues, DispatchTrace trace) throws Exception {
+        if(handlerExecutor != null && req.isAsyncSupported()) {
+            AsyncDispatch async = AsyncDispatch.start(req, asyncTimeout);
+            handlerExecutor.execute(() -> {
+                try {
+                    this.handleResult(req, resp, handler, this.invoke(req, resp, handler, paramValues), async, trace);
+                } catch (Throwable e) {
+                    this.completeAsync(req, resp, handler, async, null, e, trace);
+                }
+            });
+            return ;
+        }
+        this.handleResult(req, resp, handler, this.invoke(req, resp, handler, paramValues), null, trace);
+    }
+
+    /**
+     * 调用处理方法，正常返回后执行拦截器的postHandle
+     */
+    private Object invoke(HttpServletRequest req, HttpServletResponse resp,
+                          HandlerMethod handler, Object[] paramValues) throws Exception {
+        Object result = handler.invoke(paramValues);
+        HandlerInterceptor[] interceptors = handler.getInterceptors();
+        if(interceptors != null) {
+            InterceptorChain.applyPostHandle(interceptors, req, resp, handler, result);
+        }
+        return result;
+    }
+
+    /**
+     * 处理返回值
+     * @param async 已开启的异步处理，同步调用时为null
+     * @param trace 阶段计时，可以为null
+     */
+    private void handleResult(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler,
+                              Object result, AsyncDispatch async, DispatchTrace trace) throws Exception {
+        if(result instanceof CompletionStage) {
+            CompletionStage<?> stage = (CompletionStage<?>) result;
+            if(async == null && !req.isAsyncSupported()) {
+                //容器不支持异步时只能阻塞等待
+                Object value;
+                try {
+                    value = stage.toCompletableFuture().get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e.getCause());
+                }
+                if(trace != null) {trace.invoked();}
+                writeReturnValue(req, resp, value);
+                return ;
+            }
+            AsyncDispatch dispatch = async == null ? AsyncDispatch.start(req, asyncTimeout) : async;
+            stage.whenComplete((value, error) -> this.completeAsync(req, resp, handler, dispatch, value, error, trace));
+            return ;
+        }
+        if(trace != null) {trace.invoked();}
+        if(async != null) {
+            this.completeAsync(req, resp, handler, async, result, null, trace);
+            return ;
+        }
+        writeReturnValue(req, resp, result);
+    }
+
+    /**
+     * 异步处理完成，写响应并交还给容器；已超时的请求直接丢弃结果
+     */
+    private void completeAsync(HttpServletRequest req, HttpServletResponse resp, HandlerMethod handler,
+                               AsyncDispatch async, Object value, Throwable error, DispatchTrace trace) {
+        if(!async.tryFinish()) {return ;}
+        //CompletionStage完成的时间，执行器上同步返回的已经记过
+        if(trace != null) {trace.invoked();}
+        try {
+            if(error != null) {
+                //出错时丢弃已缓冲的输出
+                Exception e = unwrap(error);
+                HttpServletResponse original = originalResponse(resp);
+                if(!resolveException(req, original, handler, e)) {
+                    handleException(req, original, e);
+                }
+            } else {
+                writeReturnValue(req, resp, value);
+                finishResponse(resp);
+                if(trace != null) {trace.written();}
+            }
+        } catch (Exception e) {
+            errorLog.log(e);
+        } finally {
+            async.complete();
+        }
+    }
+
+    /**
+     * 写出返回值，void方法或null不输出，Iterator、Stream和ResponseEmitter流式输出
+     */
+    private void writeReturnValue(HttpServletRequest req, HttpServletResponse resp, Object value) throws IOException {
+        if(concurrencyLimiter != null && ReturnValueWriter.isStreaming(value)) {
+            //流式输出的时长取决于数据量和客户端，不再占用全局并发许可，也不作为耗时样本
+            Object permit = req.getAttribute(AdaptiveLimiter.PERMIT_ATTRIBUTE);
+            if(permit instanceof AdaptiveLimiter.Permit) {
+                concurrencyLimiter.detach((AdaptiveLimiter.Permit) permit);
             }
         }
-        return parameterName;
+        returnValueWriter.write(req, resp, value);
+    }
+
+    /**
+     * 写出缓冲的响应：条件GET和响应缓存同时生效时，先按200放入缓存，再决定是否只返回304
+     */
+    private static void finishResponse(HttpServletResponse resp) throws IOException {
+        if(resp instanceof EtagResponse) {
+            EtagResponse etagResponse = (EtagResponse) resp;
+            resp = (HttpServletResponse) etagResponse.getResponse();
+            if(!(resp instanceof CapturingResponse)) {
+                etagResponse.finish();
+                return ;
+            }
+            boolean notModified = etagResponse.isNotModified();
+            etagResponse.writeBody();
+            ((CapturingResponse) resp).finish(notModified);
+            return ;
+        }
+        if(resp instanceof CapturingResponse) {
+            ((CapturingResponse) resp).finish();
+        }
+    }
+
+    /**
+     * 去掉框架加上的缓冲包装
+     */
+    private static HttpServletResponse originalResponse(HttpServletResponse resp) {
+        while (resp instanceof EtagResponse || resp instanceof CapturingResponse) {
+            resp = (HttpServletResponse) ((HttpServletResponseWrapper) resp).getResponse();
+        }
+        return resp;
+    }
+
+    private static Exception unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error instanceof Exception ? (Exception) error : new ExecutionException(error);
     }
 
     @Override
@@ -145,28 +576,269 @@ public class WCDispatcherServlet extends HttpServlet {
 
         //1.加载配置文件
         doLoadConfig(config.getInitParameter("contextConfigLocation"));
-        //2.扫描类
-        doScanner(contextConfig.getProperty("scanPackage"));
-        //3.初始化扫描类，并放入容器中
-        doInstance();
-        //4.完成依赖注入
-        doAutowired();
-        //5.初始化HandlerMapping
-        initHandlerMapping();
+        reflectiveInvoker = "reflect".equalsIgnoreCase(contextConfig.getProperty("handlerInvoker", "").trim());
+        handlerExecutor = HandlerExecutors.create(contextConfig.getProperty("handlerExecutor"),
+                Integer.parseInt(contextConfig.getProperty("handlerExecutorThreads", "200").trim()));
+        asyncTimeout = Long.parseLong(contextConfig.getProperty("asyncTimeout", "30000").trim());
+        long responseCacheMaxBytes = Long.parseLong(contextConfig.getProperty("responseCacheMaxBytes", "67108864").trim());
+        responseCache = responseCacheMaxBytes > 0 ? new ResponseCache(responseCacheMaxBytes) : null;
+        concurrencyLimiter = AdaptiveLimiter.of(contextConfig);
+        metrics = "true".equalsIgnoreCase(contextConfig.getProperty("metricsEnabled", "false").trim())
+                ? new MetricsRegistry() : null;
+        metricsPath = contextConfig.getProperty("metricsPath", metricsPath).trim();
+        tracer = new DispatchTracer(Double.parseDouble(contextConfig.getProperty("traceSampleRate", "0").trim()),
+                Integer.parseInt(contextConfig.getProperty("traceRingSize", "1024").trim()));
+        traceRing = tracer.getRing();
+        tracePath = contextConfig.getProperty("tracePath", tracePath).trim();
+        returnValueWriter = new ReturnValueWriter(Math.max(16, Runtime.getRuntime().availableProcessors() * 4),
+                Integer.parseInt(contextConfig.getProperty("responseBufferSize", "16384").trim()),
+                Integer.parseInt(contextConfig.getProperty("streamFlushBytes", "8192").trim()),
+                Long.parseLong(contextConfig.getProperty("streamFlushMillis", "200").trim()));
+        String staticRoot = contextConfig.getProperty("staticRoot", "").trim();
+        staticResources = staticRoot.isEmpty() ? null : new StaticResourceHandler(
+                contextConfig.getProperty("staticPathPrefix", "/static/").trim(), staticRoot, config.getServletContext(),
+                Long.parseLong(contextConfig.getProperty("staticCacheMaxBytes", "16777216").trim()),
+                Integer.parseInt(contextConfig.getProperty("staticCacheFileMaxBytes", "262144").trim()),
+                Long.parseLong(contextConfig.getProperty("staticMaxAge", "3600").trim()));
+        requestBodyMaxBytes = Long.parseLong(contextConfig.getProperty("requestBodyMaxBytes",
+                String.valueOf(requestBodyMaxBytes)).trim());
+        errorLog = new ErrorLog(Double.parseDouble(contextConfig.getProperty("errorLogPerSecond", "10").trim()));
+        beanInitThreads = Integer.parseInt(contextConfig.getProperty("beanInitThreads",
+                String.valueOf(beanInitThreads)).trim());
+        String reload = contextConfig.getProperty("reloadPath", "").trim();
+        reloadPath = reload.isEmpty() ? null : reload;
+        String batchPath = contextConfig.getProperty("batchPath", "").trim();
+        if(!batchPath.isEmpty()) {
+            Set<String> reservedPaths = new HashSet<>();
+            if(metrics != null) {reservedPaths.add(metricsPath);}
+            if(reloadPath != null) {reservedPaths.add(reloadPath);}
+            if(traceRing != null) {reservedPaths.add(tracePath);}
+            batchHandler = new BatchHandler(batchPath, reservedPaths,
+                    Integer.parseInt(contextConfig.getProperty("batchThreads", "16").trim()),
+                    Long.parseLong(contextConfig.getProperty("batchTimeout", "5000").trim()),
+                    Integer.parseInt(contextConfig.getProperty("batchMaxRequests", "20").trim()),
+                    requestBodyMaxBytes, this::doPost, returnValueWriter);
+        }
+        synchronized (reloadLock) {
+            snapshot.set(buildSnapshot(this.getClass().getClassLoader(), true, 1));
+        }
+        if("true".equalsIgnoreCase(contextConfig.getProperty("reloadWatch", "false").trim())) {
+            startClassesWatcher(Long.parseLong(contextConfig.getProperty("reloadWatchDelay", "500").trim()));
+        }
 
         System.out.println("初始化完成！！！");
     }
 
+    /**
+     * 第2~5步：扫描类、登记bean、依赖注入、初始化HandlerMapping，全部写入新建的容器，完成后作为一个快照返回；
+     * 调用方持有reloadLock
+     * @param loader 加载controller和service的类加载器
+     * @param useIndex 是否使用编译期索引
+     * @param version 快照版本
+     */
+    private ApplicationSnapshot buildSnapshot(ClassLoader loader, boolean useIndex, long version) {
+        long begin = System.nanoTime();
+        classLoader = loader;
+        classNames = new ArrayList<>();
+        ioc = new BeanRegistry();
+        handlerMapping = new Router();
+        routeMetrics = new ArrayList<>();
+        routeCount = 0;
+        //存在编译期生成的索引时直接使用，不扫描类文件，也不反射读取注解
+        List<WCApplicationIndex> indexes = useIndex
+                ? loadIndexes(contextConfig.getProperty("scanPackage")) : Collections.emptyList();
+        if(!indexes.isEmpty()) {
+            doIndex(indexes);
+        } else {
+            //2.扫描类
+            doScanner(contextConfig.getProperty("scanPackage"));
+            //3.登记扫描类的bean定义
+            doInstance();
+            //4.完成依赖注入
+            doAutowired();
+            interceptorMappings = InterceptorMappings.of(ioc);
+            exceptionAdvice = ExceptionAdvice.of(ioc);
+            //5.初始化HandlerMapping
+            initHandlerMapping();
+        }
+        return new ApplicationSnapshot(version, handlerMapping, ioc, classLoader, routeCount, System.nanoTime() - begin);
+    }
+
+    /**
+     * 重新扫描并构建新的路由表和bean，构建成功后原子替换当前快照；处理中的请求继续使用旧快照完成。
+     * <p>类文件在目录中时用新的类加载器读取修改后的类；重新加载总是扫描类文件，增量编译不一定会重新生成索引。
+     * 构建失败或者一条路由都没有时保留当前快照。</p>
+     * @return 新的快照
+     */
+    public ApplicationSnapshot reload() {
+        synchronized (reloadLock) {
+            ApplicationSnapshot current = snapshot.get();
+            String scanPackage = contextConfig.getProperty("scanPackage");
+            ClassLoader parent = this.getClass().getClassLoader();
+            ReloadingClassLoader loader = ReloadingClassLoader.create(parent, scanPackage);
+            ApplicationSnapshot next;
+            try {
+                next = buildSnapshot(loader != null ? loader : parent, false, current.getVersion() + 1);
+            } catch (LinkageError e) {
+                //编译错误或类文件还没有写完
+                throw new IllegalStateException("Reload failed, keeping " + current, e);
+            }
+            if(next.getRouteCount() == 0 && current.getRouteCount() > 0) {
+                throw new IllegalStateException("Reload found no routes in " + scanPackage + ", keeping " + current);
+            }
+            snapshot.set(next);
+            if(metrics != null) {
+                metrics.retain(routeMetrics);
+            }
+            //旧代码生成的响应不再有效
+            if(responseCache != null) {
+                responseCache.clear();
+            }
+            return next;
+        }
+    }
+
+    /**
+     * 处理重新加载请求，只接受POST
+     */
+    private void doReload(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        if(!"POST".equals(req.getMethod())) {
+            resp.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            resp.setHeader("Allow", "POST");
+            resp.getWriter().write("405 Method Not Allowed!!!");
+            return ;
+        }
+        ApplicationSnapshot next = reload();
+        System.out.println("重新加载完成：" + next);
+        resp.setContentType("text/plain;charset=UTF-8");
+        resp.getWriter().write("Reloaded " + next);
+    }
+
+    /**
+     * 监视扫描包的类文件目录，编译后自动重新加载；扫描包不在目录中时不启用
+     * @param quietMillis 文件停止变化后等待的毫秒数
+     */
+    private void startClassesWatcher(long quietMillis) throws ServletException {
+        String scanPackage = contextConfig.getProperty("scanPackage");
+        Path root = ReloadingClassLoader.classesRoot(this.getClass().getClassLoader(), scanPackage);
+        if(root == null) {
+            System.out.println("Classes of " + scanPackage + " are not in a directory, reloadWatch is ignored");
+            return ;
+        }
+        try {
+            classesWatcher = new ClassesWatcher(root.resolve(scanPackage.replace('.', '/')), quietMillis, () -> {
+                try {
+                    System.out.println("重新加载完成：" + reload());
+                } catch (RuntimeException e) {
+                    //构建失败时保留当前快照，等待下一次变化
+                    e.printStackTrace();
+                }
+            });
+        } catch (IOException e) {
+            throw new ServletException("Cannot watch " + root, e);
+        }
+        classesWatcher.start();
+    }
+
+    /**
+     * 当前生效的路由表与bean
+     */
+    public ApplicationSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * 路由指标，未启用时为null
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 响应缓存，可读取命中、未命中等计数，未启用时为null
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * 全局自适应并发限制，可读取当前上限、并发数和队列，未启用时为null
+     */
+    public AdaptiveLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    @Override
+    public void destroy() {
+        if(responseCache != null) {
+            System.out.println(responseCache);
+        }
+        if(concurrencyLimiter != null) {
+            System.out.println(concurrencyLimiter);
+        }
+        if(staticResources != null && staticResources.getCache() != null) {
+            System.out.println(staticResources.getCache());
+        }
+        if(handlerExecutor != null) {
+            handlerExecutor.shutdown();
+        }
+        if(batchHandler != null) {
+            batchHandler.shutdown();
+        }
+        if(classesWatcher != null) {
+            try {
+                classesWatcher.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 加载scanPackage之下的编译期索引，配置useGeneratedIndex=false时强制扫描
+     * @param scanPackage 扫描类的包路径
+     */
+    private List<WCApplicationIndex> loadIndexes(String scanPackage) {
+        List<WCApplicationIndex> indexes = new ArrayList<>();
+        if("false".equalsIgnoreCase(contextConfig.getProperty("useGeneratedIndex", "true").trim())) {
+            return indexes;
+        }
+        for(WCApplicationIndex index : ServiceLoader.load(WCApplicationIndex.class, classLoader)) {
+            String indexPackage = index.getPackage();
+            if(indexPackage.equals(scanPackage) || indexPackage.startsWith(scanPackage + ".")) {
+                indexes.add(index);
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * 按索引完成实例化、依赖注入和HandlerMapping初始化，等价于第2~5步
+     * @param indexes 编译期生成的索引
+     */
+    private void doIndex(List<WCApplicationIndex> indexes) {
+        IndexRegistry registry = new ServletIndexRegistry();
+        for(WCApplicationIndex index : indexes) {
+            index.registerBeans(registry);
+        }
+        doAutowired();
+        interceptorMappings = InterceptorMappings.of(ioc);
+        exceptionAdvice = ExceptionAdvice.of(ioc);
+        for(WCApplicationIndex index : indexes) {
+            index.registerRoutes(registry);
+        }
+    }
+
     /**
      * 初始化HandlerMapping
      */
     private void initHandlerMapping() {
         if(ioc.isEmpty()) {return ;}
-        for(Map.Entry entry : ioc.entrySet()) {
+        for(BeanDefinition definition : ioc.getDefinitions()) {
+            if(!definition.isController()) {continue;}
             //实例对象
-            Object instance = entry.getValue();
-            Class clazz = instance.getClass();
-            if(!clazz.isAnnotationPresent(WCController.class)) {continue;}
+            Object instance = ioc.getBean(definition);
+            Class clazz = definition.getType();
             //基础url，类上的RequestMapping
             String baseUrl = "";
             if(clazz.isAnnotationPresent(WCRequestMapping.class)) {
@@ -175,106 +847,144 @@ public class WCDispatcherServlet extends HttpServlet {
             }
             //拼接url，放入【路径映射容器】
             Method[] methods = clazz.getMethods();
-            this.doHandlerMapping(methods, baseUrl);
+            this.doHandlerMapping(instance, methods, baseUrl);
         }
     }
 
     /**
      * 拼接url，放入【路径映射容器】
+     * @param instance controller实例
      * @param methods controller类中所有方法
      * @param baseUrl 基础路径
      */
-    private void doHandlerMapping(Method[] methods,  String baseUrl) {
+    private void doHandlerMapping(Object instance, Method[] methods, String baseUrl) {
         for(Method method : methods) {
             if(!method.isAnnotationPresent(WCRequestMapping.class)) {continue;}
             WCRequestMapping requestMapping = method.getAnnotation(WCRequestMapping.class);
             String url = requestMapping.value();
             url = ("/" + baseUrl + "/" + url).replaceAll("/+", "/");
-            handlerMapping.put(url, method);
-            System.out.println("Mapped :" + url + method);
+            try {
+                registerHandler(url, requestMapping.method(), new HandlerMethod(url, instance, method, reflectiveInvoker));
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+                continue;
+            }
+            //重新加载时只输出汇总
+            if(snapshot.get() == null) {
+                System.out.println("Mapped :" + url + method);
+            }
         }
     }
 
     /**
-     * 依赖注入
+     * 依赖注入：解析依赖图，缺失或有歧义的依赖、循环依赖直接失败，
+     * 互不依赖的单例在fork-join池上并行创建
      */
     private void doAutowired() {
-        //容器非空判断
-        if(ioc.isEmpty()) {return ;}
-        //初始化容器所有的类的字段，进行依赖注入
-        for(Map.Entry entry : ioc.entrySet()) {
-            Object instance = entry.getValue();
-            Field[] fields = instance.getClass().getDeclaredFields();
-            //依赖注入
-            this.autowiredHandler(fields, instance);
-        }
+        ioc.refresh(beanInitThreads);
     }
 
     /**
-     * 遍历类中的成员变量，进行依赖注入
-     * @param fields 类中的所有成员变量
-     * @param instance 容器中的实例对象
+     * 登记扫描到的类，实例化推迟到doAutowired按依赖图进行
      */
-    private void autowiredHandler(Field[] fields, Object instance) {
-        for(Field field : fields) {
-            if(!field.isAnnotationPresent(WCAutowired.class)) {continue;}
-            WCAutowired wcAutowired = field.getAnnotation(WCAutowired.class);
-            field.setAccessible(true);
-            //获取beanName
-            String beanName = wcAutowired.value();
-            if("".equals(beanName.trim())) {
-                beanName = field.getName();
-            }
+    private void doInstance() {
+        if(classNames.isEmpty()) {return;}
+
+        for(String name : classNames) {
+            Class clazz;
             try {
-                field.set(instance, ioc.get(beanName));
-            } catch (IllegalAccessException e) {
+                clazz = Class.forName(name, true, classLoader);
+            } catch (ClassNotFoundException e) {
                 e.printStackTrace();
+                continue;
+            }
+            //controller
+            if(clazz.isAnnotationPresent(WCController.class)) {
+                String beanName = toLowerFirstCase(clazz.getSimpleName());
+                ioc.register(BeanDefinition.introspect(beanName, clazz));
+                continue;
+            }
+            //拦截器
+            if(clazz.isAnnotationPresent(WCInterceptor.class)) {
+                ioc.register(BeanDefinition.introspect(toLowerFirstCase(clazz.getSimpleName()), clazz));
+                continue;
+            }
+            //controller advice
+            if(clazz.isAnnotationPresent(WCControllerAdvice.class)) {
+                ioc.register(BeanDefinition.introspect(toLowerFirstCase(clazz.getSimpleName()), clazz));
+                continue;
+            }
+            //service，需要考虑：1.自定义beanName;2.controller以类型注入（接口名在登记时作为别名）
+            if(clazz.isAnnotationPresent(WCService.class)) {
+                WCService wcService = (WCService) clazz.getAnnotation(WCService.class);
+                String beanName = wcService.value();
+                if("".equals(beanName.trim())) {
+                    beanName = toLowerFirstCase(clazz.getSimpleName());
+                }
+                ioc.register(BeanDefinition.introspect(beanName, clazz));
             }
         }
     }
 
     /**
-     * 初始化类，并放入容器中
+     * 生成的索引通过它把bean和路由放入当前servlet的容器
      */
-    private void doInstance() {
-        if(classNames.isEmpty()) {return;}
+    private class ServletIndexRegistry implements IndexRegistry {
 
-        try{
-            for(String name : classNames) {
-                Class clazz = Class.forName(name);
-                //controller初始化
-                boolean isInitController = clazz.isAnnotationPresent(WCController.class);
-                if(isInitController) {
-                   String beanName = toLowerFirstCase(clazz.getSimpleName());
-                   Object instance = clazz.newInstance();
-                   ioc.put(beanName, instance);
-                   continue;
-                }
-                //service初始化，需要考虑：1.自定义beanName;2.controller以类型注入
-                boolean isInitService = clazz.isAnnotationPresent(WCService.class);
-                if(isInitService) {
-                    //自定义beanName
-                    WCService wcService = (WCService) clazz.getAnnotation(WCService.class);
-                    String beanName = wcService.value();
-                    if("".equals(beanName.trim())) {
-                        beanName = toLowerFirstCase(clazz.getSimpleName());
-                    }
-                    Object instance = clazz.newInstance();
-                    ioc.put(beanName, instance);
-                    //获取类的接口，将接口名字作为key，便于按类型注入
-                    for(Class i : clazz.getInterfaces()) {
-                        if(ioc.containsKey(i.getName())) {
-                            throw new Exception("The “" + i.getName() + "“ is exist!!");
-                        }
-                        ioc.put(i.getName(), instance);
-                    }
-                }
+        @Override
+        public void register(BeanDefinition definition) {
+            ioc.register(definition);
+        }
+
+        @Override
+        public Object bean(String beanName) {
+            return ioc.getBean(beanName);
+        }
 
+        @Override
+        public void route(String url, RequestMethod[] methods, Object instance, Class<?> type, String methodName,
+                          Class<?>[] parameterTypes, HandlerInvoker invoker) {
+            Method method;
+            try {
+                //只按签名取一个方法，绑定计划需要读取形参注解
+                method = type.getMethod(methodName, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Index is out of date, missing " + type.getName() + "." + methodName, e);
+            }
+            HandlerMethod handler;
+            try {
+                handler = reflectiveInvoker
+                        ? new HandlerMethod(url, instance, method, true)
+                        : new HandlerMethod(url, instance, method, invoker);
+            } catch (IllegalAccessException e) {
+                e.printStackTrace();
+                return ;
+            } catch (IllegalStateException e) {
+                //形参与路由不一致（例如路径变量未声明），带上路由和方法，初始化时直接看出是哪一条
+                throw new IllegalStateException("Cannot map " + url + " to " + type.getName() + "." + methodName
+                        + ": " + e.getMessage(), e);
+            }
+            registerHandler(url, methods, handler);
+            if(snapshot.get() == null) {
+                System.out.println("Mapped :" + url + method);
             }
-        }catch (Exception e){
-            e.printStackTrace();
         }
+    }
 
+    /**
+     * 注册路由，读取限流与并发隔离配置，启用指标时为处理器创建路由指标
+     */
+    private void registerHandler(String url, RequestMethod[] methods, HandlerMethod handler) {
+        handlerMapping.register(url, methods, handler);
+        routeCount++;
+        handler.setInterceptors(interceptorMappings.forRoute(url));
+        handler.setExceptionResolver(exceptionAdvice.forController(handler.getInstance()));
+        handler.getBindingPlan().setMaxBodyBytes(requestBodyMaxBytes);
+        handler.setLimiter(RouteLimiter.of(handler.getMethod(), url, contextConfig));
+        if(metrics != null) {
+            handler.setMetrics(metrics.route(url, methods, handler.getLimiter()));
+            routeMetrics.add(handler.getMetrics());
+        }
     }
 
     /**
@@ -292,29 +1002,16 @@ public class WCDispatcherServlet extends HttpServlet {
     }
 
     /**
-     * 扫描类
+     * 扫描类：支持目录和jar，只收集带有WCController、WCService、WCInterceptor或WCControllerAdvice的类，其余类不加载
      * @param scanPackage 扫描类的包路径
      */
     private void doScanner(String scanPackage) {
-        //根据扫描路径，获取类文件路径
-        URL url = this.getClass().getClassLoader()
-                .getResource("/" + scanPackage.replaceAll("\\.", "/"));
-        //获取所有类文件
-        if(null == url) {
-            return ;
-        }
-        File classPath = new File(url.getFile());
-        //遍历获取类的名字
-        for (File file1 : classPath.listFiles()) {
-            if (file1.isDirectory()) {
-                doScanner(scanPackage + "." + file1.getName());
-            } else {
-                if (!file1.getName().endsWith(".class")) {
-                    continue;
-                }
-                String className = file1.getName().replaceAll(".class", "");
-                classNames.add(scanPackage + "." + className);
-            }
+        ClassPathScanner scanner = new ClassPathScanner(classLoader, WCController.class, WCService.class,
+                WCInterceptor.class, WCControllerAdvice.class);
+        try {
+            classNames.addAll(scanner.scan(scanPackage));
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
         }
     }
 
@@ -0,0 +1,57 @@
+package com.gupaoedu.mvcframework.v2.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * 一次请求分发的JFR事件，事件本身的时长是整个请求，四个阶段的耗时作为字段；
+ * 默认关闭，由JFR配置开启(见wc-dispatch.jfc)，未开启时分发路径上只多一次isEnabled判断
+ * @since V1.0.0
+ */
+@Name("com.gupaoedu.wc.Dispatch")
+@Label("WC Dispatch")
+@Category({"WC MVC"})
+@Description("A request dispatched by WCDispatcherServlet with the time spent in each phase")
+@Enabled(false)
+@Threshold("0 ms")
+@StackTrace(false)
+final class DispatchEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("URI")
+    String uri;
+
+    //路由路径，没有匹配的路由时为null
+    @Label("Route")
+    String route;
+
+    @Label("Status")
+    int status;
+
+    @Label("Async")
+    boolean async;
+
+    @Label("Route Lookup")
+    @Timespan(Timespan.NANOSECONDS)
+    long routeLookup;
+
+    @Label("Parameter Mapping")
+    @Timespan(Timespan.NANOSECONDS)
+    long parameterMapping;
+
+    @Label("Invocation")
+    @Timespan(Timespan.NANOSECONDS)
+    long invocation;
+
+    @Label("Response Writing")
+    @Timespan(Timespan.NANOSECONDS)
+    long responseWriting;
+}
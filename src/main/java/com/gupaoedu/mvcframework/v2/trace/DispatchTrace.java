@@ -0,0 +1,137 @@
+package com.gupaoedu.mvcframework.v2.trace;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 一次请求的阶段计时，只为开启了JFR事件或被采样的请求创建：路由查找、参数绑定、方法调用、响应输出，
+ * 每个阶段结束时记一次System.nanoTime()，请求结束时提交JFR事件并写入环形缓冲区。
+ * <p>异步请求的后两个阶段在执行器线程上记录，结束时间取容器结束异步处理的时间。</p>
+ * @since V1.0.0
+ */
+public final class DispatchTrace {
+
+    private final HttpServletRequest request;
+
+    //开启了JFR事件时不为null
+    private final DispatchEvent event;
+
+    //被采样时不为null
+    private final TraceRing ring;
+
+    private final long start = System.nanoTime();
+
+    private String route;
+
+    //各阶段结束的时间，没有经过的阶段为0
+    private volatile long routed;
+
+    private volatile long bound;
+
+    private volatile long invoked;
+
+    private volatile long written;
+
+    DispatchTrace(HttpServletRequest request, DispatchEvent event, TraceRing ring) {
+        this.request = request;
+        this.event = event;
+        this.ring = ring;
+    }
+
+    /**
+     * 路由查找结束
+     * @param route 匹配到的路由路径，没有时为null
+     */
+    public void routed(String route) {
+        this.route = route;
+        this.routed = System.nanoTime();
+    }
+
+    /**
+     * 参数绑定结束
+     */
+    public void bound() {
+        this.bound = System.nanoTime();
+    }
+
+    /**
+     * 处理方法返回，或者返回的CompletionStage完成；只记第一次
+     */
+    public void invoked() {
+        if(invoked == 0) {
+            this.invoked = System.nanoTime();
+        }
+    }
+
+    /**
+     * 返回值写出完成
+     */
+    public void written() {
+        this.written = System.nanoTime();
+    }
+
+    /**
+     * 容器线程离开servlet时调用，异步请求等到异步处理结束
+     */
+    public void end(HttpServletRequest req, HttpServletResponse resp) {
+        if(!req.isAsyncStarted()) {
+            finish(resp.getStatus(), false);
+            return ;
+        }
+        req.getAsyncContext().addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent e) {
+                finish(resp.getStatus(), true);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent e) {
+            }
+
+            @Override
+            public void onError(AsyncEvent e) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent e) {
+            }
+        });
+    }
+
+    private void finish(int status, boolean async) {
+        long end = System.nanoTime();
+        long routeLookup = span(start, routed);
+        long parameterMapping = span(routed, bound);
+        long invocation = span(bound, invoked);
+        long responseWriting = span(invoked, written);
+        if(event != null) {
+            event.end();
+            if(event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.uri = request.getRequestURI();
+                event.route = route;
+                event.status = status;
+                event.async = async;
+                event.routeLookup = routeLookup;
+                event.parameterMapping = parameterMapping;
+                event.invocation = invocation;
+                event.responseWriting = responseWriting;
+                event.commit();
+            }
+        }
+        if(ring != null) {
+            ring.add(new TraceRecord(ring.nextSequence(), System.currentTimeMillis(), Thread.currentThread().getName(),
+                    request.getMethod(), request.getRequestURI(), route, status, async, end - start,
+                    routeLookup, parameterMapping, invocation, responseWriting));
+        }
+    }
+
+    /**
+     * 阶段没有开始或没有结束时为0
+     */
+    private static long span(long from, long to) {
+        return from == 0 || to == 0 ? 0 : to - from;
+    }
+}
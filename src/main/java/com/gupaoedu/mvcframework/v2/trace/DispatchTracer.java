@@ -0,0 +1,64 @@
+package com.gupaoedu.mvcframework.v2.trace;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 决定一次请求是否需要计时：JFR正在记录WC Dispatch事件，或者按traceSampleRate被采样进环形缓冲区；
+ * 两者都不需要时返回null，分发路径上只剩判空
+ * @since V1.0.0
+ */
+public final class DispatchTracer {
+
+    //JDK 8u262之前没有jdk.jfr，此时不创建事件，避免加载DispatchEvent
+    private static final boolean JFR_AVAILABLE = jfrAvailable();
+
+    //未启用采样时为null
+    private final TraceRing ring;
+
+    private final double sampleRate;
+
+    /**
+     * @param sampleRate 写入环形缓冲区的请求比例，0~1，0表示不采样
+     * @param ringSize 环形缓冲区的大小
+     */
+    public DispatchTracer(double sampleRate, int ringSize) {
+        this.sampleRate = Math.min(1, Math.max(0, sampleRate));
+        this.ring = this.sampleRate > 0 ? new TraceRing(ringSize) : null;
+    }
+
+    private static boolean jfrAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * 请求开始
+     * @return 不需要计时时为null
+     */
+    public DispatchTrace begin(HttpServletRequest req) {
+        DispatchEvent event = null;
+        if(JFR_AVAILABLE) {
+            event = new DispatchEvent();
+            if(event.isEnabled()) {
+                event.begin();
+            } else {
+                event = null;
+            }
+        }
+        boolean sampled = ring != null && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+        if(event == null && !sampled) {return null;}
+        return new DispatchTrace(req, event, sampled ? ring : null);
+    }
+
+    /**
+     * 未启用采样时为null
+     */
+    public TraceRing getRing() {
+        return ring;
+    }
+}
@@ -0,0 +1,107 @@
+package com.gupaoedu.mvcframework.v2.trace;
+
+/**
+ * 采样到的一次请求，按JSON输出在tracePath：
+ * {"sequence":12,"timestamp":1700000000000,"thread":"qtp-1","method":"GET","uri":"/demo/query","route":"/demo/query",
+ * "status":200,"async":false,"totalMicros":85,"routeLookupMicros":1,"parameterMappingMicros":3,"invocationMicros":70,"responseWritingMicros":6}，
+ * 没有经过的阶段为0
+ * @since V1.0.0
+ */
+public final class TraceRecord {
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final String thread;
+
+    private final String method;
+
+    private final String uri;
+
+    private final String route;
+
+    private final int status;
+
+    private final boolean async;
+
+    private final long totalMicros;
+
+    private final long routeLookupMicros;
+
+    private final long parameterMappingMicros;
+
+    private final long invocationMicros;
+
+    private final long responseWritingMicros;
+
+    TraceRecord(long sequence, long timestamp, String thread, String method, String uri, String route, int status,
+                boolean async, long totalNanos, long routeLookupNanos, long parameterMappingNanos,
+                long invocationNanos, long responseWritingNanos) {
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.thread = thread;
+        this.method = method;
+        this.uri = uri;
+        this.route = route;
+        this.status = status;
+        this.async = async;
+        this.totalMicros = totalNanos / 1000;
+        this.routeLookupMicros = routeLookupNanos / 1000;
+        this.parameterMappingMicros = parameterMappingNanos / 1000;
+        this.invocationMicros = invocationNanos / 1000;
+        this.responseWritingMicros = responseWritingNanos / 1000;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public long getTotalMicros() {
+        return totalMicros;
+    }
+
+    public long getRouteLookupMicros() {
+        return routeLookupMicros;
+    }
+
+    public long getParameterMappingMicros() {
+        return parameterMappingMicros;
+    }
+
+    public long getInvocationMicros() {
+        return invocationMicros;
+    }
+
+    public long getResponseWritingMicros() {
+        return responseWritingMicros;
+    }
+}
@@ -0,0 +1,57 @@
+package com.gupaoedu.mvcframework.v2.trace;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 固定大小的环形缓冲区，保存最近采样到的请求：写入时取一个序号，按序号覆盖最旧的槽位，不加锁；
+ * 读取时复制出当前所有记录，可能与并发的写入交错，只用于排查问题
+ * @since V1.0.0
+ */
+public final class TraceRing {
+
+    private final AtomicReferenceArray<TraceRecord> slots;
+
+    private final int mask;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param size 槽位数，向上取整为2的幂
+     */
+    public TraceRing(int size) {
+        int capacity = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(Math.max(2, capacity));
+        this.mask = slots.length() - 1;
+    }
+
+    long nextSequence() {
+        return sequence.getAndIncrement();
+    }
+
+    void add(TraceRecord record) {
+        slots.lazySet((int) (record.getSequence() & mask), record);
+    }
+
+    /**
+     * 最新的在前
+     */
+    public List<TraceRecord> snapshot() {
+        List<TraceRecord> records = new ArrayList<>(slots.length());
+        for(int i = 0; i < slots.length(); i++) {
+            TraceRecord record = slots.get(i);
+            if(record != null) {
+                records.add(record);
+            }
+        }
+        records.sort(Comparator.comparingLong(TraceRecord::getSequence).reversed());
+        return records;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}